@@ -0,0 +1,35 @@
+-- Create AdminDailyRollup table (record count and amount per day / entity type / status / fund type) for the admin dashboard
+-- Run this script in your PostgreSQL database
+-- No manual backfill needed: AdminRollupCompactor recomputes every day with data on the first startup
+-- (the row with "EntityType" = 'BACKFILL' marks the backfill as done), then the last days every night
+
+CREATE TABLE IF NOT EXISTS "AdminDailyRollup"
+(
+    "Day"        TIMESTAMPTZ    NOT NULL,
+    "EntityType" VARCHAR(20)    NOT NULL,
+    "Status"     VARCHAR(30)    NOT NULL,
+    "FundType"   VARCHAR(20)    NOT NULL,
+    "ItemCount"  BIGINT         NOT NULL DEFAULT 0,
+    "Amount"     NUMERIC(18, 2) NOT NULL DEFAULT 0,
+    "UpdatedAt"  TIMESTAMPTZ    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "Version"    BIGINT         NOT NULL DEFAULT 0,
+    CONSTRAINT pk_admindailyrollup PRIMARY KEY ("Day", "EntityType", "Status", "FundType")
+);
+
+CREATE INDEX IF NOT EXISTS ix_admindailyrollup_type_day ON "AdminDailyRollup" ("EntityType", "Day");
+
+-- Date columns used to filter dashboard statistics: the partial first/last day of a range
+-- and the nightly per-day recompute read only the rows of that day
+CREATE INDEX IF NOT EXISTS ix_ownershipgroup_created_at ON "OwnershipGroup" ("CreatedAt");
+CREATE INDEX IF NOT EXISTS ix_users_created_at ON "Users" ("CreatedAt");
+CREATE INDEX IF NOT EXISTS ix_usagebooking_start ON "UsageBooking" ("StartDateTime");
+CREATE INDEX IF NOT EXISTS ix_dispute_created_at ON "Dispute" ("CreatedAt");
+CREATE INDEX IF NOT EXISTS ix_incident_created_at ON "Incident" ("CreatedAt");
+CREATE INDEX IF NOT EXISTS ix_maintenance_request_date ON "Maintenance" ("RequestDate");
+CREATE INDEX IF NOT EXISTS ix_contract_created_at ON "Contract" ("CreatedAt");
+CREATE INDEX IF NOT EXISTS ix_expense_created_at ON "Expense" ("CreatedAt");
+CREATE INDEX IF NOT EXISTS ix_payment_payment_date ON "Payment" ("PaymentDate");
+
+-- Add comment
+COMMENT ON TABLE "AdminDailyRollup"
+    IS 'Admin dashboard counts and amounts per day, entity type, status and fund type; updated after each commit and recomputed nightly by AdminRollupCompactor';
@@ -0,0 +1,16 @@
+-- Add exclusion constraint preventing overlapping active bookings for the same vehicle
+-- Run this script in your PostgreSQL database
+-- Existing overlapping CONFIRMED / AWAITING_REVIEW / NEEDS_ATTENTION bookings must be resolved first,
+-- otherwise the ALTER TABLE fails and lists the conflicting rows
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE "UsageBooking"
+    ADD CONSTRAINT ex_usagebooking_vehicle_time EXCLUDE USING gist (
+        "VehicleId" WITH =,
+        tstzrange("StartDateTime", "EndDateTime", '[]') WITH &&
+    ) WHERE ("Status" IN ('CONFIRMED', 'AWAITING_REVIEW', 'NEEDS_ATTENTION'));
+
+-- Add comment
+COMMENT ON CONSTRAINT ex_usagebooking_vehicle_time ON "UsageBooking"
+    IS 'Rejects double-booking at INSERT/UPDATE time; mapped to BookingValidationException by BookingAdmissionService';
@@ -0,0 +1,23 @@
+-- Create UsageWeeklyCounter table (booked minutes per user / vehicle / ISO week) for quota checks
+-- Run this script in your PostgreSQL database
+-- No backfill needed: a missing counter is initialised from "UsageBooking" the first time it is locked
+
+CREATE TABLE IF NOT EXISTS "UsageWeeklyCounter"
+(
+    "UserId"        BIGINT      NOT NULL,
+    "VehicleId"     BIGINT      NOT NULL,
+    "WeekStart"     TIMESTAMPTZ NOT NULL,
+    "BookedMinutes" BIGINT      NOT NULL DEFAULT 0,
+    "UpdatedAt"     TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "Version"       BIGINT      NOT NULL DEFAULT 0,
+    CONSTRAINT pk_usageweeklycounter PRIMARY KEY ("UserId", "VehicleId", "WeekStart"),
+    CONSTRAINT fk_usageweeklycounter_user FOREIGN KEY ("UserId") REFERENCES "Users" ("UserId"),
+    CONSTRAINT fk_usageweeklycounter_vehicle FOREIGN KEY ("VehicleId") REFERENCES "Vehicle" ("VehicleId")
+);
+
+-- Create index for the nightly reconciliation scan
+CREATE INDEX IF NOT EXISTS ix_usageweeklycounter_week ON "UsageWeeklyCounter" ("WeekStart");
+
+-- Add comment
+COMMENT ON TABLE "UsageWeeklyCounter"
+    IS 'Minutes booked (non-cancelled bookings) per user, vehicle and ISO week; checked nightly by UsageCounterReconciler';
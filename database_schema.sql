@@ -5,7 +5,15 @@
 
 BEGIN;
 
+-- btree_gist: cho phép dùng cột scalar ("VehicleId" WITH =) trong exclusion constraint
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
 -- Clean existing objects (optional for local/dev refresh)
+DROP TABLE IF EXISTS "DepositRefundTask" CASCADE;
+DROP TABLE IF EXISTS "PaymentCallback" CASCADE;
+DROP TABLE IF EXISTS "FundJournal" CASCADE;
+DROP TABLE IF EXISTS "SharedFundBalanceSnapshot" CASCADE;
+DROP TABLE IF EXISTS "AdminDailyRollup" CASCADE;
 DROP TABLE IF EXISTS "VoteRecord" CASCADE;
 DROP TABLE IF EXISTS "Voting" CASCADE;
 DROP TABLE IF EXISTS "UserDocument" CASCADE;
@@ -16,6 +24,7 @@ DROP TABLE IF EXISTS "Expense" CASCADE;
 DROP TABLE IF EXISTS "Dispute" CASCADE;
 DROP TABLE IF EXISTS "Incident" CASCADE;
 DROP TABLE IF EXISTS "Maintenance" CASCADE;
+DROP TABLE IF EXISTS "UsageWeeklyCounter" CASCADE;
 DROP TABLE IF EXISTS "UsageBooking" CASCADE;
 DROP TABLE IF EXISTS "ContractFeedback" CASCADE;
 DROP TABLE IF EXISTS "Contract" CASCADE;
@@ -217,7 +226,28 @@ CREATE TABLE "UsageBooking"
     "CreatedAt"         TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP,
     "UpdatedAt"         TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP,
     CONSTRAINT fk_usagebooking_user FOREIGN KEY ("UserId") REFERENCES "Users" ("UserId"),
-    CONSTRAINT fk_usagebooking_vehicle FOREIGN KEY ("VehicleId") REFERENCES "Vehicle" ("VehicleId")
+    CONSTRAINT fk_usagebooking_vehicle FOREIGN KEY ("VehicleId") REFERENCES "Vehicle" ("VehicleId"),
+    -- Không cho 2 booking đang hiệu lực của cùng 1 xe trùng thời gian (khoảng đóng, giống rule của ứng dụng)
+    CONSTRAINT ex_usagebooking_vehicle_time EXCLUDE USING gist (
+        "VehicleId" WITH =,
+        tstzrange("StartDateTime", "EndDateTime", '[]') WITH &&
+    ) WHERE ("Status" IN ('CONFIRMED', 'AWAITING_REVIEW', 'NEEDS_ATTENTION'))
+);
+
+-- =============================================
+-- 10b) USAGE WEEKLY COUNTER (số phút đã đặt theo user/xe/tuần ISO, dùng cho quota)
+-- =============================================
+CREATE TABLE "UsageWeeklyCounter"
+(
+    "UserId"        BIGINT      NOT NULL,
+    "VehicleId"     BIGINT      NOT NULL,
+    "WeekStart"     TIMESTAMPTZ NOT NULL,
+    "BookedMinutes" BIGINT      NOT NULL DEFAULT 0,
+    "UpdatedAt"     TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "Version"       BIGINT      NOT NULL DEFAULT 0,
+    CONSTRAINT pk_usageweeklycounter PRIMARY KEY ("UserId", "VehicleId", "WeekStart"),
+    CONSTRAINT fk_usageweeklycounter_user FOREIGN KEY ("UserId") REFERENCES "Users" ("UserId"),
+    CONSTRAINT fk_usageweeklycounter_vehicle FOREIGN KEY ("VehicleId") REFERENCES "Vehicle" ("VehicleId")
 );
 
 -- =============================================
@@ -502,11 +532,76 @@ CREATE TABLE "FinancialReport"
     CONSTRAINT fk_finreport_user FOREIGN KEY ("GeneratedBy") REFERENCES "Users" ("UserId")
 );
 
+-- =============================================
+-- 24) ADMIN DAILY ROLLUP (số bản ghi / tổng tiền theo ngày cho Admin Dashboard)
+-- =============================================
+CREATE TABLE "AdminDailyRollup"
+(
+    "Day"        TIMESTAMPTZ    NOT NULL,
+    "EntityType" VARCHAR(20)    NOT NULL,
+    "Status"     VARCHAR(30)    NOT NULL,
+    "FundType"   VARCHAR(20)    NOT NULL,
+    "ItemCount"  BIGINT         NOT NULL DEFAULT 0,
+    "Amount"     NUMERIC(18, 2) NOT NULL DEFAULT 0,
+    "UpdatedAt"  TIMESTAMPTZ    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "Version"    BIGINT         NOT NULL DEFAULT 0,
+    CONSTRAINT pk_admindailyrollup PRIMARY KEY ("Day", "EntityType", "Status", "FundType")
+);
+
+CREATE TABLE "SharedFundBalanceSnapshot"
+(
+    "FundId"           BIGINT         NOT NULL,
+    "Day"              TIMESTAMPTZ    NOT NULL,
+    "OpeningBalance"   NUMERIC(15, 2) NOT NULL DEFAULT 0,
+    "ClosingBalance"   NUMERIC(15, 2) NOT NULL DEFAULT 0,
+    "TransactionCount" BIGINT         NOT NULL DEFAULT 0,
+    "UpdatedAt"        TIMESTAMPTZ    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_sharedfundbalancesnapshot PRIMARY KEY ("FundId", "Day"),
+    CONSTRAINT fk_sharedfundbalancesnapshot_fund FOREIGN KEY ("FundId") REFERENCES "SharedFund" ("FundId") ON DELETE CASCADE
+);
+
+CREATE TABLE "FundJournal"
+(
+    "EntryId"        BIGSERIAL PRIMARY KEY,
+    "FundId"         BIGINT         NOT NULL,
+    "Delta"          NUMERIC(15, 2) NOT NULL,
+    "SourceType"     VARCHAR(30)    NOT NULL,
+    "SourceId"       BIGINT,
+    "CreatedAt"      TIMESTAMPTZ    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "MaterializedAt" TIMESTAMPTZ,
+    CONSTRAINT fk_fundjournal_fund FOREIGN KEY ("FundId") REFERENCES "SharedFund" ("FundId") ON DELETE CASCADE
+);
+
+CREATE TABLE "PaymentCallback"
+(
+    "TxnRef"        VARCHAR(100) PRIMARY KEY,
+    "PaymentId"     BIGINT      NOT NULL,
+    "TransactionNo" VARCHAR(100),
+    "ReceivedAt"    TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_paymentcallback_payment FOREIGN KEY ("PaymentId") REFERENCES "Payment" ("PaymentId") ON DELETE CASCADE
+);
+
+CREATE TABLE "DepositRefundTask"
+(
+    "TaskId"        BIGSERIAL PRIMARY KEY,
+    "PaymentId"     BIGINT      NOT NULL UNIQUE,
+    "Status"        VARCHAR(20) NOT NULL DEFAULT 'PENDING' CHECK ("Status" IN ('PENDING', 'SENT', 'FAILED')),
+    "Attempts"      INTEGER     NOT NULL DEFAULT 0,
+    "NextAttemptAt" TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "LastError"     VARCHAR(500),
+    "CreatedAt"     TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "CompletedAt"   TIMESTAMPTZ,
+    CONSTRAINT fk_depositrefundtask_payment FOREIGN KEY ("PaymentId") REFERENCES "Payment" ("PaymentId") ON DELETE CASCADE
+);
+
 -- =============================================
 -- INDEXES
 -- =============================================
 CREATE INDEX IF NOT EXISTS ix_users_email ON "Users" ("Email");
 CREATE INDEX IF NOT EXISTS ix_users_role ON "Users" ("RoleId");
+CREATE INDEX IF NOT EXISTS ix_users_created_at ON "Users" ("CreatedAt");
+
+CREATE INDEX IF NOT EXISTS ix_ownershipgroup_created_at ON "OwnershipGroup" ("CreatedAt");
 
 CREATE INDEX IF NOT EXISTS ix_ownershipshare_group ON "OwnershipShare" ("GroupId");
 
@@ -519,6 +614,7 @@ CREATE INDEX IF NOT EXISTS ix_vehicleimages_type ON "VehicleImages" ("ImageType"
 CREATE INDEX IF NOT EXISTS ix_contract_status ON "Contract" ("ApprovalStatus");
 CREATE INDEX IF NOT EXISTS ix_contract_approver ON "Contract" ("ApprovedBy");
 CREATE INDEX IF NOT EXISTS ix_contract_group ON "Contract" ("GroupId");
+CREATE INDEX IF NOT EXISTS ix_contract_created_at ON "Contract" ("CreatedAt");
 
 CREATE INDEX IF NOT EXISTS ix_contractfeedback_contract ON "ContractFeedback" ("ContractId");
 CREATE INDEX IF NOT EXISTS ix_contractfeedback_user ON "ContractFeedback" ("UserId");
@@ -527,15 +623,19 @@ CREATE INDEX IF NOT EXISTS ix_usagebooking_user ON "UsageBooking" ("UserId");
 CREATE INDEX IF NOT EXISTS ix_usagebooking_vehicle ON "UsageBooking" ("VehicleId");
 CREATE INDEX IF NOT EXISTS ix_usagebooking_start ON "UsageBooking" ("StartDateTime");
 CREATE INDEX IF NOT EXISTS ix_usagebooking_status ON "UsageBooking" ("Status");
+CREATE INDEX IF NOT EXISTS ix_usagebooking_user_vehicle_start ON "UsageBooking" ("UserId", "VehicleId", "StartDateTime");
+CREATE INDEX IF NOT EXISTS ix_usageweeklycounter_week ON "UsageWeeklyCounter" ("WeekStart");
 
 CREATE INDEX IF NOT EXISTS ix_maintenance_vehicle ON "Maintenance" ("VehicleId");
 CREATE INDEX IF NOT EXISTS ix_maintenance_requested ON "Maintenance" ("RequestedBy");
 CREATE INDEX IF NOT EXISTS ix_maintenance_status ON "Maintenance" ("Status");
+CREATE INDEX IF NOT EXISTS ix_maintenance_request_date ON "Maintenance" ("RequestDate");
 
 CREATE INDEX IF NOT EXISTS ix_incident_booking ON "Incident" ("BookingId");
 CREATE INDEX IF NOT EXISTS ix_incident_user ON "Incident" ("UserId");
 CREATE INDEX IF NOT EXISTS ix_incident_approved ON "Incident" ("ApprovedBy");
 CREATE INDEX IF NOT EXISTS ix_incident_status ON "Incident" ("Status");
+CREATE INDEX IF NOT EXISTS ix_incident_created_at ON "Incident" ("CreatedAt");
 
 CREATE INDEX IF NOT EXISTS ix_dispute_group ON "Dispute" ("GroupId");
 CREATE INDEX IF NOT EXISTS ix_dispute_created ON "Dispute" ("CreatedBy");
@@ -546,11 +646,13 @@ CREATE INDEX IF NOT EXISTS ix_dispute_created_at ON "Dispute" ("CreatedAt");
 
 CREATE INDEX IF NOT EXISTS ix_expense_fund ON "Expense" ("FundId");
 CREATE INDEX IF NOT EXISTS ix_expense_source ON "Expense" ("SourceType", "SourceId");
+CREATE INDEX IF NOT EXISTS ix_expense_created_at ON "Expense" ("CreatedAt");
 
 CREATE INDEX IF NOT EXISTS ix_payment_payer ON "Payment" ("PayerUserId");
 CREATE INDEX IF NOT EXISTS ix_payment_fund ON "Payment" ("FundId");
 CREATE INDEX IF NOT EXISTS ix_payment_status ON "Payment" ("Status");
 CREATE INDEX IF NOT EXISTS ix_payment_maintenance ON "Payment" ("MaintenanceId");
+CREATE INDEX IF NOT EXISTS ix_payment_payment_date ON "Payment" ("PaymentDate");
 
 CREATE INDEX IF NOT EXISTS ix_notification_user ON "Notification" ("UserId");
 CREATE INDEX IF NOT EXISTS ix_notification_read ON "Notification" ("IsRead");
@@ -578,4 +680,12 @@ CREATE INDEX IF NOT EXISTS ix_financialreport_fund ON "FinancialReport" ("FundId
 CREATE INDEX IF NOT EXISTS ix_financialreport_generated ON "FinancialReport" ("GeneratedBy");
 CREATE INDEX IF NOT EXISTS ix_financialreport_period ON "FinancialReport" ("ReportYear", "ReportMonth");
 
+CREATE INDEX IF NOT EXISTS ix_admindailyrollup_type_day ON "AdminDailyRollup" ("EntityType", "Day");
+
+CREATE INDEX IF NOT EXISTS ix_fundjournal_fund_entry ON "FundJournal" ("FundId", "EntryId");
+CREATE INDEX IF NOT EXISTS ix_fundjournal_pending ON "FundJournal" ("EntryId")
+    WHERE "MaterializedAt" IS NULL;
+CREATE INDEX IF NOT EXISTS ix_depositrefundtask_due ON "DepositRefundTask" ("NextAttemptAt")
+    WHERE "Status" = 'PENDING';
+
 COMMIT;
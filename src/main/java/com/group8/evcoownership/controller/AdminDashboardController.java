@@ -2,7 +2,7 @@ package com.group8.evcoownership.controller;
 
 import com.group8.evcoownership.dto.DashboardChartDataDTO;
 import com.group8.evcoownership.dto.DashboardStatisticsDTO;
-import com.group8.evcoownership.service.AdminDashboardService;
+import com.group8.evcoownership.service.AdminDashboardCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -23,12 +23,12 @@ import java.time.LocalDateTime;
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminDashboardController {
 
-    private final AdminDashboardService dashboardService;
+    private final AdminDashboardCache dashboardCache;
 
     @GetMapping("/statistics")
     @Operation(
             summary = "[ADMIN] Thống kê tổng hợp",
-            description = "Lấy tất cả thống kê tổng hợp cho Admin Dashboard. Có thể lọc theo khoảng thời gian với query params from và to, và periodType (DAY/WEEK/MONTH) để tính revenue theo period."
+            description = "Lấy tất cả thống kê tổng hợp cho Admin Dashboard. Có thể lọc theo khoảng thời gian với query params from và to, và periodType (DAY/WEEK/MONTH/QUARTER/YEAR) để tính revenue theo period (period không có doanh thu = 0). Số liệu có thể lấy từ cache (xem generatedAt / cacheAgeSeconds)."
     )
     public ResponseEntity<DashboardStatisticsDTO> getDashboardStatistics(
             @RequestParam(required = false)
@@ -37,24 +37,19 @@ public class AdminDashboardController {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
             @RequestParam(required = false, defaultValue = "DAY") String periodType
     ) {
-        DashboardStatisticsDTO statistics;
-        if (from != null || to != null) {
-            statistics = dashboardService.getDashboardStatistics(from, to, periodType);
-        } else {
-            statistics = dashboardService.getDashboardStatistics();
-        }
+        DashboardStatisticsDTO statistics = dashboardCache.getStatistics(from, to, periodType);
         return ResponseEntity.ok(statistics);
     }
 
     @GetMapping("/chart-data")
     @Operation(
             summary = "[ADMIN] Dữ liệu biểu đồ",
-            description = "Lấy dữ liệu cho biểu đồ dashboard: revenue/expense theo tháng, bookings theo tháng, groups/users theo tháng. Mặc định 12 tháng gần nhất."
+            description = "Lấy dữ liệu cho biểu đồ dashboard: revenue/expense theo tháng, bookings theo tháng, groups/users theo tháng. Mặc định 12 tháng gần nhất. Số liệu có thể lấy từ cache (xem generatedAt / cacheAgeSeconds)."
     )
     public ResponseEntity<DashboardChartDataDTO> getChartData(
             @RequestParam(required = false, defaultValue = "12") Integer months
     ) {
-        DashboardChartDataDTO chartData = dashboardService.getChartData(months);
+        DashboardChartDataDTO chartData = dashboardCache.getChartData(months);
         return ResponseEntity.ok(chartData);
     }
 }
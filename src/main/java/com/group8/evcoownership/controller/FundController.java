@@ -1,8 +1,11 @@
 package com.group8.evcoownership.controller;
 
+import com.group8.evcoownership.dto.FundBalancePointDTO;
 import com.group8.evcoownership.dto.FundsSummaryDTO;
+import com.group8.evcoownership.dto.LedgerPageDTO;
 import com.group8.evcoownership.dto.SharedFundDTO;
 import com.group8.evcoownership.enums.FundType;
+import com.group8.evcoownership.service.FundBalanceSnapshotService;
 import com.group8.evcoownership.service.FundService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,7 +18,11 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -27,6 +34,7 @@ import java.util.List;
 public class FundController {
 
     private final FundService fundService;
+    private final FundBalanceSnapshotService balanceSnapshotService;
 
 //    //--------Create------
 //    // Api tao quy moi cho group (path) - targetAmount mặc định = 0
@@ -78,13 +86,18 @@ public class FundController {
 
         if (Boolean.TRUE.equals(export)) {
             // Export CSV
-            String csvContent = fundService.generateGroupLedgerCSV(groupId, fundType, from, to);
+            StringWriter csvContent = new StringWriter();
+            try {
+                fundService.writeGroupLedgerCSV(groupId, fundType, from, to, csvContent);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.TEXT_PLAIN);
             headers.setContentDispositionFormData("attachment", "ledger_group_" + groupId + ".csv");
             return ResponseEntity.ok()
                     .headers(headers)
-                    .body(csvContent);
+                    .body(csvContent.toString());
         }
 
         // Return JSON
@@ -92,18 +105,71 @@ public class FundController {
     }
 
 
-//    @GetMapping("/groups/{groupId}/ledger")
-//    @PreAuthorize("hasAnyRole('ADMIN','STAFF','CO_OWNER')")
-//    @Operation(summary = "FE lấy sổ quỹ (IN/OUT) theo nhóm",
-//            description = "Optional: fundType=OPERATING|DEPOSIT_RESERVE; from,to=yyyy-MM-dd")
-//    public List<LedgerRowDTO> getLedger(
-//            @PathVariable Long groupId,
-//            @RequestParam(required = false) FundType fundType,
-//            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
-//            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
-//        return fundService.getLedger(groupId, fundType, from, to);
-//    }
+    /**
+     * API: Sổ quỹ phân trang theo con trỏ (keyset)
+     * Trang sau: truyền nextCursor của trang trước vào ?cursor=
+     */
+    @GetMapping("/groups/{groupId}/ledger")
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF','CO_OWNER')")
+    @Operation(summary = "Sổ quỹ (IN/OUT) theo nhóm, phân trang theo con trỏ",
+            description = "Optional: fundType=OPERATING|DEPOSIT_RESERVE; from,to=yyyy-MM-dd; cursor = nextCursor của trang trước; size <= 200")
+    public LedgerPageDTO getLedgerPage(
+            @PathVariable Long groupId,
+            @RequestParam(required = false) FundType fundType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return fundService.getLedgerPage(groupId, fundType, from, to, cursor, size);
+    }
 
+    /**
+     * API: Xuất CSV sổ quỹ của nhóm, ghi thẳng từng trang vào response (chunked)
+     */
+    @GetMapping("/groups/{groupId}/ledger/export")
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF','CO_OWNER')")
+    @Operation(summary = "Xuất CSV sổ quỹ (stream)", description = "Cùng nội dung với ledger/summary?export=true nhưng không dựng cả file trong bộ nhớ")
+    public ResponseEntity<StreamingResponseBody> exportLedger(
+            @PathVariable Long groupId,
+            @RequestParam(required = false) FundType fundType,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            fundService.writeGroupLedgerCSV(groupId, fundType, from, to, writer);
+            writer.flush();
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        headers.setContentDispositionFormData("attachment", "ledger_group_" + groupId + ".csv");
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+
+    @GetMapping("/{fundId}/balance-at")
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF','CO_OWNER')")
+    @Operation(summary = "Số dư quỹ tại 1 ngày", description = "Số dư cuối ngày date=yyyy-MM-dd, lấy từ snapshot số dư theo ngày")
+    public FundBalancePointDTO getBalanceAt(
+            @PathVariable Long fundId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return balanceSnapshotService.getBalanceAt(fundId, date);
+    }
+
+    @GetMapping("/{fundId}/balance-history")
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF','CO_OWNER')")
+    @Operation(summary = "Biểu đồ số dư quỹ theo ngày", description = "Số dư cuối mỗi ngày trong [from, to] (yyyy-MM-dd), tối đa 366 ngày")
+    public List<FundBalancePointDTO> getBalanceHistory(
+            @PathVariable Long fundId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return balanceSnapshotService.getBalanceHistory(fundId, from, to);
+    }
 
     @GetMapping("/groups/{groupId}/all")
     @PreAuthorize("hasAnyRole('ADMIN','STAFF','CO_OWNER')")
@@ -21,7 +21,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -171,7 +176,7 @@ public class StaffController {
     @GetMapping("/financial-reports/export-all")
     @PreAuthorize("hasRole('STAFF') or hasRole('ADMIN')")
     @Operation(summary = "Xuất báo cáo tài chính tổng hợp", description = "Xuất báo cáo tài chính CSV cho tất cả các nhóm trong hệ thống")
-    public ResponseEntity<String> exportAllGroupsFinancialReport(
+    public ResponseEntity<StreamingResponseBody> exportAllGroupsFinancialReport(
             @RequestParam(required = false) FundType fundType,
             @RequestParam(required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
@@ -180,7 +185,12 @@ public class StaffController {
 
         log.info("Staff exporting financial reports for all groups - fundType: {}, from: {}, to: {}", fundType, from, to);
 
-        String csvContent = fundService.generateAllGroupsFinancialReportCSV(fundType, from, to);
+        // Ghi thẳng từng trang group vào response (chunked), không dựng cả báo cáo trong bộ nhớ
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            fundService.writeAllGroupsFinancialReportCSV(fundType, from, to, writer);
+            writer.flush();
+        };
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.TEXT_PLAIN);
@@ -189,7 +199,7 @@ public class StaffController {
 
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(csvContent);
+                .body(body);
     }
 
 }
@@ -1,20 +1,29 @@
 package com.group8.evcoownership.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.group8.evcoownership.dto.BulkBookingRequestDTO;
+import com.group8.evcoownership.dto.BulkBookingResponseDTO;
 import com.group8.evcoownership.dto.FlexibleBookingRequestDTO;
 import com.group8.evcoownership.dto.FlexibleBookingResponseDTO;
 import com.group8.evcoownership.dto.WeeklyCalendarResponseDTO;
 import com.group8.evcoownership.exception.ResourceNotFoundException;
 import com.group8.evcoownership.repository.UserRepository;
+import com.group8.evcoownership.service.BulkBookingService;
 import com.group8.evcoownership.service.WeeklyCalendarService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -26,7 +35,9 @@ import java.util.List;
 public class WeeklyCalendarController {
 
     private final WeeklyCalendarService weeklyCalendarService;
+    private final BulkBookingService bulkBookingService;
     private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/groups/{groupId}/weekly")
     @Operation(summary = "Lấy lịch tuần", description = "Hiển thị lịch tuần với các slot đã book và quota của user")
@@ -43,8 +54,40 @@ public class WeeklyCalendarController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(value = "/groups/{groupId}/weekly-range", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Lấy lịch nhiều tuần", description = "Trả về mảng JSON lịch của N tuần liên tiếp, stream từng tuần (chunked)")
+    @PreAuthorize("hasAnyRole('STAFF','ADMIN','CO_OWNER')")
+    public ResponseEntity<StreamingResponseBody> getWeeklyCalendarRange(
+            @PathVariable Long groupId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart,
+            @RequestParam(defaultValue = "4") int weeks,
+            @AuthenticationPrincipal String email) {
+
+        Long userId = getUserIdByEmail(email);
+
+        // Load dữ liệu trước khi stream để lỗi (nhóm/xe không tồn tại, số tuần sai) trả về mã lỗi bình thường
+        List<WeeklyCalendarService.VehicleCalendarRange> ranges =
+                List.of(weeklyCalendarService.loadCalendarRange(groupId, userId, weekStart, weeks));
+        return streamCalendars(ranges);
+    }
+
+    @GetMapping(value = "/my-vehicles/weekly-range", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Lấy lịch nhiều tuần của mọi xe", description = "Lịch N tuần cho mọi xe thuộc các nhóm của user, stream từng tuần (chunked)")
+    @PreAuthorize("hasAnyRole('STAFF','ADMIN','CO_OWNER')")
+    public ResponseEntity<StreamingResponseBody> getMyVehiclesCalendarRange(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart,
+            @RequestParam(defaultValue = "1") int weeks,
+            @AuthenticationPrincipal String email) {
+
+        Long userId = getUserIdByEmail(email);
+
+        List<WeeklyCalendarService.VehicleCalendarRange> ranges =
+                weeklyCalendarService.loadUserVehicleCalendarRanges(userId, weekStart, weeks);
+        return streamCalendars(ranges);
+    }
+
     @GetMapping("/groups/{groupId}/suggestions")
-    @Operation(summary = "Lấy gợi ý booking", description = "Gợi ý booking dựa trên quota và availability")
+    @Operation(summary = "Lấy gợi ý booking", description = "Gợi ý booking dựa trên quota và availability (đã có sẵn trong trường suggestions của lịch tuần)")
     @PreAuthorize("hasAnyRole('STAFF','ADMIN', 'CO_OWNER')")
     public ResponseEntity<List<String>> getBookingSuggestions(
             @PathVariable Long groupId,
@@ -73,6 +116,39 @@ public class WeeklyCalendarController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/bulk-booking")
+    @Operation(summary = "Tạo nhiều booking / booking định kỳ",
+            description = "Tạo nhiều booking trong 1 request (danh sách khung giờ và/hoặc lặp hàng tuần). "
+                    + "Khung giờ hợp lệ được tạo, khung giờ bị trùng / vượt quota được trả về trong conflicts")
+    @PreAuthorize("hasAnyRole('STAFF','ADMIN', 'CO_OWNER')")
+    public ResponseEntity<BulkBookingResponseDTO> createBulkBooking(
+            @RequestBody BulkBookingRequestDTO request,
+            @AuthenticationPrincipal String email
+    ) {
+        return ResponseEntity.ok(bulkBookingService.createBookings(request, email));
+    }
+
+    // Ghi mảng JSON, mỗi tuần được serialize và flush ngay => response chunked, bộ nhớ không tăng theo số tuần
+    private ResponseEntity<StreamingResponseBody> streamCalendars(List<WeeklyCalendarService.VehicleCalendarRange> ranges) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                weeklyCalendarService.streamCalendarRanges(ranges, calendar -> {
+                    try {
+                        generator.writeObject(calendar);
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     private Long getUserIdByEmail(String email) {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found for email: " + email))
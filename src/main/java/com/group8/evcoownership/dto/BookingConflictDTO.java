@@ -0,0 +1,15 @@
+package com.group8.evcoownership.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class BookingConflictDTO {
+    private LocalDateTime startDateTime;
+    private LocalDateTime endDateTime;
+    private String reason; // INVALID | OVERLAP | QUOTA_EXCEEDED
+    private String message;
+}
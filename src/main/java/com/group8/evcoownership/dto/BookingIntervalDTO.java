@@ -0,0 +1,17 @@
+package com.group8.evcoownership.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingIntervalDTO {
+    private LocalDateTime startDateTime;
+    private LocalDateTime endDateTime;
+}
@@ -0,0 +1,19 @@
+package com.group8.evcoownership.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Đặt nhiều booking 1 lần: danh sách khung giờ và/hoặc quy tắc lặp hàng tuần
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBookingRequestDTO {
+    private Long vehicleId;
+    private List<BookingIntervalDTO> intervals;
+    private WeeklyRecurrenceDTO recurrence;
+}
@@ -0,0 +1,15 @@
+package com.group8.evcoownership.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkBookingResponseDTO {
+    private int requested;
+    private int created;
+    private List<FlexibleBookingResponseDTO> bookings;
+    private List<BookingConflictDTO> conflicts;
+}
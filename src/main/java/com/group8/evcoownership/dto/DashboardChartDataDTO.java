@@ -6,12 +6,13 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class DashboardChartDataDTO {
     // Revenue/Expense theo tháng (cho biểu đồ)
     private List<MonthlyFinancialData> monthlyFinancials;
@@ -25,6 +26,10 @@ public class DashboardChartDataDTO {
     // Users theo tháng (số user mới đăng ký)
     private List<MonthlyUserData> monthlyUsers;
 
+    // Thời điểm tính số liệu và tuổi (giây) của bản cache lúc trả về => UI hiển thị "số liệu lúc ..."
+    private LocalDateTime generatedAt;
+    private Long cacheAgeSeconds;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -6,12 +6,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class DashboardStatisticsDTO {
 
     // Nested DTOs for better structure
@@ -104,7 +106,8 @@ public class DashboardStatisticsDTO {
     private Long totalFunds;
     private BigDecimal totalFundBalance;
 
-    // Revenue by period (DAY/WEEK/MONTH) - key format: "YYYY-MM-DD", "YYYY-WW", or "YYYY-MM"
+    // Revenue by period (DAY/WEEK/MONTH/QUARTER/YEAR) - key format: "YYYY-MM-DD", "YYYY-WW", "YYYY-MM", "YYYY-Qn", or "YYYY"
+    // Mọi period trong khoảng đều có key (không có doanh thu => 0)
     private Map<String, BigDecimal> revenueByPeriod;
 
     // Previous-period counters so FE can display trend (% vs last period)
@@ -113,4 +116,11 @@ public class DashboardStatisticsDTO {
     private Long previousTotalGroups;
     private Long previousTotalMaintenances;
     private Long previousTotalDisputes;
+
+    // Các phần không lấy được (quá hạn / lỗi) và đang trả giá trị mặc định, null nếu đầy đủ
+    private List<String> unavailableSections;
+
+    // Thời điểm tính số liệu và tuổi (giây) của bản cache lúc trả về => UI hiển thị "số liệu lúc ..."
+    private LocalDateTime generatedAt;
+    private Long cacheAgeSeconds;
 }
@@ -0,0 +1,11 @@
+package com.group8.evcoownership.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Số dư cuối ngày của 1 quỹ
+public record FundBalancePointDTO(
+        LocalDate date,
+        BigDecimal balance
+) {
+}
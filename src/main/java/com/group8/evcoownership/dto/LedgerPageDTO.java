@@ -0,0 +1,10 @@
+package com.group8.evcoownership.dto;
+
+import java.util.List;
+
+// 1 trang sổ quỹ (phân trang theo con trỏ)
+public record LedgerPageDTO(
+        List<LedgerRowDTO> rows,     // các dòng in/out, occurredAt giảm dần
+        String nextCursor            // truyền lại vào ?cursor= để lấy trang sau; null => hết dữ liệu
+) {
+}
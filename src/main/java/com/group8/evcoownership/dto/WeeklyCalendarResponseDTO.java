@@ -14,4 +14,6 @@ public class WeeklyCalendarResponseDTO {
     private UserQuotaResponseDTO userQuota;
     private List<DailySlotResponseDTO> dailySlots;
     private WeeklyCalendarDashboardDTO dashboardSummary;
-}
\ No newline at end of file
+    // Gợi ý booking (quota, khung giờ trống, ngày vắng, chia sẻ công bằng) tính từ chính lịch này
+    private List<String> suggestions;
+}
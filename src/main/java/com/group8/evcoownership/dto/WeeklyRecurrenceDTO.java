@@ -0,0 +1,20 @@
+package com.group8.evcoownership.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Lặp lại khung giờ [startDateTime, endDateTime] mỗi intervalWeeks tuần, tổng cộng occurrences lần
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WeeklyRecurrenceDTO {
+    private LocalDateTime startDateTime;
+    private LocalDateTime endDateTime;
+    private Integer occurrences;
+    private Integer intervalWeeks; // mặc định 1 (mỗi tuần)
+}
@@ -0,0 +1,46 @@
+package com.group8.evcoownership.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Số bản ghi và tổng tiền theo ngày / loại bản ghi / status / loại quỹ cho thống kê Admin Dashboard
+ * Được cộng dồn sau mỗi transaction ghi Payment, Expense, UsageBooking, Contract, Dispute... và tính lại mỗi đêm
+ * Thống kê theo khoảng ngày chỉ cần cộng các dòng rollup thay vì quét toàn bộ bảng nghiệp vụ
+ */
+@Entity
+@Table(name = "AdminDailyRollup")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdminDailyRollup {
+
+    @EmbeddedId
+    private AdminDailyRollupId id;
+
+    @Column(name = "ItemCount", nullable = false)
+    private Long itemCount;
+
+    @Column(name = "Amount", nullable = false, precision = 18, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "UpdatedAt", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Version
+    @Column(name = "Version")
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    public void onUpdate() {
+        if (itemCount == null) itemCount = 0L;
+        if (amount == null) amount = BigDecimal.ZERO;
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,37 @@
+package com.group8.evcoownership.entity;
+
+import com.group8.evcoownership.enums.RollupEntityType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class AdminDailyRollupId implements Serializable {
+
+    // 00:00 của ngày (theo ngày của cột thời gian dùng để lọc: CreatedAt, StartDateTime, PaymentDate...)
+    // Dùng timestamp như UsageWeeklyCounter.WeekStart
+    @Column(name = "Day", nullable = false)
+    private LocalDateTime day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "EntityType", length = 20, nullable = false)
+    private RollupEntityType entityType;
+
+    // Status của bản ghi ("UNKNOWN" nếu null), với USER_ROLE là tên role
+    @Column(name = "Status", length = 30, nullable = false)
+    private String status;
+
+    // Loại quỹ của payment / expense, "NONE" nếu không có
+    @Column(name = "FundType", length = 20, nullable = false)
+    private String fundType;
+}
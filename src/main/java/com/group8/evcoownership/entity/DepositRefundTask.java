@@ -0,0 +1,53 @@
+package com.group8.evcoownership.entity;
+
+import com.group8.evcoownership.enums.RefundTaskStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hàng đợi gọi API hoàn tiền VNPay cho các payment cọc đã được chuyển REFUNDED
+ * Dòng được INSERT cùng transaction với việc hoàn cọc của group => rollback thì không gọi VNPay
+ * DepositRefundWorker lấy các dòng PENDING đến hạn (NextAttemptAt), gọi VNPay ngoài transaction và thử lại theo backoff
+ */
+@Entity
+@Table(name = "DepositRefundTask", indexes = {
+        @Index(name = "ix_depositrefundtask_due", columnList = "Status, NextAttemptAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DepositRefundTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "TaskId", nullable = false)
+    private Long taskId;
+
+    // Mỗi payment chỉ được hoàn 1 lần
+    @Column(name = "PaymentId", nullable = false, unique = true)
+    private Long paymentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "Status", nullable = false, length = 20)
+    private RefundTaskStatus status;
+
+    @Column(name = "Attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "NextAttemptAt", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "LastError", length = 500)
+    private String lastError;
+
+    @Column(name = "CreatedAt", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Thời điểm SENT / FAILED
+    @Column(name = "CompletedAt")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,64 @@
+package com.group8.evcoownership.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Sổ nhật ký quỹ (chỉ INSERT): mỗi biến động số dư là 1 dòng delta (+ nạp, - chi) kèm nguồn phát sinh
+ * SharedFund.Balance = tổng các dòng đã materialize; dòng mới được FundJournalMaterializer cộng vào theo lô
+ * Số dư hiện tại = SharedFund.Balance + tổng delta chưa materialize (MaterializedAt null)
+ */
+@Entity
+@Table(name = "FundJournal", indexes = {
+        @Index(name = "ix_fundjournal_fund_entry", columnList = "FundId, EntryId"),
+        @Index(name = "ix_fundjournal_pending", columnList = "MaterializedAt, EntryId")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FundJournal {
+
+    // Nguồn phát sinh (SourceType)
+    public static final String SOURCE_PAYMENT = "PAYMENT";
+    public static final String SOURCE_PAYMENT_REFUND = "PAYMENT_REFUND";
+    // Hoàn cọc cả group: 1 dòng mỗi quỹ, SourceId là GroupId
+    public static final String SOURCE_GROUP_DEPOSIT_REFUND = "GROUP_DEPOSIT_REFUND";
+    public static final String SOURCE_DEPOSIT = "DEPOSIT";
+    public static final String SOURCE_TOP_UP = "TOP_UP";
+    public static final String SOURCE_EXPENSE = "EXPENSE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "EntryId", nullable = false)
+    private Long entryId;
+
+    @Column(name = "FundId", nullable = false)
+    private Long fundId;
+
+    @Column(name = "Delta", nullable = false, precision = 15, scale = 2)
+    private BigDecimal delta;
+
+    // SOURCE_* ở trên, SourceId là id của Payment / Expense tương ứng
+    @Column(name = "SourceType", nullable = false, length = 30)
+    private String sourceType;
+
+    @Column(name = "SourceId")
+    private Long sourceId;
+
+    @Column(name = "CreatedAt", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // null => chưa cộng vào SharedFund.Balance
+    @Column(name = "MaterializedAt")
+    private LocalDateTime materializedAt;
+
+    @PrePersist
+    public void onCreate() {
+        if (createdAt == null) createdAt = LocalDateTime.now();
+    }
+}
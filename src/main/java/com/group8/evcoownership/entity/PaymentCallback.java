@@ -0,0 +1,34 @@
+package com.group8.evcoownership.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bảng idempotency cho callback VNPay: mỗi txnRef chỉ được xử lý 1 lần
+ * Dòng được INSERT cùng transaction với việc chốt Payment + cộng quỹ => transaction rollback thì callback sau được xử lý lại
+ * VNPay gọi lại / IPN và return URL cùng về: INSERT trùng khóa => bỏ qua, không đọc - sửa Payment
+ */
+@Entity
+@Table(name = "PaymentCallback")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentCallback {
+
+    @Id
+    @Column(name = "TxnRef", nullable = false, length = 100)
+    private String txnRef;
+
+    @Column(name = "PaymentId", nullable = false)
+    private Long paymentId;
+
+    @Column(name = "TransactionNo", length = 100)
+    private String transactionNo;
+
+    @Column(name = "ReceivedAt", nullable = false)
+    private LocalDateTime receivedAt;
+}
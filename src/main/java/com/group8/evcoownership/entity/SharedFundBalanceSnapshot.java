@@ -0,0 +1,46 @@
+package com.group8.evcoownership.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Số dư đầu / cuối ngày của 1 quỹ, chỉ có dòng cho ngày có biến động số dư
+ * Được ghi cùng transaction cộng FundJournal vào số dư quỹ (FundJournalMaterializer)
+ * Số dư tại 1 ngày = ClosingBalance của snapshot gần nhất trước đó, không cần cộng lại Payment / Expense
+ */
+@Entity
+@Table(name = "SharedFundBalanceSnapshot")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SharedFundBalanceSnapshot {
+
+    @EmbeddedId
+    private SharedFundBalanceSnapshotId id;
+
+    // Số dư trước biến động đầu tiên trong ngày
+    @Column(name = "OpeningBalance", nullable = false, precision = 15, scale = 2)
+    private BigDecimal openingBalance;
+
+    // Số dư sau biến động cuối cùng trong ngày
+    @Column(name = "ClosingBalance", nullable = false, precision = 15, scale = 2)
+    private BigDecimal closingBalance;
+
+    @Column(name = "TransactionCount", nullable = false)
+    private Long transactionCount;
+
+    @Column(name = "UpdatedAt", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void onUpdate() {
+        if (transactionCount == null) transactionCount = 0L;
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,25 @@
+package com.group8.evcoownership.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class SharedFundBalanceSnapshotId implements Serializable {
+
+    @Column(name = "FundId", nullable = false)
+    private Long fundId;
+
+    // 00:00 của ngày có biến động số dư
+    // Dùng timestamp như các cột thời gian khác (cột DATE bị lệch ngày khi đọc với hibernate.jdbc.time_zone)
+    @Column(name = "Day", nullable = false)
+    private LocalDateTime day;
+}
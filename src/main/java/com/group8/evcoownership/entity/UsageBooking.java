@@ -16,7 +16,10 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "UsageBooking")
+@Table(name = "UsageBooking",
+        indexes = {
+                @Index(name = "ix_usagebooking_user_vehicle_start", columnList = "UserId,VehicleId,StartDateTime")
+        })
 public class UsageBooking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
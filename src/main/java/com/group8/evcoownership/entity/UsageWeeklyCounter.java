@@ -0,0 +1,42 @@
+package com.group8.evcoownership.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tổng số phút user đã đặt một xe trong một tuần ISO (booking chưa bị hủy)
+ * Được cập nhật cùng transaction với booking để kiểm tra quota chỉ cần đọc theo khóa chính
+ */
+@Entity
+@Table(name = "UsageWeeklyCounter", indexes = {
+        @Index(name = "ix_usageweeklycounter_week", columnList = "WeekStart")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UsageWeeklyCounter {
+
+    @EmbeddedId
+    private UsageWeeklyCounterId id;
+
+    @Column(name = "BookedMinutes", nullable = false)
+    private Long bookedMinutes;
+
+    @Column(name = "UpdatedAt", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Version
+    @Column(name = "Version")
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    public void onUpdate() {
+        if (bookedMinutes == null) bookedMinutes = 0L;
+        updatedAt = LocalDateTime.now();
+    }
+}
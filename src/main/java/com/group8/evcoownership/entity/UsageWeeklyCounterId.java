@@ -0,0 +1,28 @@
+package com.group8.evcoownership.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class UsageWeeklyCounterId implements Serializable {
+
+    @Column(name = "UserId", nullable = false)
+    private Long userId;
+
+    @Column(name = "VehicleId", nullable = false)
+    private Long vehicleId;
+
+    // 00:00 thứ 2 của tuần ISO chứa StartDateTime của booking
+    // Dùng timestamp như các cột thời gian khác (cột DATE bị lệch ngày khi đọc với hibernate.jdbc.time_zone)
+    @Column(name = "WeekStart", nullable = false)
+    private LocalDateTime weekStart;
+}
@@ -0,0 +1,7 @@
+package com.group8.evcoownership.enums;
+
+public enum RefundTaskStatus {
+    PENDING,    // Chờ gọi / gọi lại API hoàn tiền
+    SENT,       // VNPay đã nhận yêu cầu hoàn tiền
+    FAILED      // Hết số lần thử, cần xử lý thủ công
+}
@@ -0,0 +1,20 @@
+package com.group8.evcoownership.enums;
+
+/**
+ * Loại bản ghi được tổng hợp theo ngày trong AdminDailyRollup
+ */
+public enum RollupEntityType {
+    GROUP,
+    USER,
+    // Status của dòng USER_ROLE là tên role
+    USER_ROLE,
+    BOOKING,
+    DISPUTE,
+    INCIDENT,
+    MAINTENANCE,
+    CONTRACT,
+    EXPENSE,
+    PAYMENT,
+    // Dòng đánh dấu backfill đã chạy xong (không phải số liệu)
+    BACKFILL
+}
@@ -0,0 +1,66 @@
+package com.group8.evcoownership.repository;
+
+import com.group8.evcoownership.entity.AdminDailyRollup;
+import com.group8.evcoownership.entity.AdminDailyRollupId;
+import com.group8.evcoownership.enums.RollupEntityType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AdminDailyRollupRepository extends JpaRepository<AdminDailyRollup, AdminDailyRollupId> {
+
+    // Cộng dồn trực tiếp trong database (không đọc dòng trước) => các transaction đồng thời không ghi đè nhau
+    // return số dòng được cập nhật (0 => dòng chưa tồn tại)
+    @Modifying
+    @Query("""
+            update AdminDailyRollup r
+            set r.itemCount = r.itemCount + :count,
+                r.amount = r.amount + :amount,
+                r.updatedAt = :now,
+                r.version = r.version + 1
+            where r.id.day = :day
+              and r.id.entityType = :entityType
+              and r.id.status = :status
+              and r.id.fundType = :fundType
+            """)
+    int increment(@Param("day") LocalDateTime day,
+                  @Param("entityType") RollupEntityType entityType,
+                  @Param("status") String status,
+                  @Param("fundType") String fundType,
+                  @Param("count") long count,
+                  @Param("amount") BigDecimal amount,
+                  @Param("now") LocalDateTime now);
+
+    // Xóa số liệu của 1 ngày trước khi ghi lại (job tính lại rollup)
+    @Modifying
+    @Query("""
+            delete from AdminDailyRollup r
+            where r.id.day = :day
+              and r.id.entityType <> com.group8.evcoownership.enums.RollupEntityType.BACKFILL
+            """)
+    int deleteByDay(@Param("day") LocalDateTime day);
+
+    /**
+     * Cộng các dòng rollup có ngày trong [fromDay, toDay), entityType null => mọi loại
+     * Mỗi dòng: [entityType, status, fundType, sum(itemCount), sum(amount)]
+     */
+    @Query("""
+            select r.id.entityType, r.id.status, r.id.fundType, sum(r.itemCount), sum(r.amount)
+            from AdminDailyRollup r
+            where (:entityType is null or r.id.entityType = :entityType)
+              and r.id.day >= :fromDay
+              and r.id.day < :toDay
+              and r.id.entityType <> com.group8.evcoownership.enums.RollupEntityType.BACKFILL
+            group by r.id.entityType, r.id.status, r.id.fundType
+            """)
+    List<Object[]> sumBetween(@Param("entityType") RollupEntityType entityType,
+                              @Param("fromDay") LocalDateTime fromDay,
+                              @Param("toDay") LocalDateTime toDay);
+}
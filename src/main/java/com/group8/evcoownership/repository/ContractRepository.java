@@ -5,8 +5,10 @@ import com.group8.evcoownership.entity.OwnershipGroup;
 import com.group8.evcoownership.enums.ContractApprovalStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,4 +37,17 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
     List<Contract> findAllByGroup_GroupId(Long groupId);
 
     List<Contract> findByApprovalStatusIn(List<ContractApprovalStatus> statuses);
+
+    /**
+     * Thống kê dashboard: số contract theo trạng thái duyệt (lọc theo createdAt)
+     * Mỗi dòng: [status, count]; from/to null => không lọc
+     */
+    @Query("""
+            select c.approvalStatus, count(c)
+            from Contract c
+            where (:from is null or c.createdAt >= :from)
+              and (:to is null or c.createdAt <= :to)
+            group by c.approvalStatus
+            """)
+    List<Object[]> countByApprovalStatusCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
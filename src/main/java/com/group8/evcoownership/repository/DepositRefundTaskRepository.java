@@ -0,0 +1,80 @@
+package com.group8.evcoownership.repository;
+
+import com.group8.evcoownership.entity.DepositRefundTask;
+import com.group8.evcoownership.enums.RefundTaskStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DepositRefundTaskRepository extends JpaRepository<DepositRefundTask, Long> {
+
+    /**
+     * Đưa các payment vào hàng đợi hoàn tiền bằng 1 câu INSERT ... SELECT (không phụ thuộc số payment)
+     */
+    @Modifying
+    @Query(value = """
+                INSERT INTO "DepositRefundTask" ("PaymentId", "Status", "Attempts", "NextAttemptAt", "CreatedAt")
+                SELECT p."PaymentId", 'PENDING', 0, :now, :now
+                FROM "Payment" p
+                WHERE p."PaymentId" IN (:paymentIds)
+            """, nativeQuery = true)
+    int enqueue(@Param("paymentIds") Collection<Long> paymentIds,
+                @Param("now") LocalDateTime now);
+
+    @Query("""
+                SELECT t
+                FROM DepositRefundTask t
+                WHERE t.status = com.group8.evcoownership.enums.RefundTaskStatus.PENDING
+                  AND t.nextAttemptAt <= :now
+                ORDER BY t.nextAttemptAt, t.taskId
+            """)
+    List<DepositRefundTask> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Giữ task trong lúc gọi VNPay: dời NextAttemptAt tới leaseUntil nếu task vẫn PENDING, đến hạn và chưa bị thử thêm lần nào
+     * return 0 => instance khác vừa lấy task này
+     */
+    @Modifying
+    @Query("""
+                UPDATE DepositRefundTask t
+                SET t.nextAttemptAt = :leaseUntil
+                WHERE t.taskId = :taskId
+                  AND t.status = com.group8.evcoownership.enums.RefundTaskStatus.PENDING
+                  AND t.attempts = :attempts
+                  AND t.nextAttemptAt <= :now
+            """)
+    int lease(@Param("taskId") Long taskId,
+              @Param("attempts") int attempts,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Ghi kết quả 1 lần gọi VNPay
+     */
+    @Modifying
+    @Query("""
+                UPDATE DepositRefundTask t
+                SET t.status = :status,
+                    t.attempts = :attempts,
+                    t.nextAttemptAt = :nextAttemptAt,
+                    t.lastError = :lastError,
+                    t.completedAt = :completedAt
+                WHERE t.taskId = :taskId
+            """)
+    int recordAttempt(@Param("taskId") Long taskId,
+                      @Param("status") RefundTaskStatus status,
+                      @Param("attempts") int attempts,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("lastError") String lastError,
+                      @Param("completedAt") LocalDateTime completedAt);
+
+    List<DepositRefundTask> findByPaymentIdIn(Collection<Long> paymentIds);
+}
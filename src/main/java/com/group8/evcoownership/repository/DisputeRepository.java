@@ -66,6 +66,17 @@ public interface DisputeRepository extends JpaRepository<Dispute, Long> {
             @Param("to") LocalDateTime to,
             Pageable pageable
     );
-}
-
 
+    /**
+     * Thống kê dashboard: số dispute theo status (lọc theo createdAt)
+     * Mỗi dòng: [status, count]; from/to null => không lọc
+     */
+    @Query("""
+            select d.status, count(d)
+            from Dispute d
+            where (:from is null or d.createdAt >= :from)
+              and (:to is null or d.createdAt <= :to)
+            group by d.status
+            """)
+    List<Object[]> countByStatusCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -76,4 +77,51 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
                               @Param("from") LocalDateTime from,
                               @Param("to") LocalDateTime to);
 
+    /**
+     * Thống kê dashboard: số expense và tổng tiền theo status và loại quỹ (lọc theo createdAt)
+     * Mỗi dòng: [status, fundType, count, sum(amount)]; from/to null => không lọc
+     */
+    @Query("""
+            select e.status, f.fundType, count(e), coalesce(sum(e.amount), 0)
+            from Expense e
+            left join e.fund f
+            where (:from is null or e.createdAt >= :from)
+              and (:to is null or e.createdAt <= :to)
+            group by e.status, f.fundType
+            """)
+    List<Object[]> countAndSumByStatusAndFundTypeCreatedBetween(@Param("from") LocalDateTime from,
+                                                                @Param("to") LocalDateTime to);
+
+    /**
+     * Biểu đồ dashboard: tổng tiền expense theo tháng tạo trong [from, to)
+     * Mỗi dòng: [year, month, sum(amount)]
+     */
+    @Query("""
+            select year(e.createdAt), month(e.createdAt), coalesce(sum(e.amount), 0)
+            from Expense e
+            where e.createdAt >= :from
+              and e.createdAt < :to
+            group by year(e.createdAt), month(e.createdAt)
+            """)
+    List<Object[]> sumByMonth(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Báo cáo tài chính tất cả group: tổng chi (giống sumApprovedOut) của 1 trang group, 1 query cho cả trang
+     * Mỗi dòng: [groupId, sum(amount)]; group không có expense không có dòng
+     */
+    @Query("""
+            select f.group.groupId, coalesce(sum(e.amount), 0)
+            from Expense e
+            join e.fund f
+            where f.group.groupId in :groupIds
+              and (:fundType is null or f.fundType = :fundType)
+              and e.status = 'COMPLETED'
+              and (:from is null or e.expenseDate >= :from)
+              and (:to   is null or e.expenseDate <  :to)
+            group by f.group.groupId
+            """)
+    List<Object[]> sumApprovedOutByGroups(@Param("groupIds") Collection<Long> groupIds,
+                                          @Param("fundType") FundType fundType,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to);
 }
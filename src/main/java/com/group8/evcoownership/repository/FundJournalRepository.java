@@ -0,0 +1,31 @@
+package com.group8.evcoownership.repository;
+
+import com.group8.evcoownership.entity.FundJournal;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FundJournalRepository extends JpaRepository<FundJournal, Long> {
+
+    // Tổng delta chưa materialize của 1 quỹ (số dư hiện tại = Balance + tổng này)
+    @Query("select coalesce(sum(j.delta), 0) from FundJournal j where j.fundId = :fundId and j.materializedAt is null")
+    BigDecimal sumPendingByFund(@Param("fundId") Long fundId);
+
+    // Lô dòng chưa materialize, theo thứ tự ghi
+    @Query("select j from FundJournal j where j.materializedAt is null order by j.entryId")
+    List<FundJournal> findPendingBatch(Pageable pageable);
+
+    // Đánh dấu đã materialize; chỉ dòng còn pending => số dòng < ids.size() nghĩa là đã bị materialize ở nơi khác
+    @Modifying
+    @Query("update FundJournal j set j.materializedAt = :now where j.entryId in :ids and j.materializedAt is null")
+    int markMaterialized(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+}
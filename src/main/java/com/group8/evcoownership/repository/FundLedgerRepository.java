@@ -0,0 +1,137 @@
+package com.group8.evcoownership.repository;
+
+import com.group8.evcoownership.enums.FundType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Sổ quỹ của 1 group: dòng IN (Payment COMPLETED) và OUT (Expense) được gộp trong database bằng UNION ALL
+ * - Thứ tự: occurredAt giảm dần, cùng thời điểm thì IN trước OUT, rồi id giảm dần (thứ tự toàn phần => phân trang keyset)
+ * - Mỗi trang chỉ đọc "limit" dòng sau con trỏ, không phụ thuộc số dòng trong khoảng
+ * Timestamp được đọc / ghi theo cùng múi giờ với hibernate.jdbc.time_zone để khớp dữ liệu do JPA ghi
+ */
+@Repository
+public class FundLedgerRepository {
+
+    private static final String PAGE_SQL = """
+            SELECT l.* FROM (
+                SELECT CAST('IN' AS VARCHAR(3)) AS "Direction", p."PaymentId" AS "EntryId",
+                       f."FundId" AS "FundId", f."FundType" AS "FundType", p."PayerUserId" AS "UserId",
+                       p."Amount" AS "Amount", p."PaidAt" AS "OccurredAt",
+                       u."FullName" AS "FullName", u."Email" AS "Email", r."RoleName" AS "RoleName",
+                       CAST(NULL AS VARCHAR(30)) AS "SourceType", CAST(NULL AS VARCHAR(255)) AS "Description"
+                FROM "Payment" p
+                JOIN "SharedFund" f ON f."FundId" = p."FundId"
+                LEFT JOIN "Users" u ON u."UserId" = p."PayerUserId"
+                LEFT JOIN "Roles" r ON r."RoleId" = u."RoleId"
+                WHERE f."GroupId" = ?
+                  AND (? = '' OR CAST(f."FundType" AS VARCHAR(20)) = ?)
+                  AND p."Status" = 'COMPLETED'
+                  AND p."PaidAt" BETWEEN ? AND ?
+                UNION ALL
+                SELECT CAST('OUT' AS VARCHAR(3)), e."ExpenseId",
+                       f."FundId", f."FundType", e."RecipientUserId",
+                       e."Amount", COALESCE(e."ExpenseDate", e."UpdatedAt"),
+                       NULL, NULL, NULL,
+                       e."SourceType", e."Description"
+                FROM "Expense" e
+                JOIN "SharedFund" f ON f."FundId" = e."FundId"
+                WHERE f."GroupId" = ?
+                  AND (? = '' OR CAST(f."FundType" AS VARCHAR(20)) = ?)
+                  AND e."ExpenseDate" BETWEEN ? AND ?
+            ) l
+            WHERE l."OccurredAt" < ?
+               OR (l."OccurredAt" = ? AND (l."Direction" > ? OR (l."Direction" = ? AND l."EntryId" < ?)))
+            ORDER BY l."OccurredAt" DESC, l."Direction" ASC, l."EntryId" DESC
+            LIMIT ?
+            """;
+
+    // Con trỏ trước dòng đầu tiên (mọi dòng đều "sau" nó)
+    public static final Cursor START = new Cursor(LocalDateTime.of(9999, 12, 31, 0, 0), "", Long.MAX_VALUE);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TimeZone jdbcTimeZone;
+
+    public FundLedgerRepository(JdbcTemplate jdbcTemplate,
+                                @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}") String jdbcTimeZone) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcTimeZone = jdbcTimeZone.isBlank() ? TimeZone.getDefault() : TimeZone.getTimeZone(jdbcTimeZone);
+    }
+
+    /**
+     * Vị trí của 1 dòng sổ quỹ trong thứ tự sắp xếp (trang sau bắt đầu ngay sau dòng này)
+     */
+    public record Cursor(LocalDateTime occurredAt, String direction, Long entryId) {
+    }
+
+    /**
+     * 1 dòng sổ quỹ chưa map sang LedgerRowDTO
+     * IN: fullName / email / roleName của người nạp; OUT: sourceType / description của expense
+     */
+    public record Entry(String direction, Long entryId, Long fundId, FundType fundType, Long userId,
+                        BigDecimal amount, LocalDateTime occurredAt,
+                        String fullName, String email, String roleName,
+                        String sourceType, String description) {
+
+        public Cursor cursor() {
+            return new Cursor(occurredAt, direction, entryId);
+        }
+    }
+
+    /**
+     * Tối đa limit dòng sau con trỏ trong [from, to], fundType null => cả 2 quỹ
+     */
+    public List<Entry> findPage(Long groupId, FundType fundType, LocalDateTime from, LocalDateTime to,
+                                Cursor after, int limit) {
+        String type = fundType != null ? fundType.name() : "";
+        return jdbcTemplate.query(PAGE_SQL, ps -> {
+            int i = 1;
+            for (int branch = 0; branch < 2; branch++) {
+                ps.setLong(i++, groupId);
+                ps.setString(i++, type);
+                ps.setString(i++, type);
+                ps.setTimestamp(i++, Timestamp.valueOf(from), calendar());
+                ps.setTimestamp(i++, Timestamp.valueOf(to), calendar());
+            }
+            ps.setTimestamp(i++, Timestamp.valueOf(after.occurredAt()), calendar());
+            ps.setTimestamp(i++, Timestamp.valueOf(after.occurredAt()), calendar());
+            ps.setString(i++, after.direction());
+            ps.setString(i++, after.direction());
+            ps.setLong(i++, after.entryId());
+            ps.setInt(i, limit);
+        }, (rs, rowNum) -> mapEntry(rs));
+    }
+
+    private Entry mapEntry(ResultSet rs) throws SQLException {
+        Timestamp occurredAt = rs.getTimestamp("OccurredAt", calendar());
+        long userId = rs.getLong("UserId");
+        boolean noUser = rs.wasNull();
+        return new Entry(
+                rs.getString("Direction"),
+                rs.getLong("EntryId"),
+                rs.getLong("FundId"),
+                FundType.valueOf(rs.getString("FundType")),
+                noUser ? null : userId,
+                rs.getBigDecimal("Amount"),
+                occurredAt != null ? occurredAt.toLocalDateTime() : null,
+                rs.getString("FullName"),
+                rs.getString("Email"),
+                rs.getString("RoleName"),
+                rs.getString("SourceType"),
+                rs.getString("Description"));
+    }
+
+    private Calendar calendar() {
+        return Calendar.getInstance(jdbcTimeZone);
+    }
+}
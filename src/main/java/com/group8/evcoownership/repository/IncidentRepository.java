@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -44,5 +45,17 @@ public interface IncidentRepository extends JpaRepository<Incident, Long> {
             @Param("endDate") String endDate,
             Pageable pageable
     );
-}
 
+    /**
+     * Thống kê dashboard: số incident theo status (lọc theo createdAt)
+     * Mỗi dòng: [status, count]; from/to null => không lọc
+     */
+    @Query("""
+            select i.status, count(i)
+            from Incident i
+            where (:from is null or i.createdAt >= :from)
+              and (:to is null or i.createdAt <= :to)
+            group by i.status
+            """)
+    List<Object[]> countByStatusCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -91,7 +92,16 @@ public interface MaintenanceRepository extends JpaRepository<Maintenance, Long>
 
     List<Maintenance> findByCoverageTypeAndRequestedBy_UserIdOrderByRequestDateDesc(MaintenanceCoverageType coverageType, Long requestedByUserId);
 
+    /**
+     * Thống kê dashboard: số maintenance theo status (lọc theo requestDate)
+     * Mỗi dòng: [status, count]; from/to null => không lọc
+     */
+    @Query("""
+            select m.status, count(m)
+            from Maintenance m
+            where (:from is null or m.requestDate >= :from)
+              and (:to is null or m.requestDate <= :to)
+            group by m.status
+            """)
+    List<Object[]> countByStatusRequestedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
-
-
-
@@ -60,5 +60,54 @@ public interface OwnershipGroupRepository extends JpaRepository<OwnershipGroup,
             """)
     List<OwnershipGroup> findByMembersUserId(@Param("userId") Long userId);
 
+    /**
+     * Thống kê dashboard: số group theo status (lọc theo createdAt)
+     * Mỗi dòng: [status, count]; from/to null => không lọc
+     */
+    @Query("""
+            select g.status, count(g)
+            from OwnershipGroup g
+            where (:from is null or g.createdAt >= :from)
+              and (:to is null or g.createdAt <= :to)
+            group by g.status
+            """)
+    List<Object[]> countByStatusCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Biểu đồ dashboard: số group mới theo tháng tạo trong [from, to)
+     * Mỗi dòng: [year, month, count]
+     */
+    @Query("""
+            select year(g.createdAt), month(g.createdAt), count(g)
+            from OwnershipGroup g
+            where g.createdAt >= :from
+              and g.createdAt < :to
+            group by year(g.createdAt), month(g.createdAt)
+            """)
+    List<Object[]> countCreatedByMonth(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
+    /**
+     * Biểu đồ dashboard: số group ACTIVE theo tháng tạo, tính đến trước :to (cộng dồn ở service)
+     * Mỗi dòng: [year, month, count]; group không có ngày tạo => year/month null
+     */
+    @Query("""
+            select year(g.createdAt), month(g.createdAt), count(g)
+            from OwnershipGroup g
+            where g.status = com.group8.evcoownership.enums.GroupStatus.ACTIVE
+              and (g.createdAt is null or g.createdAt < :to)
+            group by year(g.createdAt), month(g.createdAt)
+            """)
+    List<Object[]> countActiveByCreatedMonth(@Param("to") LocalDateTime to);
+
+    /**
+     * Báo cáo tài chính tất cả group: 1 trang group có groupId > afterId, theo groupId tăng dần (keyset)
+     * Mỗi dòng: [groupId, groupName, status]
+     */
+    @Query("""
+            select g.groupId, g.groupName, g.status
+            from OwnershipGroup g
+            where g.groupId > :afterId
+            order by g.groupId
+            """)
+    List<Object[]> findReportPageAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
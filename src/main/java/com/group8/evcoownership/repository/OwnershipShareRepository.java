@@ -5,11 +5,14 @@ import com.group8.evcoownership.entity.OwnershipShare;
 import com.group8.evcoownership.entity.OwnershipShareId;
 import com.group8.evcoownership.enums.GroupRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -74,4 +77,20 @@ public interface OwnershipShareRepository extends JpaRepository<OwnershipShare,
     Optional<OwnershipShare> findByUserIdAndFundId(@Param("userId") Long userId,
                                                    @Param("fundId") Long fundId);
 
-}
\ No newline at end of file
+    /**
+     * PAID -> REFUNDED cho các thành viên của group bằng 1 câu UPDATE
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+                UPDATE OwnershipShare os
+                SET os.depositStatus = com.group8.evcoownership.enums.DepositStatus.REFUNDED,
+                    os.updatedAt = :now
+                WHERE os.group.groupId = :groupId
+                  AND os.user.userId IN :userIds
+                  AND os.depositStatus = com.group8.evcoownership.enums.DepositStatus.PAID
+            """)
+    int markDepositsRefunded(@Param("groupId") Long groupId,
+                             @Param("userIds") Collection<Long> userIds,
+                             @Param("now") LocalDateTime now);
+
+}
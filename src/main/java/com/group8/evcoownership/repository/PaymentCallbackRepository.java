@@ -0,0 +1,28 @@
+package com.group8.evcoownership.repository;
+
+import com.group8.evcoownership.entity.PaymentCallback;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface PaymentCallbackRepository extends JpaRepository<PaymentCallback, String> {
+
+    /**
+     * Giữ chỗ xử lý callback cho txnRef: INSERT thẳng (không SELECT trước như save())
+     * txnRef đã có => DataIntegrityViolationException (transaction khác đang / đã xử lý callback này)
+     */
+    @Modifying
+    @Query(value = """
+                INSERT INTO "PaymentCallback" ("TxnRef", "PaymentId", "TransactionNo", "ReceivedAt")
+                VALUES (:txnRef, :paymentId, :transactionNo, :now)
+            """, nativeQuery = true)
+    int claim(@Param("txnRef") String txnRef,
+              @Param("paymentId") Long paymentId,
+              @Param("transactionNo") String transactionNo,
+              @Param("now") LocalDateTime now);
+}
@@ -5,15 +5,19 @@ import com.group8.evcoownership.entity.Payment;
 import com.group8.evcoownership.enums.FundType;
 import com.group8.evcoownership.enums.PaymentStatus;
 import com.group8.evcoownership.enums.PaymentType;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -112,5 +116,122 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
             @Param("toAt") LocalDateTime toAt
     );
 
+    /**
+     * Thống kê dashboard: số payment và tổng tiền theo status và loại quỹ (lọc theo paymentDate)
+     * Mỗi dòng: [status, fundType, count, sum(amount)]; from/to null => không lọc
+     */
+    @Query("""
+            select p.status, f.fundType, count(p), coalesce(sum(p.amount), 0)
+            from Payment p
+            left join p.fund f
+            where (:from is null or p.paymentDate >= :from)
+              and (:to is null or p.paymentDate <= :to)
+            group by p.status, f.fundType
+            """)
+    List<Object[]> countAndSumByStatusAndFundTypePaidBetween(@Param("from") LocalDateTime from,
+                                                             @Param("to") LocalDateTime to);
+
+    /**
+     * Revenue theo kỳ: tổng tiền payment COMPLETED theo ngày trong [from, to] (ngày không có payment không có dòng)
+     * Mỗi dòng: [year, month, day, sum(amount)]
+     */
+    @Query("""
+            select year(p.paymentDate), month(p.paymentDate), day(p.paymentDate), coalesce(sum(p.amount), 0)
+            from Payment p
+            where p.status = com.group8.evcoownership.enums.PaymentStatus.COMPLETED
+              and p.paymentDate >= :from
+              and p.paymentDate <= :to
+            group by year(p.paymentDate), month(p.paymentDate), day(p.paymentDate)
+            """)
+    List<Object[]> sumCompletedByDayPaidBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
+    /**
+     * Biểu đồ dashboard: tổng tiền payment COMPLETED theo tháng trong [from, to)
+     * Mỗi dòng: [year, month, sum(amount)]
+     */
+    @Query("""
+            select year(p.paymentDate), month(p.paymentDate), coalesce(sum(p.amount), 0)
+            from Payment p
+            where p.status = com.group8.evcoownership.enums.PaymentStatus.COMPLETED
+              and p.paymentDate >= :from
+              and p.paymentDate < :to
+            group by year(p.paymentDate), month(p.paymentDate)
+            """)
+    List<Object[]> sumCompletedByMonth(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Báo cáo tài chính tất cả group: tổng thu (giống sumCompletedIn) của 1 trang group, 1 query cho cả trang
+     * Mỗi dòng: [groupId, sum(amount)]; group không có payment không có dòng
+     */
+    @Query("""
+            select f.group.groupId, coalesce(sum(p.amount), 0)
+            from Payment p
+            join p.fund f
+            where f.group.groupId in :groupIds
+              and (:fundType is null or f.fundType = :fundType)
+              and p.status = com.group8.evcoownership.enums.PaymentStatus.COMPLETED
+              and (:from is null or p.paidAt >= :from)
+              and (:to   is null or p.paidAt <  :to)
+            group by f.group.groupId
+            """)
+    List<Object[]> sumCompletedInByGroups(@Param("groupIds") Collection<Long> groupIds,
+                                          @Param("fundType") FundType fundType,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to);
+
+    /**
+     * Chốt Payment sang COMPLETED bằng 1 câu UPDATE, chỉ khi trạng thái hiện tại vẫn là :from
+     * Callback lặp lại / chạy song song => 0 dòng, không có đọc - sửa - ghi và xung đột Version
+     * transactionCode / providerResponse null => giữ giá trị cũ; PaidAt chỉ ghi lần đầu
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+                UPDATE Payment p
+                SET p.status = com.group8.evcoownership.enums.PaymentStatus.COMPLETED,
+                    p.paidAt = coalesce(p.paidAt, :now),
+                    p.transactionCode = coalesce(:transactionCode, p.transactionCode),
+                    p.providerResponse = coalesce(:providerResponse, p.providerResponse),
+                    p.version = p.version + 1
+                WHERE p.id = :paymentId
+                  AND p.status = :from
+            """)
+    int completeIfStatus(@Param("paymentId") Long paymentId,
+                         @Param("from") PaymentStatus from,
+                         @Param("transactionCode") String transactionCode,
+                         @Param("providerResponse") String providerResponse,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Các payment cọc COMPLETED của group thuộc các payer, khóa để hoàn tiền (1 query cho cả group)
+     * Lọc quỹ bằng subquery để chỉ khóa dòng Payment
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+                SELECT p
+                FROM Payment p
+                WHERE p.fund.fundId IN (
+                        SELECT f.fundId
+                        FROM SharedFund f
+                        WHERE f.group.groupId = :groupId
+                  )
+                  AND p.payer.userId IN :payerIds
+                  AND p.status = com.group8.evcoownership.enums.PaymentStatus.COMPLETED
+                  AND p.paymentType = com.group8.evcoownership.enums.PaymentType.DEPOSIT
+                ORDER BY p.id
+            """)
+    List<Payment> lockCompletedDepositsOfGroup(@Param("groupId") Long groupId,
+                                               @Param("payerIds") Collection<Long> payerIds);
+
+    /**
+     * COMPLETED -> REFUNDED cho nhiều payment bằng 1 câu UPDATE
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+                UPDATE Payment p
+                SET p.status = com.group8.evcoownership.enums.PaymentStatus.REFUNDED,
+                    p.version = p.version + 1
+                WHERE p.id IN :paymentIds
+                  AND p.status = com.group8.evcoownership.enums.PaymentStatus.COMPLETED
+            """)
+    int markRefunded(@Param("paymentIds") Collection<Long> paymentIds);
 }
@@ -0,0 +1,38 @@
+package com.group8.evcoownership.repository;
+
+import com.group8.evcoownership.entity.SharedFundBalanceSnapshot;
+import com.group8.evcoownership.entity.SharedFundBalanceSnapshotId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SharedFundBalanceSnapshotRepository
+        extends JpaRepository<SharedFundBalanceSnapshot, SharedFundBalanceSnapshotId> {
+
+    // Snapshot gần nhất có ngày <= day (số dư cuối ngày day = ClosingBalance của nó)
+    Optional<SharedFundBalanceSnapshot> findFirstByIdFundIdAndIdDayLessThanEqualOrderByIdDayDesc(Long fundId,
+                                                                                                 LocalDateTime day);
+
+    // Snapshot đầu tiên có ngày > day (dùng OpeningBalance khi day trước snapshot đầu tiên)
+    Optional<SharedFundBalanceSnapshot> findFirstByIdFundIdAndIdDayGreaterThanOrderByIdDayAsc(Long fundId,
+                                                                                              LocalDateTime day);
+
+    // Các snapshot của quỹ có ngày trong [fromDay, toDay]
+    @Query("""
+                SELECT s
+                FROM SharedFundBalanceSnapshot s
+                WHERE s.id.fundId = :fundId
+                  AND s.id.day >= :fromDay
+                  AND s.id.day <= :toDay
+                ORDER BY s.id.day
+            """)
+    List<SharedFundBalanceSnapshot> findByFundAndDayRange(@Param("fundId") Long fundId,
+                                                          @Param("fromDay") LocalDateTime fromDay,
+                                                          @Param("toDay") LocalDateTime toDay);
+}
@@ -7,10 +7,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,4 +43,69 @@ public interface SharedFundRepository extends JpaRepository<SharedFund, Long> {
     Optional<SharedFund> lockByGroupAndType(@Param("gid") Long gid, @Param("type") FundType type);
 
     boolean existsByGroup_GroupIdAndFundType(Long groupId, FundType type);
+
+    /**
+     * Thống kê dashboard: [count, sum(balance) + tổng FundJournal chưa materialize] của tất cả quỹ
+     */
+    @Query("""
+                SELECT count(f),
+                       coalesce(sum(f.balance), 0) + (SELECT coalesce(sum(j.delta), 0)
+                                                      FROM FundJournal j
+                                                      WHERE j.materializedAt IS NULL)
+                FROM SharedFund f
+            """)
+    List<Object[]> countAndSumBalance();
+
+    // Loại quỹ theo id (rollup dashboard gom payment / expense theo loại quỹ)
+    @Query("select f.fundType from SharedFund f where f.fundId = :fundId")
+    Optional<FundType> findFundTypeById(@Param("fundId") Long fundId);
+
+    // Báo cáo tài chính tất cả group: số dư hiện tại các quỹ của 1 trang group, mỗi dòng: [groupId, fundType, balance]
+    @Query("""
+                SELECT f.group.groupId, f.fundType,
+                       coalesce(f.balance, 0) + coalesce((SELECT sum(j.delta)
+                                                          FROM FundJournal j
+                                                          WHERE j.fundId = f.fundId
+                                                            AND j.materializedAt IS NULL), 0)
+                FROM SharedFund f
+                WHERE f.group.groupId IN :groupIds
+            """)
+    List<Object[]> findCurrentBalancesByGroupIds(@Param("groupIds") Collection<Long> groupIds);
+
+    /**
+     * Cộng tổng delta đã ghi trong FundJournal vào số dư (FundJournalMaterializer)
+     * Không kiểm tra số dư >= 0: khoản chi đã được kiểm tra khi ghi nhật ký (FundService.decreaseBalance)
+     * Tăng Version để các chỗ còn cập nhật quỹ qua entity (optimistic lock) vẫn phát hiện thay đổi
+     * return số dòng đã cập nhật (0 => quỹ đã bị xóa)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+                UPDATE SharedFund f
+                SET f.balance = coalesce(f.balance, 0) + :delta,
+                    f.version = coalesce(f.version, 0) + 1,
+                    f.updatedAt = :now
+                WHERE f.fundId = :fundId
+            """)
+    int addToBalance(@Param("fundId") Long fundId,
+                     @Param("delta") BigDecimal delta,
+                     @Param("now") LocalDateTime now);
+
+    // Số dư đã materialize (đọc thẳng từ database, không qua persistence context)
+    @Query("select coalesce(f.balance, 0) from SharedFund f where f.fundId = :fundId")
+    Optional<BigDecimal> findBalanceById(@Param("fundId") Long fundId);
+
+    /**
+     * Số dư hiện tại của các quỹ: [FundId, Balance + tổng FundJournal chưa materialize]
+     * 1 câu lệnh => số dư và nhật ký chờ được đọc cùng thời điểm (không lệch khi materializer commit giữa 2 query)
+     */
+    @Query("""
+                SELECT f.fundId,
+                       coalesce(f.balance, 0) + coalesce((SELECT sum(j.delta)
+                                                          FROM FundJournal j
+                                                          WHERE j.fundId = f.fundId
+                                                            AND j.materializedAt IS NULL), 0)
+                FROM SharedFund f
+                WHERE f.fundId IN :fundIds
+            """)
+    List<Object[]> findCurrentBalances(@Param("fundIds") Collection<Long> fundIds);
 }
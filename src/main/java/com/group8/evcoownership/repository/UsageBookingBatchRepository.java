@@ -0,0 +1,105 @@
+package com.group8.evcoownership.repository;
+
+import com.group8.evcoownership.entity.UsageBooking;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Ghi nhiều UsageBooking bằng JDBC batch (đặt lịch định kỳ / hàng loạt)
+ * BookingId là IDENTITY nên Hibernate không batch được INSERT; ở đây mỗi lô chỉ tốn 1 round-trip
+ * Timestamp được ghi theo cùng múi giờ với hibernate.jdbc.time_zone để khớp dữ liệu do JPA ghi
+ */
+@Repository
+public class UsageBookingBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO "UsageBooking"
+                ("UserId", "VehicleId", "StartDateTime", "EndDateTime", "Status",
+                 "CheckinStatus", "CheckoutStatus", "CreatedAt", "UpdatedAt")
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPDATE_QR_SQL = """
+            UPDATE "UsageBooking" SET "QrCodeCheckin" = ? WHERE "BookingId" = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TimeZone jdbcTimeZone;
+
+    public UsageBookingBatchRepository(JdbcTemplate jdbcTemplate,
+                                       @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}") String jdbcTimeZone) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcTimeZone = jdbcTimeZone.isBlank() ? TimeZone.getDefault() : TimeZone.getTimeZone(jdbcTimeZone);
+    }
+
+    /**
+     * INSERT các booking trong 1 batch và gán BookingId sinh ra vào từng entity (theo thứ tự danh sách)
+     * Các entity cần có user, vehicle, start/end và status
+     */
+    public void insertAll(List<UsageBooking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[]{"BookingId"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        UsageBooking booking = bookings.get(i);
+                        ps.setLong(1, booking.getUser().getUserId());
+                        ps.setLong(2, booking.getVehicle().getId());
+                        ps.setTimestamp(3, Timestamp.valueOf(booking.getStartDateTime()), calendar());
+                        ps.setTimestamp(4, Timestamp.valueOf(booking.getEndDateTime()), calendar());
+                        ps.setString(5, booking.getStatus().name());
+                        ps.setBoolean(6, Boolean.TRUE.equals(booking.getCheckinStatus()));
+                        ps.setBoolean(7, Boolean.TRUE.equals(booking.getCheckoutStatus()));
+                        ps.setTimestamp(8, Timestamp.valueOf(now), calendar());
+                        ps.setTimestamp(9, Timestamp.valueOf(now), calendar());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return bookings.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != bookings.size()) {
+            throw new IllegalStateException("Expected " + bookings.size() + " generated booking ids but got " + keys.size());
+        }
+        for (int i = 0; i < bookings.size(); i++) {
+            UsageBooking booking = bookings.get(i);
+            booking.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            booking.setCreatedAt(now);
+            booking.setUpdatedAt(now);
+        }
+    }
+
+    /**
+     * Ghi QR check-in của các booking vừa INSERT trong 1 batch
+     */
+    public void updateCheckInQrCodes(List<UsageBooking> bookings) {
+        jdbcTemplate.batchUpdate(UPDATE_QR_SQL, bookings, bookings.size(), (ps, booking) -> {
+            ps.setString(1, booking.getQrCodeCheckin());
+            ps.setLong(2, booking.getId());
+        });
+    }
+
+    // Calendar không thread-safe => tạo mới cho mỗi lần set
+    private Calendar calendar() {
+        return Calendar.getInstance(jdbcTimeZone);
+    }
+}
@@ -7,50 +7,108 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UsageBookingRepository extends JpaRepository<UsageBooking, Long> {
 
-    //Tổng số giờ user đã đặt trong tuần (để kiểm tra quota)
-    @Query(value = """
-                SELECT COALESCE(SUM(DATEDIFF(HOUR, StartDateTime, EndDateTime)), 0)
-                FROM UsageBooking
-                WHERE UserId = :userId
-                  AND VehicleId = :vehicleId
-                  AND Status = 'CONFIRMED'
-                  AND DATEPART(ISO_WEEK, StartDateTime) = DATEPART(ISO_WEEK, :weekStart)
-                  AND YEAR(StartDateTime) = YEAR(:weekStart)
-            """, nativeQuery = true)
-    Long getTotalBookedHoursThisWeek(@Param("userId") Long userId,
-                                     @Param("vehicleId") Long vehicleId,
-                                     @Param("weekStart") LocalDateTime weekStart);
+    // Các booking chưa hủy của user với xe có StartDateTime trong [weekStart, weekEnd)
+    // Predicate dạng range (không bọc hàm quanh StartDateTime) nên dùng được ix_usagebooking_user_vehicle_start
+    @Query("""
+                SELECT ub
+                FROM UsageBooking ub
+                WHERE ub.user.userId = :userId
+                  AND ub.vehicle.Id = :vehicleId
+                  AND ub.status <> 'CANCELLED'
+                  AND ub.startDateTime >= :weekStart
+                  AND ub.startDateTime < :weekEnd
+            """)
+    List<UsageBooking> findQuotaBookingsStartingInRange(@Param("userId") Long userId,
+                                                        @Param("vehicleId") Long vehicleId,
+                                                        @Param("weekStart") LocalDateTime weekStart,
+                                                        @Param("weekEnd") LocalDateTime weekEnd);
+
+    //Tổng số phút user đã đặt xe trong tuần ISO chứa weekStart, tính từ UsageBooking
+    // Dùng để khởi tạo/đối soát UsageWeeklyCounter; kiểm tra quota đọc counter thay vì gọi hàm này
+    default long getBookedMinutesInWeek(Long userId, Long vehicleId, LocalDate weekStart) {
+        LocalDateTime monday = weekStart.with(DayOfWeek.MONDAY).atStartOfDay();
+        return findQuotaBookingsStartingInRange(userId, vehicleId, monday, monday.plusDays(7)).stream()
+                .mapToLong(b -> Duration.between(b.getStartDateTime(), b.getEndDateTime()).toMinutes())
+                .sum();
+    }
+
+    // Toàn bộ booking chưa hủy có StartDateTime trong [rangeStart, rangeEnd) (job đối soát usage counter)
+    @Query("""
+                SELECT ub
+                FROM UsageBooking ub
+                WHERE ub.status <> 'CANCELLED'
+                  AND ub.startDateTime >= :rangeStart
+                  AND ub.startDateTime < :rangeEnd
+            """)
+    List<UsageBooking> findQuotaBookingsStartingBetween(@Param("rangeStart") LocalDateTime rangeStart,
+                                                        @Param("rangeEnd") LocalDateTime rangeEnd);
 
     //Tính quota limit dựa trên ownership percentage (168h/tuần * ownership%)
-    @Query(value = """
-                SELECT CAST(168 * (os.OwnershipPercentage / 100.0) AS INT)
-                FROM OwnershipShare os
-                INNER JOIN Vehicle v ON v.GroupId = os.GroupId
-                WHERE os.UserId = :userId AND v.VehicleId = :vehicleId
-            """, nativeQuery = true)
+    @Query("""
+                SELECT CAST(FLOOR(168 * os.ownershipPercentage / 100) AS Long)
+                FROM OwnershipShare os, Vehicle v
+                WHERE v.ownershipGroup.groupId = os.group.groupId
+                  AND os.user.userId = :userId
+                  AND v.Id = :vehicleId
+            """)
     Long getQuotaLimitByOwnershipPercentage(@Param("userId") Long userId,
                                             @Param("vehicleId") Long vehicleId);
 
 
-    // Lấy danh sách booking của xe trong 1 ngày với thông tin co-owner (để hiển thị slot trống)
+    // Lấy tất cả booking của xe trùng với khoảng thời gian (kèm co-owner) bằng 1 query
+    // Dùng cho lịch tuần: gán booking vào slot trong bộ nhớ thay vì query theo từng slot
     @Query("""
                 SELECT ub
                 FROM UsageBooking ub
                 JOIN FETCH ub.user u
                 WHERE ub.vehicle.Id = :vehicleId
-                  AND ub.status IN ('CONFIRMED', 'AWAITING_REVIEW', 'COMPLETED')
-                  AND CAST(ub.startDateTime AS date) = :date
+                  AND ub.status IN ('CONFIRMED', 'COMPLETED', 'AWAITING_REVIEW', 'NEEDS_ATTENTION')
+                  AND ub.startDateTime <= :rangeEnd
+                  AND ub.endDateTime >= :rangeStart
                 ORDER BY ub.startDateTime
             """)
-    List<UsageBooking> findByVehicleIdAndDateWithUser(@Param("vehicleId") Long vehicleId,
-                                                      @Param("date") LocalDate date);
+    List<UsageBooking> findBookingsInRangeWithUser(@Param("vehicleId") Long vehicleId,
+                                                   @Param("rangeStart") LocalDateTime rangeStart,
+                                                   @Param("rangeEnd") LocalDateTime rangeEnd);
+
+
+    // Giống findBookingsInRangeWithUser nhưng cho nhiều xe cùng lúc (lịch nhiều xe của người dùng)
+    @Query("""
+                SELECT ub
+                FROM UsageBooking ub
+                JOIN FETCH ub.user u
+                WHERE ub.vehicle.Id IN :vehicleIds
+                  AND ub.status IN ('CONFIRMED', 'COMPLETED', 'AWAITING_REVIEW', 'NEEDS_ATTENTION')
+                  AND ub.startDateTime <= :rangeEnd
+                  AND ub.endDateTime >= :rangeStart
+                ORDER BY ub.startDateTime
+            """)
+    List<UsageBooking> findBookingsInRangeWithUserForVehicles(@Param("vehicleIds") Collection<Long> vehicleIds,
+                                                              @Param("rangeStart") LocalDateTime rangeStart,
+                                                              @Param("rangeEnd") LocalDateTime rangeEnd);
+
+
+    // Lấy các booking chưa kết thúc trước horizon của xe (để dựng index overlap trong bộ nhớ)
+    @Query("""
+                SELECT ub
+                FROM UsageBooking ub
+                WHERE ub.vehicle.Id = :vehicleId
+                  AND ub.status IN ('CONFIRMED', 'COMPLETED', 'AWAITING_REVIEW', 'NEEDS_ATTENTION')
+                  AND ub.endDateTime >= :horizon
+                ORDER BY ub.startDateTime
+            """)
+    List<UsageBooking> findIndexableBookingsByVehicle(@Param("vehicleId") Long vehicleId,
+                                                      @Param("horizon") LocalDateTime horizon);
 
 
     // Tìm các booking bị ảnh hưởng bởi maintenance period
@@ -129,5 +187,31 @@ public interface UsageBookingRepository extends JpaRepository<UsageBooking, Long
             Long userId
     );
 
-}
+    /**
+     * Thống kê dashboard: số booking theo status (lọc theo startDateTime)
+     * Mỗi dòng: [status, count]; from/to null => không lọc
+     */
+    @Query("""
+            select b.status, count(b)
+            from UsageBooking b
+            where (:from is null or b.startDateTime >= :from)
+              and (:to is null or b.startDateTime <= :to)
+            group by b.status
+            """)
+    List<Object[]> countByStatusStartBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
+    /**
+     * Biểu đồ dashboard: số booking theo tháng bắt đầu trong [from, to)
+     * Mỗi dòng: [year, month, total, completed, cancelled]
+     */
+    @Query("""
+            select year(b.startDateTime), month(b.startDateTime), count(b),
+                   sum(case when b.status = com.group8.evcoownership.enums.BookingStatus.COMPLETED then 1 else 0 end),
+                   sum(case when b.status = com.group8.evcoownership.enums.BookingStatus.CANCELLED then 1 else 0 end)
+            from UsageBooking b
+            where b.startDateTime >= :from
+              and b.startDateTime < :to
+            group by year(b.startDateTime), month(b.startDateTime)
+            """)
+    List<Object[]> countByMonth(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
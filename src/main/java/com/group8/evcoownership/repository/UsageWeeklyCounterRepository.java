@@ -0,0 +1,45 @@
+package com.group8.evcoownership.repository;
+
+import com.group8.evcoownership.entity.UsageWeeklyCounter;
+import com.group8.evcoownership.entity.UsageWeeklyCounterId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UsageWeeklyCounterRepository extends JpaRepository<UsageWeeklyCounter, UsageWeeklyCounterId> {
+
+    // Khóa dòng counter (SELECT ... FOR UPDATE) để kiểm tra quota và cộng/trừ phút không bị race
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from UsageWeeklyCounter c where c.id = :id")
+    Optional<UsageWeeklyCounter> lockById(@Param("id") UsageWeeklyCounterId id);
+
+    // Các counter của user (mọi xe) có tuần trong [fromWeek, toWeek) (lịch nhiều tuần)
+    @Query("""
+                SELECT c
+                FROM UsageWeeklyCounter c
+                WHERE c.id.userId = :userId
+                  AND c.id.weekStart >= :fromWeek
+                  AND c.id.weekStart < :toWeek
+            """)
+    List<UsageWeeklyCounter> findByUserAndWeekRange(@Param("userId") Long userId,
+                                                    @Param("fromWeek") LocalDateTime fromWeek,
+                                                    @Param("toWeek") LocalDateTime toWeek);
+
+    // Các counter có tuần trong [fromWeek, toWeek) (dùng cho job đối soát)
+    @Query("""
+                SELECT c
+                FROM UsageWeeklyCounter c
+                WHERE c.id.weekStart >= :fromWeek
+                  AND c.id.weekStart < :toWeek
+            """)
+    List<UsageWeeklyCounter> findByWeekRange(@Param("fromWeek") LocalDateTime fromWeek,
+                                             @Param("toWeek") LocalDateTime toWeek);
+}
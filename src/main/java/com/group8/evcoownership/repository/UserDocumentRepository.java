@@ -34,5 +34,5 @@ public interface UserDocumentRepository extends JpaRepository<UserDocument, Long
 
     Optional<UserDocument> findByDocumentNumber(String documentNumber);
 
-
+    long countByStatus(String status);
 }
@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +33,55 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByPhoneNumber(String phoneNumber);
 
+    /**
+     * Thống kê dashboard: số user theo status (lọc theo createdAt)
+     * Mỗi dòng: [status, count]; from/to null => không lọc
+     */
+    @Query("""
+            select u.status, count(u)
+            from User u
+            where (:from is null or u.createdAt >= :from)
+              and (:to is null or u.createdAt <= :to)
+            group by u.status
+            """)
+    List<Object[]> countByStatusCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
-}
+    /**
+     * Thống kê dashboard: số user theo role (lọc theo createdAt, bỏ qua user không có role)
+     * Mỗi dòng: [roleName, count]; from/to null => không lọc
+     */
+    @Query("""
+            select r.roleName, count(u)
+            from User u join u.role r
+            where (:from is null or u.createdAt >= :from)
+              and (:to is null or u.createdAt <= :to)
+            group by r.roleName
+            """)
+    List<Object[]> countByRoleCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Biểu đồ dashboard: số user mới theo tháng tạo trong [from, to)
+     * Mỗi dòng: [year, month, count]
+     */
+    @Query("""
+            select year(u.createdAt), month(u.createdAt), count(u)
+            from User u
+            where u.createdAt >= :from
+              and u.createdAt < :to
+            group by year(u.createdAt), month(u.createdAt)
+            """)
+    List<Object[]> countCreatedByMonth(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
+    /**
+     * Biểu đồ dashboard: số user ACTIVE theo tháng tạo, tính đến trước :to (cộng dồn ở service)
+     * Mỗi dòng: [year, month, count]; user không có ngày tạo => year/month null
+     */
+    @Query("""
+            select year(u.createdAt), month(u.createdAt), count(u)
+            from User u
+            where u.status = com.group8.evcoownership.enums.UserStatus.ACTIVE
+              and (u.createdAt is null or u.createdAt < :to)
+            group by year(u.createdAt), month(u.createdAt)
+            """)
+    List<Object[]> countActiveByCreatedMonth(@Param("to") LocalDateTime to);
+}
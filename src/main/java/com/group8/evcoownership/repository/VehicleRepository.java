@@ -2,11 +2,17 @@ package com.group8.evcoownership.repository;
 
 import com.group8.evcoownership.entity.OwnershipGroup;
 import com.group8.evcoownership.entity.Vehicle;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -22,4 +28,11 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
     Optional<Vehicle> findByOwnershipGroup(OwnershipGroup ownershipGroup);
 
     Optional<Vehicle> findByOwnershipGroup_GroupId(Long groupId);
+
+    List<Vehicle> findByOwnershipGroup_GroupIdIn(Collection<Long> groupIds);
+
+    // Khóa dòng xe để ghi booking tuần tự theo từng xe (fallback khi DB không có exclusion constraint)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v from Vehicle v where v.Id = :vehicleId")
+    Optional<Vehicle> lockById(@Param("vehicleId") Long vehicleId);
 }
@@ -0,0 +1,240 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.dto.DashboardChartDataDTO;
+import com.group8.evcoownership.dto.DashboardStatisticsDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Cache response của Admin Dashboard (statistics và chart-data), key theo (from, to, periodType, months)
+ * - Stale-while-revalidate: entry cũ hơn soft-ttl vẫn được trả ngay, đồng thời được tính lại ở nền (mỗi key 1 lần)
+ * - Entry cũ hơn max-stale không được dùng nữa => request chờ tính lại
+ * - Gộp request: nhiều request cùng miss 1 key chỉ chạy 1 lần tính, các request còn lại chờ kết quả đó
+ * - Response có generatedAt và cacheAgeSeconds để UI hiển thị thời điểm của số liệu
+ * - Lỗi và response thiếu số liệu (unavailableSections) không được cache; tính lại ở nền thiếu số liệu => giữ bản cũ
+ */
+@Component
+@Slf4j
+public class AdminDashboardCache {
+
+    private static final String STATISTICS = "statistics";
+    private static final String CHART = "chart";
+
+    private final AdminDashboardService dashboardService;
+
+    private final Duration softTtl;
+    private final Duration maxStale;
+    private final int maxEntries;
+
+    private final Map<Key, CompletableFuture<Loaded>> entries = new ConcurrentHashMap<>();
+    private final Set<Key> refreshing = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor refresher;
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+
+    private record Key(String kind, LocalDateTime from, LocalDateTime to, String periodType, Integer months) {
+    }
+
+    private record Loaded(Object value, LocalDateTime loadedAt) {
+    }
+
+    public AdminDashboardCache(AdminDashboardService dashboardService,
+                               MeterRegistry meterRegistry,
+                               @Value("${dashboard.cache.soft-ttl-seconds:60}") long softTtlSeconds,
+                               @Value("${dashboard.cache.max-stale-seconds:900}") long maxStaleSeconds,
+                               @Value("${dashboard.cache.max-entries:200}") int maxEntries) {
+        this.dashboardService = dashboardService;
+        this.softTtl = Duration.ofSeconds(softTtlSeconds);
+        this.maxStale = Duration.ofSeconds(maxStaleSeconds);
+        this.maxEntries = maxEntries;
+
+        // 1 luồng nền cho việc tính lại; mỗi key chỉ có tối đa 1 lần tính lại đang chờ
+        this.refresher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxEntries),
+                task -> {
+                    Thread thread = new Thread(task, "dashboard-cache-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.hits = Counter.builder("dashboard.cache.requests")
+                .description("Số lần đọc response Admin Dashboard")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.staleHits = Counter.builder("dashboard.cache.requests")
+                .description("Số lần đọc response Admin Dashboard")
+                .tag("result", "stale")
+                .register(meterRegistry);
+        this.misses = Counter.builder("dashboard.cache.requests")
+                .description("Số lần đọc response Admin Dashboard")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Thống kê tổng hợp: from/to đều null => không lọc (periodType không dùng, giống controller)
+     */
+    public DashboardStatisticsDTO getStatistics(LocalDateTime from, LocalDateTime to, String periodType) {
+        boolean unfiltered = from == null && to == null;
+        Key key = new Key(STATISTICS, from, to, unfiltered ? null : periodType, null);
+        Supplier<Object> loader = unfiltered
+                ? dashboardService::getDashboardStatistics
+                : () -> dashboardService.getDashboardStatistics(from, to, periodType);
+
+        Loaded loaded = get(key, loader);
+        return ((DashboardStatisticsDTO) loaded.value()).toBuilder()
+                .generatedAt(loaded.loadedAt())
+                .cacheAgeSeconds(ageSeconds(loaded))
+                .build();
+    }
+
+    public DashboardChartDataDTO getChartData(Integer months) {
+        Key key = new Key(CHART, null, null, null, months);
+        Loaded loaded = get(key, () -> dashboardService.getChartData(months));
+        return ((DashboardChartDataDTO) loaded.value()).toBuilder()
+                .generatedAt(loaded.loadedAt())
+                .cacheAgeSeconds(ageSeconds(loaded))
+                .build();
+    }
+
+    /**
+     * Xóa toàn bộ cache (request sau tính lại)
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private Loaded get(Key key, Supplier<Object> loader) {
+        CompletableFuture<Loaded> future = entries.get(key);
+        if (future == null || isExpired(future)) {
+            CompletableFuture<Loaded> created = new CompletableFuture<>();
+            future = entries.compute(key, (k, current) ->
+                    current == null || isExpired(current) ? created : current);
+            if (future == created) {
+                misses.increment();
+                evictIfFull();
+                load(key, loader, created);
+                return join(created);
+            }
+        }
+
+        // Entry có sẵn hoặc đang được request khác tính => chờ kết quả đó
+        Loaded loaded = join(future);
+        if (Duration.between(loaded.loadedAt(), LocalDateTime.now()).compareTo(softTtl) < 0) {
+            hits.increment();
+        } else {
+            staleHits.increment();
+            refreshInBackground(key, loader);
+        }
+        return loaded;
+    }
+
+    private void load(Key key, Supplier<Object> loader, CompletableFuture<Loaded> target) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Object value;
+        try {
+            value = loader.get();
+        } catch (Throwable e) {
+            // Không cache lỗi: request sau tính lại (cả Error, để request đang chờ không bị treo)
+            entries.remove(key, target);
+            target.completeExceptionally(e);
+            return;
+        }
+        if (!isCacheable(value)) {
+            // Trả cho các request đang chờ nhưng không giữ lại
+            entries.remove(key, target);
+        }
+        target.complete(new Loaded(value, startedAt));
+    }
+
+    private void refreshInBackground(Key key, Supplier<Object> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    LocalDateTime startedAt = LocalDateTime.now();
+                    Object value = loader.get();
+                    if (isCacheable(value)) {
+                        entries.put(key, CompletableFuture.completedFuture(new Loaded(value, startedAt)));
+                    } else {
+                        log.warn("Dashboard cache {} not refreshed: sections unavailable", key);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Failed to refresh dashboard cache {}: {}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Hàng đợi đầy => lần đọc sau thử lại
+            refreshing.remove(key);
+        }
+    }
+
+    // Response thiếu số liệu (phần quá hạn / lỗi đã dùng giá trị mặc định)
+    private static boolean isCacheable(Object value) {
+        return !(value instanceof DashboardStatisticsDTO stats) || stats.getUnavailableSections() == null;
+    }
+
+    // Entry đã tính xong nhưng cũ hơn max-stale => không trả nữa
+    private boolean isExpired(CompletableFuture<Loaded> future) {
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            return future.isCompletedExceptionally();
+        }
+        return Duration.between(future.join().loadedAt(), LocalDateTime.now()).compareTo(maxStale) >= 0;
+    }
+
+    // Quá số entry => bỏ entry đã tính xong cũ nhất
+    private void evictIfFull() {
+        while (entries.size() > maxEntries) {
+            Key oldest = entries.entrySet().stream()
+                    .filter(entry -> entry.getValue().isDone() && !entry.getValue().isCompletedExceptionally())
+                    .min(Comparator.comparing(entry -> entry.getValue().join().loadedAt()))
+                    .map(Map.Entry::getKey)
+                    .orElse(null);
+            if (oldest == null) {
+                return;
+            }
+            entries.remove(oldest);
+        }
+    }
+
+    private static Loaded join(CompletableFuture<Loaded> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static long ageSeconds(Loaded loaded) {
+        return Math.max(0L, Duration.between(loaded.loadedAt(), LocalDateTime.now()).toSeconds());
+    }
+}
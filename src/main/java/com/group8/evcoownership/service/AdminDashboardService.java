@@ -2,23 +2,28 @@ package com.group8.evcoownership.service;
 
 import com.group8.evcoownership.dto.DashboardChartDataDTO;
 import com.group8.evcoownership.dto.DashboardStatisticsDTO;
-import com.group8.evcoownership.entity.*;
-import com.group8.evcoownership.enums.GroupStatus;
 import com.group8.evcoownership.enums.PaymentStatus;
-import com.group8.evcoownership.enums.UserStatus;
+import com.group8.evcoownership.enums.RollupEntityType;
 import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.DashboardSectionExecutor.Fanout;
+import com.group8.evcoownership.service.DashboardSectionExecutor.Section;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
 import java.time.temporal.WeekFields;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -30,141 +35,60 @@ public class AdminDashboardService {
     private final UserRepository userRepository;
     private final UsageBookingRepository bookingRepository;
     private final VehicleRepository vehicleRepository;
-    private final DisputeRepository disputeRepository;
-    private final IncidentRepository incidentRepository;
-    private final MaintenanceRepository maintenanceRepository;
-    private final ContractRepository contractRepository;
     private final UserDocumentRepository documentRepository;
     private final ExpenseRepository expenseRepository;
     private final PaymentRepository paymentRepository;
     private final SharedFundRepository fundRepository;
+    private final DashboardTotalsLoader totalsLoader;
+    private final AdminRollupService rollupService;
+    private final DashboardSectionExecutor sectionExecutor;
+
+    // Tên phần của từng loại số liệu (dùng trong unavailableSections)
+    private static final Map<RollupEntityType, String> SECTION_NAMES = new EnumMap<>(Map.of(
+            RollupEntityType.GROUP, "groups",
+            RollupEntityType.USER, "users",
+            RollupEntityType.USER_ROLE, "usersByRole",
+            RollupEntityType.BOOKING, "bookings",
+            RollupEntityType.DISPUTE, "disputes",
+            RollupEntityType.INCIDENT, "incidents",
+            RollupEntityType.MAINTENANCE, "maintenances",
+            RollupEntityType.CONTRACT, "contracts",
+            RollupEntityType.EXPENSE, "expenses",
+            RollupEntityType.PAYMENT, "payments"));
+
+    // Kỳ trước chỉ cần các số liệu dùng để so sánh
+    private static final List<RollupEntityType> PREVIOUS_PERIOD_TYPES = List.of(
+            RollupEntityType.PAYMENT, RollupEntityType.BOOKING, RollupEntityType.GROUP,
+            RollupEntityType.MAINTENANCE, RollupEntityType.DISPUTE);
+
+    /**
+     * Các phần độc lập của 1 lần tính thống kê, đã gửi cho DashboardSectionExecutor
+     * revenueByPeriod null => không tính (getDashboardStatistics có periodType tự tính theo periodType)
+     */
+    private record StatisticsSections(Map<RollupEntityType, Section<DashboardTotals>> totals,
+                                      Section<Long> vehicles,
+                                      Section<Long> pendingDocuments,
+                                      Section<Object[]> funds,
+                                      Section<Map<String, BigDecimal>> revenueByPeriod) {
+    }
 
     /**
      * Lấy thống kê tổng hợp cho Admin Dashboard
+     * Các phần chạy song song; luồng request không giữ connection trong lúc chờ (NOT_SUPPORTED)
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DashboardStatisticsDTO getDashboardStatistics() {
         log.info("Fetching dashboard statistics for admin");
 
+        Fanout fanout = sectionExecutor.start();
+        StatisticsSections sections = submitStatistics(fanout, null, null, true);
+        DashboardTotals totals = joinTotals(fanout, sections.totals());
         DashboardStatisticsDTO.DashboardStatisticsDTOBuilder builder = DashboardStatisticsDTO.builder();
+        collectStatistics(builder, fanout, sections, totals);
 
-        // 1. Groups statistics
-        List<OwnershipGroup> allGroups = groupRepository.findAll();
-        builder.totalGroups((long) allGroups.size());
-        builder.groupsByStatus(
-                allGroups.stream()
-                        .collect(Collectors.groupingBy(
-                                g -> g.getStatus() != null ? g.getStatus().name() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-
-        // 2. Users statistics
-        List<User> allUsers = userRepository.findAll();
-        builder.totalUsers((long) allUsers.size());
-        builder.usersByStatus(
-                allUsers.stream()
-                        .collect(Collectors.groupingBy(
-                                u -> u.getStatus() != null ? u.getStatus().name() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-        builder.usersByRole(
-                allUsers.stream()
-                        .filter(u -> u.getRole() != null)
-                        .collect(Collectors.groupingBy(
-                                u -> u.getRole().getRoleName().name(),
-                                Collectors.counting()
-                        ))
-        );
-
-        // 3. Bookings statistics
-        List<UsageBooking> allBookings = bookingRepository.findAll();
-        builder.totalBookings((long) allBookings.size());
-        builder.bookingsByStatus(
-                allBookings.stream()
-                        .collect(Collectors.groupingBy(
-                                b -> b.getStatus() != null ? b.getStatus().name() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-
-        // 4. Vehicles statistics
-        List<Vehicle> allVehicles = vehicleRepository.findAll();
-        builder.totalVehicles((long) allVehicles.size());
-
-        // 5. Disputes statistics
-        List<Dispute> allDisputes = disputeRepository.findAll();
-        builder.totalDisputes((long) allDisputes.size());
-        builder.disputesByStatus(
-                allDisputes.stream()
-                        .collect(Collectors.groupingBy(
-                                d -> d.getStatus() != null ? d.getStatus().name() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-
-        // 6. Incidents statistics
-        List<Incident> allIncidents = incidentRepository.findAll();
-        builder.totalIncidents((long) allIncidents.size());
-        builder.incidentsByStatus(
-                allIncidents.stream()
-                        .collect(Collectors.groupingBy(
-                                i -> i.getStatus() != null ? i.getStatus() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-
-        // 7. Maintenances statistics
-        List<Maintenance> allMaintenances = maintenanceRepository.findAll();
-        builder.totalMaintenances((long) allMaintenances.size());
-        builder.maintenancesByStatus(
-                allMaintenances.stream()
-                        .collect(Collectors.groupingBy(
-                                m -> m.getStatus() != null ? m.getStatus() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-
-        // 8. Contracts statistics
-        List<Contract> allContracts = contractRepository.findAll();
-        builder.totalContracts((long) allContracts.size());
-        builder.contractsByStatus(
-                allContracts.stream()
-                        .collect(Collectors.groupingBy(
-                                c -> c.getApprovalStatus() != null ? c.getApprovalStatus().name() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-
-        // 9. Pending documents
-        try {
-            long pendingDocs = documentRepository.findAll().stream()
-                    .filter(doc -> "PENDING".equals(doc.getStatus()))
-                    .count();
-            builder.pendingDocuments(pendingDocs);
-        } catch (Exception e) {
-            log.warn("Failed to fetch pending documents: {}", e.getMessage());
-            builder.pendingDocuments(0L);
-        }
-
-        // 10. Expenses statistics
-        List<Expense> allExpenses = expenseRepository.findAll();
-        builder.totalExpenses((long) allExpenses.size());
-        BigDecimal totalExpenseAmount = allExpenses.stream()
-                .map(e -> e.getAmount() != null ? e.getAmount() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        builder.totalExpenseAmount(totalExpenseAmount);
-
-        // 11. Payments statistics
-        List<Payment> allPayments = paymentRepository.findAll();
-        long totalPayments = allPayments.size();
-
-        // Build PaymentStatistics DTO
-        Map<String, Long> paymentsByStatusMap = allPayments.stream()
-                .collect(Collectors.groupingBy(
-                        p -> p.getStatus() != null ? p.getStatus().name() : "UNKNOWN",
-                        Collectors.counting()
-                ));
+        // 11. Payments statistics (chi tiết theo status)
+        Map<String, Long> paymentsByStatusMap = totals.countsByStatus(RollupEntityType.PAYMENT);
+        long totalPayments = total(paymentsByStatusMap);
 
         DashboardStatisticsDTO.PaymentStatistics paymentStats = DashboardStatisticsDTO.PaymentStatistics.builder()
                 .total(totalPayments)
@@ -172,10 +96,7 @@ public class AdminDashboardService {
                 .completed(paymentsByStatusMap.getOrDefault("COMPLETED", 0L))
                 .failed(paymentsByStatusMap.getOrDefault("FAILED", 0L))
                 .refunded(paymentsByStatusMap.getOrDefault("REFUNDED", 0L))
-                .totalAmount(allPayments.stream()
-                        .filter(p -> p.getStatus() == PaymentStatus.COMPLETED)
-                        .map(p -> p.getAmount() != null ? p.getAmount() : BigDecimal.ZERO)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add))
+                .totalAmount(totals.amount(RollupEntityType.PAYMENT, PaymentStatus.COMPLETED.name()))
                 .build();
 
         builder.payments(paymentStats);
@@ -183,59 +104,63 @@ public class AdminDashboardService {
         builder.paymentsByStatus(paymentsByStatusMap);
         builder.totalPayments(totalPayments);
         builder.totalPaymentAmount(paymentStats.getTotalAmount());
-
-        // 12. Funds statistics
-        List<SharedFund> allFunds = fundRepository.findAll();
-        builder.totalFunds((long) allFunds.size());
-        BigDecimal totalFundBalance = allFunds.stream()
-                .map(f -> f.getBalance() != null ? f.getBalance() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        builder.totalFundBalance(totalFundBalance);
-
-        // 13. Revenue by period (default: last 30 days by day)
-        Map<String, BigDecimal> revenueByPeriod = calculateRevenueByPeriod("DAY", 30, null, null);
-        builder.revenueByPeriod(revenueByPeriod);
+        builder.unavailableSections(fanout.unavailableSections());
 
         return builder.build();
     }
 
     /**
      * Lấy thống kê tổng hợp với date range filter và period type
+     * Số liệu kỳ này, kỳ trước và revenue theo periodType được gửi đi cùng lúc trước khi chờ phần nào
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DashboardStatisticsDTO getDashboardStatistics(LocalDateTime from, LocalDateTime to, String periodType) {
-        DashboardStatisticsDTO stats = getDashboardStatistics(from, to);
+        log.info("Fetching dashboard statistics for admin with date range: {} to {}, period: {}", from, to, periodType);
 
-        DashboardStatisticsDTO previousStats = null;
+        boolean byPeriod = periodType != null && !periodType.isEmpty();
+        Fanout fanout = sectionExecutor.start();
+        StatisticsSections sections = submitStatistics(fanout, from, to, !byPeriod);
+
+        Map<RollupEntityType, Section<DashboardTotals>> previousSections = null;
         if (from != null && to != null) {
             Duration duration = Duration.between(from, to);
             if (!duration.isNegative() && !duration.isZero()) {
                 LocalDateTime previousTo = from.minusSeconds(1);
                 LocalDateTime previousFrom = previousTo.minus(duration);
-                previousStats = getDashboardStatistics(previousFrom, previousTo);
+                previousSections = submitTotals(fanout, "previous.", PREVIOUS_PERIOD_TYPES, previousFrom, previousTo);
             }
         }
 
-        if (previousStats != null) {
-            stats.setPreviousTotalRevenue(previousStats.getTotalPaymentAmount());
-            stats.setPreviousTotalBookings(previousStats.getTotalBookings());
-            stats.setPreviousTotalGroups(previousStats.getTotalGroups());
-            stats.setPreviousTotalMaintenances(previousStats.getTotalMaintenances());
-            stats.setPreviousTotalDisputes(previousStats.getTotalDisputes());
-        }
-
         // Calculate revenue by period based on periodType
-        if (periodType != null && !periodType.isEmpty()) {
+        Section<Map<String, BigDecimal>> revenueSection = null;
+        if (byPeriod) {
             int periods = 30; // Default
             if ("WEEK".equals(periodType)) {
                 periods = 12; // 12 weeks
             } else if ("MONTH".equals(periodType)) {
                 periods = 12; // 12 months
             }
+            int periodCount = periods;
+            revenueSection = fanout.submit("revenueByPeriod",
+                    () -> calculateRevenueByPeriod(periodType, periodCount, from, to));
+        }
+
+        DashboardStatisticsDTO stats = joinRangeStatistics(fanout, sections);
+
+        if (previousSections != null) {
+            DashboardTotals previous = joinTotals(fanout, previousSections);
+            stats.setPreviousTotalRevenue(previous.amount(RollupEntityType.PAYMENT, PaymentStatus.COMPLETED.name()));
+            stats.setPreviousTotalBookings(previous.total(RollupEntityType.BOOKING));
+            stats.setPreviousTotalGroups(previous.total(RollupEntityType.GROUP));
+            stats.setPreviousTotalMaintenances(previous.total(RollupEntityType.MAINTENANCE));
+            stats.setPreviousTotalDisputes(previous.total(RollupEntityType.DISPUTE));
+        }
 
-            Map<String, BigDecimal> revenueByPeriod = calculateRevenueByPeriod(periodType, periods, from, to);
-            stats.setRevenueByPeriod(revenueByPeriod);
+        if (revenueSection != null) {
+            stats.setRevenueByPeriod(fanout.join(revenueSection, new LinkedHashMap<>()));
         }
 
+        stats.setUnavailableSections(fanout.unavailableSections());
         return stats;
     }
 
@@ -243,293 +168,218 @@ public class AdminDashboardService {
     /**
      * Lấy thống kê tổng hợp với date range filter
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DashboardStatisticsDTO getDashboardStatistics(LocalDateTime from, LocalDateTime to) {
         log.info("Fetching dashboard statistics for admin with date range: {} to {}", from, to);
 
+        Fanout fanout = sectionExecutor.start();
+        DashboardStatisticsDTO stats = joinRangeStatistics(fanout, submitStatistics(fanout, from, to, true));
+        stats.setUnavailableSections(fanout.unavailableSections());
+        return stats;
+    }
+
+    private DashboardStatisticsDTO joinRangeStatistics(Fanout fanout, StatisticsSections sections) {
+        DashboardTotals totals = joinTotals(fanout, sections.totals());
         DashboardStatisticsDTO.DashboardStatisticsDTOBuilder builder = DashboardStatisticsDTO.builder();
+        collectStatistics(builder, fanout, sections, totals);
 
-        // Filter data by date range
-        List<OwnershipGroup> allGroups = groupRepository.findAll();
-        if (from != null || to != null) {
-            allGroups = allGroups.stream()
-                    .filter(g -> {
-                        if (g.getCreatedAt() == null) return false;
-                        if (from != null && g.getCreatedAt().isBefore(from)) return false;
-                        return to == null || !g.getCreatedAt().isAfter(to);
-                    })
-                    .toList();
-        }
-        builder.totalGroups((long) allGroups.size());
-        builder.groupsByStatus(
-                allGroups.stream()
-                        .collect(Collectors.groupingBy(
-                                g -> g.getStatus() != null ? g.getStatus().name() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-
-        // Users - filter by createdAt
-        List<User> allUsers = userRepository.findAll();
-        if (from != null || to != null) {
-            allUsers = allUsers.stream()
-                    .filter(u -> {
-                        if (u.getCreatedAt() == null) return false;
-                        if (from != null && u.getCreatedAt().isBefore(from)) return false;
-                        return to == null || !u.getCreatedAt().isAfter(to);
-                    })
-                    .toList();
-        }
-        builder.totalUsers((long) allUsers.size());
-        builder.usersByStatus(
-                allUsers.stream()
-                        .collect(Collectors.groupingBy(
-                                u -> u.getStatus() != null ? u.getStatus().name() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-        builder.usersByRole(
-                allUsers.stream()
-                        .filter(u -> u.getRole() != null)
-                        .collect(Collectors.groupingBy(
-                                u -> u.getRole().getRoleName().name(),
-                                Collectors.counting()
-                        ))
-        );
-
-        // Bookings - filter by startDateTime
-        List<UsageBooking> allBookings = bookingRepository.findAll();
-        if (from != null || to != null) {
-            allBookings = allBookings.stream()
-                    .filter(b -> {
-                        if (b.getStartDateTime() == null) return false;
-                        if (from != null && b.getStartDateTime().isBefore(from)) return false;
-                        return to == null || !b.getStartDateTime().isAfter(to);
-                    })
-                    .toList();
-        }
-        builder.totalBookings((long) allBookings.size());
-        builder.bookingsByStatus(
-                allBookings.stream()
-                        .collect(Collectors.groupingBy(
-                                b -> b.getStatus() != null ? b.getStatus().name() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-
-        // Vehicles
-        List<Vehicle> allVehicles = vehicleRepository.findAll();
-        builder.totalVehicles((long) allVehicles.size());
-
-        // Disputes - filter by createdAt
-        List<Dispute> allDisputes = disputeRepository.findAll();
-        if (from != null || to != null) {
-            allDisputes = allDisputes.stream()
-                    .filter(d -> {
-                        if (d.getCreatedAt() == null) return false;
-                        if (from != null && d.getCreatedAt().isBefore(from)) return false;
-                        return to == null || !d.getCreatedAt().isAfter(to);
-                    })
-                    .toList();
-        }
-        builder.totalDisputes((long) allDisputes.size());
-        builder.disputesByStatus(
-                allDisputes.stream()
-                        .collect(Collectors.groupingBy(
-                                d -> d.getStatus() != null ? d.getStatus().name() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-
-        // Incidents - filter by createdAt
-        List<Incident> allIncidents = incidentRepository.findAll();
-        if (from != null || to != null) {
-            allIncidents = allIncidents.stream()
-                    .filter(i -> {
-                        if (i.getCreatedAt() == null) return false;
-                        if (from != null && i.getCreatedAt().isBefore(from)) return false;
-                        return to == null || !i.getCreatedAt().isAfter(to);
-                    })
-                    .toList();
+        // Payments - filter by paymentDate
+        builder.totalPayments(totals.total(RollupEntityType.PAYMENT));
+        builder.totalPaymentAmount(totals.amount(RollupEntityType.PAYMENT, PaymentStatus.COMPLETED.name()));
+
+        return builder.build();
+    }
+
+    /**
+     * Gửi các phần độc lập của thống kê: mỗi loại bản ghi 1 phần, vehicles, pending documents, funds, revenue (DAY, 30)
+     */
+    private StatisticsSections submitStatistics(Fanout fanout, LocalDateTime from, LocalDateTime to,
+                                                boolean withDailyRevenue) {
+        return new StatisticsSections(
+                submitTotals(fanout, "", DashboardTotalsLoader.TYPES, from, to),
+                fanout.submit("vehicles", vehicleRepository::count),
+                fanout.submit("pendingDocuments", () -> documentRepository.countByStatus("PENDING")),
+                fanout.submit("funds", () -> fundRepository.countAndSumBalance().get(0)),
+                withDailyRevenue
+                        ? fanout.submit("revenueByPeriod", () -> calculateRevenueByPeriod("DAY", 30, from, to))
+                        : null);
+    }
+
+    private Map<RollupEntityType, Section<DashboardTotals>> submitTotals(Fanout fanout, String prefix,
+                                                                        List<RollupEntityType> types,
+                                                                        LocalDateTime from, LocalDateTime to) {
+        Map<RollupEntityType, Section<DashboardTotals>> sections = new EnumMap<>(RollupEntityType.class);
+        for (RollupEntityType type : types) {
+            sections.put(type, fanout.submit(prefix + SECTION_NAMES.get(type), () -> loadTotals(type, from, to)));
         }
-        builder.totalIncidents((long) allIncidents.size());
-        builder.incidentsByStatus(
-                allIncidents.stream()
-                        .collect(Collectors.groupingBy(
-                                i -> i.getStatus() != null ? i.getStatus() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-
-        // Maintenances - filter by requestDate
-        List<Maintenance> allMaintenances = maintenanceRepository.findAll();
-        if (from != null || to != null) {
-            allMaintenances = allMaintenances.stream()
-                    .filter(m -> {
-                        if (m.getRequestDate() == null) return false;
-                        if (from != null && m.getRequestDate().isBefore(from)) return false;
-                        return to == null || !m.getRequestDate().isAfter(to);
-                    })
-                    .toList();
+        return sections;
+    }
+
+    // Phần không lấy được => loại đó không có số liệu (0)
+    private static DashboardTotals joinTotals(Fanout fanout, Map<RollupEntityType, Section<DashboardTotals>> sections) {
+        DashboardTotals totals = new DashboardTotals();
+        for (Section<DashboardTotals> section : sections.values()) {
+            totals.addAll(fanout.join(section, new DashboardTotals()));
         }
-        builder.totalMaintenances((long) allMaintenances.size());
-        builder.maintenancesByStatus(
-                allMaintenances.stream()
-                        .collect(Collectors.groupingBy(
-                                m -> m.getStatus() != null ? m.getStatus() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-
-        // Contracts - filter by createdAt
-        List<Contract> allContracts = contractRepository.findAll();
-        if (from != null || to != null) {
-            allContracts = allContracts.stream()
-                    .filter(c -> {
-                        if (c.getCreatedAt() == null) return false;
-                        if (from != null && c.getCreatedAt().isBefore(from)) return false;
-                        return to == null || !c.getCreatedAt().isAfter(to);
-                    })
-                    .toList();
+        return totals;
+    }
+
+    /**
+     * Số liệu theo status của 1 loại bản ghi trong khoảng [from, to]
+     * Có đủ from/to và bao trọn ít nhất 1 ngày: các ngày đủ đọc từ AdminDailyRollup (số dòng tỷ lệ với số ngày),
+     * phần lẻ trước ngày đủ đầu tiên và sau ngày đủ cuối cùng query trực tiếp => kết quả giống hệt query trực tiếp cả khoảng
+     */
+    private DashboardTotals loadTotals(RollupEntityType type, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !rollupService.isReady()) {
+            return totalsLoader.load(type, from, to);
         }
-        builder.totalContracts((long) allContracts.size());
-        builder.contractsByStatus(
-                allContracts.stream()
-                        .collect(Collectors.groupingBy(
-                                c -> c.getApprovalStatus() != null ? c.getApprovalStatus().name() : "UNKNOWN",
-                                Collectors.counting()
-                        ))
-        );
-
-        // Pending documents (no date filter)
-        long pendingDocs = documentRepository.findAll().stream()
-                .filter(doc -> "PENDING".equals(doc.getStatus()))
-                .count();
-        builder.pendingDocuments(pendingDocs);
-
-        // Expenses - filter by createdAt
-        List<Expense> allExpenses = expenseRepository.findAll();
-        if (from != null || to != null) {
-            allExpenses = allExpenses.stream()
-                    .filter(e -> {
-                        if (e.getCreatedAt() == null) return false;
-                        if (from != null && e.getCreatedAt().isBefore(from)) return false;
-                        return to == null || !e.getCreatedAt().isAfter(to);
-                    })
-                    .toList();
+        LocalDate firstDay = from.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? from.toLocalDate()
+                : from.toLocalDate().plusDays(1);
+        LocalDate endDay = to.toLocalDate();
+        if (!firstDay.isBefore(endDay)) {
+            return totalsLoader.load(type, from, to);
         }
-        builder.totalExpenses((long) allExpenses.size());
-        BigDecimal totalExpenseAmount = allExpenses.stream()
-                .map(e -> e.getAmount() != null ? e.getAmount() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        builder.totalExpenseAmount(totalExpenseAmount);
 
-        // Payments - filter by paymentDate
-        List<Payment> allPayments = paymentRepository.findAll();
-        if (from != null || to != null) {
-            allPayments = allPayments.stream()
-                    .filter(p -> {
-                        if (p.getPaymentDate() == null) return false;
-                        if (from != null && p.getPaymentDate().isBefore(from)) return false;
-                        return to == null || !p.getPaymentDate().isAfter(to);
-                    })
-                    .toList();
+        DashboardTotals totals = rollupService.sumDays(type, firstDay, endDay);
+        if (from.isBefore(firstDay.atStartOfDay())) {
+            totals.addAll(totalsLoader.load(type, from, AdminRollupCompactor.endOfDay(firstDay.minusDays(1))));
         }
-        builder.totalPayments((long) allPayments.size());
-        BigDecimal totalPaymentAmount = allPayments.stream()
-                .filter(p -> p.getStatus() == PaymentStatus.COMPLETED)
-                .map(p -> p.getAmount() != null ? p.getAmount() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        builder.totalPaymentAmount(totalPaymentAmount);
-
-        // Funds (no date filter - current balance)
-        List<SharedFund> allFunds = fundRepository.findAll();
-        builder.totalFunds((long) allFunds.size());
-        BigDecimal totalFundBalance = allFunds.stream()
-                .map(f -> f.getBalance() != null ? f.getBalance() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        builder.totalFundBalance(totalFundBalance);
+        totals.addAll(totalsLoader.load(type, endDay.atStartOfDay(), to));
+        return totals;
+    }
+
+    /**
+     * Các số liệu chung của 2 phiên bản getDashboardStatistics
+     * Mọi số liệu được tính bằng COUNT / SUM / GROUP BY trong database (hoặc từ rollup theo ngày), không load entity
+     * from/to null => không lọc theo thời gian; có from/to => bỏ qua bản ghi không có ngày (giống cách lọc cũ)
+     * Phần không lấy được (quá hạn / lỗi) => 0 và được ghi vào unavailableSections
+     */
+    private void collectStatistics(DashboardStatisticsDTO.DashboardStatisticsDTOBuilder builder, Fanout fanout,
+                                   StatisticsSections sections, DashboardTotals totals) {
+        // 1. Groups - filter by createdAt
+        Map<String, Long> groupsByStatus = totals.countsByStatus(RollupEntityType.GROUP);
+        builder.totalGroups(total(groupsByStatus));
+        builder.groupsByStatus(groupsByStatus);
+
+        // 2. Users - filter by createdAt
+        Map<String, Long> usersByStatus = totals.countsByStatus(RollupEntityType.USER);
+        builder.totalUsers(total(usersByStatus));
+        builder.usersByStatus(usersByStatus);
+        builder.usersByRole(totals.countsByStatus(RollupEntityType.USER_ROLE));
+
+        // 3. Bookings - filter by startDateTime
+        Map<String, Long> bookingsByStatus = totals.countsByStatus(RollupEntityType.BOOKING);
+        builder.totalBookings(total(bookingsByStatus));
+        builder.bookingsByStatus(bookingsByStatus);
+
+        // 4. Vehicles
+        builder.totalVehicles(fanout.join(sections.vehicles(), 0L));
+
+        // 5. Disputes - filter by createdAt
+        Map<String, Long> disputesByStatus = totals.countsByStatus(RollupEntityType.DISPUTE);
+        builder.totalDisputes(total(disputesByStatus));
+        builder.disputesByStatus(disputesByStatus);
+
+        // 6. Incidents - filter by createdAt
+        Map<String, Long> incidentsByStatus = totals.countsByStatus(RollupEntityType.INCIDENT);
+        builder.totalIncidents(total(incidentsByStatus));
+        builder.incidentsByStatus(incidentsByStatus);
+
+        // 7. Maintenances - filter by requestDate
+        Map<String, Long> maintenancesByStatus = totals.countsByStatus(RollupEntityType.MAINTENANCE);
+        builder.totalMaintenances(total(maintenancesByStatus));
+        builder.maintenancesByStatus(maintenancesByStatus);
+
+        // 8. Contracts - filter by createdAt
+        Map<String, Long> contractsByStatus = totals.countsByStatus(RollupEntityType.CONTRACT);
+        builder.totalContracts(total(contractsByStatus));
+        builder.contractsByStatus(contractsByStatus);
+
+        // 9. Pending documents (no date filter)
+        builder.pendingDocuments(fanout.join(sections.pendingDocuments(), 0L));
+
+        // 10. Expenses - filter by createdAt
+        builder.totalExpenses(totals.total(RollupEntityType.EXPENSE));
+        builder.totalExpenseAmount(totals.totalAmount(RollupEntityType.EXPENSE));
+
+        // 12. Funds (no date filter - current balance)
+        Object[] funds = fanout.join(sections.funds(), new Object[]{0L, BigDecimal.ZERO});
+        builder.totalFunds(((Number) funds[0]).longValue());
+        builder.totalFundBalance((BigDecimal) funds[1]);
 
         // 13. Revenue by period (default: last 30 days by day)
-        Map<String, BigDecimal> revenueByPeriod = calculateRevenueByPeriod("DAY", 30, from, to);
-        builder.revenueByPeriod(revenueByPeriod);
+        if (sections.revenueByPeriod() != null) {
+            builder.revenueByPeriod(fanout.join(sections.revenueByPeriod(), new LinkedHashMap<>()));
+        }
+    }
 
-        return builder.build();
+    private static long total(Map<String, Long> counts) {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
     }
 
     /**
-     * Tính revenue theo period (DAY/WEEK/MONTH)
+     * Tính revenue theo period (DAY/WEEK/MONTH/QUARTER/YEAR)
+     * Database chỉ trả tổng theo ngày (số dòng <= số ngày trong khoảng), các ngày được gom vào period theo thứ tự thời gian;
+     * period trong khoảng không có payment => 0
      *
-     * @param periodType DAY, WEEK, hoặc MONTH
+     * @param periodType DAY, WEEK, MONTH, QUARTER hoặc YEAR (giá trị khác => MONTH)
      * @param periods    Số periods cần tính (ví dụ: 30 days, 12 weeks, 12 months)
      * @param from       Start date (optional, nếu null thì tính từ hiện tại trở về trước)
      * @param to         End date (optional)
      * @return Map với key là period string và value là revenue
      */
     private Map<String, BigDecimal> calculateRevenueByPeriod(String periodType, int periods, LocalDateTime from, LocalDateTime to) {
-        Map<String, BigDecimal> revenueMap = new LinkedHashMap<>();
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime startDate = from != null ? from : now.minusDays(periods);
         LocalDateTime endDate = to != null ? to : now;
 
-        // Get all completed payments in the date range
-        List<Payment> allPayments = paymentRepository.findAll().stream()
-                .filter(p -> p.getPaymentDate() != null
-                        && p.getStatus() == PaymentStatus.COMPLETED
-                        && !p.getPaymentDate().isBefore(startDate)
-                        && !p.getPaymentDate().isAfter(endDate))
-                .toList();
-
-        DateTimeFormatter formatter;
-        if ("DAY".equals(periodType)) {
-            formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            // Group by day
-            revenueMap = allPayments.stream()
-                    .collect(Collectors.groupingBy(
-                            p -> p.getPaymentDate().format(formatter),
-                            LinkedHashMap::new,
-                            Collectors.reducing(
-                                    BigDecimal.ZERO,
-                                    p -> p.getAmount() != null ? p.getAmount() : BigDecimal.ZERO,
-                                    BigDecimal::add
-                            )
-                    ));
-        } else if ("WEEK".equals(periodType)) {
-            WeekFields weekFields = WeekFields.of(Locale.getDefault());
-            // Group by year-week
-            revenueMap = allPayments.stream()
-                    .collect(Collectors.groupingBy(
-                            p -> {
-                                int year = p.getPaymentDate().getYear();
-                                int week = p.getPaymentDate().get(weekFields.weekOfWeekBasedYear());
-                                return String.format("%d-W%02d", year, week);
-                            },
-                            LinkedHashMap::new,
-                            Collectors.reducing(
-                                    BigDecimal.ZERO,
-                                    p -> p.getAmount() != null ? p.getAmount() : BigDecimal.ZERO,
-                                    BigDecimal::add
-                            )
-                    ));
-        } else { // MONTH
-            formatter = DateTimeFormatter.ofPattern("yyyy-MM");
-            // Group by month
-            revenueMap = allPayments.stream()
-                    .collect(Collectors.groupingBy(
-                            p -> p.getPaymentDate().format(formatter),
-                            LinkedHashMap::new,
-                            Collectors.reducing(
-                                    BigDecimal.ZERO,
-                                    p -> p.getAmount() != null ? p.getAmount() : BigDecimal.ZERO,
-                                    BigDecimal::add
-                            )
-                    ));
+        Map<LocalDate, BigDecimal> revenueByDay = new HashMap<>();
+        for (Object[] row : paymentRepository.sumCompletedByDayPaidBetween(startDate, endDate)) {
+            LocalDate day = LocalDate.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue(),
+                    ((Number) row[2]).intValue());
+            revenueByDay.put(day, (BigDecimal) row[3]);
         }
 
+        Function<LocalDate, String> periodKey = periodKey(periodType);
+        Map<String, BigDecimal> revenueMap = new LinkedHashMap<>();
+        for (LocalDate day = startDate.toLocalDate(); !day.isAfter(endDate.toLocalDate()); day = day.plusDays(1)) {
+            revenueMap.merge(periodKey.apply(day), revenueByDay.getOrDefault(day, BigDecimal.ZERO), BigDecimal::add);
+        }
         return revenueMap;
     }
 
+    /**
+     * Key của period chứa 1 ngày: "yyyy-MM-dd", "yyyy-Www", "yyyy-MM", "yyyy-Qn", "yyyy"
+     * WEEK: năm dương lịch + tuần theo Locale mặc định (giữ nguyên key cũ)
+     */
+    private static Function<LocalDate, String> periodKey(String periodType) {
+        switch (periodType) {
+            case "DAY" -> {
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+                return day -> day.format(formatter);
+            }
+            case "WEEK" -> {
+                WeekFields weekFields = WeekFields.of(Locale.getDefault());
+                return day -> String.format("%d-W%02d", day.getYear(), day.get(weekFields.weekOfWeekBasedYear()));
+            }
+            case "QUARTER" -> {
+                return day -> String.format("%d-Q%d", day.getYear(), day.get(IsoFields.QUARTER_OF_YEAR));
+            }
+            case "YEAR" -> {
+                return day -> String.valueOf(day.getYear());
+            }
+            default -> {
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
+                return day -> day.format(formatter);
+            }
+        }
+    }
+
     /**
      * Lấy dữ liệu cho biểu đồ (theo tháng)
+     * Mỗi chỉ số chỉ chạy 1 query gom nhóm theo tháng trên cả khoảng => số dòng đọc về tỷ lệ với số tháng, không theo kích thước bảng
+     * Tháng được tính trong database theo giờ đã lưu (hibernate.jdbc.time_zone trùng múi giờ ứng dụng)
      *
      * @param months Số tháng cần lấy (mặc định 12 tháng gần nhất)
      */
@@ -540,41 +390,47 @@ public class AdminDashboardService {
             months = 12; // Default 12 months
         }
 
-        LocalDateTime now = LocalDateTime.now();
+        YearMonth currentMonth = YearMonth.now();
+        YearMonth firstMonth = currentMonth.minusMonths(months - 1);
+        LocalDateTime windowStart = firstMonth.atDay(1).atStartOfDay();
+        LocalDateTime windowEnd = currentMonth.plusMonths(1).atDay(1).atStartOfDay();
+
+        // Financial data (Payments and Expenses)
+        Map<YearMonth, BigDecimal> revenueByMonth = new HashMap<>();
+        for (Object[] row : paymentRepository.sumCompletedByMonth(windowStart, windowEnd)) {
+            revenueByMonth.put(yearMonth(row), (BigDecimal) row[2]);
+        }
+        Map<YearMonth, BigDecimal> expenseByMonth = new HashMap<>();
+        for (Object[] row : expenseRepository.sumByMonth(windowStart, windowEnd)) {
+            expenseByMonth.put(yearMonth(row), (BigDecimal) row[2]);
+        }
 
-        List<DashboardChartDataDTO.MonthlyFinancialData> monthlyFinancials = new ArrayList<>();
-        List<DashboardChartDataDTO.MonthlyBookingData> monthlyBookings = new ArrayList<>();
-        List<DashboardChartDataDTO.MonthlyGroupData> monthlyGroups = new ArrayList<>();
-        List<DashboardChartDataDTO.MonthlyUserData> monthlyUsers = new ArrayList<>();
-
-        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("yyyy-MM");
-
-        // Generate months
-        for (int i = months - 1; i >= 0; i--) {
-            LocalDateTime monthStart = now.minusMonths(i).withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-            LocalDateTime monthEnd = monthStart.plusMonths(1).minusSeconds(1);
-            String monthKey = monthStart.format(monthFormatter);
-
-            // Financial data (Payments and Expenses)
-            List<Payment> monthPayments = paymentRepository.findAll().stream()
-                    .filter(p -> p.getPaymentDate() != null
-                            && p.getPaymentDate().isAfter(monthStart.minusSeconds(1))
-                            && p.getPaymentDate().isBefore(monthEnd.plusSeconds(1))
-                            && p.getStatus() == PaymentStatus.COMPLETED)
-                    .toList();
-            BigDecimal revenue = monthPayments.stream()
-                    .map(p -> p.getAmount() != null ? p.getAmount() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            List<Expense> monthExpenses = expenseRepository.findAll().stream()
-                    .filter(e -> e.getCreatedAt() != null
-                            && e.getCreatedAt().isAfter(monthStart.minusSeconds(1))
-                            && e.getCreatedAt().isBefore(monthEnd.plusSeconds(1)))
-                    .toList();
-            BigDecimal expense = monthExpenses.stream()
-                    .map(e -> e.getAmount() != null ? e.getAmount() : BigDecimal.ZERO)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Booking data: [total, completed, cancelled]
+        Map<YearMonth, long[]> bookingsByMonth = new HashMap<>();
+        for (Object[] row : bookingRepository.countByMonth(windowStart, windowEnd)) {
+            bookingsByMonth.put(yearMonth(row), new long[]{
+                    ((Number) row[2]).longValue(), ((Number) row[3]).longValue(), ((Number) row[4]).longValue()});
+        }
 
+        // Group / User data
+        Map<YearMonth, Long> newGroupsByMonth = countsByMonth(groupRepository.countCreatedByMonth(windowStart, windowEnd));
+        Map<YearMonth, Long> activeGroupsByMonth = cumulativeByMonth(
+                groupRepository.countActiveByCreatedMonth(windowEnd), firstMonth, currentMonth);
+        Map<YearMonth, Long> newUsersByMonth = countsByMonth(userRepository.countCreatedByMonth(windowStart, windowEnd));
+        Map<YearMonth, Long> activeUsersByMonth = cumulativeByMonth(
+                userRepository.countActiveByCreatedMonth(windowEnd), firstMonth, currentMonth);
+
+        List<DashboardChartDataDTO.MonthlyFinancialData> monthlyFinancials = new ArrayList<>(months);
+        List<DashboardChartDataDTO.MonthlyBookingData> monthlyBookings = new ArrayList<>(months);
+        List<DashboardChartDataDTO.MonthlyGroupData> monthlyGroups = new ArrayList<>(months);
+        List<DashboardChartDataDTO.MonthlyUserData> monthlyUsers = new ArrayList<>(months);
+
+        // Generate months (tháng không có dữ liệu => 0)
+        for (YearMonth month = firstMonth; !month.isAfter(currentMonth); month = month.plusMonths(1)) {
+            String monthKey = month.toString();
+
+            BigDecimal revenue = revenueByMonth.getOrDefault(month, BigDecimal.ZERO);
+            BigDecimal expense = expenseByMonth.getOrDefault(month, BigDecimal.ZERO);
             monthlyFinancials.add(DashboardChartDataDTO.MonthlyFinancialData.builder()
                     .month(monthKey)
                     .revenue(revenue)
@@ -582,64 +438,24 @@ public class AdminDashboardService {
                     .netAmount(revenue.subtract(expense))
                     .build());
 
-            // Booking data
-            long totalBookings = bookingRepository.findAll().stream()
-                    .filter(b -> b.getStartDateTime() != null
-                            && b.getStartDateTime().isAfter(monthStart.minusSeconds(1))
-                            && b.getStartDateTime().isBefore(monthEnd.plusSeconds(1)))
-                    .count();
-            long completedBookings = bookingRepository.findAll().stream()
-                    .filter(b -> b.getStartDateTime() != null
-                            && b.getStartDateTime().isAfter(monthStart.minusSeconds(1))
-                            && b.getStartDateTime().isBefore(monthEnd.plusSeconds(1))
-                            && "COMPLETED".equals(b.getStatus() != null ? b.getStatus().name() : null))
-                    .count();
-            long cancelledBookings = bookingRepository.findAll().stream()
-                    .filter(b -> b.getStartDateTime() != null
-                            && b.getStartDateTime().isAfter(monthStart.minusSeconds(1))
-                            && b.getStartDateTime().isBefore(monthEnd.plusSeconds(1))
-                            && "CANCELLED".equals(b.getStatus() != null ? b.getStatus().name() : null))
-                    .count();
-
+            long[] bookings = bookingsByMonth.getOrDefault(month, new long[3]);
             monthlyBookings.add(DashboardChartDataDTO.MonthlyBookingData.builder()
                     .month(monthKey)
-                    .totalBookings(totalBookings)
-                    .completedBookings(completedBookings)
-                    .cancelledBookings(cancelledBookings)
+                    .totalBookings(bookings[0])
+                    .completedBookings(bookings[1])
+                    .cancelledBookings(bookings[2])
                     .build());
 
-            // Group data
-            long newGroups = groupRepository.findAll().stream()
-                    .filter(g -> g.getCreatedAt() != null
-                            && g.getCreatedAt().isAfter(monthStart.minusSeconds(1))
-                            && g.getCreatedAt().isBefore(monthEnd.plusSeconds(1)))
-                    .count();
-            long activeGroups = groupRepository.findAll().stream()
-                    .filter(g -> g.getStatus() == GroupStatus.ACTIVE
-                            && (g.getCreatedAt() == null || g.getCreatedAt().isBefore(monthEnd.plusSeconds(1))))
-                    .count();
-
             monthlyGroups.add(DashboardChartDataDTO.MonthlyGroupData.builder()
                     .month(monthKey)
-                    .newGroups(newGroups)
-                    .activeGroups(activeGroups)
+                    .newGroups(newGroupsByMonth.getOrDefault(month, 0L))
+                    .activeGroups(activeGroupsByMonth.get(month))
                     .build());
 
-            // User data
-            long newUsers = userRepository.findAll().stream()
-                    .filter(u -> u.getCreatedAt() != null
-                            && u.getCreatedAt().isAfter(monthStart.minusSeconds(1))
-                            && u.getCreatedAt().isBefore(monthEnd.plusSeconds(1)))
-                    .count();
-            long activeUsers = userRepository.findAll().stream()
-                    .filter(u -> u.getStatus() == UserStatus.ACTIVE
-                            && (u.getCreatedAt() == null || u.getCreatedAt().isBefore(monthEnd.plusSeconds(1))))
-                    .count();
-
             monthlyUsers.add(DashboardChartDataDTO.MonthlyUserData.builder()
                     .month(monthKey)
-                    .newUsers(newUsers)
-                    .activeUsers(activeUsers)
+                    .newUsers(newUsersByMonth.getOrDefault(month, 0L))
+                    .activeUsers(activeUsersByMonth.get(month))
                     .build());
         }
 
@@ -650,5 +466,44 @@ public class AdminDashboardService {
                 .monthlyUsers(monthlyUsers)
                 .build();
     }
-}
 
+    // Dòng [year, month, ...] => YearMonth (null nếu bản ghi không có ngày)
+    private static YearMonth yearMonth(Object[] row) {
+        if (row[0] == null || row[1] == null) {
+            return null;
+        }
+        return YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+    }
+
+    private static Map<YearMonth, Long> countsByMonth(List<Object[]> rows) {
+        Map<YearMonth, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(yearMonth(row), ((Number) row[2]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Số bản ghi tạo trước hết mỗi tháng trong [firstMonth, lastMonth] (cộng dồn theo tháng tạo)
+     * Bản ghi không có ngày tạo hoặc tạo trước firstMonth được tính cho mọi tháng
+     */
+    private static Map<YearMonth, Long> cumulativeByMonth(List<Object[]> rows, YearMonth firstMonth, YearMonth lastMonth) {
+        long running = 0;
+        Map<YearMonth, Long> inWindow = new HashMap<>();
+        for (Object[] row : rows) {
+            YearMonth month = yearMonth(row);
+            long count = ((Number) row[2]).longValue();
+            if (month == null || month.isBefore(firstMonth)) {
+                running += count;
+            } else {
+                inWindow.merge(month, count, Long::sum);
+            }
+        }
+        Map<YearMonth, Long> cumulative = new HashMap<>();
+        for (YearMonth month = firstMonth; !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            running += inWindow.getOrDefault(month, 0L);
+            cumulative.put(month, running);
+        }
+        return cumulative;
+    }
+}
@@ -0,0 +1,93 @@
+package com.group8.evcoownership.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Job tính lại AdminDailyRollup từ các bảng nghiệp vụ
+ * - Khởi động lần đầu (chưa có dòng đánh dấu backfill): tính lại toàn bộ các ngày có dữ liệu
+ * - Mỗi đêm: tính lại các ngày gần đây (sửa phần bị lệch do cập nhật không qua Hibernate hoặc lỗi khi cộng dồn)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdminRollupCompactor {
+
+    private final AdminRollupService rollupService;
+    private final DashboardTotalsLoader totalsLoader;
+
+    // Số ngày gần nhất được tính lại mỗi đêm
+    @Value("${dashboard.rollup.compaction-days:7}")
+    private int compactionDays;
+
+    // Booking được đặt trước tối đa 3 tháng => tính lại cả các ngày tương lai
+    @Value("${dashboard.rollup.future-days:100}")
+    private int futureDays;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfNeeded() {
+        try {
+            if (rollupService.isBackfilled()) {
+                rollupService.markReady();
+                return;
+            }
+            backfill();
+        } catch (Exception ex) {
+            log.error("Admin rollup backfill failed, dashboard statistics will be queried directly", ex);
+        }
+    }
+
+    // Chạy lúc 02:45 mỗi ngày (sau job đối soát counter quota)
+    @Scheduled(cron = "0 45 2 * * *")
+    public void compactRecentDays() {
+        LocalDate today = LocalDate.now();
+        try {
+            int days = compact(today.minusDays(compactionDays), today.plusDays(futureDays + 1L));
+            log.info("Admin rollup compaction finished: {} day(s) recomputed", days);
+        } catch (Exception ex) {
+            log.error("Admin rollup compaction failed", ex);
+        }
+    }
+
+    /**
+     * Tính lại toàn bộ các ngày có dữ liệu rồi đánh dấu đã backfill (dashboard bắt đầu đọc rollup)
+     * return số ngày đã tính lại
+     */
+    public int backfill() {
+        Optional<LocalDate[]> range = totalsLoader.dataDayRange();
+        int days = range.map(r -> compact(r[0], r[1].plusDays(1))).orElse(0);
+        rollupService.markBackfilled();
+        log.info("Admin rollup backfill finished: {} day(s) recomputed", days);
+        return days;
+    }
+
+    /**
+     * Tính lại rollup của các ngày trong [fromDay, toDay), mỗi ngày 1 transaction
+     * Ngày đang liên tục có thay đổi được bỏ qua (lần chạy sau tính lại)
+     * return số ngày đã tính lại
+     */
+    public int compact(LocalDate fromDay, LocalDate toDay) {
+        int days = 0;
+        for (LocalDate day = fromDay; day.isBefore(toDay); day = day.plusDays(1)) {
+            LocalDate current = day;
+            if (rollupService.recomputeDay(day, () -> totalsLoader.load(current.atStartOfDay(), endOfDay(current)))) {
+                days++;
+            }
+        }
+        return days;
+    }
+
+    // Thời điểm cuối cùng của ngày (các query thống kê bao gồm cả 2 đầu)
+    static LocalDateTime endOfDay(LocalDate day) {
+        return day.plusDays(1).atStartOfDay().minusNanos(1_000);
+    }
+}
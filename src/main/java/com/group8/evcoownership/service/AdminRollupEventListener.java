@@ -0,0 +1,120 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.RollupEntityType;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Theo dõi INSERT / UPDATE / DELETE (qua Hibernate) của các bản ghi có trong thống kê dashboard và ghi nhận vào AdminDailyRollup
+ * UPDATE: trừ phần đóng góp cũ (ngày / status / số tiền trước khi đổi), cộng phần đóng góp mới
+ * Ghi bằng JDBC hoặc SQL trực tiếp không qua listener: gọi onBatchInserted, hoặc để job đêm tính lại
+ */
+@Component
+@RequiredArgsConstructor
+public class AdminRollupEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    // Thuộc tính của entity tạo nên 1 dòng rollup; amount / fund null => chỉ đếm
+    private record Tracked(RollupEntityType type, String date, String status, String amount, String fund) {
+    }
+
+    private static final Map<Class<?>, List<Tracked>> TRACKED = Map.of(
+            OwnershipGroup.class, List.of(new Tracked(RollupEntityType.GROUP, "createdAt", "status", null, null)),
+            User.class, List.of(
+                    new Tracked(RollupEntityType.USER, "createdAt", "status", null, null),
+                    new Tracked(RollupEntityType.USER_ROLE, "createdAt", "role", null, null)),
+            UsageBooking.class, List.of(new Tracked(RollupEntityType.BOOKING, "startDateTime", "status", null, null)),
+            Dispute.class, List.of(new Tracked(RollupEntityType.DISPUTE, "createdAt", "status", null, null)),
+            Incident.class, List.of(new Tracked(RollupEntityType.INCIDENT, "createdAt", "status", null, null)),
+            Maintenance.class, List.of(new Tracked(RollupEntityType.MAINTENANCE, "requestDate", "status", null, null)),
+            Contract.class, List.of(new Tracked(RollupEntityType.CONTRACT, "createdAt", "approvalStatus", null, null)),
+            Expense.class, List.of(new Tracked(RollupEntityType.EXPENSE, "createdAt", "status", "amount", "fund")),
+            Payment.class, List.of(new Tracked(RollupEntityType.PAYMENT, "paymentDate", "status", "amount", "fund")));
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final AdminRollupService rollupService;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = sessionFactory().getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getPersister(), event.getState(), 1);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        // Không có trạng thái cũ (entity detached được update thẳng) => không tính được chênh lệch, để job đêm tính lại
+        if (event.getOldState() == null) {
+            return;
+        }
+        record(event.getPersister(), event.getOldState(), -1);
+        record(event.getPersister(), event.getState(), 1);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getPersister(), event.getDeletedState(), -1);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * Ghi nhận các entity vừa được INSERT bằng JDBC batch (không đi qua Hibernate)
+     */
+    public void onBatchInserted(Collection<?> entities) {
+        for (Object entity : entities) {
+            EntityPersister persister = sessionFactory().getMappingMetamodel().getEntityDescriptor(entity.getClass());
+            record(persister, persister.getValues(entity), 1);
+        }
+    }
+
+    private void record(EntityPersister persister, Object[] state, int sign) {
+        List<Tracked> tracked = TRACKED.get(persister.getMappedClass());
+        if (tracked == null || state == null) {
+            return;
+        }
+        List<String> properties = Arrays.asList(persister.getPropertyNames());
+        for (Tracked t : tracked) {
+            LocalDateTime date = (LocalDateTime) state[properties.indexOf(t.date())];
+            Object status = state[properties.indexOf(t.status())];
+            // Thống kê theo khoảng bỏ qua bản ghi không có ngày; USER_ROLE chỉ đếm user có role
+            if (date == null || (t.type() == RollupEntityType.USER_ROLE && status == null)) {
+                continue;
+            }
+            if (status instanceof Role role) {
+                status = role.getRoleName();
+            }
+            BigDecimal amount = t.amount() != null ? (BigDecimal) state[properties.indexOf(t.amount())] : null;
+            SharedFund fund = t.fund() != null ? (SharedFund) state[properties.indexOf(t.fund())] : null;
+            rollupService.record(date.toLocalDate(), t.type(), DashboardTotals.statusKey(status),
+                    fund != null ? fund.getFundId() : null,
+                    sign, amount != null ? (sign < 0 ? amount.negate() : amount) : null);
+        }
+    }
+
+    private SessionFactoryImplementor sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+}
@@ -0,0 +1,332 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.AdminDailyRollup;
+import com.group8.evcoownership.entity.AdminDailyRollupId;
+import com.group8.evcoownership.enums.RollupEntityType;
+import com.group8.evcoownership.repository.AdminDailyRollupRepository;
+import com.group8.evcoownership.repository.SharedFundRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Quản lý AdminDailyRollup (số bản ghi / tổng tiền theo ngày cho Admin Dashboard)
+ * - Thay đổi trong 1 transaction được gom lại, chỉ đưa vào hàng đợi SAU KHI commit (transaction rollback => không cộng)
+ * - Hàng đợi được ghi định kỳ bởi 1 luồng (flush): không cần thêm connection trong lúc transaction nghiệp vụ còn giữ connection,
+ *   nhiều thay đổi của cùng 1 dòng (vd. payment cùng ngày / status) được cộng thành 1 UPDATE
+ * - Mỗi dòng rollup được cộng bằng 1 UPDATE nguyên tử, lỗi => thay đổi được đưa lại vào hàng đợi cho lần flush sau
+ * - Tính lại 1 ngày (recomputeDay) chỉ ghi đè khi không có transaction nào thay đổi ngày đó trong lúc tính,
+ *   thay đổi đang chờ của ngày bị bỏ cùng lúc ghi đè => không cộng 2 lần thay đổi đã có trong số liệu tính lại
+ * - Chỉ đọc rollup khi backfill đã chạy xong (isReady), trước đó dashboard query trực tiếp
+ */
+@Service
+@Slf4j
+public class AdminRollupService {
+
+    // Dòng đánh dấu backfill đã chạy xong
+    static final AdminDailyRollupId BACKFILL_MARKER = new AdminDailyRollupId(
+            LocalDate.EPOCH.atStartOfDay(), RollupEntityType.BACKFILL, "COMPLETED", DashboardTotals.NO_FUND_TYPE);
+
+    private record Key(LocalDate day, RollupEntityType type, String status, Long fundId) {
+    }
+
+    private static final class Delta {
+        private long count;
+        private BigDecimal amount = BigDecimal.ZERO;
+    }
+
+    // Thay đổi của 1 transaction và các ngày nó đã chạm tới
+    private static final class TransactionDeltas {
+        private final Map<Key, Delta> deltas = new HashMap<>();
+        private final Set<LocalDate> days = new HashSet<>();
+    }
+
+    // Theo ngày: số transaction chưa kết thúc có thay đổi của ngày, tổng số lần ngày bị thay đổi
+    private static final class DayActivity {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong changes = new AtomicLong();
+    }
+
+    // Số lần thử tính lại 1 ngày đang có thay đổi và thời gian chờ giữa 2 lần
+    private static final int RECOMPUTE_ATTEMPTS = 20;
+    private static final long RECOMPUTE_RETRY_MS = 50;
+
+    private final AdminDailyRollupRepository rollupRepository;
+    private final SharedFundRepository fundRepository;
+    private final TransactionTemplate requiresNew;
+
+    // Loại quỹ không đổi sau khi tạo quỹ
+    private final Map<Long, String> fundTypes = new ConcurrentHashMap<>();
+
+    // Thay đổi đã commit, chưa ghi vào rollup
+    private final Map<Key, Delta> pending = new HashMap<>();
+    private final Object flushLock = new Object();
+    private final Map<LocalDate, DayActivity> activity = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    // Tắt flush định kỳ (test gọi flush() trực tiếp)
+    @Value("${dashboard.rollup.scheduled-flush:true}")
+    private boolean scheduledFlushEnabled;
+
+    public AdminRollupService(AdminDailyRollupRepository rollupRepository,
+                              SharedFundRepository fundRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.fundRepository = fundRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Ghi nhận thay đổi của 1 dòng rollup (count/amount âm khi bản ghi rời khỏi status / ngày cũ)
+     * Trong transaction: gom lại và đưa vào hàng đợi sau commit; ngoài transaction: đưa vào hàng đợi ngay
+     */
+    public void record(LocalDate day, RollupEntityType type, String status, Long fundId, long count, BigDecimal amount) {
+        Delta delta = new Delta();
+        delta.count = count;
+        if (amount != null) {
+            delta.amount = amount;
+        }
+        Key key = new Key(day, type, status, fundId);
+        DayActivity dayActivity = activity(day);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionDeltas tx = transactionDeltas();
+            // Tăng inFlight trước changes: recomputeDay đọc changes rồi mới kiểm tra inFlight
+            if (tx.days.add(day)) {
+                dayActivity.inFlight.incrementAndGet();
+            }
+            dayActivity.changes.incrementAndGet();
+            merge(tx.deltas, key, delta);
+        } else {
+            dayActivity.changes.incrementAndGet();
+            enqueue(Map.of(key, delta));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.rollup.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        if (scheduledFlushEnabled) {
+            flush();
+        }
+    }
+
+    /**
+     * Ghi các thay đổi đang chờ vào AdminDailyRollup (định kỳ mặc định mỗi giây và khi tắt ứng dụng)
+     */
+    @PreDestroy
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Key, Delta> drained;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                drained = new HashMap<>(pending);
+                pending.clear();
+            }
+            apply(drained);
+        }
+    }
+
+    /**
+     * Tính lại rollup của 1 ngày bằng loader (đọc các bảng nghiệp vụ) và ghi đè
+     * - Chỉ tính khi không có transaction đang mở có thay đổi của ngày; ghi đè khi số lần thay đổi không đổi trong lúc tính
+     *   => thay đổi đang chờ của ngày đều đã commit trước khi tính (đã có trong số liệu) và được bỏ dưới cùng lock với ghi đè
+     * - Ngày liên tục có thay đổi: thử lại, hết số lần thử thì giữ rollup hiện tại (các thay đổi vẫn được cộng dồn đúng)
+     * return false nếu không tính lại được
+     */
+    boolean recomputeDay(LocalDate day, Supplier<DashboardTotals> loader) {
+        DayActivity dayActivity = activity(day);
+        for (int attempt = 0; attempt < RECOMPUTE_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                try {
+                    Thread.sleep(RECOMPUTE_RETRY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            long changes = dayActivity.changes.get();
+            if (dayActivity.inFlight.get() > 0) {
+                continue;
+            }
+            DashboardTotals totals = loader.get();
+            synchronized (flushLock) {
+                synchronized (pending) {
+                    if (dayActivity.inFlight.get() > 0 || dayActivity.changes.get() != changes) {
+                        continue;
+                    }
+                    pending.keySet().removeIf(key -> key.day().equals(day));
+                }
+                replaceDay(day, totals);
+            }
+            return true;
+        }
+        log.warn("Admin rollup for {} not recomputed: day kept changing during {} attempts", day, RECOMPUTE_ATTEMPTS);
+        return false;
+    }
+
+    private DayActivity activity(LocalDate day) {
+        return activity.computeIfAbsent(day, d -> new DayActivity());
+    }
+
+    private TransactionDeltas transactionDeltas() {
+        TransactionDeltas deltas = (TransactionDeltas) TransactionSynchronizationManager.getResource(this);
+        if (deltas != null) {
+            return deltas;
+        }
+        TransactionDeltas created = new TransactionDeltas();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(created.deltas);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(AdminRollupService.this);
+                // Sau khi đã đưa vào hàng đợi (afterCommit chạy trước)
+                created.days.forEach(day -> activity(day).inFlight.decrementAndGet());
+            }
+        });
+        return created;
+    }
+
+    private void enqueue(Map<Key, Delta> deltas) {
+        synchronized (pending) {
+            deltas.forEach((key, delta) -> merge(pending, key, delta));
+        }
+    }
+
+    private static void merge(Map<Key, Delta> deltas, Key key, Delta delta) {
+        Delta current = deltas.computeIfAbsent(key, k -> new Delta());
+        current.count += delta.count;
+        current.amount = current.amount.add(delta.amount);
+    }
+
+    private void apply(Map<Key, Delta> deltas) {
+        for (Map.Entry<Key, Delta> entry : deltas.entrySet()) {
+            Key key = entry.getKey();
+            Delta delta = entry.getValue();
+            if (delta.count == 0 && delta.amount.signum() == 0) {
+                continue;
+            }
+            try {
+                AdminDailyRollupId id = new AdminDailyRollupId(
+                        key.day().atStartOfDay(), key.type(), key.status(), fundTypeOf(key.fundId()));
+                try {
+                    increment(id, delta);
+                } catch (DataIntegrityViolationException e) {
+                    // Transaction khác vừa tạo dòng này => cộng lại bằng UPDATE
+                    increment(id, delta);
+                }
+            } catch (RuntimeException e) {
+                // Gọi trong flushLock => recomputeDay thấy thay đổi này trong hàng đợi
+                log.warn("Failed to update admin rollup {} ({} / {}), retrying on next flush: {}",
+                        key, delta.count, delta.amount, e.getMessage());
+                enqueue(Map.of(key, delta));
+            }
+        }
+    }
+
+    private void increment(AdminDailyRollupId id, Delta delta) {
+        requiresNew.executeWithoutResult(status -> {
+            int updated = rollupRepository.increment(id.getDay(), id.getEntityType(), id.getStatus(),
+                    id.getFundType(), delta.count, delta.amount, LocalDateTime.now());
+            if (updated == 0) {
+                rollupRepository.saveAndFlush(AdminDailyRollup.builder()
+                        .id(id)
+                        .itemCount(delta.count)
+                        .amount(delta.amount)
+                        .build());
+            }
+        });
+    }
+
+    private String fundTypeOf(Long fundId) {
+        if (fundId == null) {
+            return DashboardTotals.NO_FUND_TYPE;
+        }
+        String cached = fundTypes.get(fundId);
+        if (cached != null) {
+            return cached;
+        }
+        String fundType = DashboardTotals.fundTypeKey(fundRepository.findFundTypeById(fundId).orElse(null));
+        fundTypes.put(fundId, fundType);
+        return fundType;
+    }
+
+    /**
+     * Cộng các dòng rollup của các ngày trong [fromDay, toDay) (số dòng đọc tỷ lệ với số ngày), type null => mọi loại
+     */
+    public DashboardTotals sumDays(RollupEntityType type, LocalDate fromDay, LocalDate toDay) {
+        DashboardTotals totals = new DashboardTotals();
+        for (Object[] row : rollupRepository.sumBetween(type, fromDay.atStartOfDay(), toDay.atStartOfDay())) {
+            totals.add((RollupEntityType) row[0], row[1], row[2], ((Number) row[3]).longValue(), (BigDecimal) row[4]);
+        }
+        return totals;
+    }
+
+    /**
+     * Ghi lại toàn bộ rollup của 1 ngày từ số liệu tính trực tiếp (job tính lại / backfill)
+     */
+    private void replaceDay(LocalDate day, DashboardTotals totals) {
+        requiresNew.executeWithoutResult(status -> {
+            rollupRepository.deleteByDay(day.atStartOfDay());
+            List<AdminDailyRollup> rows = new ArrayList<>();
+            for (DashboardTotals.Entry entry : totals.entries()) {
+                rows.add(AdminDailyRollup.builder()
+                        .id(new AdminDailyRollupId(day.atStartOfDay(), entry.type(), entry.status(), entry.fundType()))
+                        .itemCount(entry.count())
+                        .amount(entry.amount())
+                        .build());
+            }
+            rollupRepository.saveAll(rows);
+        });
+    }
+
+    boolean isBackfilled() {
+        return rollupRepository.existsById(BACKFILL_MARKER);
+    }
+
+    void markBackfilled() {
+        requiresNew.executeWithoutResult(status -> {
+            if (!rollupRepository.existsById(BACKFILL_MARKER)) {
+                rollupRepository.save(AdminDailyRollup.builder().id(BACKFILL_MARKER).itemCount(0L).build());
+            }
+        });
+        ready = true;
+    }
+}
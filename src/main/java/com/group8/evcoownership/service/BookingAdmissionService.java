@@ -0,0 +1,130 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.UsageBooking;
+import com.group8.evcoownership.enums.BookingStatus;
+import com.group8.evcoownership.exception.BookingValidationException;
+import com.group8.evcoownership.repository.UsageBookingRepository;
+import com.group8.evcoownership.repository.VehicleRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.SQLException;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Ghi nhận booking mới mà không bị double-book khi có nhiều request đồng thời cho cùng một xe
+ * - PostgreSQL: exclusion constraint ex_usagebooking_vehicle_time chặn trùng ngay ở database,
+ * mỗi lần admit chỉ tốn 1 INSERT; vi phạm được map sang BookingValidationException
+ * - Database không hỗ trợ exclusion constraint (H2): khóa dòng Vehicle rồi kiểm tra overlap,
+ * chỉ tuần tự hóa các request của cùng một xe
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingAdmissionService {
+
+    public static final String OVERLAP_CONSTRAINT = "ex_usagebooking_vehicle_time";
+
+    // SQLSTATE exclusion_violation của PostgreSQL
+    private static final String EXCLUSION_VIOLATION_STATE = "23P01";
+
+    private static final String OVERLAP_MESSAGE =
+            "This time slot is already booked by another member. Please select a different time slot.";
+
+    private static final Set<BookingStatus> BLOCKING_STATUSES = EnumSet.of(
+            BookingStatus.CONFIRMED, BookingStatus.AWAITING_REVIEW, BookingStatus.NEEDS_ATTENTION);
+
+    private final UsageBookingRepository usageBookingRepository;
+    private final VehicleRepository vehicleRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+
+    @Value("${booking.admission.exclusion-constraint:false}")
+    private boolean exclusionConstraintEnabled;
+
+    /**
+     * Lưu booking nếu không trùng với booking đang hiệu lực của xe
+     * Phải được gọi trong transaction của caller (để khóa/constraint có hiệu lực tới khi commit)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public UsageBooking admit(UsageBooking booking) {
+        Long vehicleId = booking.getVehicle().getId();
+
+        // Kiểm tra nhanh bằng index trong bộ nhớ (không query database)
+        if (BLOCKING_STATUSES.contains(booking.getStatus())
+                && bookingIntervalIndex.hasBlockingOverlap(vehicleId, booking.getStartDateTime(), booking.getEndDateTime())) {
+            throw new BookingValidationException(OVERLAP_MESSAGE);
+        }
+
+        UsageBooking saved = exclusionConstraintEnabled
+                ? insertGuardedByConstraint(booking)
+                : insertUnderVehicleLock(booking);
+
+        bookingIntervalIndex.invalidate(vehicleId);
+        return saved;
+    }
+
+    /**
+     * Database tự chặn overlap: chỉ cần INSERT, vi phạm constraint => booking bị từ chối
+     */
+    private UsageBooking insertGuardedByConstraint(UsageBooking booking) {
+        try {
+            return usageBookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            if (!isOverlapViolation(e)) {
+                throw e;
+            }
+            // Index đã lỗi thời so với database => xóa để lần đặt sau thấy đúng lịch trống
+            bookingIntervalIndex.invalidate(booking.getVehicle().getId());
+            log.info("Booking rejected by {} for vehicle {} [{} - {}]", OVERLAP_CONSTRAINT,
+                    booking.getVehicle().getId(), booking.getStartDateTime(), booking.getEndDateTime());
+            throw new BookingValidationException(OVERLAP_MESSAGE);
+        }
+    }
+
+    /**
+     * Fallback: khóa dòng Vehicle (PESSIMISTIC_WRITE) rồi kiểm tra overlap trực tiếp trên database
+     */
+    private UsageBooking insertUnderVehicleLock(UsageBooking booking) {
+        Long vehicleId = booking.getVehicle().getId();
+        try {
+            vehicleRepository.lockById(vehicleId)
+                    .orElseThrow(() -> new EntityNotFoundException("Vehicle not found"));
+        } catch (PessimisticLockingFailureException e) {
+            throw new BookingValidationException(
+                    "This vehicle is being booked by another member right now. Please try again.");
+        }
+
+        boolean hasOverlap = BLOCKING_STATUSES.contains(booking.getStatus())
+                && usageBookingRepository.findAffectedBookings(
+                        vehicleId, booking.getStartDateTime(), booking.getEndDateTime()).stream()
+                .anyMatch(b -> BLOCKING_STATUSES.contains(b.getStatus()));
+        if (hasOverlap) {
+            throw new BookingValidationException(OVERLAP_MESSAGE);
+        }
+        return usageBookingRepository.saveAndFlush(booking);
+    }
+
+    private static boolean isOverlapViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException cve
+                    && cve.getConstraintName() != null
+                    && cve.getConstraintName().toLowerCase().contains(OVERLAP_CONSTRAINT)) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException
+                    && EXCLUSION_VIOLATION_STATE.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
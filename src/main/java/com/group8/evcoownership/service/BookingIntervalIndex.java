@@ -0,0 +1,181 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.UsageBooking;
+import com.group8.evcoownership.enums.BookingStatus;
+import com.group8.evcoownership.repository.UsageBookingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index khoảng thời gian booking theo từng xe (giữ trong bộ nhớ)
+ * - Dựng lại lazily từ UsageBookingRepository khi cache miss
+ * - Bị invalidate khi booking được tạo, hủy hoặc đổi trạng thái
+ * - Kiểm tra overlap bằng tìm nhị phân, không cần query database
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingIntervalIndex {
+
+    // Các trạng thái chặn không cho đặt trùng (giống rule của createFlexibleBooking)
+    private static final Set<BookingStatus> BLOCKING_STATUSES = EnumSet.of(
+            BookingStatus.CONFIRMED, BookingStatus.AWAITING_REVIEW, BookingStatus.NEEDS_ATTENTION);
+
+    // Lùi horizon 1 ngày để an toàn với chênh lệch múi giờ giữa client và server
+    private static final Duration HORIZON_LOOKBACK = Duration.ofDays(1);
+
+    private final UsageBookingRepository usageBookingRepository;
+
+    private final Map<Long, VehicleIntervals> index = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    @Value("${booking.index.max-age-seconds:600}")
+    private long maxAgeSeconds;
+
+    /**
+     * Một booking trong index: [start, end] và trạng thái
+     */
+    public record BookingInterval(Long bookingId, Long userId, LocalDateTime start, LocalDateTime end,
+                                  BookingStatus status) {
+    }
+
+    /**
+     * Kiểm tra có booking đang hiệu lực (CONFIRMED, AWAITING_REVIEW, NEEDS_ATTENTION) trùng khoảng thời gian không
+     */
+    public boolean hasBlockingOverlap(Long vehicleId, LocalDateTime start, LocalDateTime end) {
+        return overlapping(vehicleId, start, end).stream()
+                .anyMatch(interval -> BLOCKING_STATUSES.contains(interval.status()));
+    }
+
+    /**
+     * Slot còn trống khi không trùng với bất kỳ booking nào hiển thị trên lịch
+     */
+    public boolean isSlotAvailable(Long vehicleId, LocalDateTime start, LocalDateTime end) {
+        return overlapping(vehicleId, start, end).isEmpty();
+    }
+
+    /**
+     * Lấy các booking trùng với khoảng [start, end] (tính cả hai đầu mút)
+     * Nếu khoảng thời gian nằm trước horizon của index thì query trực tiếp database
+     */
+    public List<BookingInterval> overlapping(Long vehicleId, LocalDateTime start, LocalDateTime end) {
+        VehicleIntervals intervals = getOrLoad(vehicleId);
+        if (start.isBefore(intervals.horizon())) {
+            return usageBookingRepository.findAffectedBookings(vehicleId, start, end).stream()
+                    .map(BookingIntervalIndex::toInterval)
+                    .toList();
+        }
+        return intervals.overlapping(start, end);
+    }
+
+    /**
+     * Xóa index của xe; gọi khi booking của xe được tạo, hủy hoặc đổi trạng thái
+     * Nếu đang trong transaction thì xóa thêm một lần sau commit để tránh dựng lại từ dữ liệu chưa commit
+     */
+    public void invalidate(Long vehicleId) {
+        if (vehicleId == null) {
+            return;
+        }
+        evict(vehicleId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(vehicleId);
+                }
+            });
+        }
+    }
+
+    private void evict(Long vehicleId) {
+        versions.computeIfAbsent(vehicleId, id -> new AtomicLong()).incrementAndGet();
+        index.remove(vehicleId);
+    }
+
+    private VehicleIntervals getOrLoad(Long vehicleId) {
+        LocalDateTime now = LocalDateTime.now();
+        VehicleIntervals cached = index.get(vehicleId);
+        if (cached != null && cached.loadedAt().plusSeconds(maxAgeSeconds).isAfter(now)) {
+            return cached;
+        }
+
+        // Ghi nhận version trước khi load; nếu có invalidate trong lúc load thì không cache kết quả cũ
+        long version = versions.computeIfAbsent(vehicleId, id -> new AtomicLong()).get();
+        LocalDateTime horizon = now.minus(HORIZON_LOOKBACK);
+        List<BookingInterval> loaded = usageBookingRepository.findIndexableBookingsByVehicle(vehicleId, horizon)
+                .stream()
+                .map(BookingIntervalIndex::toInterval)
+                .toList();
+        VehicleIntervals rebuilt = VehicleIntervals.of(loaded, horizon, now);
+
+        index.compute(vehicleId, (id, current) ->
+                versions.get(id).get() == version ? rebuilt : current);
+        log.debug("Rebuilt booking interval index for vehicle {} ({} bookings)", vehicleId, loaded.size());
+        return rebuilt;
+    }
+
+    private static BookingInterval toInterval(UsageBooking booking) {
+        return new BookingInterval(
+                booking.getId(),
+                booking.getUser() != null ? booking.getUser().getUserId() : null,
+                booking.getStartDateTime(),
+                booking.getEndDateTime(),
+                booking.getStatus());
+    }
+
+    /**
+     * Snapshot bất biến của một xe: mảng sắp xếp theo start + maxEnd tích lũy
+     */
+    private record VehicleIntervals(BookingInterval[] intervals, LocalDateTime[] maxEnds,
+                                    LocalDateTime horizon, LocalDateTime loadedAt) {
+
+        static VehicleIntervals of(List<BookingInterval> source, LocalDateTime horizon, LocalDateTime loadedAt) {
+            BookingInterval[] sorted = source.stream()
+                    .filter(i -> i.start() != null && i.end() != null)
+                    .sorted(Comparator.comparing(BookingInterval::start))
+                    .toArray(BookingInterval[]::new);
+            LocalDateTime[] maxEnds = new LocalDateTime[sorted.length];
+            LocalDateTime runningMax = null;
+            for (int i = 0; i < sorted.length; i++) {
+                if (runningMax == null || sorted[i].end().isAfter(runningMax)) {
+                    runningMax = sorted[i].end();
+                }
+                maxEnds[i] = runningMax;
+            }
+            return new VehicleIntervals(sorted, maxEnds, horizon, loadedAt);
+        }
+
+        List<BookingInterval> overlapping(LocalDateTime start, LocalDateTime end) {
+            // Tìm vị trí cuối cùng có start <= end
+            int lo = 0;
+            int hi = intervals.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (intervals[mid].start().isAfter(end)) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+
+            List<BookingInterval> result = new ArrayList<>();
+            for (int i = lo - 1; i >= 0 && !maxEnds[i].isBefore(start); i--) {
+                if (!intervals[i].end().isBefore(start)) {
+                    result.add(intervals[i]);
+                }
+            }
+            Collections.reverse(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.dto.DailySlotResponseDTO;
+import com.group8.evcoownership.dto.TimeSlotResponseDTO;
+import com.group8.evcoownership.dto.WeeklyCalendarResponseDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Sinh gợi ý booking từ lịch tuần đã dựng sẵn (không query database, không dựng lại lịch)
+ * - Quota: còn nhiều / còn ít slot
+ * - Khung giờ trống tốt nhất vừa với số slot quota còn lại
+ * - Ngày ít bị tranh chấp nhất
+ * - Nhắc chia sẻ công bằng theo tỷ lệ sở hữu
+ */
+@Component
+public class BookingSuggestionEngine {
+
+    // Số khung giờ trống / ngày vắng được gợi ý tối đa
+    private static final int MAX_WINDOWS = 3;
+    private static final int MAX_QUIET_DAYS = 2;
+
+    // Chỉ nhắc chia sẻ khi tuần có đủ booking và tỷ lệ dùng lệch khỏi tỷ lệ sở hữu quá ngưỡng (điểm %)
+    private static final int FAIR_SHARE_MIN_BOOKED_SLOTS = 4;
+    private static final double FAIR_SHARE_TOLERANCE = 15.0;
+
+    /**
+     * Khung giờ trống: các slot AVAILABLE liên tiếp trong 1 ngày (slot bảo dưỡng xen giữa không làm đứt khung)
+     */
+    private record FreeWindow(DailySlotResponseDTO day, String start, String end, int slots) {
+    }
+
+    private record DayLoad(DailySlotResponseDTO day, int bookedSlots, int availableSlots) {
+    }
+
+    public List<String> suggest(WeeklyCalendarResponseDTO calendar) {
+        List<String> suggestions = new ArrayList<>();
+        int remainingSlots = calendar.getUserQuota().getRemainingSlots();
+
+        // Gợi ý dựa trên quota
+        if (remainingSlots > 20) {
+            suggestions.add("You have " + remainingSlots +
+                    " unused slots left. Consider booking more to use your quota!");
+        }
+
+        if (remainingSlots < 5) {
+            suggestions.add("You only have " + remainingSlots +
+                    " slots left. Please book carefully!");
+        }
+
+        // Duyệt lịch 1 lần: khung trống, tải theo ngày, số slot của mình / người khác
+        List<FreeWindow> windows = new ArrayList<>();
+        List<DayLoad> dayLoads = new ArrayList<>();
+        int availableSlots = 0;
+        int selfSlots = 0;
+        int otherSlots = 0;
+        for (DailySlotResponseDTO day : calendar.getDailySlots()) {
+            int dayBooked = 0;
+            int dayAvailable = 0;
+            TimeSlotResponseDTO runStart = null;
+            TimeSlotResponseDTO runEnd = null;
+            int runSlots = 0;
+            for (TimeSlotResponseDTO slot : day.getSlots()) {
+                if ("MAINTENANCE".equals(slot.getType())) {
+                    continue;
+                }
+                if (slot.isBookable()) {
+                    dayAvailable++;
+                    if (runStart == null) {
+                        runStart = slot;
+                    }
+                    runEnd = slot;
+                    runSlots++;
+                    continue;
+                }
+                if (runStart != null) {
+                    windows.add(new FreeWindow(day, startOf(runStart), endOf(runEnd), runSlots));
+                    runStart = null;
+                    runSlots = 0;
+                }
+                if (slot.getBookingId() != null) {
+                    dayBooked++;
+                    if (slot.getType() != null && slot.getType().endsWith("_SELF")) {
+                        selfSlots++;
+                    } else {
+                        otherSlots++;
+                    }
+                }
+            }
+            if (runStart != null) {
+                windows.add(new FreeWindow(day, startOf(runStart), endOf(runEnd), runSlots));
+            }
+            availableSlots += dayAvailable;
+            if (dayAvailable > 0) {
+                dayLoads.add(new DayLoad(day, dayBooked, dayAvailable));
+            }
+        }
+
+        // Gợi ý dựa trên tính khả dụng
+        if (availableSlots < 5) {
+            suggestions.add("There are few available slots this week (" + availableSlots + " slots). Book soon!");
+        }
+
+        // Khung trống dài nhất, cắt theo số slot quota còn lại
+        if (remainingSlots > 0) {
+            windows.stream()
+                    .sorted(Comparator.comparingInt((FreeWindow w) -> Math.min(w.slots(), remainingSlots)).reversed()
+                            .thenComparing(w -> w.day().getDate()))
+                    .limit(MAX_WINDOWS)
+                    .forEach(w -> suggestions.add(String.format(
+                            "Free window on %s: %s-%s (%d free slot%s).",
+                            dayLabel(w.day()), w.start(), w.end(), w.slots(), w.slots() > 1 ? "s" : "")));
+        }
+
+        // Ngày ít bị đặt nhất (trong các ngày còn slot trống)
+        if (dayLoads.size() > MAX_QUIET_DAYS) {
+            List<String> quietDays = dayLoads.stream()
+                    .sorted(Comparator.comparingInt(DayLoad::bookedSlots)
+                            .thenComparing(Comparator.comparingInt(DayLoad::availableSlots).reversed())
+                            .thenComparing(d -> d.day().getDate()))
+                    .limit(MAX_QUIET_DAYS)
+                    .map(d -> dayLabel(d.day()) + " (" + d.bookedSlots() + " booked)")
+                    .toList();
+            suggestions.add("Least contested days: " + String.join(", ", quietDays) + ".");
+        }
+
+        // Nhắc chia sẻ công bằng: so tỷ lệ slot đã đặt với tỷ lệ sở hữu
+        Double ownershipPercent = calendar.getDashboardSummary() != null
+                ? calendar.getDashboardSummary().getOwnershipPercent()
+                : null;
+        int bookedSlots = selfSlots + otherSlots;
+        if (ownershipPercent != null && bookedSlots >= FAIR_SHARE_MIN_BOOKED_SLOTS) {
+            double usagePercent = Math.round(selfSlots * 1000.0 / bookedSlots) / 10.0;
+            if (usagePercent > ownershipPercent + FAIR_SHARE_TOLERANCE) {
+                suggestions.add(String.format(Locale.ROOT,
+                        "You hold %.1f%% of this week's booked slots but own %.1f%% of the vehicle. Consider leaving room for co-owners.",
+                        usagePercent, ownershipPercent));
+            } else if (usagePercent + FAIR_SHARE_TOLERANCE < ownershipPercent && remainingSlots > 0) {
+                suggestions.add(String.format(Locale.ROOT,
+                        "You own %.1f%% of the vehicle but hold only %.1f%% of this week's booked slots. Don't miss your fair share!",
+                        ownershipPercent, usagePercent));
+            }
+        }
+
+        return suggestions;
+    }
+
+    // Nhãn slot dạng "08:00-11:00" hoặc "23:00-00:00+1"
+    private static String startOf(TimeSlotResponseDTO slot) {
+        return slot.getTime().substring(0, 5);
+    }
+
+    private static String endOf(TimeSlotResponseDTO slot) {
+        return slot.getTime().substring(6);
+    }
+
+    private static String dayLabel(DailySlotResponseDTO day) {
+        String name = day.getDayOfWeek();
+        return name.charAt(0) + name.substring(1).toLowerCase(Locale.ROOT) + " " + day.getDate();
+    }
+}
@@ -0,0 +1,94 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.UsageBooking;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Dòng thời gian booking của một xe, sắp xếp theo StartDateTime
+ * Dùng để gán booking vào slot trong bộ nhớ thay vì query database cho từng slot
+ * Truy vấn trùng lặp: tìm nhị phân theo start + mảng maxEnd tích lũy => O(log n + k)
+ */
+public final class BookingTimeline {
+
+    private final List<UsageBooking> bookings;
+    private final LocalDateTime[] starts;
+    // maxEnds[i] = EndDateTime lớn nhất trong các booking [0..i]
+    private final LocalDateTime[] maxEnds;
+
+    private BookingTimeline(List<UsageBooking> bookings) {
+        this.bookings = bookings;
+        this.starts = new LocalDateTime[bookings.size()];
+        this.maxEnds = new LocalDateTime[bookings.size()];
+
+        LocalDateTime runningMax = null;
+        for (int i = 0; i < bookings.size(); i++) {
+            UsageBooking booking = bookings.get(i);
+            starts[i] = booking.getStartDateTime();
+            if (runningMax == null || booking.getEndDateTime().isAfter(runningMax)) {
+                runningMax = booking.getEndDateTime();
+            }
+            maxEnds[i] = runningMax;
+        }
+    }
+
+    /**
+     * Tạo timeline từ danh sách booking (bỏ qua booking thiếu thời gian)
+     */
+    public static BookingTimeline of(Collection<UsageBooking> bookings) {
+        List<UsageBooking> sorted = bookings.stream()
+                .filter(b -> b.getStartDateTime() != null && b.getEndDateTime() != null)
+                .sorted(Comparator.comparing(UsageBooking::getStartDateTime)
+                        .thenComparing(UsageBooking::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+        return new BookingTimeline(sorted);
+    }
+
+    /**
+     * Lấy các booking trùng với khoảng [start, end] (tính cả hai đầu mút), theo thứ tự StartDateTime
+     */
+    public List<UsageBooking> overlapping(LocalDateTime start, LocalDateTime end) {
+        // Vị trí cuối cùng có startDateTime <= end
+        int hi = upperBound(end) - 1;
+        if (hi < 0) {
+            return List.of();
+        }
+
+        Deque<UsageBooking> result = new ArrayDeque<>();
+        // Duyệt ngược, dừng khi không còn booking nào phía trước có thể kết thúc sau start
+        for (int i = hi; i >= 0 && !maxEnds[i].isBefore(start); i--) {
+            UsageBooking booking = bookings.get(i);
+            if (!booking.getEndDateTime().isBefore(start)) {
+                result.addFirst(booking);
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * Tổng số booking duy nhất trong timeline
+     */
+    public int size() {
+        return bookings.size();
+    }
+
+    public List<UsageBooking> getBookings() {
+        return bookings;
+    }
+
+    // Số phần tử có startDateTime <= time
+    private int upperBound(LocalDateTime time) {
+        int lo = 0;
+        int hi = starts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid].isAfter(time)) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+}
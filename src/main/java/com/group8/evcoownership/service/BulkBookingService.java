@@ -0,0 +1,250 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.dto.*;
+import com.group8.evcoownership.entity.UsageBooking;
+import com.group8.evcoownership.entity.UsageWeeklyCounter;
+import com.group8.evcoownership.entity.User;
+import com.group8.evcoownership.entity.Vehicle;
+import com.group8.evcoownership.enums.BookingStatus;
+import com.group8.evcoownership.exception.BookingValidationException;
+import com.group8.evcoownership.repository.UsageBookingBatchRepository;
+import com.group8.evcoownership.repository.UsageBookingRepository;
+import com.group8.evcoownership.repository.UserRepository;
+import com.group8.evcoownership.repository.VehicleRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Đặt nhiều booking trong 1 request (danh sách khung giờ hoặc lặp hàng tuần)
+ * - User, xe, quota chỉ kiểm tra 1 lần; overlap kiểm tra bằng 1 query cho cả khoảng thời gian
+ * - Booking hợp lệ được INSERT bằng JDBC batch, booking lỗi được trả về trong conflicts (không làm hỏng cả lô)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkBookingService {
+
+    // Giới hạn số booking của 1 request
+    public static final int MAX_ITEMS = 100;
+
+    private static final Set<BookingStatus> BLOCKING_STATUSES = EnumSet.of(
+            BookingStatus.CONFIRMED, BookingStatus.AWAITING_REVIEW, BookingStatus.NEEDS_ATTENTION);
+
+    private final UserRepository userRepository;
+    private final VehicleRepository vehicleRepository;
+    private final UsageBookingRepository usageBookingRepository;
+    private final UsageBookingBatchRepository usageBookingBatchRepository;
+    private final UsageCounterService usageCounterService;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final AdminRollupEventListener adminRollupEventListener;
+
+    @Transactional
+    public BulkBookingResponseDTO createBookings(BulkBookingRequestDTO request, String userEmail) {
+        List<BookingIntervalDTO> intervals = expand(request);
+
+        // 1. Kiểm tra user, xe và quyền đặt (1 lần cho cả lô)
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        if (request.getVehicleId() == null) {
+            throw new IllegalArgumentException("Vehicle is required");
+        }
+        Vehicle vehicle = vehicleRepository.findById(request.getVehicleId())
+                .orElseThrow(() -> new EntityNotFoundException("Vehicle not found"));
+        Long quotaLimit = usageBookingRepository.getQuotaLimitByOwnershipPercentage(user.getUserId(), vehicle.getId());
+        if (quotaLimit == null) {
+            throw new IllegalStateException("User is not a member of the vehicle's ownership group.");
+        }
+
+        List<BookingConflictDTO> conflicts = new ArrayList<>();
+
+        // 2. Kiểm tra từng khung giờ (cùng rule với createFlexibleBooking)
+        LocalDateTime now = WeeklyCalendarService.nowVietnam();
+        List<BookingIntervalDTO> candidates = new ArrayList<>();
+        for (BookingIntervalDTO interval : intervals) {
+            try {
+                WeeklyCalendarService.validateBookingWindow(interval.getStartDateTime(), interval.getEndDateTime(), now);
+                candidates.add(interval);
+            } catch (BookingValidationException e) {
+                conflicts.add(conflict(interval, "INVALID", e.getMessage()));
+            }
+        }
+        candidates.sort(Comparator.comparing(BookingIntervalDTO::getStartDateTime)
+                .thenComparing(BookingIntervalDTO::getEndDateTime));
+
+        // 3. Khóa counter quota của các tuần liên quan (theo thứ tự tuần), rồi khóa xe
+        // Cùng thứ tự khóa với createFlexibleBooking (counter trước, xe sau) để không deadlock
+        Map<LocalDate, UsageWeeklyCounter> counters = new TreeMap<>();
+        for (BookingIntervalDTO interval : candidates) {
+            counters.putIfAbsent(UsageCounterService.weekOf(interval.getStartDateTime()), null);
+        }
+        counters.replaceAll((week, ignored) -> usageCounterService.lockWeek(user.getUserId(), vehicle.getId(), week));
+
+        List<UsageBooking> existing = List.of();
+        if (!candidates.isEmpty()) {
+            try {
+                vehicleRepository.lockById(vehicle.getId())
+                        .orElseThrow(() -> new EntityNotFoundException("Vehicle not found"));
+            } catch (PessimisticLockingFailureException e) {
+                throw new BookingValidationException(
+                        "This vehicle is being booked by another member right now. Please try again.");
+            }
+            LocalDateTime rangeStart = candidates.get(0).getStartDateTime();
+            LocalDateTime rangeEnd = candidates.stream()
+                    .map(BookingIntervalDTO::getEndDateTime)
+                    .max(Comparator.naturalOrder())
+                    .orElseThrow();
+            existing = usageBookingRepository.findAffectedBookings(vehicle.getId(), rangeStart, rangeEnd).stream()
+                    .filter(b -> BLOCKING_STATUSES.contains(b.getStatus()))
+                    .toList();
+        }
+
+        // 4. Duyệt theo thứ tự thời gian: overlap (với booking có sẵn và booking trước đó trong lô), rồi quota tuần
+        Map<LocalDate, Long> acceptedMinutes = new HashMap<>();
+        List<UsageBooking> accepted = new ArrayList<>();
+        for (BookingIntervalDTO interval : candidates) {
+            LocalDateTime start = interval.getStartDateTime();
+            LocalDateTime end = interval.getEndDateTime();
+            if (overlaps(existing, start, end) || overlaps(accepted, start, end)) {
+                conflicts.add(conflict(interval, "OVERLAP",
+                        "This time slot is already booked. Please select a different time slot."));
+                continue;
+            }
+
+            LocalDate week = UsageCounterService.weekOf(start);
+            long minutes = java.time.Duration.between(start, end).toMinutes();
+            long weekMinutes = counters.get(week).getBookedMinutes() + acceptedMinutes.getOrDefault(week, 0L);
+            if (weekMinutes + minutes > quotaLimit * 60) {
+                conflicts.add(conflict(interval, "QUOTA_EXCEEDED", String.format(
+                        "Weekly quota exceeded for week of %s. You can only book %d more hours.",
+                        week, Math.max(0, (quotaLimit * 60 - weekMinutes) / 60))));
+                continue;
+            }
+
+            acceptedMinutes.merge(week, minutes, Long::sum);
+            accepted.add(UsageBooking.builder()
+                    .user(user)
+                    .vehicle(vehicle)
+                    .startDateTime(start)
+                    .endDateTime(end)
+                    .status(BookingStatus.CONFIRMED)
+                    .build());
+        }
+
+        // 5. Ghi booking bằng JDBC batch, QR check-in (cần BookingId) ghi bằng 1 batch UPDATE
+        if (!accepted.isEmpty()) {
+            try {
+                usageBookingBatchRepository.insertAll(accepted);
+            } catch (DataIntegrityViolationException e) {
+                // PostgreSQL: exclusion constraint chặn booking vừa được người khác đặt giữa lúc kiểm tra và INSERT
+                bookingIntervalIndex.invalidate(vehicle.getId());
+                throw new BookingValidationException(
+                        "Some of these time slots were just booked by another member. Please try again.");
+            }
+            for (UsageBooking booking : accepted) {
+                booking.setQrCodeCheckin(WeeklyCalendarService.generateCheckInQrPayload(booking));
+            }
+            usageBookingBatchRepository.updateCheckInQrCodes(accepted);
+            // JDBC batch không đi qua Hibernate listener => ghi nhận rollup dashboard trực tiếp
+            adminRollupEventListener.onBatchInserted(accepted);
+
+            acceptedMinutes.forEach((week, minutes) -> usageCounterService.addMinutes(counters.get(week), minutes));
+            bookingIntervalIndex.invalidate(vehicle.getId());
+        }
+        log.info("Bulk booking for user {} vehicle {}: {} requested, {} created, {} conflicts",
+                user.getUserId(), vehicle.getId(), intervals.size(), accepted.size(), conflicts.size());
+
+        conflicts.sort(Comparator.comparing(BookingConflictDTO::getStartDateTime,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        return BulkBookingResponseDTO.builder()
+                .requested(intervals.size())
+                .created(accepted.size())
+                .bookings(accepted.stream().map(BulkBookingService::toResponse).toList())
+                .conflicts(conflicts)
+                .build();
+    }
+
+    /**
+     * Gộp danh sách khung giờ và các lần lặp của quy tắc hàng tuần
+     */
+    static List<BookingIntervalDTO> expand(BulkBookingRequestDTO request) {
+        List<BookingIntervalDTO> intervals = new ArrayList<>();
+        if (request.getIntervals() != null) {
+            intervals.addAll(request.getIntervals());
+        }
+
+        WeeklyRecurrenceDTO recurrence = request.getRecurrence();
+        if (recurrence != null) {
+            if (recurrence.getStartDateTime() == null || recurrence.getEndDateTime() == null) {
+                throw new IllegalArgumentException("Recurrence start time and end time are required");
+            }
+            int occurrences = recurrence.getOccurrences() != null ? recurrence.getOccurrences() : 1;
+            int intervalWeeks = recurrence.getIntervalWeeks() != null ? recurrence.getIntervalWeeks() : 1;
+            if (occurrences < 1 || intervalWeeks < 1) {
+                throw new IllegalArgumentException("Recurrence occurrences and intervalWeeks must be positive");
+            }
+            if (occurrences > MAX_ITEMS) {
+                throw new IllegalArgumentException("Cannot create more than " + MAX_ITEMS + " bookings at once");
+            }
+            for (int i = 0; i < occurrences; i++) {
+                long weeks = (long) i * intervalWeeks;
+                intervals.add(new BookingIntervalDTO(
+                        recurrence.getStartDateTime().plusWeeks(weeks),
+                        recurrence.getEndDateTime().plusWeeks(weeks)));
+            }
+        }
+
+        if (intervals.isEmpty()) {
+            throw new IllegalArgumentException("At least one interval or a recurrence rule is required");
+        }
+        if (intervals.size() > MAX_ITEMS) {
+            throw new IllegalArgumentException("Cannot create more than " + MAX_ITEMS + " bookings at once");
+        }
+        return intervals;
+    }
+
+    // Khoảng đóng [start, end] giống rule overlap của BookingAdmissionService
+    private static boolean overlaps(List<UsageBooking> bookings, LocalDateTime start, LocalDateTime end) {
+        for (UsageBooking booking : bookings) {
+            if (!booking.getEndDateTime().isBefore(start) && !booking.getStartDateTime().isAfter(end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BookingConflictDTO conflict(BookingIntervalDTO interval, String reason, String message) {
+        return BookingConflictDTO.builder()
+                .startDateTime(interval.getStartDateTime())
+                .endDateTime(interval.getEndDateTime())
+                .reason(reason)
+                .message(message)
+                .build();
+    }
+
+    private static FlexibleBookingResponseDTO toResponse(UsageBooking booking) {
+        boolean overnightBooking = !booking.getStartDateTime().toLocalDate()
+                .equals(booking.getEndDateTime().toLocalDate());
+        return FlexibleBookingResponseDTO.builder()
+                .bookingId(booking.getId())
+                .status(booking.getStatus().name())
+                .message(overnightBooking
+                        ? "Overnight booking created successfully"
+                        : "Booking created successfully")
+                .totalHours(java.time.Duration.between(booking.getStartDateTime(), booking.getEndDateTime()).toHours())
+                .overnightBooking(overnightBooking)
+                .qrCodeCheckin(booking.getQrCodeCheckin())
+                .startDateTime(booking.getStartDateTime())
+                .endDateTime(booking.getEndDateTime())
+                .createdAt(booking.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.dto.TimeSlotResponseDTO;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Layout cố định 12 slot/ngày của lịch tuần, tính sẵn 1 lần khi load class
+ * - Nhãn thời gian ("08:00-11:00", "23:00-00:00+1") không cần format lại mỗi lần dựng lịch
+ * - DTO của các trạng thái tĩnh (MAINTENANCE, LOCKED, AVAILABLE) là bất biến và dùng chung
+ * - Ngày không có booking dùng chung cả danh sách slot (AVAILABLE_DAY / LOCKED_DAY)
+ */
+final class CalendarSlotLayout {
+
+    // 12 slot theo layout UI: 00-03, 03-04, 04-07, 07-08, 08-11, 11-12, 12-15, 15-16, 16-19, 19-20, 20-23, 23-24
+    private static final int[][] RANGES = {
+            {0, 3}, {3, 4}, {4, 7}, {7, 8}, {8, 11}, {11, 12}, {12, 15}, {15, 16}, {16, 19}, {19, 20}, {20, 23}, {23, 24}
+    };
+
+    // Slot bị khóa khi đã qua thời điểm bắt đầu + 20 phút
+    static final long LOCK_AFTER_START_MINUTES = 20;
+
+    /**
+     * Một slot trong ngày
+     * param maintenance Slot bảo dưỡng (chỉ số lẻ), luôn LOCKED
+     * param endsNextDay Slot kết thúc lúc 00:00 ngày hôm sau
+     */
+    record Slot(LocalTime start, LocalTime end, boolean endsNextDay, boolean maintenance, String label,
+                TimeSlotResponseDTO maintenanceSlot, TimeSlotResponseDTO lockedSlot,
+                TimeSlotResponseDTO availableSlot) {
+
+        LocalDateTime startOn(LocalDate date) {
+            return date.atTime(start);
+        }
+
+        LocalDateTime endOn(LocalDate date) {
+            return endsNextDay ? date.plusDays(1).atTime(end) : date.atTime(end);
+        }
+    }
+
+    static final List<Slot> SLOTS;
+
+    // Ngày tương lai không có booking: slot thường AVAILABLE, slot lẻ MAINTENANCE
+    static final List<TimeSlotResponseDTO> AVAILABLE_DAY;
+
+    // Ngày đã qua không có booking: slot thường LOCKED, slot lẻ MAINTENANCE
+    static final List<TimeSlotResponseDTO> LOCKED_DAY;
+
+    static {
+        List<Slot> slots = new ArrayList<>(RANGES.length);
+        List<TimeSlotResponseDTO> availableDay = new ArrayList<>(RANGES.length);
+        List<TimeSlotResponseDTO> lockedDay = new ArrayList<>(RANGES.length);
+        for (int i = 0; i < RANGES.length; i++) {
+            int startHour = RANGES[i][0];
+            int endHour = RANGES[i][1];
+            boolean endsNextDay = endHour == 24;
+            // Các slot bảo dưỡng là các slot có chỉ số lẻ (1, 3, 5, ...)
+            boolean maintenance = i % 2 == 1;
+            String label = String.format("%02d:00-%02d:00%s", startHour, endHour % 24, endsNextDay ? "+1" : "");
+
+            Slot slot = new Slot(LocalTime.of(startHour, 0), LocalTime.of(endHour % 24, 0), endsNextDay, maintenance,
+                    label,
+                    TimeSlotResponseDTO.builder()
+                            .time(label)
+                            .status("LOCKED")
+                            .type("MAINTENANCE")
+                            .bookedBy("Maintenance")
+                            .bookable(false)
+                            .build(),
+                    TimeSlotResponseDTO.builder()
+                            .time(label)
+                            .status("LOCKED")
+                            .type("LOCKED")
+                            .bookable(false)
+                            .build(),
+                    TimeSlotResponseDTO.builder()
+                            .time(label)
+                            .status("AVAILABLE")
+                            .type("AVAILABLE")
+                            .bookable(true)
+                            .build());
+            slots.add(slot);
+            availableDay.add(maintenance ? slot.maintenanceSlot() : slot.availableSlot());
+            lockedDay.add(maintenance ? slot.maintenanceSlot() : slot.lockedSlot());
+        }
+        SLOTS = List.copyOf(slots);
+        AVAILABLE_DAY = List.copyOf(availableDay);
+        LOCKED_DAY = List.copyOf(lockedDay);
+    }
+
+    private CalendarSlotLayout() {
+    }
+}
@@ -0,0 +1,96 @@
+package com.group8.evcoownership.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Chạy song song các phần độc lập của Admin Dashboard (mỗi phần 1 query / 1 nhóm query)
+ * - Số luồng cố định = số connection tối đa dashboard dùng cùng lúc (pool Hikari nhỏ: 3 dev / 5 prod)
+ * - Hàng đợi có giới hạn, đầy thì luồng gọi tự chạy phần đó (không từ chối request)
+ * - Mỗi lần lấy dashboard có 1 hạn chờ chung; phần quá hạn hoặc lỗi trả giá trị mặc định và được liệt kê trong unavailableSections
+ * Java 17 chưa có virtual thread => dùng platform thread daemon
+ */
+@Component
+@Slf4j
+public class DashboardSectionExecutor {
+
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+
+    public DashboardSectionExecutor(@Value("${dashboard.fanout.threads:2}") int threads,
+                                    @Value("${dashboard.fanout.section-timeout-ms:5000}") long timeoutMillis) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                task -> {
+                    Thread thread = new Thread(task, "dashboard-section-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Bắt đầu 1 lượt fan-out, hạn chờ tính từ lúc gọi
+     */
+    public Fanout start() {
+        return new Fanout(System.nanoTime() + timeoutNanos);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public record Section<T>(String name, Future<T> future) {
+    }
+
+    public final class Fanout {
+
+        private final long deadline;
+        private final List<String> unavailable = new ArrayList<>();
+
+        private Fanout(long deadline) {
+            this.deadline = deadline;
+        }
+
+        public <T> Section<T> submit(String name, Supplier<T> task) {
+            return new Section<>(name, executor.submit(task::get));
+        }
+
+        /**
+         * Chờ kết quả của phần tới hạn chờ chung; quá hạn / lỗi => fallback
+         */
+        public <T> T join(Section<T> section, T fallback) {
+            try {
+                return section.future().get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                section.future().cancel(true);
+                log.warn("Dashboard section {} timed out", section.name());
+            } catch (ExecutionException e) {
+                log.warn("Dashboard section {} failed: {}", section.name(), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                section.future().cancel(true);
+            }
+            unavailable.add(section.name());
+            return fallback;
+        }
+
+        // Tên các phần đã dùng giá trị mặc định, null nếu đủ (giữ nguyên response cũ khi không có lỗi)
+        public List<String> unavailableSections() {
+            return unavailable.isEmpty() ? null : List.copyOf(unavailable);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.enums.RollupEntityType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Số bản ghi và tổng tiền theo loại bản ghi / status / loại quỹ của một khoảng thời gian
+ * Cộng được với nhau => thống kê 1 khoảng = các ngày đủ (đọc từ rollup) + phần lẻ đầu/cuối (query trực tiếp)
+ */
+public final class DashboardTotals {
+
+    public static final String UNKNOWN_STATUS = "UNKNOWN";
+    public static final String NO_FUND_TYPE = "NONE";
+
+    public record Entry(RollupEntityType type, String status, String fundType, long count, BigDecimal amount) {
+    }
+
+    private record Key(RollupEntityType type, String status, String fundType) {
+    }
+
+    private final Map<Key, Entry> entries = new HashMap<>();
+
+    // status null => "UNKNOWN", enum => name(); fundType null => "NONE"
+    public void add(RollupEntityType type, Object status, Object fundType, long count, BigDecimal amount) {
+        Key key = new Key(type, statusKey(status), fundTypeKey(fundType));
+        BigDecimal value = amount != null ? amount : BigDecimal.ZERO;
+        entries.merge(key, new Entry(type, key.status(), key.fundType(), count, value),
+                (a, b) -> new Entry(type, a.status(), a.fundType(), a.count() + b.count(), a.amount().add(b.amount())));
+    }
+
+    public void addAll(DashboardTotals other) {
+        other.entries.values().forEach(e -> add(e.type(), e.status(), e.fundType(), e.count(), e.amount()));
+    }
+
+    // Các dòng có số bản ghi khác 0 (dòng rollup có thể về 0 sau khi bản ghi đổi status)
+    public List<Entry> entries() {
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.count() != 0) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public Map<String, Long> countsByStatus(RollupEntityType type) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Entry entry : entries()) {
+            if (entry.type() == type) {
+                counts.merge(entry.status(), entry.count(), Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    public long total(RollupEntityType type) {
+        return countsByStatus(type).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Tổng tiền (mọi loại quỹ) của 1 status, không có bản ghi => BigDecimal.ZERO
+    public BigDecimal amount(RollupEntityType type, String status) {
+        return entries().stream()
+                .filter(e -> e.type() == type && e.status().equals(status))
+                .map(Entry::amount)
+                .reduce(BigDecimal::add)
+                .orElse(BigDecimal.ZERO);
+    }
+
+    public BigDecimal totalAmount(RollupEntityType type) {
+        return entries().stream()
+                .filter(e -> e.type() == type)
+                .map(Entry::amount)
+                .reduce(BigDecimal::add)
+                .orElse(BigDecimal.ZERO);
+    }
+
+    public static String statusKey(Object status) {
+        if (status == null) {
+            return UNKNOWN_STATUS;
+        }
+        return status instanceof Enum<?> e ? e.name() : status.toString();
+    }
+
+    public static String fundTypeKey(Object fundType) {
+        return fundType == null ? NO_FUND_TYPE : statusKey(fundType);
+    }
+}
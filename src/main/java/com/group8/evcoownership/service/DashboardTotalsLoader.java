@@ -0,0 +1,125 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.enums.RollupEntityType;
+import com.group8.evcoownership.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tính DashboardTotals trực tiếp từ các bảng nghiệp vụ bằng COUNT / SUM / GROUP BY
+ * Dùng cho: thống kê không lọc ngày, phần lẻ đầu/cuối của khoảng lọc, và job tính lại AdminDailyRollup
+ * from/to null => không lọc theo thời gian; có from/to => bỏ qua bản ghi không có ngày, 2 đầu đều bao gồm
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class DashboardTotalsLoader {
+
+    // Các loại bản ghi có số liệu (BACKFILL chỉ là dòng đánh dấu)
+    public static final List<RollupEntityType> TYPES = Arrays.stream(RollupEntityType.values())
+            .filter(type -> type != RollupEntityType.BACKFILL)
+            .toList();
+
+    // Cột thời gian dùng để lọc của từng loại bản ghi (entity JPQL -> thuộc tính)
+    private static final Map<String, String> DATE_COLUMNS = Map.of(
+            "OwnershipGroup", "createdAt",
+            "User", "createdAt",
+            "UsageBooking", "startDateTime",
+            "Dispute", "createdAt",
+            "Incident", "createdAt",
+            "Maintenance", "requestDate",
+            "Contract", "createdAt",
+            "Expense", "createdAt",
+            "Payment", "paymentDate");
+
+    private final OwnershipGroupRepository groupRepository;
+    private final UserRepository userRepository;
+    private final UsageBookingRepository bookingRepository;
+    private final DisputeRepository disputeRepository;
+    private final IncidentRepository incidentRepository;
+    private final MaintenanceRepository maintenanceRepository;
+    private final ContractRepository contractRepository;
+    private final ExpenseRepository expenseRepository;
+    private final PaymentRepository paymentRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public DashboardTotals load(LocalDateTime from, LocalDateTime to) {
+        DashboardTotals totals = new DashboardTotals();
+        for (RollupEntityType type : TYPES) {
+            totals.addAll(load(type, from, to));
+        }
+        return totals;
+    }
+
+    /**
+     * Số liệu của 1 loại bản ghi (1 query) => các loại chạy song song được trên dashboard
+     */
+    public DashboardTotals load(RollupEntityType type, LocalDateTime from, LocalDateTime to) {
+        DashboardTotals totals = new DashboardTotals();
+        switch (type) {
+            case GROUP -> addCounts(totals, type, groupRepository.countByStatusCreatedBetween(from, to));
+            case USER -> addCounts(totals, type, userRepository.countByStatusCreatedBetween(from, to));
+            case USER_ROLE -> addCounts(totals, type, userRepository.countByRoleCreatedBetween(from, to));
+            case BOOKING -> addCounts(totals, type, bookingRepository.countByStatusStartBetween(from, to));
+            case DISPUTE -> addCounts(totals, type, disputeRepository.countByStatusCreatedBetween(from, to));
+            case INCIDENT -> addCounts(totals, type, incidentRepository.countByStatusCreatedBetween(from, to));
+            case MAINTENANCE -> addCounts(totals, type, maintenanceRepository.countByStatusRequestedBetween(from, to));
+            case CONTRACT -> addCounts(totals, type, contractRepository.countByApprovalStatusCreatedBetween(from, to));
+            case EXPENSE -> addAmounts(totals, type, expenseRepository.countAndSumByStatusAndFundTypeCreatedBetween(from, to));
+            case PAYMENT -> addAmounts(totals, type, paymentRepository.countAndSumByStatusAndFundTypePaidBetween(from, to));
+            default -> throw new IllegalArgumentException("Not a dashboard metric: " + type);
+        }
+        return totals;
+    }
+
+    /**
+     * Ngày sớm nhất và muộn nhất có dữ liệu (theo cột thời gian dùng để lọc), empty nếu chưa có bản ghi nào
+     * return [firstDay, lastDay]
+     */
+    public Optional<LocalDate[]> dataDayRange() {
+        LocalDateTime first = null;
+        LocalDateTime last = null;
+        for (Map.Entry<String, String> column : DATE_COLUMNS.entrySet()) {
+            Object[] range = entityManager.createQuery(String.format(
+                            "select min(e.%1$s), max(e.%1$s) from %2$s e", column.getValue(), column.getKey()),
+                    Object[].class).getSingleResult();
+            if (range[0] != null && (first == null || ((LocalDateTime) range[0]).isBefore(first))) {
+                first = (LocalDateTime) range[0];
+            }
+            if (range[1] != null && (last == null || ((LocalDateTime) range[1]).isAfter(last))) {
+                last = (LocalDateTime) range[1];
+            }
+        }
+        if (first == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new LocalDate[]{first.toLocalDate(), last.toLocalDate()});
+    }
+
+    // Dòng [status, count]
+    private static void addCounts(DashboardTotals totals, RollupEntityType type, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            totals.add(type, row[0], null, ((Number) row[1]).longValue(), BigDecimal.ZERO);
+        }
+    }
+
+    // Dòng [status, fundType, count, sum(amount)]
+    private static void addAmounts(DashboardTotals totals, RollupEntityType type, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            totals.add(type, row[0], row[1], ((Number) row[2]).longValue(), (BigDecimal) row[3]);
+        }
+    }
+}
@@ -13,17 +13,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.math.BigDecimal;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -42,8 +36,11 @@ public class DepositPaymentService {
     private final UserRepository userRepository;
     private final OwnershipGroupRepository groupRepository;
     private final VnPay_PaymentService vnPayPaymentService;
+    private final VnPayCallbackService vnPayCallbackService;
     private final DepositCalculationService depositCalculationService;
     private final VehicleRepository vehicleRepository;
+    private final AdminRollupService rollupService;
+    private final DepositRefundWorker depositRefundWorker;
 
 
     private Long parseId(String id, String fieldName) {
@@ -146,46 +143,28 @@ public class DepositPaymentService {
 
     /**
      * Xác nhận callback từ VNPay → cập nhật Payment COMPLETED
+     * Không mở transaction ở đây: VnPayCallbackService tự mở (giữ chỗ txnRef + chốt payment + cộng quỹ trong 1 transaction)
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DepositPaymentResponseDTO confirmDepositPayment(String txnRef, String transactionNo) {
-        Payment payment = getLatestPaymentByTxnRef(txnRef);
-
-        // Nếu đã COMPLETED thì bỏ qua
-        if (payment.getStatus() == PaymentStatus.COMPLETED) {
-            return convertToResponse(payment);
-        }
-
-        // tao provide luuthong tin --> luu vao payment
-        String providerResponse = String.format(
-                "{\"vnp_TransactionNo\":\"%s\",\"vnp_TxnRef\":\"%s\"}",
-                transactionNo, txnRef
-        );
-
-        // 1. Cập nhật trạng thái Payment
-        payment.setStatus(PaymentStatus.COMPLETED);
-        payment.setPaidAt(LocalDateTime.now());
-        payment.setProviderResponse(providerResponse);
-        paymentRepository.save(payment);
-
-        // 2. Cập nhật quỹ (Fund)
-        Long groupId = payment.getFund().getGroup().getGroupId();
-        fundService.addDepositToReserve(groupId, payment.getAmount()); // cộng vào RESERVE
-
-        // 3. Cập nhật trạng thái tiền cọc trong OwnershipShare
-        OwnershipShare share = shareRepository.findByUserIdAndFundId(
-                payment.getPayer().getUserId(),
-                payment.getFund().getFundId()
-        ).orElseThrow(() -> new EntityNotFoundException(
-                String.format("OwnershipShare not found for user %d in fund %d",
-                        payment.getPayer().getUserId(), payment.getFund().getFundId())
-        ));
-
-        share.setDepositStatus(DepositStatus.PAID);
-        shareRepository.save(share);
-
-        // 4. Trả response
-        return convertToResponse(payment);
+        // Callback lặp lại / IPN và return URL cùng về => chỉ 1 request chốt payment và cộng quỹ
+        return vnPayCallbackService.completeOnce(txnRef, transactionNo, null, payment -> {
+            // 1. Cập nhật quỹ (Fund)
+            Long groupId = payment.getFund().getGroup().getGroupId();
+            fundService.addDepositToReserve(groupId, payment.getAmount(), payment.getId()); // cộng vào RESERVE
+
+            // 2. Cập nhật trạng thái tiền cọc trong OwnershipShare
+            OwnershipShare share = shareRepository.findByUserIdAndFundId(
+                    payment.getPayer().getUserId(),
+                    payment.getFund().getFundId()
+            ).orElseThrow(() -> new EntityNotFoundException(
+                    String.format("OwnershipShare not found for user %d in fund %d",
+                            payment.getPayer().getUserId(), payment.getFund().getFundId())
+            ));
+
+            share.setDepositStatus(DepositStatus.PAID);
+            shareRepository.save(share);
+        }, (payment, applied) -> convertToResponse(payment));
     }
 //    public DepositPaymentResponse confirmDepositPayment(String txnRef, String transactionNo) {
 //        Payment payment = paymentRepository.findByTransactionCode(txnRef)
@@ -396,106 +375,66 @@ public class DepositPaymentService {
 
     /**
      * Hoàn tiền cọc cho tất cả members đã đóng khi contract bị reject
+     * Số câu lệnh cố định cho cả group, không phụ thuộc số thành viên:
+     * - 1 SELECT (khóa) các payment cọc COMPLETED của các thành viên PAID
+     * - mỗi quỹ 1 lần trừ tổng tiền hoàn (FundService.decreaseBalance)
+     * - 1 UPDATE Payment -> REFUNDED, 1 UPDATE OwnershipShare -> REFUNDED
+     * - 1 INSERT hàng đợi DepositRefundTask: DepositRefundWorker gọi API hoàn tiền VNPay ở nền, có thử lại
+     * Quỹ không đủ để hoàn => exception, transaction của bên gọi rollback
+     * Các share truyền vào không bị sửa trong bộ nhớ (trạng thái mới chỉ có trong database)
      */
     @Transactional
     public void refundDepositsForGroup(List<OwnershipShare> shares, Long groupId) {
-        for (OwnershipShare share : shares) {
-            if (share.getDepositStatus() == DepositStatus.PAID) {
-                try {
-                    // Tìm payment deposits cho user này
-                    List<Payment> deposits = paymentRepository.findAllByPayer_UserIdAndStatusAndPaymentType(
-                                    share.getUser().getUserId(),
-                                    PaymentStatus.COMPLETED,
-                                    PaymentType.DEPOSIT,
-                                    null
-                            ).stream()
-                            .filter(p -> p.getFund().getGroup().getGroupId().equals(groupId))
-                            .toList();
-
-                    // Hoàn tiền cọc qua VNPay API cho từng payment
-                    for (Payment payment : deposits) {
-                        try {
-                            refundSinglePayment(payment);
-                        } catch (Exception ex) {
-                            log.error("Failed to refund payment {}", payment.getId(), ex);
-                        }
-                    }
-
-                    // Đánh dấu deposit đã được refund
-                    share.setDepositStatus(DepositStatus.REFUNDED);
-                    shareRepository.save(share);
-
-                    log.info("Successfully refunded deposits for user {} in group {}",
-                            share.getUser().getUserId(), groupId);
-
-                } catch (Exception ex) {
-                    log.error("Failed to refund deposit for user {} in group {}",
-                            share.getUser().getUserId(), groupId, ex);
-                }
-            }
-        }
-    }
-
-    /**
-     * Hoàn tiền cho một payment đơn lẻ qua VNPay API
-     *
-     */
-    private void refundSinglePayment(Payment payment) throws IOException {
-        // Parse vnp_TransactionNo từ providerResponse
-        String vnpTransactionNo = VnPay_PaymentService.extractTransactionNo(payment.getProviderResponse());
-        if (vnpTransactionNo == null) {
-            log.warn("Cannot extract vnp_TransactionNo for payment {}. Skipping refund.", payment.getId());
+        List<Long> paidUserIds = shares.stream()
+                .filter(share -> share.getDepositStatus() == DepositStatus.PAID)
+                .map(share -> share.getUser().getUserId())
+                .toList();
+        if (paidUserIds.isEmpty()) {
             return;
         }
 
-        // Format vnp_TransactionDate từ payment.paymentDate
-        // tu localDatetime(Payment) ->  Date
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyyMMddHHmmss");
-        formatter.setTimeZone(TimeZone.getTimeZone("Asia/Ho_Chi_Minh"));
-        String vnpTransactionDate = formatter.format(
-                Date.from(payment.getPaymentDate().atZone(ZoneId.systemDefault()).toInstant())
-        );
-
-        // Tạo refund request URL từ VNPay
-        String refundUrl = vnPayPaymentService.createRefundRequest(
-                payment.getAmount().longValue(),
-                payment.getTransactionCode(),
-                vnpTransactionNo,
-                vnpTransactionDate
-        );
-
-        log.info("VNPay Refund URL created for payment {}: {}", payment.getId(), refundUrl);
-
-        // Gọi HTTP GET đến VNPay để thực hiện refund
-        URL url = new URL(refundUrl);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.setConnectTimeout(10000);
-        conn.setReadTimeout(10000);
-
-        int responseCode = conn.getResponseCode();
-        log.info("VNPay Refund Response Code for payment {}: {}", payment.getId(), responseCode);
-
-        // Đọc response
-        try (BufferedReader in = new BufferedReader(
-                new InputStreamReader(conn.getInputStream()))) {
-            String inputLine;
-            StringBuilder response = new StringBuilder();
-            while ((inputLine = in.readLine()) != null) {
-                response.append(inputLine);
+        List<Payment> deposits = new ArrayList<>();
+        for (Payment payment : paymentRepository.lockCompletedDepositsOfGroup(groupId, paidUserIds)) {
+            if (VnPay_PaymentService.extractTransactionNo(payment.getProviderResponse()) == null) {
+                log.warn("Cannot extract vnp_TransactionNo for payment {}. Skipping refund.", payment.getId());
+                continue;
             }
-            log.info("VNPay Refund Response for payment {}: {}", payment.getId(), response);
+            deposits.add(payment);
         }
 
-        // Đánh dấu payment REFUNDED và trừ quỹ
-        payment.setStatus(PaymentStatus.REFUNDED);
-        paymentRepository.save(payment);
+        if (!deposits.isEmpty()) {
+            // Tổng tiền hoàn theo quỹ, trừ theo thứ tự FundId
+            Map<Long, BigDecimal> refundByFund = new TreeMap<>();
+            for (Payment payment : deposits) {
+                refundByFund.merge(payment.getFund().getFundId(), payment.getAmount(), BigDecimal::add);
+            }
+            refundByFund.forEach((fundId, amount) -> fundService.decreaseBalance(fundId, amount,
+                    FundJournal.SOURCE_GROUP_DEPOSIT_REFUND, groupId));
 
-        fundService.decreaseBalance(payment.getFund().getFundId(), payment.getAmount());
+            List<Long> paymentIds = deposits.stream().map(Payment::getId).toList();
+            paymentRepository.markRefunded(paymentIds);
+            recordRefundRollup(deposits);
+            depositRefundWorker.enqueue(paymentIds);
+        }
 
-        log.info("Successfully refunded payment {} - Amount: {} VND",
-                payment.getId(), payment.getAmount());
+        int refundedShares = shareRepository.markDepositsRefunded(groupId, paidUserIds, LocalDateTime.now());
+        log.info("Refunded {} deposit payments of {} members in group {}", deposits.size(), refundedShares, groupId);
     }
 
+    /**
+     * UPDATE hàng loạt không đi qua Hibernate listener => tự ghi nhận COMPLETED -> REFUNDED vào rollup dashboard
+     */
+    private void recordRefundRollup(List<Payment> payments) {
+        for (Payment payment : payments) {
+            if (payment.getPaymentDate() == null) {
+                continue;
+            }
+            Long fundId = payment.getFund().getFundId();
+            rollupService.record(payment.getPaymentDate().toLocalDate(), RollupEntityType.PAYMENT,
+                    DashboardTotals.statusKey(PaymentStatus.COMPLETED), fundId, -1, payment.getAmount().negate());
+            rollupService.record(payment.getPaymentDate().toLocalDate(), RollupEntityType.PAYMENT,
+                    DashboardTotals.statusKey(PaymentStatus.REFUNDED), fundId, 1, payment.getAmount());
+        }
+    }
 
 }
@@ -0,0 +1,251 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.DepositRefundTask;
+import com.group8.evcoownership.entity.Payment;
+import com.group8.evcoownership.enums.RefundTaskStatus;
+import com.group8.evcoownership.repository.DepositRefundTaskRepository;
+import com.group8.evcoownership.repository.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gọi API hoàn tiền VNPay cho hàng đợi DepositRefundTask ở nền (không chạy trong thread reject hợp đồng)
+ * - Mỗi task: giữ task (lease) bằng 1 UPDATE có điều kiện, gọi VNPay ngoài transaction, ghi kết quả bằng 1 UPDATE
+ * - Kết quả theo vnp_ResponseCode (VnPayRefundResponse): 00 => SENT; VNPay từ chối hẳn => FAILED ngay với thông báo của VNPay
+ * - Lỗi kết nối / mã thử lại được => thử lại sau deposit.refund.retry-backoff-ms * 2^(lần thử - 1);
+ *   quá deposit.refund.max-attempts => FAILED
+ * - Instance chết giữa chừng: hết lease thì task được lấy lại
+ * - VNPay đã nhận nhưng ghi SENT lỗi: không coi là gửi lỗi (gửi lại => hoàn tiền 2 lần), task giữ nguyên lease,
+ *   được ghi SENT lại ở các lần chạy sau và không bao giờ được gửi lại từ instance này
+ * - Chỉ query khi có task mới vừa được commit (signal) hoặc đến chu kỳ quét deposit.refund.idle-scan-interval-ms
+ */
+@Service
+@Slf4j
+public class DepositRefundWorker {
+
+    // Thời gian giữ task trong lúc gọi VNPay (timeout kết nối + đọc là 20s)
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final DepositRefundTaskRepository taskRepository;
+    private final PaymentRepository paymentRepository;
+    private final VnPay_PaymentService vnPayPaymentService;
+    private final Counter sentTasks;
+    private final Counter retriedTasks;
+    private final Counter failedTasks;
+    private final TransactionTemplate transactionTemplate;
+
+    // Số task tối đa mỗi lần chạy
+    @Value("${deposit.refund.batch-size:50}")
+    private int batchSize;
+
+    // Số lần gọi VNPay tối đa cho 1 payment
+    @Value("${deposit.refund.max-attempts:6}")
+    private int maxAttempts;
+
+    // Thời gian chờ trước lần thử lại đầu tiên, nhân đôi sau mỗi lần lỗi
+    @Value("${deposit.refund.retry-backoff-ms:60000}")
+    private long retryBackoffMs;
+
+    // Khoảng thời gian tối đa giữa 2 lần quét khi không có signal
+    @Value("${deposit.refund.idle-scan-interval-ms:60000}")
+    private long idleScanIntervalMs;
+
+    // VNPay đã nhận nhưng chưa ghi được SENT: TaskId -> lần thử / thời điểm gửi
+    private final Map<Long, UnrecordedSend> unrecorded = new ConcurrentHashMap<>();
+
+    private record UnrecordedSend(int attempts, LocalDateTime sentAt) {
+    }
+
+    private final Object processLock = new Object();
+    private final AtomicBoolean signalled = new AtomicBoolean(true);
+    private volatile long lastScanNanos;
+
+    public DepositRefundWorker(DepositRefundTaskRepository taskRepository,
+                               PaymentRepository paymentRepository,
+                               VnPay_PaymentService vnPayPaymentService,
+                               MeterRegistry meterRegistry,
+                               PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.paymentRepository = paymentRepository;
+        this.vnPayPaymentService = vnPayPaymentService;
+        this.sentTasks = taskCounter(meterRegistry, "sent");
+        this.retriedTasks = taskCounter(meterRegistry, "retry");
+        this.failedTasks = taskCounter(meterRegistry, "failed");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Đưa các payment vào hàng đợi hoàn tiền (trong transaction của bên gọi, 1 câu INSERT)
+     * Worker được báo sau khi transaction commit
+     */
+    @Transactional
+    public void enqueue(Collection<Long> paymentIds) {
+        if (paymentIds.isEmpty()) {
+            return;
+        }
+        taskRepository.enqueue(paymentIds, LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    signalled.set(true);
+                }
+            });
+        } else {
+            signalled.set(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${deposit.refund.poll-interval-ms:5000}",
+            initialDelayString = "${deposit.refund.poll-interval-ms:5000}")
+    public void processIfPending() {
+        boolean idle = System.nanoTime() - lastScanNanos < TimeUnit.MILLISECONDS.toNanos(idleScanIntervalMs);
+        if (!signalled.get() && idle) {
+            return;
+        }
+        processDue();
+    }
+
+    /**
+     * Gọi VNPay cho 1 lô task đến hạn
+     * return số task đã được VNPay nhận (SENT)
+     */
+    public int processDue() {
+        synchronized (processLock) {
+            signalled.set(false);
+            lastScanNanos = System.nanoTime();
+            recordUnrecordedSends();
+            List<DepositRefundTask> due = transactionTemplate.execute(status ->
+                    taskRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize)));
+            if (due == null || due.isEmpty()) {
+                return 0;
+            }
+            if (due.size() == batchSize) {
+                // Còn task => chạy tiếp ở chu kỳ sau
+                signalled.set(true);
+            }
+            int sent = 0;
+            for (DepositRefundTask task : due) {
+                if (unrecorded.containsKey(task.getTaskId())) {
+                    continue;
+                }
+                try {
+                    if (process(task)) {
+                        sent++;
+                    }
+                } catch (RuntimeException e) {
+                    // Lỗi database khi ghi kết quả: hết lease thì task được lấy lại
+                    log.warn("Failed to record refund attempt for payment {}: {}", task.getPaymentId(), e.getMessage());
+                }
+            }
+            return sent;
+        }
+    }
+
+    private boolean process(DepositRefundTask task) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer leased = transactionTemplate.execute(status ->
+                taskRepository.lease(task.getTaskId(), task.getAttempts(), now, now.plus(LEASE)));
+        if (leased == null || leased == 0) {
+            return false;
+        }
+
+        int attempts = task.getAttempts() + 1;
+        // Chỉ gọi VNPay và đọc kết quả nằm trong nhánh thử lại
+        VnPayRefundResponse response;
+        try {
+            Payment payment = paymentRepository.findById(task.getPaymentId())
+                    .orElseThrow(() -> new IllegalStateException("Payment not found: " + task.getPaymentId()));
+            response = VnPayRefundResponse.parse(vnPayPaymentService.sendRefund(payment));
+            if (!response.isSuccess() && response.isRetryable()) {
+                throw new IOException(response.describe());
+            }
+        } catch (Exception e) {
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            if (attempts >= maxAttempts) {
+                log.error("VNPay refund for payment {} failed after {} attempts, manual refund required: {}",
+                        task.getPaymentId(), attempts, error);
+                recordAttempt(task.getTaskId(), RefundTaskStatus.FAILED, attempts, now, error, LocalDateTime.now());
+                failedTasks.increment();
+            } else {
+                LocalDateTime next = LocalDateTime.now().plus(Duration.ofMillis(retryBackoffMs << (attempts - 1)));
+                log.warn("VNPay refund for payment {} failed (attempt {}), retrying at {}: {}",
+                        task.getPaymentId(), attempts, next, error);
+                recordAttempt(task.getTaskId(), RefundTaskStatus.PENDING, attempts, next, error, null);
+                retriedTasks.increment();
+            }
+            return false;
+        }
+
+        if (!response.isSuccess()) {
+            log.error("VNPay rejected refund for payment {} (attempt {}), manual refund required: {}",
+                    task.getPaymentId(), attempts, response.describe());
+            recordAttempt(task.getTaskId(), RefundTaskStatus.FAILED, attempts, now, response.describe(), LocalDateTime.now());
+            failedTasks.increment();
+            return false;
+        }
+
+        log.info("VNPay refund sent for payment {} (attempt {}): {}", task.getPaymentId(), attempts, response.describe());
+        sentTasks.increment();
+        LocalDateTime sentAt = LocalDateTime.now();
+        try {
+            recordAttempt(task.getTaskId(), RefundTaskStatus.SENT, attempts, sentAt, null, sentAt);
+        } catch (RuntimeException e) {
+            log.error("VNPay accepted refund for payment {} but SENT could not be recorded, will retry recording: {}",
+                    task.getPaymentId(), e.getMessage());
+            unrecorded.put(task.getTaskId(), new UnrecordedSend(attempts, sentAt));
+            signalled.set(true);
+        }
+        return true;
+    }
+
+    // Ghi SENT cho các task VNPay đã nhận ở lần chạy trước; lỗi => giữ lại cho lần sau
+    private void recordUnrecordedSends() {
+        for (Map.Entry<Long, UnrecordedSend> entry : unrecorded.entrySet()) {
+            UnrecordedSend send = entry.getValue();
+            try {
+                recordAttempt(entry.getKey(), RefundTaskStatus.SENT, send.attempts(), send.sentAt(), null, send.sentAt());
+                unrecorded.remove(entry.getKey());
+            } catch (RuntimeException e) {
+                log.warn("Still cannot record SENT for refund task {}: {}", entry.getKey(), e.getMessage());
+                signalled.set(true);
+                return;
+            }
+        }
+    }
+
+    private void recordAttempt(Long taskId, RefundTaskStatus status, int attempts,
+                               LocalDateTime nextAttemptAt, String error, LocalDateTime completedAt) {
+        String lastError = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        transactionTemplate.executeWithoutResult(s -> taskRepository.recordAttempt(
+                taskId, status, attempts, nextAttemptAt, lastError, completedAt));
+    }
+
+    private static Counter taskCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("deposit.refund.tasks")
+                .description("Số lần gọi API hoàn tiền cọc VNPay theo kết quả")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
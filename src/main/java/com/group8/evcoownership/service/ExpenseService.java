@@ -4,6 +4,7 @@ package com.group8.evcoownership.service;
 import com.group8.evcoownership.dto.ExpenseCreateRequestDTO;
 import com.group8.evcoownership.dto.ExpenseResponseDTO;
 import com.group8.evcoownership.entity.Expense;
+import com.group8.evcoownership.entity.FundJournal;
 import com.group8.evcoownership.entity.Incident;
 import com.group8.evcoownership.entity.SharedFund;
 import com.group8.evcoownership.entity.User;
@@ -19,6 +20,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -87,18 +89,15 @@ public class ExpenseService {
             throw new IllegalStateException("Cannot spend from this fund (must be OPERATING).");
         }
 
-        // Trừ tiền qua core service (có kiểm tra không âm + optimistic lock)
-        fundService.decreaseBalance(fund.getFundId(), expense.getAmount());
-
-        // Nạp lại fund để lấy số dư mới sau khi trừ
-        SharedFund fundAfter = sharedFundRepository.findById(fund.getFundId())
-                .orElseThrow(() -> new EntityNotFoundException("Fund not found after update"));
+        // Trừ tiền qua core service (khóa quỹ, kiểm tra không âm, ghi FundJournal) => trả về số dư sau chi
+        BigDecimal balanceAfter = fundService.decreaseBalance(fund.getFundId(), expense.getAmount(),
+                FundJournal.SOURCE_EXPENSE, expense.getId());
 
         // Cập nhật trạng thái expense
         expense.setStatus("COMPLETED");
         expense.setExpenseDate(LocalDateTime.now());
         expense.setUpdatedAt(LocalDateTime.now());
-        expense.setFundBalanceAfter(fundAfter.getBalance()); // số dư sau chi
+        expense.setFundBalanceAfter(balanceAfter); // số dư sau chi
 
         User approver = userRepository.findByEmail(username)
                 .orElseThrow(() -> new EntityNotFoundException("Approver not found"));
@@ -0,0 +1,117 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.dto.FundBalancePointDTO;
+import com.group8.evcoownership.entity.SharedFund;
+import com.group8.evcoownership.entity.SharedFundBalanceSnapshot;
+import com.group8.evcoownership.entity.SharedFundBalanceSnapshotId;
+import com.group8.evcoownership.repository.FundJournalRepository;
+import com.group8.evcoownership.repository.SharedFundBalanceSnapshotRepository;
+import com.group8.evcoownership.repository.SharedFundRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot số dư theo ngày của SharedFund
+ * - record(): gọi khi materialize FundJournal vào số dư quỹ, cộng dồn vào dòng của ngày materialize
+ * - Số dư tại ngày X = ClosingBalance của snapshot gần nhất <= X
+ *   (trước snapshot đầu tiên: OpeningBalance của snapshot đầu tiên; chưa có snapshot: số dư đã materialize)
+ *   + nhật ký FundJournal chưa materialize nếu X >= hôm nay (các dòng này sẽ được ghi vào snapshot của ngày materialize)
+ * Không cần cộng lại toàn bộ Payment / Expense
+ */
+@Service
+@RequiredArgsConstructor
+public class FundBalanceSnapshotService {
+
+    private final SharedFundBalanceSnapshotRepository snapshotRepository;
+    private final SharedFundRepository fundRepo;
+    private final FundJournalRepository journalRepository;
+
+    // Số ngày tối đa của 1 lần lấy lịch sử số dư
+    @Value("${fund.balance-history.max-days:366}")
+    private int maxHistoryDays;
+
+    /**
+     * Ghi nhận count biến động số dư trong ngày day của quỹ: before -> after
+     * Gọi bởi FundJournalMaterializer trong transaction đã cộng số dư vào SharedFund nên các lần ghi cùng quỹ được tuần tự theo dòng quỹ
+     */
+    @Transactional
+    public void record(Long fundId, LocalDate day, BigDecimal before, BigDecimal after, long count) {
+        SharedFundBalanceSnapshotId id = new SharedFundBalanceSnapshotId(fundId, day.atStartOfDay());
+        SharedFundBalanceSnapshot snapshot = snapshotRepository.findById(id)
+                .orElseGet(() -> SharedFundBalanceSnapshot.builder()
+                        .id(id)
+                        .openingBalance(before)
+                        .transactionCount(0L)
+                        .build());
+        snapshot.setClosingBalance(after);
+        snapshot.setTransactionCount(snapshot.getTransactionCount() + count);
+        snapshotRepository.save(snapshot);
+    }
+
+    /**
+     * Số dư cuối ngày date của quỹ
+     */
+    @Transactional(readOnly = true)
+    public FundBalancePointDTO getBalanceAt(Long fundId, LocalDate date) {
+        SharedFund fund = fundRepo.findById(fundId)
+                .orElseThrow(() -> new EntityNotFoundException("SharedFund not found: " + fundId));
+        BigDecimal balance = balanceAt(fund, date);
+        if (date.isBefore(LocalDate.now())) {
+            return new FundBalancePointDTO(date, balance);
+        }
+        return new FundBalancePointDTO(date, balance.add(journalRepository.sumPendingByFund(fundId)));
+    }
+
+    /**
+     * Số dư cuối mỗi ngày trong [from, to] (ngày không có biến động lấy số dư ngày trước đó)
+     * Tối đa 4 query: 2 để lấy số dư đầu kỳ + 1 lấy các snapshot trong khoảng + 1 lấy tổng nhật ký chưa materialize
+     */
+    @Transactional(readOnly = true)
+    public List<FundBalancePointDTO> getBalanceHistory(Long fundId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must be before or equal to to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxHistoryDays) {
+            throw new IllegalArgumentException("Date range must not exceed " + maxHistoryDays + " days");
+        }
+        SharedFund fund = fundRepo.findById(fundId)
+                .orElseThrow(() -> new EntityNotFoundException("SharedFund not found: " + fundId));
+
+        Map<LocalDate, BigDecimal> closingByDay = snapshotRepository
+                .findByFundAndDayRange(fundId, from.atStartOfDay(), to.atStartOfDay()).stream()
+                .collect(Collectors.toMap(s -> s.getId().getDay().toLocalDate(),
+                        SharedFundBalanceSnapshot::getClosingBalance));
+
+        List<FundBalancePointDTO> points = new ArrayList<>();
+        BigDecimal balance = balanceAt(fund, from.minusDays(1));
+        // Đọc sau snapshot: nhật ký vừa materialize trong lúc đọc có thể thiếu (trễ 1 chu kỳ), không bị cộng 2 lần
+        LocalDate today = LocalDate.now();
+        BigDecimal pending = to.isBefore(today) ? BigDecimal.ZERO : journalRepository.sumPendingByFund(fundId);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            balance = closingByDay.getOrDefault(day, balance);
+            points.add(new FundBalancePointDTO(day, day.isBefore(today) ? balance : balance.add(pending)));
+        }
+        return points;
+    }
+
+    private BigDecimal balanceAt(SharedFund fund, LocalDate date) {
+        LocalDateTime day = date.atStartOfDay();
+        return snapshotRepository.findFirstByIdFundIdAndIdDayLessThanEqualOrderByIdDayDesc(fund.getFundId(), day)
+                .map(SharedFundBalanceSnapshot::getClosingBalance)
+                .or(() -> snapshotRepository.findFirstByIdFundIdAndIdDayGreaterThanOrderByIdDayAsc(fund.getFundId(), day)
+                        .map(SharedFundBalanceSnapshot::getOpeningBalance))
+                .orElseGet(() -> fund.getBalance() != null ? fund.getBalance() : BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,174 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.FundJournal;
+import com.group8.evcoownership.repository.FundJournalRepository;
+import com.group8.evcoownership.repository.SharedFundRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cộng FundJournal vào SharedFund.Balance theo lô (mặc định mỗi giây)
+ * - Mỗi lô 1 transaction: đánh dấu các dòng đã materialize, cộng tổng delta của từng quỹ bằng 1 UPDATE,
+ *   ghi snapshot số dư vào ngày materialize (FundBalanceSnapshotService)
+ * - Snapshot theo ngày materialize, không theo ngày phát sinh: dòng nhật ký commit muộn (sau khi ngày sau đã có snapshot)
+ *   không ghi đè ClosingBalance của ngày đã qua => lịch sử số dư không bị đảo thứ tự
+ * - Đánh dấu trước => 2 instance cùng chạy thì instance sau chờ khóa các dòng nhật ký rồi thấy số dòng không khớp và rollback,
+ *   không cộng 2 lần
+ * - Quỹ được cập nhật theo thứ tự FundId => không deadlock với lô khác / khoản chi đang khóa quỹ
+ * - Chỉ query khi FundService báo có nhật ký mới (signal sau commit); không có thì quét định kỳ
+ *   theo fund.journal.idle-scan-interval-ms (nhật ký do instance khác ghi / còn sót khi tắt máy)
+ */
+@Service
+@Slf4j
+public class FundJournalMaterializer {
+
+    private static final int MAX_CONFLICTS = 3;
+
+    private final FundJournalRepository journalRepository;
+    private final SharedFundRepository fundRepository;
+    private final FundBalanceSnapshotService balanceSnapshotService;
+    private final TransactionTemplate requiresNew;
+
+    // Số dòng nhật ký mỗi lô
+    @Value("${fund.journal.batch-size:500}")
+    private int batchSize;
+
+    // Khoảng thời gian tối đa giữa 2 lần quét khi không có signal
+    @Value("${fund.journal.idle-scan-interval-ms:60000}")
+    private long idleScanIntervalMs;
+
+    private final Object materializeLock = new Object();
+    private final AtomicBoolean signalled = new AtomicBoolean(true);
+    private volatile long lastScanNanos;
+
+    public FundJournalMaterializer(FundJournalRepository journalRepository,
+                                   SharedFundRepository fundRepository,
+                                   FundBalanceSnapshotService balanceSnapshotService,
+                                   PlatformTransactionManager transactionManager) {
+        this.journalRepository = journalRepository;
+        this.fundRepository = fundRepository;
+        this.balanceSnapshotService = balanceSnapshotService;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Có nhật ký mới vừa được commit => lần chạy kế tiếp sẽ materialize
+     */
+    public void signal() {
+        signalled.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${fund.journal.materialize-interval-ms:1000}")
+    public void materializeIfPending() {
+        boolean idle = System.nanoTime() - lastScanNanos < TimeUnit.MILLISECONDS.toNanos(idleScanIntervalMs);
+        if (!signalled.get() && idle) {
+            return;
+        }
+        materialize();
+    }
+
+    /**
+     * Materialize toàn bộ nhật ký đang chờ
+     * return số dòng đã cộng vào số dư
+     */
+    @PreDestroy
+    public int materialize() {
+        synchronized (materializeLock) {
+            // Xóa signal trước khi quét: nhật ký commit trong lúc quét sẽ được lấy ở lần sau
+            signalled.set(false);
+            lastScanNanos = System.nanoTime();
+            int total = 0;
+            int conflicts = 0;
+            while (true) {
+                Integer applied;
+                try {
+                    applied = requiresNew.execute(status -> materializeBatch());
+                } catch (ConcurrencyFailureException e) {
+                    // Instance khác vừa materialize 1 phần lô này => lấy lại lô (chu kỳ sau sẽ chạy tiếp nếu còn tranh chấp)
+                    if (++conflicts > MAX_CONFLICTS) {
+                        return total;
+                    }
+                    log.info("Fund journal batch was materialized concurrently, retrying: {}", e.getMessage());
+                    continue;
+                } catch (RuntimeException e) {
+                    log.warn("Failed to materialize fund journal: {}", e.getMessage());
+                    return total;
+                }
+                if (applied == null || applied == 0) {
+                    return total;
+                }
+                total += applied;
+            }
+        }
+    }
+
+    private int materializeBatch() {
+        List<FundJournal> batch = journalRepository.findPendingBatch(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = batch.stream().map(FundJournal::getEntryId).toList();
+        int marked = journalRepository.markMaterialized(ids, now);
+        if (marked != ids.size()) {
+            throw new ConcurrencyFailureException(
+                    "Expected to materialize " + ids.size() + " journal entries but marked " + marked);
+        }
+
+        // FundId -> [tổng delta, số dòng], theo thứ tự FundId
+        Map<Long, FundTotal> byFund = new TreeMap<>();
+        for (FundJournal entry : batch) {
+            byFund.computeIfAbsent(entry.getFundId(), id -> new FundTotal()).add(entry.getDelta());
+        }
+
+        LocalDate day = now.toLocalDate();
+        for (Map.Entry<Long, FundTotal> fund : byFund.entrySet()) {
+            Long fundId = fund.getKey();
+            BigDecimal delta = fund.getValue().amount();
+            if (fundRepository.addToBalance(fundId, delta, now) == 0) {
+                // Quỹ đã bị xóa: bỏ qua các dòng của quỹ này
+                log.warn("SharedFund {} not found, skipped {} journal delta", fundId, delta);
+                continue;
+            }
+            BigDecimal after = fundRepository.findBalanceById(fundId).orElseThrow();
+            balanceSnapshotService.record(fundId, day, after.subtract(delta), after, fund.getValue().count());
+        }
+        return batch.size();
+    }
+
+    private static final class FundTotal {
+        private BigDecimal amount = BigDecimal.ZERO;
+        private long count;
+
+        private void add(BigDecimal delta) {
+            amount = amount.add(delta);
+            count++;
+        }
+
+        private BigDecimal amount() {
+            return amount;
+        }
+
+        private long count() {
+            return count;
+        }
+    }
+}
@@ -18,6 +18,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -41,6 +42,7 @@ public class FundPaymentService {
     private final SharedFundRepository sharedFundRepository;
     private final UserRepository userRepository;
     private final VnPay_PaymentService vnPayPaymentService;
+    private final VnPayCallbackService vnPayCallbackService;
 
     // ham phu
     private Long parseId(String id, String fieldName) {
@@ -126,40 +128,15 @@ public class FundPaymentService {
     }
 
     // =============== CONFIRM (server->server hoặc từ callback public) ===============
-    @Transactional
+    // Transaction do VnPayCallbackService mở (giữ chỗ txnRef + chốt payment + cộng quỹ)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public FundTopupResponseDTO confirmFundTopup(String txnRef, String transactionNo) {
-        Payment payment = depositPaymentService.getLatestPaymentByTxnRef(txnRef);
-
-
-        if (payment.getPaymentType() != PaymentType.CONTRIBUTION) {
-            throw new IllegalStateException("TxnRef does not belong to FUND_TOPUP");
-        }
-
-        // Idempotent
-        if (payment.getStatus() == PaymentStatus.COMPLETED) {
-            return map(payment, "Already completed");
-        }
-
-        // (Optional) verify chữ ký với VnPayService nếu bạn đã implement
-
-        // providerResponse
-        String providerResponse = String.format(
-                "{\"vnp_TransactionNo\":\"%s\",\"vnp_TxnRef\":\"%s\"}",
-                transactionNo, txnRef
-        );
-
-
-        // 1) Cập nhật trạng thái
-        payment.setStatus(PaymentStatus.COMPLETED);
-        payment.setPaidAt(LocalDateTime.now());
-        payment.setProviderResponse(providerResponse);
-        paymentRepository.save(payment);
-
-        // 2) Cộng số dư quỹ
-        Long groupId = payment.getFund().getGroup().getGroupId();
-        fundService.topUpOperating(groupId, payment.getAmount()); // cộng vào OPERATING
-
-        return map(payment, "Fund top-up completed");
+        // Idempotent theo txnRef: callback lặp lại trả "Already completed", quỹ chỉ được cộng 1 lần
+        return vnPayCallbackService.completeOnce(txnRef, transactionNo, PaymentType.CONTRIBUTION, payment -> {
+            // Cộng số dư quỹ
+            Long groupId = payment.getFund().getGroup().getGroupId();
+            fundService.topUpOperating(groupId, payment.getAmount(), payment.getId()); // cộng vào OPERATING
+        }, (payment, applied) -> map(payment, applied ? "Fund top-up completed" : "Already completed"));
     }
 
     // =============== GET INFO BY TXN REF ===============
@@ -4,27 +4,47 @@ import com.group8.evcoownership.dto.*;
 import com.group8.evcoownership.entity.*;
 import com.group8.evcoownership.enums.FundType;
 import com.group8.evcoownership.enums.PaymentStatus;
+import com.group8.evcoownership.enums.RoleName;
 import com.group8.evcoownership.repository.ExpenseRepository;
+import com.group8.evcoownership.repository.FundJournalRepository;
+import com.group8.evcoownership.repository.FundLedgerRepository;
 import com.group8.evcoownership.repository.OwnershipGroupRepository;
 import com.group8.evcoownership.repository.PaymentRepository;
 import com.group8.evcoownership.repository.SharedFundRepository;
 import io.micrometer.common.lang.Nullable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.LockModeType;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.math.BigDecimal;
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.locks.LockSupport;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 
@@ -36,6 +56,27 @@ public class FundService {
     private final OwnershipGroupRepository groupRepo;
     private final ExpenseRepository expenseRepository;
     private final PaymentRepository PaymentRepository;
+    private final FundLedgerRepository fundLedgerRepository;
+    private final FundJournalRepository fundJournalRepository;
+    private final FundJournalMaterializer fundJournalMaterializer;
+    private final EntityManager entityManager;
+    private final MeterRegistry meterRegistry;
+
+    // Meter được tạo 1 lần, mỗi lần cập nhật số dư chỉ record / increment
+    private Timer increaseTimer;
+    private Timer decreaseTimer;
+    private Counter increaseApplied;
+    private Counter decreaseApplied;
+    private Counter decreaseInsufficient;
+
+    @PostConstruct
+    void registerMeters() {
+        increaseTimer = balanceUpdateTimer("increase");
+        decreaseTimer = balanceUpdateTimer("decrease");
+        increaseApplied = balanceUpdateCounter("increase", "applied");
+        decreaseApplied = balanceUpdateCounter("decrease", "applied");
+        decreaseInsufficient = balanceUpdateCounter("decrease", "insufficient");
+    }
 
     // =========================================================
     // New Functions after Database Update
@@ -55,13 +96,9 @@ public class FundService {
         BigDecimal totalOut = nz(expenseRepository.sumApprovedOut(groupId, fundType, from, to));
 
         // 2) Số dư hiện tại của 2 quỹ
-        BigDecimal operatingBal = fundRepo
-                .findByGroup_GroupIdAndFundType(groupId, FundType.OPERATING)
-                .map(f -> nz(f.getBalance())).orElse(BigDecimal.ZERO);
-
-        BigDecimal depositBal = fundRepo
-                .findByGroup_GroupIdAndFundType(groupId, FundType.DEPOSIT_RESERVE)
-                .map(f -> nz(f.getBalance())).orElse(BigDecimal.ZERO);
+        Map<FundType, BigDecimal> balances = groupBalances(groupId);
+        BigDecimal operatingBal = balances.getOrDefault(FundType.OPERATING, BigDecimal.ZERO);
+        BigDecimal depositBal = balances.getOrDefault(FundType.DEPOSIT_RESERVE, BigDecimal.ZERO);
 
         // 3) Lấy danh sách dòng sổ quỹ (tái dùng hàm getLedger bạn đã có)
         List<LedgerRowDTO> rows = getLedger(groupId, fundType,
@@ -81,16 +118,8 @@ public class FundService {
                                         @Nullable LocalDate fromDate,
                                         @Nullable LocalDate toDate) {
 
-        // Neu fromD la null thi mac dinh 30 ngay truoc
-        // Neu toD la null thi mac dinh ngay ket thuc la hom nay
-        LocalDate fromD = (fromDate == null) ? LocalDate.now().minusDays(30) : fromDate;
-        LocalDate toD = (toDate == null) ? LocalDate.now() : toDate;
-
-        // du lieu tu fe la LocalDate
-        // ==> phai chuyen ve LocalDateTime
-        // inclusive range: [00:00:00, 23:59:59.999999999]
-        LocalDateTime from = fromD.atStartOfDay();
-        LocalDateTime to = toD.plusDays(1).atStartOfDay().minusNanos(1);
+        LocalDateTime from = ledgerFrom(fromDate);
+        LocalDateTime to = ledgerTo(toDate);
 
         // ===== IN (nạp tiền, chỉ lấy PAID) =====
         List<Payment> ins = (fundType == null)
@@ -132,14 +161,93 @@ public class FundService {
                 .toList();
     }
 
+    /**
+     * Sổ quỹ phân trang theo con trỏ: cùng dữ liệu và thứ tự với getLedger
+     * nhưng IN/OUT được gộp + sắp xếp trong database, mỗi trang chỉ đọc size dòng
+     * cursor null => trang đầu; nextCursor null => hết dữ liệu
+     */
+    @Transactional(readOnly = true)
+    public LedgerPageDTO getLedgerPage(Long groupId,
+                                       @Nullable FundType fundType,
+                                       @Nullable LocalDate fromDate,
+                                       @Nullable LocalDate toDate,
+                                       @Nullable String cursor,
+                                       int size) {
+        int limit = Math.max(1, Math.min(size, ledgerMaxPageSize));
+        FundLedgerRepository.Cursor after = cursor == null || cursor.isBlank()
+                ? FundLedgerRepository.START
+                : decodeLedgerCursor(cursor);
+
+        // Đọc dư 1 dòng để biết còn trang sau hay không
+        List<FundLedgerRepository.Entry> entries = fundLedgerRepository.findPage(
+                groupId, fundType, ledgerFrom(fromDate), ledgerTo(toDate), after, limit + 1);
+        boolean hasMore = entries.size() > limit;
+        List<FundLedgerRepository.Entry> page = hasMore ? entries.subList(0, limit) : entries;
+
+        return new LedgerPageDTO(
+                page.stream().map(this::toLedgerRow).toList(),
+                hasMore ? encodeLedgerCursor(page.get(page.size() - 1).cursor()) : null);
+    }
+
+    // Neu fromDate la null thi mac dinh 30 ngay truoc
+    // du lieu tu fe la LocalDate ==> phai chuyen ve LocalDateTime, inclusive range: [00:00:00, 23:59:59.999999999]
+    private LocalDateTime ledgerFrom(@Nullable LocalDate fromDate) {
+        return (fromDate == null ? LocalDate.now().minusDays(30) : fromDate).atStartOfDay();
+    }
+
+    // Neu toDate la null thi mac dinh ngay ket thuc la hom nay
+    private LocalDateTime ledgerTo(@Nullable LocalDate toDate) {
+        return (toDate == null ? LocalDate.now() : toDate).plusDays(1).atStartOfDay().minusNanos(1);
+    }
+
+    private LedgerRowDTO toLedgerRow(FundLedgerRepository.Entry e) {
+        boolean in = "IN".equals(e.direction());
+        return new LedgerRowDTO(
+                e.direction(),
+                e.fundId(),
+                e.fundType(),
+                in ? safeName(e.userId(), e.fullName(), e.email()) : mapExpenseTitle(e.sourceType()),
+                in ? displayRole(e.roleName() != null ? RoleName.valueOf(e.roleName()) : null) : nzStr(e.description()),
+                e.userId(),
+                e.amount(),
+                e.occurredAt()
+        );
+    }
+
+    // Con trỏ gửi cho FE: base64url("occurredAt|direction|entryId"), FE chỉ truyền lại nguyên văn
+    private String encodeLedgerCursor(FundLedgerRepository.Cursor c) {
+        String raw = c.occurredAt() + "|" + c.direction() + "|" + c.entryId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private FundLedgerRepository.Cursor decodeLedgerCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || !("IN".equals(parts[1]) || "OUT".equals(parts[1]))) {
+                throw new IllegalArgumentException("Invalid ledger cursor");
+            }
+            return new FundLedgerRepository.Cursor(LocalDateTime.parse(parts[0]), parts[1], Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid ledger cursor");
+        }
+    }
+
     // -------- helpers (nhỏ gọn) ----------
     private String safeName(User u) {
         return u == null ? "N/A" : (u.getFullName() != null ? u.getFullName() : u.getEmail());
     }
 
+    private String safeName(Long userId, String fullName, String email) {
+        return userId == null ? "N/A" : (fullName != null ? fullName : email);
+    }
+
     private String displayRole(User u) {
-        if (u == null || u.getRole() == null) return "";
-        return switch (u.getRole().getRoleName()) {
+        return u == null || u.getRole() == null ? "" : displayRole(u.getRole().getRoleName());
+    }
+
+    private String displayRole(RoleName roleName) {
+        if (roleName == null) return "";
+        return switch (roleName) {
             case ADMIN -> "Admin";
             case STAFF -> "Staff";
             default -> "Co-owner";
@@ -198,16 +306,16 @@ public class FundService {
      */
     // nap tien coc
     @Transactional
-    public void addDepositToReserve(Long groupId, BigDecimal amt) {
+    public void addDepositToReserve(Long groupId, BigDecimal amt, Long paymentId) {
         SharedFund r = fundRepo.findByGroup_GroupIdAndFundType(groupId, FundType.DEPOSIT_RESERVE).orElseThrow();
-        increaseBalance(r.getFundId(), amt);
+        increaseBalance(r.getFundId(), amt, FundJournal.SOURCE_DEPOSIT, paymentId);
     }
 
     // nap tien quy
     @Transactional
-    public void topUpOperating(Long groupId, BigDecimal amt) {
+    public void topUpOperating(Long groupId, BigDecimal amt, Long paymentId) {
         SharedFund op = fundRepo.findByGroup_GroupIdAndFundType(groupId, FundType.OPERATING).orElseThrow();
-        increaseBalance(op.getFundId(), amt);
+        increaseBalance(op.getFundId(), amt, FundJournal.SOURCE_TOP_UP, paymentId);
     }
 
     /**
@@ -227,13 +335,14 @@ public class FundService {
         if (funds.isEmpty()) {
             throw new EntityNotFoundException("No funds found for group " + groupId);
         }
+        Map<Long, BigDecimal> balances = currentBalances(funds);
         return funds.stream()
                 .map(f -> new SharedFundDTO(
                         f.getFundId(),
                         f.getGroup() != null ? f.getGroup().getGroupId() : null,
                         f.getFundType(),
                         f.isSpendable(),
-                        nz(f.getBalance()),
+                        balances.get(f.getFundId()),
                         nz(f.getTargetAmount()),
                         f.getCreatedAt(),
                         f.getUpdatedAt()
@@ -250,20 +359,23 @@ public class FundService {
         SharedFund rs = fundRepo.findByGroup_GroupIdAndFundType(groupId, FundType.DEPOSIT_RESERVE)
                 .orElseThrow(() -> new EntityNotFoundException("Reserve fund not found for group " + groupId));
 
-        BigDecimal ob = nz(op.getBalance());
-        BigDecimal rb = nz(rs.getBalance());
+        Map<Long, BigDecimal> balances = currentBalances(List.of(op, rs));
+        BigDecimal ob = balances.get(op.getFundId());
+        BigDecimal rb = balances.get(rs.getFundId());
         return new FundsSummaryDTO(groupId, ob, rb, ob.add(rb));
     }
 
     @Transactional(readOnly = true)
     public List<SharedFundDTO> list(Pageable pageable) {
-        return fundRepo.findAll(pageable)
+        Page<SharedFund> page = fundRepo.findAll(pageable);
+        Map<Long, BigDecimal> balances = currentBalances(page.getContent());
+        return page
                 .map(f -> new SharedFundDTO(
                         f.getFundId(),
                         (f.getGroup() != null ? f.getGroup().getGroupId() : null),
                         f.getFundType(),
                         f.isSpendable(),
-                        (f.getBalance() == null ? BigDecimal.ZERO : f.getBalance()),
+                        balances.get(f.getFundId()),
                         (f.getTargetAmount() == null ? BigDecimal.ZERO : f.getTargetAmount()),
                         f.getCreatedAt(),
                         f.getUpdatedAt()
@@ -323,184 +435,310 @@ public class FundService {
     }
 
 
-    private static final int MAX_RETRY = 3;
-
-    // ... (các hàm CRUD bạn đã có ở trên)
-
     /**
-     * Tăng quỹ (nạp tiền)
+     * Tăng quỹ (nạp tiền): chỉ INSERT 1 dòng FundJournal, không khóa / cập nhật dòng quỹ
+     * Số dư SharedFund được FundJournalMaterializer cộng sau (theo lô)
      */
     @Transactional
-    public void increaseBalance(Long fundId, BigDecimal amount) {
-        updateBalanceWithRetry(fundId, amount, true);
+    public void increaseBalance(Long fundId, BigDecimal amount, String sourceType, Long sourceId) {
+        requirePositive(amount);
+        long started = System.nanoTime();
+        if (!fundRepo.existsById(fundId)) {
+            throw new EntityNotFoundException("SharedFund not found: " + fundId);
+        }
+        appendJournal(fundId, amount, sourceType, sourceId);
+        increaseTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        increaseApplied.increment();
     }
 
     /**
-     * Giảm quỹ (chi/hoàn tiền)
+     * Giảm quỹ (chi/hoàn tiền): khóa dòng quỹ để kiểm tra số dư hiện tại (đã materialize + nhật ký chờ) rồi ghi delta âm
+     * Các khoản nạp không khóa dòng quỹ nên chỉ các khoản chi cùng quỹ phải chờ nhau
+     * return số dư hiện tại sau khi trừ
      */
     @Transactional
-    public void decreaseBalance(Long fundId, BigDecimal amount) {
-        updateBalanceWithRetry(fundId, amount, false);
+    public BigDecimal decreaseBalance(Long fundId, BigDecimal amount, String sourceType, Long sourceId) {
+        requirePositive(amount);
+        long started = System.nanoTime();
+        SharedFund fund = entityManager.find(SharedFund.class, fundId);
+        if (fund == null) {
+            throw new EntityNotFoundException("SharedFund not found: " + fundId);
+        }
+        // refresh + khóa: đọc lại số dư mới nhất kể cả khi entity đã có trong persistence context
+        entityManager.refresh(fund, LockModeType.PESSIMISTIC_WRITE);
+        BigDecimal available = nz(fund.getBalance()).add(fundJournalRepository.sumPendingByFund(fundId));
+        decreaseTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        if (available.compareTo(amount) < 0) {
+            decreaseInsufficient.increment();
+            throw new IllegalStateException("Số dư quỹ không đủ để chi! (số dư hiện tại: " + available + ")");
+        }
+        appendJournal(fundId, amount.negate(), sourceType, sourceId);
+        decreaseApplied.increment();
+        return available.subtract(amount);
     }
 
     /**
-     * Core update với optimistic locking + retry
+     * Số dư hiện tại = số dư đã materialize + tổng nhật ký chưa materialize
+     * (SharedFund.balance có thể trễ tối đa 1 chu kỳ của FundJournalMaterializer)
      */
-    private void updateBalanceWithRetry(Long fundId, BigDecimal amount, boolean increase) {
-        if (amount == null || amount.signum() <= 0) {
-            throw new IllegalArgumentException("Amount must be > 0");
+    @Transactional(readOnly = true)
+    public BigDecimal currentBalance(Long fundId) {
+        List<Object[]> rows = fundRepo.findCurrentBalances(List.of(fundId));
+        if (rows.isEmpty()) {
+            throw new EntityNotFoundException("SharedFund not found: " + fundId);
         }
+        return (BigDecimal) rows.get(0)[1];
+    }
 
-        int attempts = 0;
-        while (true) {
-            attempts++;
-            try {
-                SharedFund fund = fundRepo.findById(fundId)
-                        .orElseThrow(() -> new EntityNotFoundException("SharedFund not found: " + fundId));
-
-                BigDecimal current = fund.getBalance() == null ? BigDecimal.ZERO : fund.getBalance();
+    /**
+     * Số dư hiện tại (đã materialize + nhật ký chờ) của các quỹ, 1 query cho cả danh sách
+     * Quỹ không còn trong database (bị xóa trong lúc đọc) => số dư của entity
+     */
+    private Map<Long, BigDecimal> currentBalances(List<SharedFund> funds) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (SharedFund f : funds) {
+            balances.put(f.getFundId(), nz(f.getBalance()));
+        }
+        if (!balances.isEmpty()) {
+            for (Object[] row : fundRepo.findCurrentBalances(balances.keySet())) {
+                balances.put((Long) row[0], (BigDecimal) row[1]);
+            }
+        }
+        return balances;
+    }
 
-                if (!increase && amount.compareTo(current) > 0) {
-                    throw new IllegalStateException("Số dư quỹ không đủ để chi!");
-                }
+    // Số dư hiện tại theo loại quỹ của 1 group
+    private Map<FundType, BigDecimal> groupBalances(Long groupId) {
+        List<SharedFund> funds = fundRepo.findAllByGroup_GroupId(groupId);
+        Map<Long, BigDecimal> balances = currentBalances(funds);
+        Map<FundType, BigDecimal> byType = new HashMap<>();
+        for (SharedFund f : funds) {
+            byType.put(f.getFundType(), balances.get(f.getFundId()));
+        }
+        return byType;
+    }
 
-                BigDecimal newBalance = increase ? current.add(amount) : current.subtract(amount);
-                fund.setBalance(newBalance);
+    private void requirePositive(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be > 0");
+        }
+    }
 
-                fundRepo.saveAndFlush(fund); // sẽ ném OptimisticLock nếu version bị đổi
-                return; // OK
-            } catch (OptimisticLockingFailureException e) {
-                if (attempts >= MAX_RETRY) {
-                    throw new IllegalStateException("Cập nhật quỹ thất bại do tranh chấp đồng thời. Vui lòng thử lại.", e);
+    private void appendJournal(Long fundId, BigDecimal delta, String sourceType, Long sourceId) {
+        fundJournalRepository.save(FundJournal.builder()
+                .fundId(fundId)
+                .delta(delta)
+                .sourceType(sourceType)
+                .sourceId(sourceId)
+                .build());
+        // Báo materializer sau khi nhật ký được commit (rollback => không cần chạy)
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    fundJournalMaterializer.signal();
                 }
-                // ngắt nhịp rất ngắn trước khi thử lại (tùy chọn)
-                long backoffMillis = Math.min(200L, 20L * attempts);
-                LockSupport.parkNanos(Duration.ofMillis(backoffMillis).toNanos());
-                if (Thread.currentThread().isInterrupted()) {
-                    Thread.currentThread().interrupt();
-                    throw new IllegalStateException("Thread interrupted while retrying fund balance update", e);
-                }
-            }
+            });
+        } else {
+            fundJournalMaterializer.signal();
         }
     }
 
+    private Timer balanceUpdateTimer(String direction) {
+        return Timer.builder("fund.balance.update")
+                .description("Thời gian ghi biến động số dư quỹ (gồm thời gian chờ khóa dòng quỹ khi chi)")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    private Counter balanceUpdateCounter(String direction, String result) {
+        return Counter.builder("fund.balance.updates")
+                .description("Số lần cập nhật số dư quỹ")
+                .tag("direction", direction)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
     // ================== CSV EXPORT FUNCTIONS ==================
 
+    // Số group mỗi trang khi xuất báo cáo tất cả group
+    @Value("${fund.report.page-size:500}")
+    private int reportPageSize;
+
+    // Số dòng sổ quỹ mỗi trang khi xuất CSV 1 group
+    @Value("${fund.ledger.stream-page-size:500}")
+    private int ledgerStreamPageSize;
+
+    // Số dòng tối đa mỗi trang của API sổ quỹ phân trang
+    @Value("${fund.ledger.max-page-size:200}")
+    private int ledgerMaxPageSize;
+
     /**
-     * Generate CSV content for a single group's ledger
+     * Ghi CSV sổ quỹ của 1 group thẳng vào out (stream ra HTTP response)
+     * - Tổng thu/chi và số dư giống getLedgerSummary
+     * - Dòng sổ quỹ được đọc theo trang (keyset, fund.ledger.stream-page-size dòng) và ghi ngay
+     *   => bộ nhớ không phụ thuộc số giao dịch của group
+     * - Không giữ transaction trong lúc ghi: mỗi trang tự mở / đóng connection
      */
-    @Transactional(readOnly = true)
-    public String generateGroupLedgerCSV(Long groupId,
-                                         @Nullable FundType fundType,
-                                         @Nullable LocalDateTime from,
-                                         @Nullable LocalDateTime to) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void writeGroupLedgerCSV(Long groupId,
+                                    @Nullable FundType fundType,
+                                    @Nullable LocalDateTime from,
+                                    @Nullable LocalDateTime to,
+                                    Writer out) throws IOException {
         OwnershipGroup group = groupRepo.findById(groupId)
                 .orElseThrow(() -> new EntityNotFoundException("Group not found: " + groupId));
 
-        LedgerSummaryDTO summary = getLedgerSummary(groupId, fundType, from, to);
+        BigDecimal totalIn = nz(PaymentRepository.sumCompletedIn(groupId, fundType, from, to));
+        BigDecimal totalOut = nz(expenseRepository.sumApprovedOut(groupId, fundType, from, to));
+        Map<FundType, BigDecimal> balances = groupBalances(groupId);
+        BigDecimal operatingBal = balances.getOrDefault(FundType.OPERATING, BigDecimal.ZERO);
+        BigDecimal depositBal = balances.getOrDefault(FundType.DEPOSIT_RESERVE, BigDecimal.ZERO);
 
-        StringBuilder csv = new StringBuilder();
-        csv.append("Financial Report - Group: ").append(group.getGroupName()).append(" (ID: ").append(groupId).append(")\n");
-        csv.append("Generated: ").append(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))).append("\n");
+        out.write("Financial Report - Group: " + group.getGroupName() + " (ID: " + groupId + ")\n");
+        out.write("Generated: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + "\n");
         if (from != null || to != null) {
-            csv.append("Period: ");
-            if (from != null) csv.append(from.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-            csv.append(" to ");
-            if (to != null) csv.append(to.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-            csv.append("\n");
+            out.write("Period: ");
+            if (from != null) out.write(from.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            out.write(" to ");
+            if (to != null) out.write(to.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            out.write("\n");
         }
-        csv.append("\n");
+        out.write("\n");
 
         // Summary section
-        csv.append("Summary\n");
-        csv.append("Total Income,").append(summary.totalIn()).append("\n");
-        csv.append("Total Expense,").append(summary.totalOut()).append("\n");
-        csv.append("Operating Balance,").append(summary.operatingBalance()).append("\n");
-        csv.append("Deposit Balance,").append(summary.depositBalance()).append("\n");
-        csv.append("\n");
-
-        // Transaction details
-        csv.append("Transaction Details\n");
-        csv.append("Direction,Fund Type,Title,Subtitle,User ID,Amount,Date\n");
-        for (LedgerRowDTO row : summary.rows()) {
-            csv.append(escapeCSV(row.direction())).append(",");
-            csv.append(escapeCSV(row.fundType() != null ? row.fundType().toString() : "")).append(",");
-            csv.append(escapeCSV(row.title())).append(",");
-            csv.append(escapeCSV(row.subtitle())).append(",");
-            csv.append(row.userId() != null ? row.userId() : "").append(",");
-            csv.append(row.amount()).append(",");
-            csv.append(row.occurredAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))).append("\n");
+        out.write("Summary\n");
+        out.write("Total Income," + totalIn + "\n");
+        out.write("Total Expense," + totalOut + "\n");
+        out.write("Operating Balance," + operatingBal + "\n");
+        out.write("Deposit Balance," + depositBal + "\n");
+        out.write("\n");
+
+        // Transaction details (cùng khoảng ngày với getLedgerSummary)
+        out.write("Transaction Details\n");
+        out.write("Direction,Fund Type,Title,Subtitle,User ID,Amount,Date\n");
+        LocalDateTime rowsFrom = ledgerFrom(from != null ? from.toLocalDate() : null);
+        LocalDateTime rowsTo = ledgerTo(to != null ? to.toLocalDate() : null);
+        FundLedgerRepository.Cursor after = FundLedgerRepository.START;
+        while (after != null) {
+            List<FundLedgerRepository.Entry> page = fundLedgerRepository.findPage(
+                    groupId, fundType, rowsFrom, rowsTo, after, ledgerStreamPageSize);
+            StringBuilder rows = new StringBuilder();
+            for (FundLedgerRepository.Entry entry : page) {
+                LedgerRowDTO row = toLedgerRow(entry);
+                rows.append(escapeCSV(row.direction())).append(",");
+                rows.append(escapeCSV(row.fundType() != null ? row.fundType().toString() : "")).append(",");
+                rows.append(escapeCSV(row.title())).append(",");
+                rows.append(escapeCSV(row.subtitle())).append(",");
+                rows.append(row.userId() != null ? row.userId() : "").append(",");
+                rows.append(row.amount()).append(",");
+                rows.append(row.occurredAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))).append("\n");
+            }
+            out.write(rows.toString());
+            out.flush();
+            after = page.size() < ledgerStreamPageSize ? null : page.get(page.size() - 1).cursor();
         }
-
-        return csv.toString();
     }
 
     /**
-     * Generate CSV content for all groups' financial reports
+     * Ghi báo cáo tài chính CSV của tất cả group thẳng vào out (stream ra HTTP response)
+     * - Group được đọc theo trang (keyset theo groupId), mỗi trang chỉ chạy 3 query gom nhóm: tổng thu, tổng chi, số dư quỹ
+     *   => bộ nhớ chỉ phụ thuộc kích thước trang, không theo số group / số dòng sổ quỹ
+     * - Không giữ transaction trong lúc ghi: mỗi query tự mở / đóng connection, client đọc chậm không giữ connection
+     * Số liệu mỗi group giống getLedgerSummary (thu/chi lọc theo fundType và [from, to), số dư 2 quỹ hiện tại)
      */
-    @Transactional(readOnly = true)
-    public String generateAllGroupsFinancialReportCSV(@Nullable FundType fundType,
-                                                      @Nullable LocalDateTime from,
-                                                      @Nullable LocalDateTime to) {
-        List<OwnershipGroup> allGroups = groupRepo.findAll();
-
-        StringBuilder csv = new StringBuilder();
-        csv.append("Financial Reports - All Groups\n");
-        csv.append("Generated: ").append(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))).append("\n");
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void writeAllGroupsFinancialReportCSV(@Nullable FundType fundType,
+                                                 @Nullable LocalDateTime from,
+                                                 @Nullable LocalDateTime to,
+                                                 Writer out) throws IOException {
+        out.write("Financial Reports - All Groups\n");
+        out.write("Generated: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + "\n");
         if (from != null || to != null) {
-            csv.append("Period: ");
-            if (from != null) csv.append(from.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-            csv.append(" to ");
-            if (to != null) csv.append(to.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-            csv.append("\n");
+            out.write("Period: ");
+            if (from != null) out.write(from.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            out.write(" to ");
+            if (to != null) out.write(to.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+            out.write("\n");
         }
-        csv.append("\n");
+        out.write("\n");
 
         // Summary by group
-        csv.append("Summary by Group\n");
-        csv.append("Group ID,Group Name,Status,Total Income,Total Expense,Operating Balance,Deposit Balance,Net Balance\n");
+        out.write("Summary by Group\n");
+        out.write("Group ID,Group Name,Status,Total Income,Total Expense,Operating Balance,Deposit Balance,Net Balance\n");
 
         BigDecimal grandTotalIncome = BigDecimal.ZERO;
         BigDecimal grandTotalExpense = BigDecimal.ZERO;
         BigDecimal grandOperatingBalance = BigDecimal.ZERO;
         BigDecimal grandDepositBalance = BigDecimal.ZERO;
 
-        for (OwnershipGroup group : allGroups) {
-            try {
-                LedgerSummaryDTO summary = getLedgerSummary(group.getGroupId(), fundType, from, to);
-                BigDecimal netBalance = summary.totalIn().subtract(summary.totalOut());
-
-                csv.append(group.getGroupId()).append(",");
-                csv.append(escapeCSV(group.getGroupName())).append(",");
-                csv.append(escapeCSV(group.getStatus() != null ? group.getStatus().toString() : "")).append(",");
-                csv.append(summary.totalIn()).append(",");
-                csv.append(summary.totalOut()).append(",");
-                csv.append(summary.operatingBalance()).append(",");
-                csv.append(summary.depositBalance()).append(",");
-                csv.append(netBalance).append("\n");
-
-                grandTotalIncome = grandTotalIncome.add(summary.totalIn());
-                grandTotalExpense = grandTotalExpense.add(summary.totalOut());
-                grandOperatingBalance = grandOperatingBalance.add(summary.operatingBalance());
-                grandDepositBalance = grandDepositBalance.add(summary.depositBalance());
-            } catch (Exception e) {
-                // Skip groups with errors, log and continue
-                csv.append(group.getGroupId()).append(",");
-                csv.append(escapeCSV(group.getGroupName())).append(",");
-                csv.append("ERROR,");
-                csv.append("0,0,0,0,0\n");
+        long afterId = 0L;
+        List<Object[]> page = groupRepo.findReportPageAfter(afterId, PageRequest.of(0, reportPageSize));
+        while (!page.isEmpty()) {
+            List<Long> groupIds = page.stream().map(row -> (Long) row[0]).toList();
+            Map<Long, BigDecimal> incomeByGroup = sumsByGroup(
+                    PaymentRepository.sumCompletedInByGroups(groupIds, fundType, from, to));
+            Map<Long, BigDecimal> expenseByGroup = sumsByGroup(
+                    expenseRepository.sumApprovedOutByGroups(groupIds, fundType, from, to));
+            Map<Long, BigDecimal> operatingByGroup = new HashMap<>();
+            Map<Long, BigDecimal> depositByGroup = new HashMap<>();
+            for (Object[] row : fundRepo.findCurrentBalancesByGroupIds(groupIds)) {
+                if (row[1] == FundType.OPERATING) {
+                    operatingByGroup.put((Long) row[0], nz((BigDecimal) row[2]));
+                } else if (row[1] == FundType.DEPOSIT_RESERVE) {
+                    depositByGroup.put((Long) row[0], nz((BigDecimal) row[2]));
+                }
+            }
+
+            StringBuilder rows = new StringBuilder();
+            for (Object[] group : page) {
+                Long groupId = (Long) group[0];
+                BigDecimal totalIn = incomeByGroup.getOrDefault(groupId, BigDecimal.ZERO);
+                BigDecimal totalOut = expenseByGroup.getOrDefault(groupId, BigDecimal.ZERO);
+                BigDecimal operatingBalance = operatingByGroup.getOrDefault(groupId, BigDecimal.ZERO);
+                BigDecimal depositBalance = depositByGroup.getOrDefault(groupId, BigDecimal.ZERO);
+
+                rows.append(groupId).append(",");
+                rows.append(escapeCSV((String) group[1])).append(",");
+                rows.append(escapeCSV(group[2] != null ? group[2].toString() : "")).append(",");
+                rows.append(totalIn).append(",");
+                rows.append(totalOut).append(",");
+                rows.append(operatingBalance).append(",");
+                rows.append(depositBalance).append(",");
+                rows.append(totalIn.subtract(totalOut)).append("\n");
+
+                grandTotalIncome = grandTotalIncome.add(totalIn);
+                grandTotalExpense = grandTotalExpense.add(totalOut);
+                grandOperatingBalance = grandOperatingBalance.add(operatingBalance);
+                grandDepositBalance = grandDepositBalance.add(depositBalance);
             }
+            out.write(rows.toString());
+            out.flush();
+
+            afterId = groupIds.get(groupIds.size() - 1);
+            page = page.size() < reportPageSize
+                    ? List.of()
+                    : groupRepo.findReportPageAfter(afterId, PageRequest.of(0, reportPageSize));
         }
 
-        csv.append("\n");
-        csv.append("Grand Total,,");
-        csv.append(grandTotalIncome).append(",");
-        csv.append(grandTotalExpense).append(",");
-        csv.append(grandOperatingBalance).append(",");
-        csv.append(grandDepositBalance).append(",");
-        csv.append(grandTotalIncome.subtract(grandTotalExpense)).append("\n");
+        out.write("\n");
+        out.write("Grand Total,,");
+        out.write(grandTotalIncome + ",");
+        out.write(grandTotalExpense + ",");
+        out.write(grandOperatingBalance + ",");
+        out.write(grandDepositBalance + ",");
+        out.write(grandTotalIncome.subtract(grandTotalExpense) + "\n");
+        out.flush();
+    }
 
-        return csv.toString();
+    // Dòng [groupId, sum] => Map
+    private Map<Long, BigDecimal> sumsByGroup(List<Object[]> rows) {
+        Map<Long, BigDecimal> sums = new HashMap<>();
+        for (Object[] row : rows) {
+            sums.put((Long) row[0], nz((BigDecimal) row[1]));
+        }
+        return sums;
     }
 
     /**
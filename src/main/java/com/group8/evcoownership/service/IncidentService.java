@@ -10,6 +10,7 @@ import com.group8.evcoownership.enums.FundType;
 import com.group8.evcoownership.repository.*;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -30,6 +31,7 @@ public class IncidentService {
     private final UserRepository userRepository;
     private final ExpenseRepository expenseRepository;
     private final SharedFundRepository sharedFundRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     // CREATE INCIDENT
     public IncidentResponseDTO create(IncidentCreateRequestDTO req, String username) {
@@ -67,6 +69,7 @@ public class IncidentService {
                 .build();
 
         incidentRepository.save(incident);
+        publishVehicleStatusChanged(incident);
         return mapToDTO(incident);
     }
 
@@ -141,6 +144,7 @@ public class IncidentService {
         incident.setApprovedBy(approver);
         incident.setUpdatedAt(LocalDateTime.now());
         incidentRepository.save(incident);
+        publishVehicleStatusChanged(incident);
 
         return mapToDTO(incident);
     }
@@ -171,6 +175,7 @@ public class IncidentService {
         incident.setUpdatedAt(LocalDateTime.now());
 
         incidentRepository.save(incident);
+        publishVehicleStatusChanged(incident);
         return mapToDTO(incident);
     }
 
@@ -219,6 +224,14 @@ public class IncidentService {
 
 
     // Mapping helper
+    // Báo cho VehicleStatusCache: sự cố chưa giải quyết ảnh hưởng trạng thái xe trên dashboard
+    private void publishVehicleStatusChanged(Incident incident) {
+        if (incident.getBooking() != null && incident.getBooking().getVehicle() != null) {
+            eventPublisher.publishEvent(new VehicleStatusCache.VehicleStatusChangedEvent(
+                    incident.getBooking().getVehicle().getId()));
+        }
+    }
+
     private IncidentResponseDTO mapToDTO(Incident i) {
         return IncidentResponseDTO.builder()
                 .id(i.getId())
@@ -13,6 +13,7 @@ import com.group8.evcoownership.enums.MaintenanceCoverageType;
 import com.group8.evcoownership.repository.*;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,6 +34,8 @@ public class MaintenanceAfterCheckOutService {
     private final OwnershipShareRepository ownershipShareRepository;
     private final UsageBookingRepository usageBookingRepository;
     private final VehicleCheckRepository vehicleCheckRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     /**
@@ -136,6 +139,7 @@ public class MaintenanceAfterCheckOutService {
                 .build();
 
         m = maintenanceRepository.save(m);
+        eventPublisher.publishEvent(new VehicleStatusCache.VehicleStatusChangedEvent(vehicle.getId()));
         return mapToDTO(m);
     }
 
@@ -302,6 +306,7 @@ public class MaintenanceAfterCheckOutService {
         m.setMaintenanceCompletedAt(now);
         m.setUpdatedAt(now);
         maintenanceRepository.save(m);
+        eventPublisher.publishEvent(new VehicleStatusCache.VehicleStatusChangedEvent(m.getVehicle().getId()));
 
 
         // ======= dùng vehicleId + userId để tìm Booking + VehicleCheck =======
@@ -319,6 +324,7 @@ public class MaintenanceAfterCheckOutService {
                         if (booking.getStatus() == BookingStatus.NEEDS_ATTENTION) {
                             booking.setStatus(BookingStatus.COMPLETED);
                             usageBookingRepository.save(booking);
+                            bookingIntervalIndex.invalidate(vehicleId);
                         }
 
                         // (b) từ bookingId tìm đúng VehicleCheck POST_USE và set PASSED
@@ -29,6 +29,7 @@ public class MaintenancePaymentService {
     private final UserRepository userRepository;
     private final DepositPaymentService depositPaymentService; // để reuse generateUniqueTxnRef()
     private final VnPay_PaymentService vnPayPaymentService;
+    private final VnPayCallbackService vnPayCallbackService;
 
     @Transactional
     public FundTopupResponseDTO createMaintenancePayment(
@@ -112,58 +113,25 @@ public class MaintenancePaymentService {
                 .build();
     }
 
-    @Transactional
+    // Transaction do VnPayCallbackService mở (giữ chỗ txnRef + chốt payment + chuyển maintenance sang FUNDED)
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public FundTopupResponseDTO confirmMaintenancePayment(String txnRef, String transactionNo) {
-        // lay payment theo txnRef
-        Payment payment = depositPaymentService.getLatestPaymentByTxnRef(txnRef);
-
-        // payment cho maintenance, khong phai loai khac
-        if (payment.getPaymentType() != PaymentType.MAINTENANCE_FEE) {
-            throw new IllegalStateException("TxnRef does not belong to MAINTENANCE payment");
-        }
-
-        // Neu PAYMENT COMPLETED roi thi khong xu ly lai
-        if (payment.getStatus() == PaymentStatus.COMPLETED) {
-            // Chỗ này có thể đảm bảo lại maintenance đã FUNDED (phòng call lại nhiều lần)
-            Maintenance already = payment.getMaintenance();
-            if (already != null
-                    && !"FUNDED".equalsIgnoreCase(already.getStatus())
-                    && !"COMPLETED".equalsIgnoreCase(already.getStatus())) {
-
-                already.setStatus("FUNDED");
-                already.setFundedAt(LocalDateTime.now());
-                maintenanceRepository.save(already);
+        // payment cho maintenance, khong phai loai khac; callback lap lai chi doc lai ket qua
+        return vnPayCallbackService.completeOnce(txnRef, transactionNo, PaymentType.MAINTENANCE_FEE, payment -> {
+            // Lay Maintenance gan voi Payment nay
+            Maintenance m = payment.getMaintenance();
+            if (m == null) {
+                // Nếu null ==> create khong set payment.setMaintenance(m)
+                throw new IllegalStateException("Payment is not linked to any Maintenance");
             }
-            return map(payment, "Already completed");
-        }
 
-        // luu thong tin phan hoi tu VNPay (transactionNo + txnRef)
-        String providerResponse = String.format(
-                "{\"vnp_TransactionNo\":\"%s\",\"vnp_TxnRef\":\"%s\"}",
-                transactionNo, txnRef
-        );
-
-        // cap nhat payment thanh COMPLETED
-        payment.setStatus(PaymentStatus.COMPLETED);
-        payment.setPaidAt(LocalDateTime.now());
-        payment.setProviderResponse(providerResponse);
-        paymentRepository.save(payment);
-
-        // Lay Maintenance gan voi Payment nay
-        Maintenance m = payment.getMaintenance();
-        if (m == null) {
-            // Nếu null ==> create khong set payment.setMaintenance(m)
-            throw new IllegalStateException("Payment is not linked to any Maintenance");
-        }
-
-        // chuyen trang thai cua maintenance moi tim duoc sang FUNDED
-        if ("PENDING".equalsIgnoreCase(m.getStatus())) {
-            m.setStatus("FUNDED");
-            m.setFundedAt(LocalDateTime.now());
-            maintenanceRepository.save(m);
-        }
-
-        return map(payment, "Maintenance personal payment completed");
+            // chuyen trang thai cua maintenance moi tim duoc sang FUNDED
+            if ("PENDING".equalsIgnoreCase(m.getStatus())) {
+                m.setStatus("FUNDED");
+                m.setFundedAt(LocalDateTime.now());
+                maintenanceRepository.save(m);
+            }
+        }, (payment, applied) -> map(payment, applied ? "Maintenance personal payment completed" : "Already completed"));
     }
 
     // =============== 3) INFO BY TXN ===============
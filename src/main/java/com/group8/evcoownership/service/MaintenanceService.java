@@ -12,6 +12,7 @@ import com.group8.evcoownership.repository.UserRepository;
 import com.group8.evcoownership.repository.VehicleRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,6 +30,7 @@ public class MaintenanceService {
     private final MaintenanceRepository maintenanceRepository;
     private final VehicleRepository vehicleRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     // =================== CREATE ===================
     public MaintenanceResponseDTO create(MaintenanceCreateRequestDTO req, String username) {
@@ -50,6 +52,7 @@ public class MaintenanceService {
                 .build();
 
         maintenance = maintenanceRepository.save(maintenance);
+        publishVehicleStatusChanged(maintenance);
         return mapToDTO(maintenance);
     }
 
@@ -107,6 +110,7 @@ public class MaintenanceService {
 
         maintenance.setUpdatedAt(LocalDateTime.now());
         maintenanceRepository.save(maintenance);
+        publishVehicleStatusChanged(maintenance);
 
         return mapToDTO(maintenance);
     }
@@ -137,6 +141,7 @@ public class MaintenanceService {
         maintenance.setApprovedBy(staff);
         maintenance.setApprovalDate(now);
         maintenanceRepository.save(maintenance);
+        publishVehicleStatusChanged(maintenance);
 
 
         // ===== TÍNH AI ĐÓNG BAO NHIÊU =====
@@ -194,6 +199,7 @@ public class MaintenanceService {
         maintenance.setApprovedBy(staff);
         maintenance.setApprovalDate(now); // Set approvalDate when rejected (staff action date)
         maintenanceRepository.save(maintenance);
+        publishVehicleStatusChanged(maintenance);
 
         return mapToDTO(maintenance);
     }
@@ -225,6 +231,7 @@ public class MaintenanceService {
 
         m.setUpdatedAt(now);
         maintenanceRepository.save(m);
+        publishVehicleStatusChanged(m);
 
         return mapToDTO(m);
     }
@@ -254,6 +261,7 @@ public class MaintenanceService {
 
         m.setUpdatedAt(now);
         maintenanceRepository.save(m);
+        publishVehicleStatusChanged(m);
 
         return mapToDTO(m);
     }
@@ -263,6 +271,13 @@ public class MaintenanceService {
      * HELPER - MAPPING SECTION
      */
     // =================== MAPPING ===================
+    // Báo cho VehicleStatusCache: ngày/trạng thái bảo dưỡng trên dashboard có thể đã thay đổi
+    private void publishVehicleStatusChanged(Maintenance m) {
+        if (m.getVehicle() != null) {
+            eventPublisher.publishEvent(new VehicleStatusCache.VehicleStatusChangedEvent(m.getVehicle().getId()));
+        }
+    }
+
     private MaintenanceResponseDTO mapToDTO(Maintenance m) {
         return MaintenanceResponseDTO.builder()
                 .id(m.getId())
@@ -1,6 +1,7 @@
 package com.group8.evcoownership.service;
 
 import com.group8.evcoownership.dto.*;
+import com.group8.evcoownership.entity.FundJournal;
 import com.group8.evcoownership.entity.Payment;
 import com.group8.evcoownership.entity.SharedFund;
 import com.group8.evcoownership.entity.User;
@@ -37,6 +38,7 @@ public class PaymentService {
     private final SharedFundRepository fundRepo;
     private final FundService fundService;
     private final NotificationOrchestrator notificationOrchestrator;
+    private final VnPayCallbackService vnPayCallbackService;
 
 
     /**
@@ -232,18 +234,12 @@ public class PaymentService {
             throw new IllegalStateException("Transaction code mismatch");
         }
 
-        if (transactionCode != null) {
-            p.setTransactionCode(transactionCode);
-        }
-        p.setStatus(PaymentStatus.COMPLETED);
-        if (p.getPaymentDate() == null) {
-            p.setPaymentDate(LocalDateTime.now());
-        }
-        if (providerResponseJson != null) {
-            p.setProviderResponse(providerResponseJson);
+        // UPDATE có điều kiện PENDING -> COMPLETED: gọi trùng / song song với callback VNPay chỉ 1 lần thành công
+        if (!vnPayCallbackService.complete(p, transactionCode, providerResponseJson)
+                && !PaymentStatus.COMPLETED.equals(p.getStatus())) {
+            throw new IllegalStateException("Invalid transition: " + p.getStatus() + " -> Completed");
         }
-
-        return toDto(paymentRepo.save(p));
+        return toDto(p);
     }
 
     @Transactional
@@ -340,7 +336,7 @@ public class PaymentService {
 
                 paymentRepo.saveAndFlush(p); // flush trước khi cộng quỹ
                 // Cộng quỹ đúng 1 lần khi chốt Completed
-                fundService.increaseBalance(p.getFund().getFundId(), p.getAmount());
+                fundService.increaseBalance(p.getFund().getFundId(), p.getAmount(), FundJournal.SOURCE_PAYMENT, p.getId());
 
                 notificationOrchestrator.sendComprehensiveNotification(
                         p.getPayer().getUserId(),
@@ -357,7 +353,7 @@ public class PaymentService {
 
                 paymentRepo.saveAndFlush(p);
                 // Hoàn quỹ đúng 1 lần khi chuyển Refunded
-                fundService.decreaseBalance(p.getFund().getFundId(), p.getAmount());
+                fundService.decreaseBalance(p.getFund().getFundId(), p.getAmount(), FundJournal.SOURCE_PAYMENT_REFUND, p.getId());
             }
             default -> throw new IllegalStateException("Unsupported target: " + target);
         }
@@ -26,6 +26,8 @@ public class UsageBookingService {
 
     private final UsageBookingRepository usageBookingRepository;
     private final NotificationService notificationService;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final UsageCounterService usageCounterService;
 
     //Hủy booking (bất kỳ status nào → Cancelled)
     public UsageBooking cancelBooking(Long bookingId, Long userId) {
@@ -47,8 +49,12 @@ public class UsageBookingService {
             throw new IllegalStateException("You can only cancel your own bookings");
         }
 
+        // Trả lại quota tuần cho user trước khi đổi status
+        usageCounterService.release(booking);
         booking.setStatus(BookingStatus.CANCELLED);
-        return usageBookingRepository.save(booking);
+        UsageBooking cancelled = usageBookingRepository.save(booking);
+        bookingIntervalIndex.invalidate(booking.getVehicle().getId());
+        return cancelled;
     }
 
     //Hủy booking với lý do (dành cho admin/kỹ thuật viên)
@@ -67,8 +73,10 @@ public class UsageBookingService {
             throw new IllegalStateException("Cannot cancel booking that has already been checked in");
         }
 
+        usageCounterService.release(booking);
         booking.setStatus(BookingStatus.CANCELLED);
         usageBookingRepository.save(booking);
+        bookingIntervalIndex.invalidate(booking.getVehicle().getId());
 
         Map<String, Object> result = new HashMap<>();
         result.put("bookingId", bookingId);
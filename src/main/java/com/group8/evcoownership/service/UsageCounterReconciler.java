@@ -0,0 +1,68 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.UsageBooking;
+import com.group8.evcoownership.entity.UsageWeeklyCounter;
+import com.group8.evcoownership.entity.UsageWeeklyCounterId;
+import com.group8.evcoownership.repository.UsageBookingRepository;
+import com.group8.evcoownership.repository.UsageWeeklyCounterRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Job đối soát UsageWeeklyCounter với UsageBooking
+ * Phát hiện counter bị lệch (ví dụ booking bị sửa trực tiếp trong database) và ghi lại giá trị đúng
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UsageCounterReconciler {
+
+    // Booking được đặt trước tối đa 3 tháng => quét từ 4 tuần trước tới 14 tuần sau tuần hiện tại
+    private static final int PAST_WEEKS = 4;
+    private static final int FUTURE_WEEKS = 14;
+
+    private final UsageWeeklyCounterRepository counterRepository;
+    private final UsageBookingRepository usageBookingRepository;
+    private final UsageCounterService usageCounterService;
+
+    // Chạy lúc 02:30 mỗi ngày
+    @Scheduled(cron = "0 30 2 * * *")
+    public void reconcileRecentWeeks() {
+        LocalDate currentWeek = LocalDate.now().with(DayOfWeek.MONDAY);
+        try {
+            int corrected = reconcile(currentWeek.minusWeeks(PAST_WEEKS), currentWeek.plusWeeks(FUTURE_WEEKS));
+            log.info("Usage counter reconciliation finished: {} counter(s) corrected", corrected);
+        } catch (Exception ex) {
+            log.error("Usage counter reconciliation failed", ex);
+        }
+    }
+
+    /**
+     * Đối soát các counter có tuần trong [fromWeek, toWeek)
+     * Quét 1 lần toàn bộ booking của khoảng thời gian, chỉ khóa và tính lại những counter bị lệch
+     * return số counter đã được sửa
+     */
+    public int reconcile(LocalDate fromWeek, LocalDate toWeek) {
+        Map<UsageWeeklyCounterId, Long> expected = new HashMap<>();
+        for (UsageBooking booking : usageBookingRepository.findQuotaBookingsStartingBetween(
+                fromWeek.atStartOfDay(), toWeek.atStartOfDay())) {
+            expected.merge(UsageCounterService.idOf(booking), UsageCounterService.minutesOf(booking), Long::sum);
+        }
+
+        int corrected = 0;
+        for (UsageWeeklyCounter counter : counterRepository.findByWeekRange(fromWeek.atStartOfDay(), toWeek.atStartOfDay())) {
+            long actual = expected.getOrDefault(counter.getId(), 0L);
+            if (counter.getBookedMinutes() != actual && usageCounterService.correctDrift(counter.getId())) {
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+}
@@ -0,0 +1,137 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.UsageBooking;
+import com.group8.evcoownership.entity.UsageWeeklyCounter;
+import com.group8.evcoownership.entity.UsageWeeklyCounterId;
+import com.group8.evcoownership.enums.BookingStatus;
+import com.group8.evcoownership.exception.BookingValidationException;
+import com.group8.evcoownership.repository.UsageBookingRepository;
+import com.group8.evcoownership.repository.UsageWeeklyCounterRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Quản lý UsageWeeklyCounter: số phút mỗi user đã đặt một xe trong từng tuần ISO
+ * - Tạo booking: khóa counter, kiểm tra quota rồi cộng phút trong cùng transaction
+ * - Hủy booking: trừ phút của booking khỏi counter
+ * - Booking hoàn tất (AWAITING_REVIEW/NEEDS_ATTENTION/COMPLETED) vẫn tính vào quota nên counter giữ nguyên
+ * Counter chưa tồn tại được khởi tạo từ UsageBooking ở lần khóa đầu tiên
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UsageCounterService {
+
+    private final UsageWeeklyCounterRepository counterRepository;
+    private final UsageBookingRepository usageBookingRepository;
+
+    // Thứ 2 của tuần ISO chứa thời điểm (booking được tính vào tuần chứa StartDateTime)
+    public static LocalDate weekOf(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().with(DayOfWeek.MONDAY);
+    }
+
+    public static UsageWeeklyCounterId idOf(Long userId, Long vehicleId, LocalDate weekStart) {
+        return new UsageWeeklyCounterId(userId, vehicleId, weekStart.with(DayOfWeek.MONDAY).atStartOfDay());
+    }
+
+    public static long minutesOf(UsageBooking booking) {
+        return Duration.between(booking.getStartDateTime(), booking.getEndDateTime()).toMinutes();
+    }
+
+    public static UsageWeeklyCounterId idOf(UsageBooking booking) {
+        return idOf(booking.getUser().getUserId(), booking.getVehicle().getId(), weekOf(booking.getStartDateTime()));
+    }
+
+    /**
+     * Số phút user đã đặt theo từng xe và từng tuần trong [fromWeek, toWeek) bằng 1 query (không khóa)
+     * Tuần chưa có counter không có trong kết quả
+     * return vehicleId -> (thứ 2 của tuần -> số phút)
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<LocalDate, Long>> findBookedMinutesByWeek(Long userId, LocalDate fromWeek, LocalDate toWeek) {
+        Map<Long, Map<LocalDate, Long>> result = new HashMap<>();
+        for (UsageWeeklyCounter counter : counterRepository.findByUserAndWeekRange(
+                userId, fromWeek.atStartOfDay(), toWeek.atStartOfDay())) {
+            result.computeIfAbsent(counter.getId().getVehicleId(), id -> new HashMap<>())
+                    .put(counter.getId().getWeekStart().toLocalDate(), counter.getBookedMinutes());
+        }
+        return result;
+    }
+
+    /**
+     * Khóa counter của tuần (PESSIMISTIC_WRITE) tới khi transaction của caller kết thúc
+     * 2 request đồng thời của cùng user/xe/tuần được tuần tự hóa nên không thể cùng vượt quota
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public UsageWeeklyCounter lockWeek(Long userId, Long vehicleId, LocalDate weekStart) {
+        UsageWeeklyCounterId id = idOf(userId, vehicleId, weekStart);
+        return counterRepository.lockById(id).orElseGet(() -> createCounter(id));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addMinutes(UsageWeeklyCounter counter, long minutes) {
+        counter.setBookedMinutes(Math.max(0L, counter.getBookedMinutes() + minutes));
+    }
+
+    /**
+     * Trả lại quota của booking sắp bị hủy
+     * Phải gọi TRƯỚC khi đổi status sang CANCELLED (counter mới khởi tạo từ UsageBooking vẫn còn tính booking này)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(UsageBooking booking) {
+        if (booking.getStatus() == BookingStatus.CANCELLED) {
+            return;
+        }
+        UsageWeeklyCounter counter = lockWeek(
+                booking.getUser().getUserId(), booking.getVehicle().getId(), weekOf(booking.getStartDateTime()));
+        addMinutes(counter, -minutesOf(booking));
+    }
+
+    /**
+     * Đối soát 1 counter với UsageBooking, tính lại khi đang giữ khóa của counter
+     * (booking tạo/hủy đồng thời hoặc đã commit, hoặc đang chờ khóa này) => không sửa nhầm
+     * return true nếu counter bị lệch và đã được sửa
+     */
+    @Transactional
+    public boolean correctDrift(UsageWeeklyCounterId id) {
+        UsageWeeklyCounter counter = counterRepository.lockById(id).orElse(null);
+        if (counter == null) {
+            return false;
+        }
+        long actual = usageBookingRepository.getBookedMinutesInWeek(
+                id.getUserId(), id.getVehicleId(), id.getWeekStart().toLocalDate());
+        if (counter.getBookedMinutes() == actual) {
+            return false;
+        }
+        log.warn("Usage counter drift for user {} vehicle {} week {}: counter={} actual={} minutes",
+                id.getUserId(), id.getVehicleId(), id.getWeekStart(), counter.getBookedMinutes(), actual);
+        counter.setBookedMinutes(actual);
+        return true;
+    }
+
+    private UsageWeeklyCounter createCounter(UsageWeeklyCounterId id) {
+        UsageWeeklyCounter counter = UsageWeeklyCounter.builder()
+                .id(id)
+                .bookedMinutes(usageBookingRepository.getBookedMinutesInWeek(
+                        id.getUserId(), id.getVehicleId(), id.getWeekStart().toLocalDate()))
+                .build();
+        try {
+            return counterRepository.saveAndFlush(counter);
+        } catch (DataIntegrityViolationException e) {
+            // Request khác của cùng user vừa tạo counter của tuần này
+            throw new BookingValidationException(
+                    "Your weekly usage is being updated by another request. Please try again.");
+        }
+    }
+}
@@ -15,6 +15,7 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -34,6 +35,9 @@ public class VehicleCheckService {
     private final VehicleCheckRepository vehicleCheckRepository;
     private final UsageBookingRepository usageBookingRepository;
     private final NotificationService notificationService;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final UsageCounterService usageCounterService;
+    private final ApplicationEventPublisher eventPublisher;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Value("${frontend.base.url:http://localhost:3000}")
@@ -68,9 +72,12 @@ public class VehicleCheckService {
                 .status("REJECTED")
                 .build();
 
-        // Cancel booking
+        // Cancel booking (trả lại quota tuần trước khi đổi status)
+        usageCounterService.release(booking);
         booking.setStatus(BookingStatus.CANCELLED);
         usageBookingRepository.save(booking);
+        bookingIntervalIndex.invalidate(booking.getVehicle().getId());
+        publishVehicleStatusChanged(booking);
 
         return vehicleCheckRepository.save(check);
     }
@@ -100,6 +107,7 @@ public class VehicleCheckService {
 
         // da doi status moi(reject,...)
         VehicleCheck savedCheck = vehicleCheckRepository.save(check);
+        publishVehicleStatusChanged(check.getBooking());
 
         // xu ly cac case tu status moi ma technician da doi
         UsageBooking booking = check.getBooking();
@@ -301,6 +309,8 @@ public class VehicleCheckService {
             }
             booking.setQrCodeCheckout(generatePendingReviewQrPayload(booking));
             usageBookingRepository.save(booking);
+            bookingIntervalIndex.invalidate(booking.getVehicle().getId());
+            publishVehicleStatusChanged(booking);
 
             result.put("success", true);
             result.put("message", "Checkout recorded. Awaiting technician review");
@@ -553,16 +563,26 @@ public class VehicleCheckService {
         }
         booking.setQrCodeCheckout(generateCompletedQrPayload(booking));
         usageBookingRepository.save(booking);
+        bookingIntervalIndex.invalidate(booking.getVehicle().getId());
     }
 
 
     private void handleTechnicianRejection(UsageBooking booking) {
         booking.setStatus(BookingStatus.NEEDS_ATTENTION);
         usageBookingRepository.save(booking);
+        bookingIntervalIndex.invalidate(booking.getVehicle().getId());
 
     }
 
 
+    // Báo cho VehicleStatusCache: pin/odometer/trạng thái xe trên dashboard có thể đã thay đổi
+    private void publishVehicleStatusChanged(UsageBooking booking) {
+        if (booking != null && booking.getVehicle() != null) {
+            eventPublisher.publishEvent(new VehicleStatusCache.VehicleStatusChangedEvent(booking.getVehicle().getId()));
+        }
+    }
+
+
     private void notifyTechniciansForPendingReview(UsageBooking booking) {
         if (notificationService == null) {
             return;
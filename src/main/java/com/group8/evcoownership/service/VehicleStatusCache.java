@@ -0,0 +1,304 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.Maintenance;
+import com.group8.evcoownership.entity.UsageBooking;
+import com.group8.evcoownership.entity.VehicleCheck;
+import com.group8.evcoownership.repository.IncidentRepository;
+import com.group8.evcoownership.repository.MaintenanceRepository;
+import com.group8.evcoownership.repository.UsageBookingRepository;
+import com.group8.evcoownership.repository.VehicleCheckRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache trạng thái xe cho dashboard lịch tuần, key theo (vehicleId, groupId)
+ * - Giữ pin, odometer, ngày bảo dưỡng, trạng thái bảo dưỡng và trạng thái xe
+ * - Bị invalidate bởi VehicleStatusChangedEvent do VehicleCheckService, MaintenanceService, IncidentService phát ra
+ * - Entry hết hạn sau max-age hoặc khi sang ngày mới (trạng thái "Under Maintenance" và hạn bảo dưỡng phụ thuộc ngày hiện tại)
+ * - Metric: tỉ lệ hit và số query tiết kiệm được trên mỗi request
+ */
+@Component
+@Slf4j
+public class VehicleStatusCache {
+
+    private final UsageBookingRepository usageBookingRepository;
+    private final VehicleCheckRepository vehicleCheckRepository;
+    private final MaintenanceRepository maintenanceRepository;
+    private final IncidentRepository incidentRepository;
+
+    private final Map<Key, VehicleStatus> cache = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final DistributionSummary queriesSaved;
+
+    @Value("${booking.dashboard-cache.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    public VehicleStatusCache(UsageBookingRepository usageBookingRepository,
+                              VehicleCheckRepository vehicleCheckRepository,
+                              MaintenanceRepository maintenanceRepository,
+                              IncidentRepository incidentRepository,
+                              MeterRegistry meterRegistry) {
+        this.usageBookingRepository = usageBookingRepository;
+        this.vehicleCheckRepository = vehicleCheckRepository;
+        this.maintenanceRepository = maintenanceRepository;
+        this.incidentRepository = incidentRepository;
+
+        this.hits = Counter.builder("calendar.vehicle_status.cache.requests")
+                .description("Số lần đọc trạng thái xe cho dashboard lịch tuần")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("calendar.vehicle_status.cache.requests")
+                .description("Số lần đọc trạng thái xe cho dashboard lịch tuần")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("calendar.vehicle_status.cache.hit_ratio", this, VehicleStatusCache::hitRatio)
+                .description("Tỉ lệ đọc trạng thái xe lấy từ cache")
+                .register(meterRegistry);
+        this.queriesSaved = DistributionSummary.builder("calendar.vehicle_status.cache.queries_saved")
+                .description("Số query dashboard không phải chạy trên mỗi request nhờ cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Trạng thái xe đã tính sẵn cho dashboard
+     * param queryCount Số query đã chạy để dựng entry (= số query tiết kiệm được khi hit)
+     */
+    public record VehicleStatus(String vehicleStatus, Integer batteryPercent, Integer odometer,
+                                LocalDate lastMaintenanceDate, LocalDate nextMaintenanceDate,
+                                String maintenanceStatus, LocalDateTime loadedAt, int queryCount) {
+    }
+
+    /**
+     * Event báo trạng thái xe thay đổi (kiểm tra xe, bảo dưỡng, sự cố)
+     */
+    public record VehicleStatusChangedEvent(Long vehicleId) {
+    }
+
+    private record Key(Long vehicleId, Long groupId) {
+    }
+
+    /**
+     * Lấy trạng thái xe từ cache, load lại từ database khi miss hoặc entry đã hết hạn
+     */
+    public VehicleStatus get(Long vehicleId, Long groupId) {
+        LocalDateTime now = LocalDateTime.now();
+        Key key = new Key(vehicleId, groupId);
+        VehicleStatus cached = cache.get(key);
+        if (cached != null && isFresh(cached, now)) {
+            hits.increment();
+            queriesSaved.record(cached.queryCount());
+            return cached;
+        }
+
+        misses.increment();
+        queriesSaved.record(0);
+
+        // Ghi nhận version trước khi load; nếu có invalidate trong lúc load thì không cache kết quả cũ
+        long version = versions.computeIfAbsent(vehicleId, id -> new AtomicLong()).get();
+        VehicleStatus loaded = load(vehicleId, groupId, now);
+        cache.compute(key, (k, current) ->
+                versions.get(vehicleId).get() == version ? loaded : current);
+        log.debug("Loaded dashboard status for vehicle {} group {} ({} queries)", vehicleId, groupId, loaded.queryCount());
+        return loaded;
+    }
+
+    @EventListener
+    public void onVehicleStatusChanged(VehicleStatusChangedEvent event) {
+        invalidate(event.vehicleId());
+    }
+
+    /**
+     * Xóa cache của xe (mọi nhóm)
+     * Nếu đang trong transaction thì xóa thêm một lần sau commit để tránh load lại từ dữ liệu chưa commit
+     */
+    public void invalidate(Long vehicleId) {
+        if (vehicleId == null) {
+            return;
+        }
+        evict(vehicleId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(vehicleId);
+                }
+            });
+        }
+    }
+
+    private void evict(Long vehicleId) {
+        versions.computeIfAbsent(vehicleId, id -> new AtomicLong()).incrementAndGet();
+        cache.keySet().removeIf(key -> key.vehicleId().equals(vehicleId));
+    }
+
+    private boolean isFresh(VehicleStatus status, LocalDateTime now) {
+        return status.loadedAt().toLocalDate().equals(now.toLocalDate())
+                && status.loadedAt().plusSeconds(maxAgeSeconds).isAfter(now);
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    private VehicleStatus load(Long vehicleId, Long groupId, LocalDateTime now) {
+        int[] queries = {0};
+
+        // 1. Lấy pin và odometer từ lần kiểm tra POST_USE mới nhất
+        VehicleCheck latestCheck = getLatestVehicleCheck(vehicleId, groupId, queries);
+        Integer batteryPercent = null;
+        Integer odometer = null;
+        if (latestCheck != null) {
+            odometer = latestCheck.getOdometer();
+            if (latestCheck.getBatteryLevel() != null) {
+                // Chuyển đổi BigDecimal batteryLevel (0-100) sang Integer phần trăm
+                batteryPercent = latestCheck.getBatteryLevel().intValue();
+            }
+        }
+
+        // 2. Lấy các ngày bảo dưỡng
+        MaintenanceDates maintenanceDates = getMaintenanceDates(vehicleId, groupId, queries);
+
+        // 3. Xác định trạng thái bảo dưỡng
+        String maintenanceStatus = determineMaintenanceStatus(vehicleId, groupId,
+                maintenanceDates.nextMaintenanceDate(), now.toLocalDate(), queries);
+
+        // 4. Xác định trạng thái xe
+        String vehicleStatus = determineVehicleStatus(vehicleId, groupId, queries);
+
+        return new VehicleStatus(vehicleStatus, batteryPercent, odometer,
+                maintenanceDates.lastMaintenanceDate(), maintenanceDates.nextMaintenanceDate(),
+                maintenanceStatus, now, queries[0]);
+    }
+
+    /**
+     * Lấy lần kiểm tra xe mới nhất từ các kiểm tra POST_USE của nhóm và xe này
+     */
+    private VehicleCheck getLatestVehicleCheck(Long vehicleId, Long groupId, int[] queries) {
+        // Thử lấy từ booking hoàn thành mới nhất trước
+        queries[0]++;
+        List<UsageBooking> latestCompletedBookings = usageBookingRepository.findLatestCompletedBookingByVehicleAndGroup(
+                vehicleId, groupId);
+
+        if (!latestCompletedBookings.isEmpty()) {
+            UsageBooking latestCompletedBooking = latestCompletedBookings.get(0);
+            // Lấy kiểm tra POST_USE từ booking hoàn thành mới nhất
+            queries[0]++;
+            List<VehicleCheck> bookingChecks = vehicleCheckRepository.findByBookingId(latestCompletedBooking.getId());
+            VehicleCheck latestCheck = bookingChecks.stream()
+                    .filter(vc -> "POST_USE".equals(vc.getCheckType()))
+                    .findFirst()
+                    .orElse(null);
+
+            if (latestCheck != null) {
+                return latestCheck;
+            }
+        }
+
+        // Dự phòng: nếu không có kiểm tra POST_USE từ booking mới nhất,
+        // lấy kiểm tra POST_USE mới nhất từ bất kỳ booking nào của nhóm này
+        queries[0]++;
+        List<VehicleCheck> groupPostUseChecks = vehicleCheckRepository.findLatestPostUseCheckByVehicleAndGroup(
+                vehicleId, groupId, PageRequest.of(0, 1));
+        return groupPostUseChecks.isEmpty() ? null : groupPostUseChecks.get(0);
+    }
+
+    /**
+     * Record helper để chứa các ngày bảo dưỡng
+     * param lastMaintenanceDate Ngày bảo dưỡng cuối cùng
+     * param nextMaintenanceDate Ngày bảo dưỡng tiếp theo
+     */
+    private record MaintenanceDates(LocalDate lastMaintenanceDate, LocalDate nextMaintenanceDate) {
+    }
+
+    /**
+     * Lấy các ngày bảo dưỡng (ngày bảo dưỡng cuối và ngày bảo dưỡng tiếp theo)
+     */
+    private MaintenanceDates getMaintenanceDates(Long vehicleId, Long groupId, int[] queries) {
+        LocalDate lastMaintenanceDate = null;
+        LocalDate nextMaintenanceDate = null;
+
+        queries[0]++;
+        Maintenance latestApprovedMaintenance = maintenanceRepository
+                .findLatestApprovedMaintenance(vehicleId, groupId)
+                .orElse(null);
+
+        if (latestApprovedMaintenance != null) {
+            // Sử dụng ApprovalDate làm lastMaintenanceDate (khi bảo dưỡng được phê duyệt/hoàn thành)
+            if (latestApprovedMaintenance.getApprovalDate() != null) {
+                lastMaintenanceDate = latestApprovedMaintenance.getApprovalDate().toLocalDate();
+            } else {
+                // Dự phòng: sử dụng requestDate nếu approvalDate là null
+                lastMaintenanceDate = latestApprovedMaintenance.getRequestDate().toLocalDate();
+            }
+
+            // Sử dụng NextDueDate từ database nếu có, nếu không thì tính 3 tháng sau khi phê duyệt
+            if (latestApprovedMaintenance.getNextDueDate() != null) {
+                nextMaintenanceDate = latestApprovedMaintenance.getNextDueDate();
+            } else if (lastMaintenanceDate != null) {
+                // Tính nextMaintenanceDate: 3 tháng sau lần bảo dưỡng cuối
+                nextMaintenanceDate = lastMaintenanceDate.plusMonths(3);
+            }
+        }
+
+        return new MaintenanceDates(lastMaintenanceDate, nextMaintenanceDate);
+    }
+
+    /**
+     * Xác định trạng thái bảo dưỡng cho xe và nhóm
+     */
+    private String determineMaintenanceStatus(Long vehicleId, Long groupId, LocalDate nextMaintenanceDate,
+                                              LocalDate today, int[] queries) {
+        queries[0]++;
+        boolean hasPendingMaintenance = maintenanceRepository.existsByVehicle_IdAndGroupIdAndStatusPending(vehicleId, groupId);
+
+        if (hasPendingMaintenance) {
+            return "NEEDS_MAINTENANCE";
+        } else if (nextMaintenanceDate != null && today.isAfter(nextMaintenanceDate.minusDays(7))) {
+            // Bảo dưỡng sắp đến hạn (trong vòng 7 ngày)
+            return "NEEDS_MAINTENANCE";
+        } else {
+            return "NO_ISSUE";
+        }
+    }
+
+    /**
+     * Xác định trạng thái xe cho xe và nhóm
+     * Ưu tiên: Bảo dưỡng đang diễn ra (APPROVED hôm nay) > Vấn đề kiểm tra xe > Sự cố chưa giải quyết
+     * Lưu ý: Chỉ hiển thị "Under Maintenance" khi bảo dưỡng thực sự đang được thực hiện (APPROVED hôm nay)
+     */
+    private String determineVehicleStatus(Long vehicleId, Long groupId, int[] queries) {
+        // Kiểm tra xem bảo dưỡng có đang được thực hiện hôm nay không (APPROVED với ApprovalDate = hôm nay)
+        boolean hasActiveMaintenance = maintenanceRepository.existsActiveMaintenance(vehicleId, groupId);
+        boolean hasVehicleCheckIssues = vehicleCheckRepository.existsPostUseCheckWithIssuesByVehicleAndGroup(vehicleId, groupId);
+        boolean hasUnresolvedIncidents = incidentRepository.existsUnresolvedIncidentsByVehicleIdAndGroupId(vehicleId, groupId);
+        queries[0] += 3;
+
+        if (hasActiveMaintenance) {
+            return "Under Maintenance";
+        } else if (hasVehicleCheckIssues || hasUnresolvedIncidents) {
+            return "Has Issues";
+        } else {
+            return "Good";
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.Payment;
+import com.group8.evcoownership.enums.PaymentStatus;
+import com.group8.evcoownership.enums.PaymentType;
+import com.group8.evcoownership.enums.RollupEntityType;
+import com.group8.evcoownership.exception.ResourceNotFoundException;
+import com.group8.evcoownership.repository.PaymentCallbackRepository;
+import com.group8.evcoownership.repository.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Xử lý callback thanh toán thành công của VNPay theo txnRef, mỗi txnRef đúng 1 lần
+ * 1 transaction:
+ * - INSERT PaymentCallback(txnRef): trùng khóa => callback lặp lại / đang được xử lý ở request khác => chỉ đọc và trả kết quả
+ *   (chỉ lỗi trùng khóa của câu INSERT này; lỗi khác trong transaction được ném ra, không coi là callback lặp lại)
+ * - 1 câu UPDATE Payment ... WHERE status = trạng thái vừa đọc (PENDING / FAILED) => COMPLETED
+ * - Chỉ khi UPDATE được 1 dòng mới chạy onCompleted (cộng quỹ, cập nhật cọc / maintenance)
+ * Callback lặp lại sau khi đã xử lý: 1 lần đọc PaymentCallback theo khóa chính + đọc Payment để trả response
+ */
+@Service
+@Slf4j
+public class VnPayCallbackService {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final PaymentCallbackRepository callbackRepository;
+    private final PaymentRepository paymentRepository;
+    private final AdminRollupService rollupService;
+    private final EntityManager entityManager;
+    private final Counter replayedCallbacks;
+    private final Counter appliedCallbacks;
+    private final Counter skippedCallbacks;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnly;
+
+    public VnPayCallbackService(PaymentCallbackRepository callbackRepository,
+                                PaymentRepository paymentRepository,
+                                AdminRollupService rollupService,
+                                EntityManager entityManager,
+                                MeterRegistry meterRegistry,
+                                PlatformTransactionManager transactionManager) {
+        this.callbackRepository = callbackRepository;
+        this.paymentRepository = paymentRepository;
+        this.rollupService = rollupService;
+        this.entityManager = entityManager;
+        this.replayedCallbacks = callbackCounter(meterRegistry, "replay");
+        this.appliedCallbacks = callbackCounter(meterRegistry, "applied");
+        this.skippedCallbacks = callbackCounter(meterRegistry, "skipped");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /**
+     * Chốt Payment của txnRef sang COMPLETED đúng 1 lần
+     * Gọi NGOÀI transaction (caller dùng Propagation.NOT_SUPPORTED) để mỗi callback chỉ giữ 1 connection
+     *
+     * @param expectedType loại payment bắt buộc (null => không kiểm tra)
+     * @param onCompleted  xử lý nghiệp vụ khi Payment vừa được chốt (cùng transaction)
+     * @param response     map (Payment, true nếu callback này vừa chốt payment) sang response
+     *                     (chạy trong transaction, đọc được quan hệ LAZY)
+     */
+    public <T> T completeOnce(String txnRef, String transactionNo, PaymentType expectedType,
+                              Consumer<Payment> onCompleted, BiFunction<Payment, Boolean, T> response) {
+        if (callbackRepository.existsById(txnRef)) {
+            replayedCallbacks.increment();
+            return readOnly.execute(status -> response.apply(latestPayment(txnRef, expectedType), false));
+        }
+        // null => txnRef đã được request khác giữ; lỗi khác (onCompleted, response, database) được ném ra cho caller
+        Optional<T> completed = transactionTemplate.execute(status -> {
+            Payment payment = latestPayment(txnRef, expectedType);
+            if (!claim(txnRef, payment.getId(), transactionNo)) {
+                // Transaction đã lỗi sau câu INSERT (PostgreSQL) => rollback, đọc lại ở transaction mới
+                status.setRollbackOnly();
+                return null;
+            }
+
+            String providerResponse = String.format(
+                    "{\"vnp_TransactionNo\":\"%s\",\"vnp_TxnRef\":\"%s\"}",
+                    transactionNo, txnRef
+            );
+            boolean applied = complete(payment, null, providerResponse);
+            if (applied) {
+                onCompleted.accept(payment);
+                appliedCallbacks.increment();
+            } else {
+                // Đã COMPLETED / REFUNDED bằng đường khác (vd. markPaid) => chỉ ghi nhận callback
+                skippedCallbacks.increment();
+            }
+            return Optional.ofNullable(response.apply(payment, applied));
+        });
+        if (completed != null) {
+            return completed.orElse(null);
+        }
+        replayedCallbacks.increment();
+        return readOnly.execute(status -> response.apply(latestPayment(txnRef, expectedType), false));
+    }
+
+    /**
+     * INSERT PaymentCallback(txnRef)
+     * return false nếu txnRef đã có (vi phạm khóa chính, SQLState 23505); lỗi khác được ném ra
+     */
+    private boolean claim(String txnRef, Long paymentId, String transactionNo) {
+        try {
+            callbackRepository.claim(txnRef, paymentId, transactionNo, LocalDateTime.now());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            if (!UNIQUE_VIOLATION.equals(sqlState(e))) {
+                throw e;
+            }
+            log.info("Duplicate VNPay callback for txnRef {}", txnRef);
+            return false;
+        }
+    }
+
+    private static String sqlState(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getSQLState() != null) {
+                return sql.getSQLState();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * PENDING / FAILED -> COMPLETED bằng UPDATE có điều kiện theo trạng thái đang có của payment (trong transaction hiện tại)
+     * UPDATE không đi qua Hibernate listener => tự ghi nhận thay đổi vào rollup dashboard
+     * return false nếu payment không ở trạng thái chốt được hoặc đã bị đổi trạng thái ở transaction khác
+     */
+    public boolean complete(Payment payment, String transactionCode, String providerResponse) {
+        PaymentStatus from = payment.getStatus();
+        if (from != PaymentStatus.PENDING && from != PaymentStatus.FAILED) {
+            return false;
+        }
+        int updated = paymentRepository.completeIfStatus(payment.getId(), from, transactionCode, providerResponse,
+                LocalDateTime.now());
+        if (updated == 0) {
+            entityManager.refresh(payment);
+            return false;
+        }
+        if (payment.getPaymentDate() != null) {
+            Long fundId = payment.getFund() != null ? payment.getFund().getFundId() : null;
+            rollupService.record(payment.getPaymentDate().toLocalDate(), RollupEntityType.PAYMENT,
+                    DashboardTotals.statusKey(from), fundId, -1, payment.getAmount().negate());
+            rollupService.record(payment.getPaymentDate().toLocalDate(), RollupEntityType.PAYMENT,
+                    DashboardTotals.statusKey(PaymentStatus.COMPLETED), fundId, 1, payment.getAmount());
+        }
+        // Nạp lại trạng thái mới (refresh không phát sinh sự kiện UPDATE)
+        entityManager.refresh(payment);
+        return true;
+    }
+
+    private Payment latestPayment(String txnRef, PaymentType expectedType) {
+        List<Payment> payments = paymentRepository.findAllByTransactionCodeOrderByIdDesc(txnRef);
+        if (payments.isEmpty()) {
+            throw new ResourceNotFoundException("Payment not found for txnRef: " + txnRef);
+        }
+        Payment payment = payments.get(0);
+        if (expectedType != null && payment.getPaymentType() != expectedType) {
+            throw new IllegalStateException("TxnRef does not belong to " + expectedType + " payment");
+        }
+        return payment;
+    }
+
+    private static Counter callbackCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("payment.vnpay.callbacks")
+                .description("Số callback thanh toán VNPay theo kết quả xử lý")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
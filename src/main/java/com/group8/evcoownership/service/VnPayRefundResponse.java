@@ -0,0 +1,46 @@
+package com.group8.evcoownership.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Set;
+
+/**
+ * Kết quả API hoàn tiền VNPay (vnp_ResponseCode / vnp_Message trong body JSON)
+ * - 00: VNPay đã nhận yêu cầu hoàn tiền
+ * - 75 (ngân hàng bảo trì), 94 (yêu cầu trùng trong thời gian giới hạn), 99 (lỗi khác), không đọc được mã => thử lại sau
+ * - Mã khác (sai chữ ký / dữ liệu, không tìm thấy giao dịch, VNPay từ chối...) => gửi lại cũng không đổi kết quả
+ */
+public record VnPayRefundResponse(String responseCode, String message) {
+
+    private static final String SUCCESS = "00";
+    private static final Set<String> RETRYABLE_CODES = Set.of("75", "94", "99");
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public static VnPayRefundResponse parse(String body) {
+        if (body == null || body.isBlank()) {
+            return new VnPayRefundResponse(null, "Empty response");
+        }
+        try {
+            JsonNode json = OBJECT_MAPPER.readTree(body);
+            return new VnPayRefundResponse(json.path("vnp_ResponseCode").asText(null),
+                    json.path("vnp_Message").asText(null));
+        } catch (JsonProcessingException e) {
+            return new VnPayRefundResponse(null, "Unreadable response: " + body);
+        }
+    }
+
+    public boolean isSuccess() {
+        return SUCCESS.equals(responseCode);
+    }
+
+    public boolean isRetryable() {
+        return responseCode == null || RETRYABLE_CODES.contains(responseCode);
+    }
+
+    // Dùng cho LastError của DepositRefundTask
+    public String describe() {
+        return "vnp_ResponseCode=" + responseCode + (message != null ? ": " + message : "");
+    }
+}
@@ -1,16 +1,22 @@
 package com.group8.evcoownership.service;
 
+import com.group8.evcoownership.entity.Payment;
+import com.group8.evcoownership.utils.VnPaySigner;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -82,12 +88,15 @@ public class VnPay_PaymentService {
 //
 //        return vnp_PayUrl + "?" + queryUrl;
 
-        String hashData = buildHashData(vnpParamsMap);
-        String signature = hmacSHA512(secretKey, hashData);
-        vnpParamsMap.put("vnp_SecureHash", signature);
+        // Chuỗi hash + query string (kèm vnp_SecureHash) trong 1 lượt
+        return vnp_PayUrl + "?" + VnPaySigner.forSecret(secretKey).signedQuery(vnpParamsMap);
+    }
 
-        String queryUrl = buildQueryString(vnpParamsMap);
-        return vnp_PayUrl + "?" + queryUrl;
+    /**
+     * Kiểm tra chữ ký vnp_SecureHash của callback VNPay (chỉ các tham số vnp_ được đưa vào chuỗi hash)
+     */
+    public boolean verifyCallback(Map<String, String> params) {
+        return VnPaySigner.forSecret(secretKey).verify(params);
     }
 
 
@@ -102,7 +111,12 @@ public class VnPay_PaymentService {
         String groupId = req.getParameter("groupId");
         String type = req.getParameter("type"); // "fund" | "deposit"
 
-        String status = "00".equals(respCode) ? "success" : "fail";
+        Map<String, String> params = new HashMap<>();
+        req.getParameterMap().forEach((key, values) -> {
+            if (values.length > 0) params.put(key, values[0]);
+        });
+        // Sai chữ ký => không báo thành công
+        String status = "00".equals(respCode) && verifyCallback(params) ? "success" : "fail";
 
         String redirect = String.format(
                 "%s/dashboard/viewGroups/%s/payment-result?type=%s&status=%s&txnRef=%s",
@@ -115,43 +129,6 @@ public class VnPay_PaymentService {
         res.sendRedirect(redirect);
     }
 
-    /**
-     * New for fixing sai chu ky o deposit payment
-     */
-    // Helper encode: dùng UTF-8, thay "+" -> "%20" để ổn định
-    private static String enc(String s) {
-        // Giữ nguyên chuẩn URL-encode của Java (UTF-8, khoảng trắng = '+')
-        return URLEncoder.encode(s, StandardCharsets.UTF_8);
-    }
-
-
-    // Build chuỗi cho HASH: sort theo key, KHÔNG đưa vnp_SecureHash / vnp_SecureHashType
-    private static String buildHashData(Map<String, String> params) {
-        return params.entrySet().stream()
-                .filter(e -> e.getKey().startsWith("vnp_"))
-                .filter(e -> e.getValue() != null && !e.getValue().isEmpty())
-                .filter(e -> !"vnp_SecureHash".equals(e.getKey()))
-                .filter(e -> !"vnp_SecureHashType".equals(e.getKey()))   // ← thêm dòng này
-                .sorted(Map.Entry.comparingByKey())
-                .map(e -> enc(e.getKey()) + "=" + enc(e.getValue()))
-                .collect(Collectors.joining("&"));
-    }
-
-
-    // Build query gửi đi: giống hệt hashData + thêm vnp_SecureHash ở cuối
-    private static String buildQueryString(Map<String, String> params) {
-        return params.entrySet().stream()
-                .filter(e -> e.getValue() != null && !e.getValue().isEmpty())
-                .sorted(Map.Entry.comparingByKey())
-                .map(e -> enc(e.getKey()) + "=" + enc(e.getValue()))
-                .collect(Collectors.joining("&"));
-    }
-
-    /**
-     *
-     */
-
-
     private Map<String, String> getVNPayConfig() {
         Map<String, String> vnpParamsMap = new HashMap<>();
         vnpParamsMap.put("vnp_Version", this.vnp_Version);
@@ -187,17 +164,7 @@ public class VnPay_PaymentService {
     }
 
     public static String hmacSHA512(final String key, final String data) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA512");
-            SecretKeySpec sk = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA512");
-            mac.init(sk);
-            byte[] result = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder(result.length * 2);
-            for (byte b : result) sb.append(String.format("%02x", b & 0xff));
-            return sb.toString();
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        }
+        return VnPaySigner.forSecret(key).sign(data);
     }
 
 
@@ -318,13 +285,51 @@ public class VnPay_PaymentService {
 //        return this.vnp_PayUrl + "?" + queryUrl;
 
         vnpParamsMap.put("vnp_SecureHashType", "HmacSHA512");
-        String hashData = buildHashData(vnpParamsMap);
-        String signature = hmacSHA512(this.secretKey, hashData);
-        vnpParamsMap.put("vnp_SecureHash", signature);
+        return this.vnp_PayUrl + "?" + VnPaySigner.forSecret(this.secretKey).signedQuery(vnpParamsMap);
+
+    }
+
+    /**
+     * Gọi API hoàn tiền VNPay cho 1 payment đã thanh toán (HTTP GET URL của createRefundRequest)
+     * Lỗi kết nối / HTTP lỗi => IOException để bên gọi thử lại
+     *
+     * @return body response của VNPay (đọc vnp_ResponseCode bằng VnPayRefundResponse.parse)
+     */
+    public String sendRefund(Payment payment) throws IOException {
+        // Parse vnp_TransactionNo từ providerResponse
+        String vnpTransactionNo = extractTransactionNo(payment.getProviderResponse());
+        if (vnpTransactionNo == null) {
+            throw new IllegalStateException("Cannot extract vnp_TransactionNo for payment " + payment.getId());
+        }
 
-        String queryUrl = buildQueryString(vnpParamsMap);
-        return this.vnp_PayUrl + "?" + queryUrl;
+        // Format vnp_TransactionDate từ payment.paymentDate
+        SimpleDateFormat formatter = new SimpleDateFormat("yyyyMMddHHmmss");
+        formatter.setTimeZone(TimeZone.getTimeZone("Asia/Ho_Chi_Minh"));
+        String vnpTransactionDate = formatter.format(
+                Date.from(payment.getPaymentDate().atZone(ZoneId.systemDefault()).toInstant())
+        );
+
+        String refundUrl = createRefundRequest(
+                payment.getAmount().longValue(),
+                payment.getTransactionCode(),
+                vnpTransactionNo,
+                vnpTransactionDate
+        );
 
+        HttpURLConnection conn = (HttpURLConnection) new URL(refundUrl).openConnection();
+        conn.setRequestMethod("GET");
+        conn.setConnectTimeout(10000);
+        conn.setReadTimeout(10000);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
+            StringBuilder response = new StringBuilder();
+            String inputLine;
+            while ((inputLine = in.readLine()) != null) {
+                response.append(inputLine);
+            }
+            return response.toString();
+        } finally {
+            conn.disconnect();
+        }
     }
 
     /**
@@ -0,0 +1,268 @@
+package com.group8.evcoownership.utils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ký / kiểm tra chữ ký HmacSHA512 cho tham số VNPay
+ * - Mac được khởi tạo 1 lần cho mỗi thread và mỗi secret (không gọi Mac.getInstance / new SecretKeySpec mỗi lần ký)
+ * - signedQuery(): 1 lượt duyệt các tham số đã sort, vừa tạo chuỗi hash vừa là query string trong cùng 1 StringBuilder
+ *   dùng lại theo thread; vnp_SecureHash (+ vnp_SecureHashType) được chèn vào đúng vị trí sort sau khi ký
+ * - URL-encode giống URLEncoder.encode(UTF-8): khoảng trắng = '+', giữ nguyên a-z A-Z 0-9 . - * _
+ * Thread-safe
+ */
+public final class VnPaySigner {
+
+    public static final String SECURE_HASH = "vnp_SecureHash";
+    public static final String SECURE_HASH_TYPE = "vnp_SecureHashType";
+
+    private static final String ALGORITHM = "HmacSHA512";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final char[] HEX_UPPER = "0123456789ABCDEF".toCharArray();
+    // StringBuilder / buffer lớn hơn mức này không được giữ lại cho lần sau
+    private static final int MAX_RETAINED_CHARS = 8192;
+
+    private static final Map<String, VnPaySigner> BY_SECRET = new ConcurrentHashMap<>();
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+    private final ThreadLocal<StringBuilder> builder = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+    private final ThreadLocal<byte[]> bytes = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    public VnPaySigner(String secretKey) {
+        this.key = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Signer dùng chung cho 1 secret (cho các chỗ chỉ có secret dạng chuỗi, vd. VnPay_PaymentService.hmacSHA512)
+     */
+    public static VnPaySigner forSecret(String secretKey) {
+        return BY_SECRET.computeIfAbsent(secretKey, VnPaySigner::new);
+    }
+
+    /**
+     * HmacSHA512(data) dạng hex chữ thường
+     */
+    public String sign(CharSequence data) {
+        int length = data.length();
+        byte[] buffer = buffer(length);
+        for (int i = 0; i < length; i++) {
+            char c = data.charAt(i);
+            if (c >= 0x80) {
+                // Không phải ASCII (chuỗi chưa URL-encode) => mã hóa UTF-8 đầy đủ
+                return hex(mac.get().doFinal(data.toString().getBytes(StandardCharsets.UTF_8)));
+            }
+            buffer[i] = (byte) c;
+        }
+        Mac m = mac.get();
+        m.update(buffer, 0, length);
+        return hex(m.doFinal());
+    }
+
+    /**
+     * Query string đã ký: các tham số có giá trị, sort theo key, URL-encode, thêm vnp_SecureHash
+     * Chuỗi hash = query string bỏ vnp_SecureHash / vnp_SecureHashType (giống cách VNPay kiểm tra)
+     * Tham số không có tiền tố vnp_ vẫn nằm trong query string nhưng không được đưa vào chuỗi hash (giống verify())
+     */
+    public String signedQuery(Map<String, String> params) {
+        String[] keys = sortedKeys(params);
+        StringBuilder sb = builder();
+        int insertAt = -1;
+        boolean passThrough = false;
+        for (String key : keys) {
+            if (SECURE_HASH.equals(key) || SECURE_HASH_TYPE.equals(key)) {
+                continue;
+            }
+            if (!key.startsWith("vnp_")) {
+                passThrough = true;
+                continue;
+            }
+            String value = params.get(key);
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            if (insertAt < 0 && key.compareTo(SECURE_HASH_TYPE) > 0) {
+                insertAt = sb.length();
+            }
+            if (!sb.isEmpty()) {
+                sb.append('&');
+            }
+            appendEncoded(sb, key);
+            sb.append('=');
+            appendEncoded(sb, value);
+        }
+        String signature = sign(sb);
+
+        // Chèn chữ ký (và loại chữ ký nếu có) vào vị trí sort của chúng
+        String hashType = params.get(SECURE_HASH_TYPE);
+        StringBuilder secure = new StringBuilder(SECURE_HASH.length() + signature.length() + 48);
+        secure.append(SECURE_HASH).append('=').append(signature);
+        if (hashType != null && !hashType.isEmpty()) {
+            secure.append('&').append(SECURE_HASH_TYPE).append('=');
+            appendEncoded(secure, hashType);
+        }
+        if (passThrough) {
+            // Có tham số ngoài chuỗi hash => tạo lại query string đầy đủ theo thứ tự sort
+            sb.setLength(0);
+            appendQuery(sb, params, keys, secure);
+        } else if (insertAt < 0) {
+            sb.append(sb.isEmpty() ? "" : "&").append(secure);
+        } else {
+            sb.insert(insertAt + (insertAt == 0 ? 0 : 1), secure.append('&'));
+        }
+        String query = sb.toString();
+        release(sb);
+        return query;
+    }
+
+    /**
+     * Kiểm tra vnp_SecureHash của tham số callback VNPay (giá trị đã được URL-decode)
+     */
+    public boolean verify(Map<String, String> params) {
+        String expected = params.get(SECURE_HASH);
+        if (expected == null || expected.isEmpty()) {
+            return false;
+        }
+        String[] keys = sortedKeys(params);
+        StringBuilder sb = builder();
+        for (String key : keys) {
+            if (!key.startsWith("vnp_") || SECURE_HASH.equals(key) || SECURE_HASH_TYPE.equals(key)) {
+                continue;
+            }
+            String value = params.get(key);
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            if (!sb.isEmpty()) {
+                sb.append('&');
+            }
+            appendEncoded(sb, key);
+            sb.append('=');
+            appendEncoded(sb, value);
+        }
+        String actual = sign(sb);
+        release(sb);
+        return MessageDigest.isEqual(actual.getBytes(StandardCharsets.US_ASCII),
+                expected.toLowerCase().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void appendQuery(StringBuilder sb, Map<String, String> params, String[] keys, CharSequence secure) {
+        boolean inserted = false;
+        for (String key : keys) {
+            if (SECURE_HASH.equals(key) || SECURE_HASH_TYPE.equals(key)) {
+                continue;
+            }
+            String value = params.get(key);
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            if (!inserted && key.compareTo(SECURE_HASH_TYPE) > 0) {
+                sb.append(sb.isEmpty() ? "" : "&").append(secure);
+                inserted = true;
+            }
+            if (!sb.isEmpty()) {
+                sb.append('&');
+            }
+            appendEncoded(sb, key);
+            sb.append('=');
+            appendEncoded(sb, value);
+        }
+        if (!inserted) {
+            sb.append(sb.isEmpty() ? "" : "&").append(secure);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac m = Mac.getInstance(ALGORITHM);
+            m.init(key);
+            return m;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+
+    private static String[] sortedKeys(Map<String, String> params) {
+        String[] keys = params.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private StringBuilder builder() {
+        StringBuilder sb = builder.get();
+        sb.setLength(0);
+        return sb;
+    }
+
+    private void release(StringBuilder sb) {
+        if (sb.capacity() > MAX_RETAINED_CHARS) {
+            builder.remove();
+        }
+    }
+
+    private byte[] buffer(int length) {
+        byte[] buffer = bytes.get();
+        if (buffer.length >= length) {
+            return buffer;
+        }
+        byte[] grown = new byte[Math.max(length, buffer.length * 2)];
+        if (grown.length <= MAX_RETAINED_CHARS) {
+            bytes.set(grown);
+        }
+        return grown;
+    }
+
+    private static String hex(byte[] digest) {
+        char[] chars = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            chars[i * 2] = HEX[(digest[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX[digest[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Giống URLEncoder.encode(s, UTF_8) nhưng ghi thẳng vào sb
+     */
+    static void appendEncoded(StringBuilder sb, String s) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '-' || c == '*' || c == '_') {
+                sb.append(c);
+            } else if (c == ' ') {
+                sb.append('+');
+            } else if (c < 0x80) {
+                appendPercent(sb, c);
+            } else if (c < 0x800) {
+                appendPercent(sb, 0xc0 | (c >> 6));
+                appendPercent(sb, 0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                appendPercent(sb, 0xf0 | (codePoint >> 18));
+                appendPercent(sb, 0x80 | ((codePoint >> 12) & 0x3f));
+                appendPercent(sb, 0x80 | ((codePoint >> 6) & 0x3f));
+                appendPercent(sb, 0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // Surrogate lẻ: URLEncoder thay bằng '?'
+                appendPercent(sb, '?');
+            } else {
+                appendPercent(sb, 0xe0 | (c >> 12));
+                appendPercent(sb, 0x80 | ((c >> 6) & 0x3f));
+                appendPercent(sb, 0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private static void appendPercent(StringBuilder sb, int b) {
+        sb.append('%').append(HEX_UPPER[(b >> 4) & 0x0f]).append(HEX_UPPER[b & 0x0f]);
+    }
+}
@@ -0,0 +1,193 @@
+package com.group8.evcoownership.benchmark;
+
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.*;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.AdminRollupCompactor;
+import com.group8.evcoownership.service.AdminRollupService;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sinh dữ liệu cho benchmark (cùng seed => cùng dữ liệu giữa các lần chạy)
+ * - scale = 1: 50 group x 4 thành viên, 1 xe + 2 quỹ / group, ~9000 booking, 2000 payment, 1000 expense
+ * - Ngày trải từ 60 ngày trước đến 30 ngày sau hôm nay
+ * - Chỉ dùng repository + UPDATE đơn giản => chạy được trên H2 (profile test) lẫn PostgreSQL
+ * (-Dspring.datasource.url=... với database trống, schema được tạo theo ddl-auto của profile)
+ */
+public final class BenchmarkDataset {
+
+    private static final long SEED = 20251017L;
+    private static final int GROUPS_PER_SCALE = 50;
+    private static final int MEMBERS_PER_GROUP = 4;
+    private static final int PAST_DAYS = 60;
+    private static final int FUTURE_DAYS = 30;
+    private static final int PAYMENTS_PER_GROUP = 40;
+    private static final int EXPENSES_PER_GROUP = 20;
+    // 2 booking / ngày / xe, không chồng nhau
+    private static final int[][] BOOKING_HOURS = {{8, 11}, {18, 21}};
+
+    /**
+     * Group / user dùng cho các benchmark đọc 1 group
+     */
+    public record Seeded(Long groupId, Long memberUserId, LocalDate weekStart, int groups, int bookings) {
+    }
+
+    private BenchmarkDataset() {
+    }
+
+    public static Seeded seed(ApplicationContext context, int scale) {
+        Random random = new Random(SEED);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+
+        RoleRepository roleRepository = context.getBean(RoleRepository.class);
+        List<Role> roles = new ArrayList<>();
+        for (RoleName roleName : RoleName.values()) {
+            roles.add(roleRepository.findByRoleName(roleName)
+                    .orElseGet(() -> roleRepository.save(Role.builder().roleName(roleName).build())));
+        }
+        Role coOwner = roleRepository.findByRoleName(RoleName.CO_OWNER).orElseThrow();
+
+        int groupCount = GROUPS_PER_SCALE * scale;
+        List<OwnershipGroup> groups = new ArrayList<>();
+        GroupStatus[] groupStatuses = GroupStatus.values();
+        for (int i = 0; i < groupCount; i++) {
+            OwnershipGroup group = ContractTestDataBuilder.ownershipGroup()
+                    .withGroupId(null)
+                    .withGroupName("Benchmark Group " + i)
+                    .build();
+            group.setStatus(groupStatuses[i % groupStatuses.length]);
+            groups.add(group);
+        }
+        groups = context.getBean(OwnershipGroupRepository.class).saveAll(groups);
+
+        UserStatus[] userStatuses = UserStatus.values();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < groupCount * MEMBERS_PER_GROUP; i++) {
+            User user = ContractTestDataBuilder.user()
+                    .withUserId(null)
+                    .withEmail("benchmark" + i + "@test.com")
+                    .withFullName("Benchmark User " + i)
+                    .withPhoneNumber(String.format("08%08d", i))
+                    .build();
+            user.setStatus(userStatuses[i % userStatuses.length]);
+            user.setRole(i % 10 == 0 ? roles.get(i % roles.size()) : coOwner);
+            users.add(user);
+        }
+        users = context.getBean(UserRepository.class).saveAll(users);
+
+        List<OwnershipShare> shares = new ArrayList<>();
+        List<Vehicle> vehicles = new ArrayList<>();
+        List<SharedFund> funds = new ArrayList<>();
+        for (int i = 0; i < groupCount; i++) {
+            OwnershipGroup group = groups.get(i);
+            for (int m = 0; m < MEMBERS_PER_GROUP; m++) {
+                shares.add(ContractTestDataBuilder.ownershipShare()
+                        .withGroup(group)
+                        .withUser(users.get(i * MEMBERS_PER_GROUP + m))
+                        .withOwnershipPercentage(new BigDecimal("25.00"))
+                        .build());
+            }
+            vehicles.add(ContractTestDataBuilder.vehicle()
+                    .withVehicleId(null)
+                    .withLicensePlate(String.format("51B-%03d.%02d", i % 1000, i % 100))
+                    .withChassisNumber(String.format("RLBENCH%010d", i))
+                    .withOwnershipGroup(group)
+                    .build());
+            for (FundType fundType : FundType.values()) {
+                funds.add(SharedFund.builder()
+                        .group(group)
+                        .fundType(fundType)
+                        .isSpendable(fundType == FundType.OPERATING)
+                        .balance(new BigDecimal(random.nextInt(50_000_000)).movePointLeft(2))
+                        .build());
+            }
+        }
+        context.getBean(OwnershipShareRepository.class).saveAll(shares);
+        vehicles = context.getBean(VehicleRepository.class).saveAll(vehicles);
+        funds = context.getBean(SharedFundRepository.class).saveAll(funds);
+
+        BookingStatus[] bookingStatuses = BookingStatus.values();
+        List<UsageBooking> bookings = new ArrayList<>();
+        for (int i = 0; i < groupCount; i++) {
+            for (LocalDate day = today.minusDays(PAST_DAYS); day.isBefore(today.plusDays(FUTURE_DAYS)); day = day.plusDays(1)) {
+                for (int[] hours : BOOKING_HOURS) {
+                    bookings.add(UsageBooking.builder()
+                            .user(users.get(i * MEMBERS_PER_GROUP + random.nextInt(MEMBERS_PER_GROUP)))
+                            .vehicle(vehicles.get(i))
+                            .startDateTime(day.atTime(hours[0], 0))
+                            .endDateTime(day.atTime(hours[1], 0))
+                            .status(day.isBefore(today)
+                                    ? bookingStatuses[random.nextInt(bookingStatuses.length)]
+                                    : BookingStatus.CONFIRMED)
+                            .build());
+                }
+            }
+        }
+        context.getBean(UsageBookingRepository.class).saveAll(bookings);
+
+        PaymentStatus[] paymentStatuses = PaymentStatus.values();
+        List<Payment> payments = new ArrayList<>();
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < groupCount; i++) {
+            for (int p = 0; p < PAYMENTS_PER_GROUP; p++) {
+                LocalDateTime paidAt = now.minusMinutes(random.nextInt(PAST_DAYS * 24 * 60));
+                payments.add(Payment.builder()
+                        .payer(users.get(i * MEMBERS_PER_GROUP + p % MEMBERS_PER_GROUP))
+                        .fund(funds.get(i * 2 + p % 2))
+                        .amount(new BigDecimal(100_000 + random.nextInt(5_000_000)).movePointLeft(2))
+                        .status(p % 4 == 0 ? paymentStatuses[random.nextInt(paymentStatuses.length)] : PaymentStatus.COMPLETED)
+                        .paymentType(PaymentType.CONTRIBUTION)
+                        .paidAt(paidAt)
+                        .build());
+            }
+            for (int e = 0; e < EXPENSES_PER_GROUP; e++) {
+                expenses.add(Expense.builder()
+                        .fund(funds.get(i * 2))
+                        .sourceType(e % 3 == 0 ? "INCIDENT" : "MAINTENANCE")
+                        .sourceId((long) e)
+                        .description("Chi phí bảo trì " + e)
+                        .recipientUser(users.get(i * MEMBERS_PER_GROUP))
+                        .amount(new BigDecimal(50_000 + random.nextInt(2_000_000)).movePointLeft(2))
+                        .status(e % 2 == 0 ? "COMPLETED" : "PENDING")
+                        .expenseDate(now.minusMinutes(random.nextInt(PAST_DAYS * 24 * 60)))
+                        .build());
+            }
+        }
+        context.getBean(PaymentRepository.class).saveAll(payments);
+        context.getBean(ExpenseRepository.class).saveAll(expenses);
+
+        // @PrePersist ghi đè ngày tạo => dàn ngày bằng UPDATE (cú pháp chung H2 / PostgreSQL)
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("UPDATE \"Payment\" SET \"PaymentDate\" = \"PaidAt\" WHERE \"PaidAt\" IS NOT NULL");
+        spreadCreatedAt(jdbcTemplate, "OwnershipGroup", "GroupId", groups.stream().map(OwnershipGroup::getGroupId).toList(), now, random);
+        spreadCreatedAt(jdbcTemplate, "Users", "UserId", users.stream().map(User::getUserId).toList(), now, random);
+
+        // Rollup dashboard: ghi các delta đang chờ rồi tính lại toàn bộ (UPDATE trực tiếp không đi qua listener)
+        context.getBean(AdminRollupService.class).flush();
+        context.getBean(AdminRollupCompactor.class).backfill();
+
+        return new Seeded(groups.get(0).getGroupId(), users.get(0).getUserId(),
+                today.with(DayOfWeek.MONDAY), groupCount, bookings.size());
+    }
+
+    private static void spreadCreatedAt(JdbcTemplate jdbcTemplate, String table, String idColumn, List<Long> ids,
+                                        LocalDateTime now, Random random) {
+        List<Object[]> args = new ArrayList<>();
+        for (Long id : ids) {
+            args.add(new Object[]{Timestamp.valueOf(now.minusMinutes(random.nextInt(120 * 24 * 60))), id});
+        }
+        jdbcTemplate.batchUpdate(String.format("UPDATE \"%s\" SET \"CreatedAt\" = ? WHERE \"%s\" = ?", table, idColumn), args);
+    }
+}
@@ -0,0 +1,45 @@
+package com.group8.evcoownership.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Chạy toàn bộ benchmark của project và ghi kết quả JSON để so sánh giữa các lần chạy
+ * - mvn -Pbenchmark test: chạy tất cả, ghi target/jmh-result.json
+ * - mvn -Pbenchmark test -Dbenchmark.args="ServiceHotPathBenchmark.ledger -p scale=4": tham số JMH như org.openjdk.jmh.Main
+ * - -Dbenchmark.result=...: đổi file kết quả (vd: lưu baseline rồi so với lần chạy sau)
+ */
+public final class BenchmarkRunner {
+
+    // Benchmark trong package này + các benchmark cũ đặt cạnh service (CalendarSlotBenchmark)
+    private static final String DEFAULT_INCLUDE = "com\\.group8\\.evcoownership\\..*Benchmark";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        String[] jmhArgs = Arrays.stream(args).filter(arg -> !arg.isBlank()).toArray(String[]::new);
+        CommandLineOptions commandLine = new CommandLineOptions(jmhArgs);
+        String result = System.getProperty("benchmark.result", "target/jmh-result.json");
+        new File(result).getAbsoluteFile().getParentFile().mkdirs();
+
+        OptionsBuilder builder = new OptionsBuilder();
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(DEFAULT_INCLUDE);
+        }
+        Options options = builder
+                .parent(commandLine)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build();
+        new Runner(options).run();
+    }
+}
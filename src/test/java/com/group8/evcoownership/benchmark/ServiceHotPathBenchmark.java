@@ -0,0 +1,91 @@
+package com.group8.evcoownership.benchmark;
+
+import com.group8.evcoownership.EvCoOwnershipApplication;
+import com.group8.evcoownership.dto.DashboardChartDataDTO;
+import com.group8.evcoownership.dto.DashboardStatisticsDTO;
+import com.group8.evcoownership.dto.LedgerSummaryDTO;
+import com.group8.evcoownership.dto.WeeklyCalendarResponseDTO;
+import com.group8.evcoownership.service.AdminDashboardService;
+import com.group8.evcoownership.service.FundService;
+import com.group8.evcoownership.service.WeeklyCalendarService;
+import com.group8.evcoownership.testconfig.TestConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: các đường đọc nặng nhất chạy trên Spring context thật (profile test, H2) với dữ liệu của BenchmarkDataset
+ * - Đo service trực tiếp (không qua AdminDashboardCache) để thấy thay đổi của query / xử lý
+ * - Mỗi benchmark 1 fork => context + dữ liệu được tạo lại, các benchmark không ảnh hưởng nhau
+ * Chạy: mvn -Pbenchmark test (kết quả JSON ở target/jmh-result.json), xem BenchmarkRunner
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceHotPathBenchmark {
+
+    // Hệ số kích thước dữ liệu (xem BenchmarkDataset), đổi bằng -p scale=4
+    @Param({"1"})
+    public int scale;
+
+    private ConfigurableApplicationContext context;
+    private AdminDashboardService dashboardService;
+    private WeeklyCalendarService weeklyCalendarService;
+    private FundService fundService;
+    private BenchmarkDataset.Seeded seeded;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(EvCoOwnershipApplication.class, TestConfig.class)
+                .profiles("test")
+                .properties("spring.jpa.show-sql=false",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        dashboardService = context.getBean(AdminDashboardService.class);
+        weeklyCalendarService = context.getBean(WeeklyCalendarService.class);
+        fundService = context.getBean(FundService.class);
+
+        seeded = BenchmarkDataset.seed(context, scale);
+        to = LocalDateTime.now();
+        from = to.minusDays(30);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public DashboardStatisticsDTO dashboardStatistics() {
+        return dashboardService.getDashboardStatistics();
+    }
+
+    @Benchmark
+    public DashboardStatisticsDTO dashboardStatisticsRange() {
+        return dashboardService.getDashboardStatistics(from, to, "DAY");
+    }
+
+    @Benchmark
+    public DashboardChartDataDTO chartData() {
+        return dashboardService.getChartData(12);
+    }
+
+    @Benchmark
+    public WeeklyCalendarResponseDTO weeklyCalendar() {
+        return weeklyCalendarService.getWeeklyCalendar(seeded.groupId(), seeded.memberUserId(), seeded.weekStart());
+    }
+
+    @Benchmark
+    public LedgerSummaryDTO ledgerSummary() {
+        return fundService.getLedgerSummary(seeded.groupId(), null, from, to);
+    }
+}
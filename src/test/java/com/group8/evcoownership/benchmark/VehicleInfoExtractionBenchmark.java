@@ -0,0 +1,96 @@
+package com.group8.evcoownership.benchmark;
+
+import com.group8.evcoownership.dto.VehicleInfoDTO;
+import com.group8.evcoownership.service.VehicleInfoExtractionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: tách thông tin xe từ text OCR cà-vẹt (không cần Spring context / database)
+ * - motorbike: cà-vẹt xe máy có nhiễu OCR
+ * - car: cà-vẹt ô tô đầy đủ nhãn
+ * - combined: mẫu "Hãng / Model" trên 1 dòng
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VehicleInfoExtractionBenchmark {
+
+    private static final String MOTORBIKE = """
+            Tên chủ xe (Owner's full name):
+            Số máy (Engine Nº):
+            TRẦN THỊ THÀNH PHƯƠNG
+            5C63645910
+            Địa chỉ (Address):
+            Số khung (Chassis Nº):
+            12 Đg19 Kp5 Bình Chiếu TĐ
+            C630CY645859
+            HÀNH PI
+            Nhãn hiệu (Brand): YAMAHA
+            Số loại(Model code): SIRIUS
+            Màu sơn (Color): Bac Đen
+            Dung tích (Capacity): 110
+            Đăng ký xe có giá trị đến ngày (date of expiry)/
+            Thủ Đức, ngày (đặte) Đốcthắng 06
+            nam20204℃
+            Biển số đăng ký (Nº plate)
+            EN CU
+            (T)
+            59X2-328.98
+            Đăng ký lần đầu ngày:
+            Date of first registration
+            Thượng tá: Lê Thị Liên Hồng
+            5/06/2012
+            """;
+
+    private static final String CAR = """
+            Tên chủ xe (Owner's full name):
+            NGUYỄN VĂN A
+            Địa chỉ (Address):
+            Số khung (Chassis Nº):
+            123 Đường ABC, Quận 1, TP.HCM
+            JT2BG22K7V0123755
+            Nhãn hiệu (Brand): TOYOTA
+            Số loại(Model code): CAMRY
+            Màu sơn (Color): Đen
+            Biển số đăng ký (Nº plate)
+            51A-123.45
+            Đăng ký lần đầu ngày:
+            Date of first registration
+            15/03/2020
+            """;
+
+    private static final String COMBINED = """
+            CỘNG HÒA XÃ HỘI CHỦ NGHĨA VIỆT NAM
+            MAUDEMO • SAMPLE
+            Biển số
+            99A-123.45
+            Hãng / Model
+            Toyota / Camry
+            Màu sơn
+            Đen
+            Số khung (VIN)
+            4T1BK1HK3LU123456
+            """;
+
+    private final VehicleInfoExtractionService service = new VehicleInfoExtractionService();
+
+    @Benchmark
+    public VehicleInfoDTO motorbike() {
+        return service.extractVehicleInfo(MOTORBIKE);
+    }
+
+    @Benchmark
+    public VehicleInfoDTO car() {
+        return service.extractVehicleInfo(CAR);
+    }
+
+    @Benchmark
+    public VehicleInfoDTO combined() {
+        return service.extractVehicleInfo(COMBINED);
+    }
+}
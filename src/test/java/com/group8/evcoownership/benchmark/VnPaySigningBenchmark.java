@@ -0,0 +1,136 @@
+package com.group8.evcoownership.benchmark;
+
+import com.group8.evcoownership.service.VnPay_PaymentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JMH: ký URL thanh toán / kiểm tra chữ ký callback VNPay (không cần Spring context / database)
+ * - createPaymentUrl: tạo URL thanh toán đầy đủ qua VnPay_PaymentService (VnPaySigner)
+ * - legacyHashAndQuery: cách cũ (stream sort + URLEncoder từng entry + Mac.getInstance mỗi lần ký) để so sánh
+ * - verifyCallback: kiểm tra vnp_SecureHash của 1 callback thành công
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VnPaySigningBenchmark {
+
+    private static final String SECRET = "BENCHMARKSECRETKEY0123456789ABCD";
+
+    private VnPay_PaymentService service;
+    private MockHttpServletRequest request;
+    private Map<String, String> paymentParams;
+    private Map<String, String> callbackParams;
+
+    @Setup
+    public void setUp() {
+        service = new VnPay_PaymentService();
+        ReflectionTestUtils.setField(service, "vnp_PayUrl", "https://sandbox.vnpayment.vn/paymentv2/vpcpay.html");
+        ReflectionTestUtils.setField(service, "vnp_ReturnUrl", "http://localhost:8080/api/funds/payments/callback");
+        ReflectionTestUtils.setField(service, "vnp_DepositReturnUrl", "http://localhost:8080/api/deposits/callback");
+        ReflectionTestUtils.setField(service, "vnp_TmnCode", "BENCH01");
+        ReflectionTestUtils.setField(service, "secretKey", SECRET);
+        ReflectionTestUtils.setField(service, "vnp_Version", "2.1.0");
+        ReflectionTestUtils.setField(service, "vnp_Command", "pay");
+        ReflectionTestUtils.setField(service, "orderType", "other");
+
+        request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.15");
+
+        paymentParams = new HashMap<>();
+        paymentParams.put("vnp_Version", "2.1.0");
+        paymentParams.put("vnp_Command", "pay");
+        paymentParams.put("vnp_TmnCode", "BENCH01");
+        paymentParams.put("vnp_CurrCode", "VND");
+        paymentParams.put("vnp_OrderInfo", "Thanh toan don hang:12345678");
+        paymentParams.put("vnp_OrderType", "other");
+        paymentParams.put("vnp_Locale", "vn");
+        paymentParams.put("vnp_CreateDate", "20251017103000");
+        paymentParams.put("vnp_ExpireDate", "20251017104500");
+        paymentParams.put("vnp_ReturnUrl", "http://localhost:8080/api/funds/payments/callback?groupId=12&type=fund");
+        paymentParams.put("vnp_Amount", "50000000");
+        paymentParams.put("vnp_IpAddr", "10.0.0.15");
+        paymentParams.put("vnp_TxnRef", "FUND-12-1729130000");
+
+        callbackParams = new HashMap<>();
+        callbackParams.put("vnp_Amount", "50000000");
+        callbackParams.put("vnp_BankCode", "NCB");
+        callbackParams.put("vnp_BankTranNo", "VNP14600001");
+        callbackParams.put("vnp_CardType", "ATM");
+        callbackParams.put("vnp_OrderInfo", "Thanh toan don hang:12345678");
+        callbackParams.put("vnp_PayDate", "20251017103512");
+        callbackParams.put("vnp_ResponseCode", "00");
+        callbackParams.put("vnp_TmnCode", "BENCH01");
+        callbackParams.put("vnp_TransactionNo", "14600001");
+        callbackParams.put("vnp_TransactionStatus", "00");
+        callbackParams.put("vnp_TxnRef", "FUND-12-1729130000");
+        callbackParams.put("vnp_SecureHash", legacySign(legacyHashData(callbackParams)));
+        callbackParams.put("groupId", "12");
+        callbackParams.put("type", "fund");
+        if (!service.verifyCallback(callbackParams)) {
+            throw new IllegalStateException("Benchmark callback signature does not verify");
+        }
+    }
+
+    @Benchmark
+    public String createPaymentUrl() {
+        return service.createPaymentUrl(500_000L, request, "FUND-12-1729130000", false, 12L);
+    }
+
+    @Benchmark
+    public String legacyHashAndQuery() {
+        Map<String, String> params = new HashMap<>(paymentParams);
+        params.put("vnp_SecureHash", legacySign(legacyHashData(params)));
+        return params.entrySet().stream()
+                .filter(e -> e.getValue() != null && !e.getValue().isEmpty())
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> enc(e.getKey()) + "=" + enc(e.getValue()))
+                .collect(Collectors.joining("&"));
+    }
+
+    @Benchmark
+    public boolean verifyCallback() {
+        return service.verifyCallback(callbackParams);
+    }
+
+    private static String legacyHashData(Map<String, String> params) {
+        return params.entrySet().stream()
+                .filter(e -> e.getKey().startsWith("vnp_"))
+                .filter(e -> e.getValue() != null && !e.getValue().isEmpty())
+                .filter(e -> !"vnp_SecureHash".equals(e.getKey()))
+                .filter(e -> !"vnp_SecureHashType".equals(e.getKey()))
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> enc(e.getKey()) + "=" + enc(e.getValue()))
+                .collect(Collectors.joining("&"));
+    }
+
+    private static String legacySign(String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA512");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+            byte[] result = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(result.length * 2);
+            for (byte b : result) sb.append(String.format("%02x", b & 0xff));
+            return sb.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String enc(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,257 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.dto.DashboardStatisticsDTO;
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.FundType;
+import com.group8.evcoownership.enums.PaymentStatus;
+import com.group8.evcoownership.enums.PaymentType;
+import com.group8.evcoownership.enums.RollupEntityType;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.AdminDashboardService;
+import com.group8.evcoownership.service.AdminRollupCompactor;
+import com.group8.evcoownership.service.AdminRollupService;
+import com.group8.evcoownership.service.DashboardTotals;
+import com.group8.evcoownership.service.DashboardTotalsLoader;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+/**
+ * AdminDailyRollup: được cộng dồn sau commit khi payment được tạo / đổi status / xóa, job tính lại sửa phần lệch
+ * Flush định kỳ bị tắt trong profile test => test gọi flush() trước khi đọc rollup
+ * Các test tạo thêm payment xóa chúng ở cuối (thống kê theo khoảng đọc mọi payment của hôm nay)
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class AdminDailyRollupIntegrationTest {
+
+    @Autowired
+    private AdminRollupService rollupService;
+
+    @Autowired
+    private AdminRollupCompactor rollupCompactor;
+
+    @MockitoSpyBean
+    private DashboardTotalsLoader totalsLoader;
+
+    @Autowired
+    private AdminDashboardService adminDashboardService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SharedFundRepository fundRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void payments_CreateUpdateDeleteAndDrift_RollupMatchesLiveQueries() {
+        LocalDate today = LocalDate.now();
+        assertTrue(rollupService.isReady());
+
+        OwnershipGroup group = ContractTestDataBuilder.ownershipGroup()
+                .withGroupId(null)
+                .withGroupName("Rollup Group")
+                .build();
+        group = groupRepository.save(group);
+        User payer = userRepository.save(ContractTestDataBuilder.user()
+                .withUserId(null)
+                .withEmail("rollup@test.com")
+                .build());
+        SharedFund fund = fundRepository.save(SharedFund.builder()
+                .group(group)
+                .fundType(FundType.OPERATING)
+                .isSpendable(true)
+                .balance(BigDecimal.ZERO)
+                .build());
+
+        // Tạo: 3 payment PENDING
+        Payment first = paymentRepository.save(payment(payer, fund, "100.00"));
+        Payment second = paymentRepository.save(payment(payer, fund, "250.50"));
+        Payment third = paymentRepository.save(payment(payer, fund, "40.00"));
+        assertRollupMatchesLive(today);
+        assertEquals(3L, rollupService.sumDays(null, today, today.plusDays(1)).countsByStatus(RollupEntityType.PAYMENT).get("PENDING"));
+
+        // Đổi status: 2 payment COMPLETED
+        first.setStatus(PaymentStatus.COMPLETED);
+        second.setStatus(PaymentStatus.COMPLETED);
+        paymentRepository.saveAll(List.of(first, second));
+        rollupService.flush();
+        DashboardTotals totals = rollupService.sumDays(null, today, today.plusDays(1));
+        assertEquals(1L, totals.countsByStatus(RollupEntityType.PAYMENT).get("PENDING"));
+        assertEquals(new BigDecimal("350.50"), totals.amount(RollupEntityType.PAYMENT, "COMPLETED"));
+        assertTrue(totals.entries().stream().anyMatch(e -> e.type() == RollupEntityType.PAYMENT
+                && "COMPLETED".equals(e.status()) && "OPERATING".equals(e.fundType())));
+        assertRollupMatchesLive(today);
+
+        // Xóa
+        paymentRepository.delete(third);
+        assertRollupMatchesLive(today);
+
+        // Transaction rollback => rollup không đổi
+        transactionTemplate.executeWithoutResult(status -> {
+            paymentRepository.save(payment(payer, fund, "999.00"));
+            status.setRollbackOnly();
+        });
+        assertRollupMatchesLive(today);
+
+        // Sửa trực tiếp bằng SQL => rollup lệch tới khi job tính lại
+        jdbcTemplate.update("UPDATE \"Payment\" SET \"Status\" = 'FAILED' WHERE \"PaymentId\" = ?", second.getId());
+        assertNotEquals(totalsLoader.load(today.atStartOfDay(), today.plusDays(1).atStartOfDay().minusNanos(1_000))
+                        .countsByStatus(RollupEntityType.PAYMENT),
+                rollupService.sumDays(null, today, today.plusDays(1)).countsByStatus(RollupEntityType.PAYMENT));
+        assertEquals(1, rollupCompactor.compact(today, today.plusDays(1)));
+        assertRollupMatchesLive(today);
+
+        // Thống kê theo khoảng: hôm qua và hôm nay đọc rollup, phần lẻ 2 đầu query trực tiếp
+        DashboardStatisticsDTO stats = adminDashboardService.getDashboardStatistics(
+                today.minusDays(2).atTime(13, 0), today.plusDays(1).atTime(1, 0));
+        assertEquals(2L, stats.getTotalPayments());
+        assertEquals(new BigDecimal("100.00"), stats.getTotalPaymentAmount());
+    }
+
+    @Test
+    void compact_PaymentCommittedWhileRecomputing_NotCountedTwice() {
+        LocalDate today = LocalDate.now();
+        Payer payer = payer("race", "0911000001");
+
+        // Payment commit sau khi job bắt đầu, trước khi đọc số liệu: vừa có trong số liệu tính lại vừa ở trong hàng đợi
+        List<Payment> committed = new ArrayList<>();
+        doAnswer(invocation -> {
+            if (committed.isEmpty()) {
+                committed.add(CompletableFuture.supplyAsync(() ->
+                        paymentRepository.save(payment(payer.user(), payer.fund(), "75.00"))).join());
+            }
+            return invocation.callRealMethod();
+        }).when(totalsLoader).load(any(), any());
+        try {
+            assertEquals(1, rollupCompactor.compact(today, today.plusDays(1)));
+        } finally {
+            reset(totalsLoader);
+        }
+
+        assertEquals(1, committed.size());
+        assertRollupMatchesLive(today);
+
+        paymentRepository.deleteAll(committed);
+        assertRollupMatchesLive(today);
+    }
+
+    @Test
+    void compact_TransactionInFlightForDay_DaySkippedAndNotCountedTwice() throws Exception {
+        LocalDate today = LocalDate.now();
+        Payer payer = payer("inflight", "0911000002");
+
+        // Transaction đã ghi payment nhưng chưa commit trong suốt lúc job chạy
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Payment> inFlight = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            Payment saved = paymentRepository.saveAndFlush(payment(payer.user(), payer.fund(), "60.00"));
+            written.countDown();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return saved;
+        }));
+        assertTrue(written.await(30, TimeUnit.SECONDS));
+
+        assertEquals(0, rollupCompactor.compact(today, today.plusDays(1)));
+
+        release.countDown();
+        Payment first = inFlight.get(30, TimeUnit.SECONDS);
+        assertRollupMatchesLive(today);
+
+        // Không còn transaction nào: tính lại được, thay đổi đã commit còn trong hàng đợi không bị cộng thêm
+        Payment second = paymentRepository.save(payment(payer.user(), payer.fund(), "15.00"));
+        assertEquals(1, rollupCompactor.compact(today, today.plusDays(1)));
+        assertRollupMatchesLive(today);
+
+        paymentRepository.deleteAll(paymentRepository.findAllById(List.of(first.getId(), second.getId())));
+        assertRollupMatchesLive(today);
+    }
+
+    private Payer payer(String name, String phoneNumber) {
+        OwnershipGroup group = groupRepository.save(ContractTestDataBuilder.ownershipGroup()
+                .withGroupId(null)
+                .withGroupName("Rollup Group " + name)
+                .build());
+        User user = userRepository.save(ContractTestDataBuilder.user()
+                .withUserId(null)
+                .withEmail("rollup-" + name + "@test.com")
+                .withPhoneNumber(phoneNumber)
+                .build());
+        SharedFund fund = fundRepository.save(SharedFund.builder()
+                .group(group)
+                .fundType(FundType.OPERATING)
+                .isSpendable(true)
+                .balance(BigDecimal.ZERO)
+                .build());
+        return new Payer(user, fund);
+    }
+
+    private void assertRollupMatchesLive(LocalDate day) {
+        rollupService.flush();
+        DashboardTotals live = totalsLoader.load(day.atStartOfDay(), day.plusDays(1).atStartOfDay().minusNanos(1_000));
+        DashboardTotals rollup = rollupService.sumDays(null, day, day.plusDays(1));
+        assertEquals(keys(live), keys(rollup));
+    }
+
+    // So sánh không phụ thuộc scale của BigDecimal (dòng chỉ đếm: 0 khi query trực tiếp, 0.00 khi đọc rollup)
+    private static Set<String> keys(DashboardTotals totals) {
+        return totals.entries().stream()
+                .map(e -> e.type() + "/" + e.status() + "/" + e.fundType() + "/" + e.count() + "/"
+                        + e.amount().stripTrailingZeros().toPlainString())
+                .collect(Collectors.toSet());
+    }
+
+    private static Payment payment(User payer, SharedFund fund, String amount) {
+        return Payment.builder()
+                .payer(payer)
+                .fund(fund)
+                .amount(new BigDecimal(amount))
+                .status(PaymentStatus.PENDING)
+                .paymentType(PaymentType.CONTRIBUTION)
+                .build();
+    }
+
+    private record Payer(User user, SharedFund fund) {
+    }
+}
@@ -0,0 +1,547 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.dto.DashboardChartDataDTO;
+import com.group8.evcoownership.dto.DashboardStatisticsDTO;
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.*;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.AdminDashboardService;
+import com.group8.evcoownership.service.AdminRollupCompactor;
+import com.group8.evcoownership.service.AdminRollupService;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.WeekFields;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Regression: thống kê và biểu đồ dashboard tính bằng aggregate query phải khớp với cách tính cũ (findAll + stream)
+ * Dữ liệu được seed với nhiều status (kể cả null) và ngày trải dài 120 ngày để kiểm tra cả bộ lọc from/to
+ * Biểu đồ gom nhóm theo tháng trong database => dùng cùng jdbc.time_zone với ứng dụng (Asia/Ho_Chi_Minh) như prod
+ * Thống kê theo khoảng đọc AdminDailyRollup cho các ngày đủ => rollup được tính lại sau khi sửa ngày bằng SQL
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.jdbc.time_zone=Asia/Ho_Chi_Minh"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AdminDashboardStatisticsRegressionTest {
+
+    private static final int GROUPS = 120;
+    private static final int USERS = 300;
+    private static final int BOOKINGS = 2400;
+    private static final int PAYMENTS = 1500;
+    private static final int EXPENSES = 600;
+    private static final int ROWS_PER_GROUP = 3;
+
+    @Autowired
+    private AdminDashboardService adminDashboardService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UsageBookingRepository bookingRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private DisputeRepository disputeRepository;
+
+    @Autowired
+    private IncidentRepository incidentRepository;
+
+    @Autowired
+    private MaintenanceRepository maintenanceRepository;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private UserDocumentRepository documentRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private SharedFundRepository fundRepository;
+
+    @Autowired
+    private AdminRollupCompactor rollupCompactor;
+
+    @Autowired
+    private AdminRollupService rollupService;
+
+    @Test
+    void getDashboardStatistics_LargeDataset_MatchesLegacyImplementation() {
+        LocalDateTime now = LocalDateTime.now();
+
+        // Không lọc
+        DashboardStatisticsDTO stats = adminDashboardService.getDashboardStatistics();
+        assertEquals(legacy(null, null, true), stats);
+        assertEquals((long) BOOKINGS, stats.getTotalBookings());
+        assertEquals((long) PAYMENTS, stats.getPayments().getTotal());
+        assertTrue(stats.getPaymentsByStatus().containsKey("UNKNOWN"));
+
+        // Lọc theo khoảng, chỉ from, chỉ to (khoảng đủ from/to đọc rollup cho các ngày đủ)
+        assertTrue(rollupService.isReady());
+        List<LocalDateTime[]> ranges = List.of(
+                new LocalDateTime[]{now.minusDays(60), now.minusDays(10)},
+                new LocalDateTime[]{now.minusDays(20), null},
+                new LocalDateTime[]{null, now.minusDays(45)});
+        for (LocalDateTime[] range : ranges) {
+            assertEquals(legacy(range[0], range[1], false),
+                    adminDashboardService.getDashboardStatistics(range[0], range[1]));
+        }
+
+        // Có periodType + so sánh kỳ trước
+        for (String periodType : List.of("DAY", "WEEK", "MONTH", "QUARTER", "YEAR")) {
+            LocalDateTime from = now.minusDays(50);
+            LocalDateTime to = now.minusDays(5);
+            assertEquals(legacyWithPeriod(from, to, periodType),
+                    adminDashboardService.getDashboardStatistics(from, to, periodType));
+        }
+    }
+
+    @Test
+    void getChartData_LargeDataset_MatchesLegacyImplementation() {
+        for (int months : new int[]{1, 6, 12}) {
+            DashboardChartDataDTO chart = adminDashboardService.getChartData(months);
+            assertEquals(legacyChart(months), chart);
+            assertEquals(months, chart.getMonthlyBookings().size());
+        }
+        long chartedBookings = adminDashboardService.getChartData(12).getMonthlyBookings().stream()
+                .mapToLong(DashboardChartDataDTO.MonthlyBookingData::getTotalBookings)
+                .sum();
+        assertEquals(BOOKINGS, chartedBookings);
+    }
+
+    // ====== Seed dữ liệu ======
+
+    @BeforeAll
+    void seed() {
+        List<Role> roles = new ArrayList<>();
+        for (RoleName roleName : RoleName.values()) {
+            roles.add(roleRepository.findByRoleName(roleName)
+                    .orElseGet(() -> roleRepository.save(Role.builder().roleName(roleName).build())));
+        }
+
+        UserStatus[] userStatuses = UserStatus.values();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = ContractTestDataBuilder.user()
+                    .withUserId(null)
+                    .withEmail("dashboard" + i + "@test.com")
+                    .withPhoneNumber(String.format("09%08d", i))
+                    .build();
+            user.setStatus(i % 11 == 0 ? null : userStatuses[i % userStatuses.length]);
+            user.setRole(i % 7 == 0 ? null : roles.get(i % roles.size()));
+            users.add(user);
+        }
+        users = userRepository.saveAll(users);
+
+        GroupStatus[] groupStatuses = GroupStatus.values();
+        ContractApprovalStatus[] contractStatuses = ContractApprovalStatus.values();
+        List<OwnershipGroup> groups = new ArrayList<>();
+        for (int i = 0; i < GROUPS; i++) {
+            OwnershipGroup group = ContractTestDataBuilder.ownershipGroup()
+                    .withGroupId(null)
+                    .withGroupName("Dashboard Group " + i)
+                    .build();
+            group.setStatus(groupStatuses[i % groupStatuses.length]);
+            groups.add(group);
+        }
+        groups = groupRepository.saveAll(groups);
+
+        List<Vehicle> vehicles = new ArrayList<>();
+        List<SharedFund> funds = new ArrayList<>();
+        List<Contract> contracts = new ArrayList<>();
+        for (int i = 0; i < GROUPS; i++) {
+            OwnershipGroup group = groups.get(i);
+            vehicles.add(ContractTestDataBuilder.vehicle()
+                    .withVehicleId(null)
+                    .withLicensePlate(String.format("30A-%03d.%02d", i, i % 100))
+                    .withChassisNumber(String.format("RLVZZZ1EZBW%06d", i))
+                    .withOwnershipGroup(group)
+                    .build());
+            funds.add(SharedFund.builder()
+                    .group(group)
+                    .fundType(i % 2 == 0 ? FundType.OPERATING : FundType.DEPOSIT_RESERVE)
+                    .isSpendable(i % 2 == 0)
+                    .balance(new BigDecimal(1_000_000L + i * 12_345L).movePointLeft(2))
+                    .build());
+            Contract contract = ContractTestDataBuilder.contract()
+                    .withId(null)
+                    .withGroup(group)
+                    .build();
+            contract.setApprovalStatus(contractStatuses[i % contractStatuses.length]);
+            contracts.add(contract);
+        }
+        vehicles = vehicleRepository.saveAll(vehicles);
+        funds = fundRepository.saveAll(funds);
+        contractRepository.saveAll(contracts);
+
+        BookingStatus[] bookingStatuses = BookingStatus.values();
+        LocalDateTime base = LocalDateTime.now().minusDays(100);
+        List<UsageBooking> bookings = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            LocalDateTime start = base.plusHours(i).plusMinutes(i % 60);
+            bookings.add(UsageBooking.builder()
+                    .user(users.get(i % USERS))
+                    .vehicle(vehicles.get(i % GROUPS))
+                    .startDateTime(start)
+                    .endDateTime(start.plusHours(2))
+                    .status(i % 13 == 0 ? null : bookingStatuses[i % bookingStatuses.length])
+                    .build());
+        }
+        bookings = bookingRepository.saveAll(bookings);
+
+        String[] incidentStatuses = {"PENDING", "APPROVED", "REJECTED"};
+        String[] maintenanceStatuses = {"PENDING", "APPROVED", "FUNDED", "IN_PROGRESS", "COMPLETED", "REJECTED"};
+        DisputeStatus[] disputeStatuses = DisputeStatus.values();
+        List<Dispute> disputes = new ArrayList<>();
+        List<Incident> incidents = new ArrayList<>();
+        List<Maintenance> maintenances = new ArrayList<>();
+        for (int i = 0; i < GROUPS * ROWS_PER_GROUP; i++) {
+            User user = users.get(i % USERS);
+            disputes.add(Dispute.builder()
+                    .group(groups.get(i % GROUPS))
+                    .createdBy(user)
+                    .disputeType(DisputeType.USAGE)
+                    .status(disputeStatuses[i % disputeStatuses.length])
+                    .title("Dispute " + i)
+                    .build());
+            incidents.add(Incident.builder()
+                    .booking(bookings.get(i))
+                    .reportedBy(user)
+                    .status(incidentStatuses[i % incidentStatuses.length])
+                    .build());
+            maintenances.add(Maintenance.builder()
+                    .vehicle(vehicles.get(i % GROUPS))
+                    .requestedBy(user)
+                    .actualCost(new BigDecimal("150000.00"))
+                    .coverageType(MaintenanceCoverageType.GROUP)
+                    .status(maintenanceStatuses[i % maintenanceStatuses.length])
+                    .requestDate(base.plusHours(i * 7L))
+                    .build());
+        }
+        disputeRepository.saveAll(disputes);
+        incidentRepository.saveAll(incidents);
+        maintenanceRepository.saveAll(maintenances);
+
+        List<UserDocument> documents = new ArrayList<>();
+        String[] documentStatuses = {"PENDING", "APPROVED", "REJECTED"};
+        for (int i = 0; i < USERS; i++) {
+            UserDocument document = new UserDocument();
+            document.setUserId(users.get(i).getUserId());
+            document.setDocumentNumber("DOC" + i);
+            document.setImageUrl("https://example.com/doc" + i + ".jpg");
+            document.setStatus(documentStatuses[i % documentStatuses.length]);
+            documents.add(document);
+        }
+        documentRepository.saveAll(documents);
+
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < EXPENSES; i++) {
+            expenses.add(Expense.builder()
+                    .fund(funds.get(i % GROUPS))
+                    .sourceType("MAINTENANCE")
+                    .sourceId((long) i)
+                    .amount(new BigDecimal(10_000L + i * 137L).movePointLeft(2))
+                    .status(i % 2 == 0 ? "PENDING" : "COMPLETED")
+                    .build());
+        }
+        expenseRepository.saveAll(expenses);
+
+        PaymentStatus[] paymentStatuses = PaymentStatus.values();
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < PAYMENTS; i++) {
+            payments.add(Payment.builder()
+                    .payer(users.get(i % USERS))
+                    .fund(funds.get(i % GROUPS))
+                    .amount(new BigDecimal(50_000L + i * 991L).movePointLeft(2))
+                    .status(i % 17 == 0 ? null : paymentStatuses[i % paymentStatuses.length])
+                    .paymentType(PaymentType.CONTRIBUTION)
+                    .build());
+        }
+        paymentRepository.saveAll(payments);
+
+        // @PrePersist ghi đè ngày tạo => dàn ngày trong 120 ngày bằng SQL, 1 số bản ghi không có ngày
+        spreadDates("OwnershipGroup", "CreatedAt", "GroupId");
+        spreadDates("Users", "CreatedAt", "UserId");
+        spreadDates("Dispute", "CreatedAt", "DisputeId");
+        spreadDates("Incident", "CreatedAt", "IncidentId");
+        spreadDates("Contract", "CreatedAt", "ContractId");
+        spreadDates("Expense", "CreatedAt", "ExpenseId");
+        spreadDates("Payment", "PaymentDate", "PaymentId");
+        jdbcTemplate.update("UPDATE \"Users\" SET \"CreatedAt\" = NULL WHERE MOD(\"UserId\", 29) = 0");
+        jdbcTemplate.update("UPDATE \"Payment\" SET \"PaymentDate\" = NULL WHERE MOD(\"PaymentId\", 31) = 0");
+
+        // SQL trực tiếp không đi qua Hibernate listener => tính lại rollup
+        rollupCompactor.backfill();
+    }
+
+    private void spreadDates(String table, String column, String idColumn) {
+        jdbcTemplate.update(String.format(
+                "UPDATE \"%s\" SET \"%s\" = DATEADD(MINUTE, -MOD(\"%s\" * 977, 120 * 24 * 60), \"%s\")",
+                table, column, idColumn, column));
+    }
+
+    // ====== Cách tính cũ (findAll + stream), giữ nguyên logic để so sánh ======
+
+    private DashboardStatisticsDTO legacyWithPeriod(LocalDateTime from, LocalDateTime to, String periodType) {
+        DashboardStatisticsDTO stats = legacy(from, to, false);
+        Duration duration = Duration.between(from, to);
+        LocalDateTime previousTo = from.minusSeconds(1);
+        DashboardStatisticsDTO previousStats = legacy(previousTo.minus(duration), previousTo, false);
+        stats.setPreviousTotalRevenue(previousStats.getTotalPaymentAmount());
+        stats.setPreviousTotalBookings(previousStats.getTotalBookings());
+        stats.setPreviousTotalGroups(previousStats.getTotalGroups());
+        stats.setPreviousTotalMaintenances(previousStats.getTotalMaintenances());
+        stats.setPreviousTotalDisputes(previousStats.getTotalDisputes());
+        int periods = "DAY".equals(periodType) ? 30 : 12;
+        stats.setRevenueByPeriod(transactionTemplate.execute(status -> legacyRevenue(periodType, periods, from, to)));
+        return stats;
+    }
+
+    private DashboardStatisticsDTO legacy(LocalDateTime from, LocalDateTime to, boolean paymentBreakdown) {
+        return transactionTemplate.execute(status -> {
+            DashboardStatisticsDTO.DashboardStatisticsDTOBuilder builder = DashboardStatisticsDTO.builder();
+
+            List<OwnershipGroup> groups = filter(groupRepository.findAll(), OwnershipGroup::getCreatedAt, from, to);
+            builder.totalGroups((long) groups.size());
+            builder.groupsByStatus(countBy(groups, g -> g.getStatus() != null ? g.getStatus().name() : "UNKNOWN"));
+
+            List<User> users = filter(userRepository.findAll(), User::getCreatedAt, from, to);
+            builder.totalUsers((long) users.size());
+            builder.usersByStatus(countBy(users, u -> u.getStatus() != null ? u.getStatus().name() : "UNKNOWN"));
+            builder.usersByRole(countBy(users.stream().filter(u -> u.getRole() != null).toList(),
+                    u -> u.getRole().getRoleName().name()));
+
+            List<UsageBooking> bookings = filter(bookingRepository.findAll(), UsageBooking::getStartDateTime, from, to);
+            builder.totalBookings((long) bookings.size());
+            builder.bookingsByStatus(countBy(bookings, b -> b.getStatus() != null ? b.getStatus().name() : "UNKNOWN"));
+
+            builder.totalVehicles((long) vehicleRepository.findAll().size());
+
+            List<Dispute> disputes = filter(disputeRepository.findAll(), Dispute::getCreatedAt, from, to);
+            builder.totalDisputes((long) disputes.size());
+            builder.disputesByStatus(countBy(disputes, d -> d.getStatus() != null ? d.getStatus().name() : "UNKNOWN"));
+
+            List<Incident> incidents = filter(incidentRepository.findAll(), Incident::getCreatedAt, from, to);
+            builder.totalIncidents((long) incidents.size());
+            builder.incidentsByStatus(countBy(incidents, i -> i.getStatus() != null ? i.getStatus() : "UNKNOWN"));
+
+            List<Maintenance> maintenances = filter(maintenanceRepository.findAll(), Maintenance::getRequestDate, from, to);
+            builder.totalMaintenances((long) maintenances.size());
+            builder.maintenancesByStatus(countBy(maintenances, m -> m.getStatus() != null ? m.getStatus() : "UNKNOWN"));
+
+            List<Contract> contracts = filter(contractRepository.findAll(), Contract::getCreatedAt, from, to);
+            builder.totalContracts((long) contracts.size());
+            builder.contractsByStatus(countBy(contracts,
+                    c -> c.getApprovalStatus() != null ? c.getApprovalStatus().name() : "UNKNOWN"));
+
+            builder.pendingDocuments(documentRepository.findAll().stream()
+                    .filter(doc -> "PENDING".equals(doc.getStatus()))
+                    .count());
+
+            List<Expense> expenses = filter(expenseRepository.findAll(), Expense::getCreatedAt, from, to);
+            builder.totalExpenses((long) expenses.size());
+            builder.totalExpenseAmount(sum(expenses, Expense::getAmount));
+
+            List<Payment> payments = filter(paymentRepository.findAll(), Payment::getPaymentDate, from, to);
+            BigDecimal completedAmount = sum(payments.stream()
+                    .filter(p -> p.getStatus() == PaymentStatus.COMPLETED)
+                    .toList(), Payment::getAmount);
+            builder.totalPayments((long) payments.size());
+            builder.totalPaymentAmount(completedAmount);
+            if (paymentBreakdown) {
+                Map<String, Long> paymentsByStatus = countBy(payments,
+                        p -> p.getStatus() != null ? p.getStatus().name() : "UNKNOWN");
+                builder.payments(DashboardStatisticsDTO.PaymentStatistics.builder()
+                        .total((long) payments.size())
+                        .pending(paymentsByStatus.getOrDefault("PENDING", 0L))
+                        .completed(paymentsByStatus.getOrDefault("COMPLETED", 0L))
+                        .failed(paymentsByStatus.getOrDefault("FAILED", 0L))
+                        .refunded(paymentsByStatus.getOrDefault("REFUNDED", 0L))
+                        .totalAmount(completedAmount)
+                        .build());
+                builder.paymentsByStatus(paymentsByStatus);
+            }
+
+            List<SharedFund> funds = fundRepository.findAll();
+            builder.totalFunds((long) funds.size());
+            builder.totalFundBalance(sum(funds, SharedFund::getBalance));
+
+            builder.revenueByPeriod(legacyRevenue("DAY", 30, from, to));
+            return builder.build();
+        });
+    }
+
+    private Map<String, BigDecimal> legacyRevenue(String periodType, int periods, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startDate = from != null ? from : now.minusDays(periods);
+        LocalDateTime endDate = to != null ? to : now;
+        List<Payment> payments = paymentRepository.findAll().stream()
+                .filter(p -> p.getPaymentDate() != null
+                        && p.getStatus() == PaymentStatus.COMPLETED
+                        && !p.getPaymentDate().isBefore(startDate)
+                        && !p.getPaymentDate().isAfter(endDate))
+                .toList();
+
+        Function<LocalDateTime, String> key;
+        if ("DAY".equals(periodType)) {
+            key = date -> date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        } else if ("WEEK".equals(periodType)) {
+            WeekFields weekFields = WeekFields.of(Locale.getDefault());
+            key = date -> String.format("%d-W%02d", date.getYear(), date.get(weekFields.weekOfWeekBasedYear()));
+        } else if ("QUARTER".equals(periodType)) {
+            key = date -> date.getYear() + "-Q" + ((date.getMonthValue() - 1) / 3 + 1);
+        } else if ("YEAR".equals(periodType)) {
+            key = date -> String.valueOf(date.getYear());
+        } else {
+            key = date -> date.format(DateTimeFormatter.ofPattern("yyyy-MM"));
+        }
+        Map<String, BigDecimal> grouped = payments.stream().collect(Collectors.groupingBy(
+                p -> key.apply(p.getPaymentDate()), LinkedHashMap::new,
+                Collectors.reducing(BigDecimal.ZERO, p -> p.getAmount() != null ? p.getAmount() : BigDecimal.ZERO,
+                        BigDecimal::add)));
+
+        // Mọi period trong khoảng đều có key, period không có payment => 0
+        Map<String, BigDecimal> filled = new LinkedHashMap<>();
+        for (LocalDateTime day = startDate.toLocalDate().atStartOfDay(); !day.isAfter(endDate); day = day.plusDays(1)) {
+            filled.putIfAbsent(key.apply(day), BigDecimal.ZERO);
+        }
+        grouped.forEach((period, amount) -> filled.merge(period, amount, BigDecimal::add));
+        return filled;
+    }
+
+    private DashboardChartDataDTO legacyChart(int months) {
+        return transactionTemplate.execute(status -> {
+            List<Payment> payments = paymentRepository.findAll();
+            List<Expense> expenses = expenseRepository.findAll();
+            List<UsageBooking> bookings = bookingRepository.findAll();
+            List<OwnershipGroup> groups = groupRepository.findAll();
+            List<User> users = userRepository.findAll();
+
+            DashboardChartDataDTO chart = DashboardChartDataDTO.builder()
+                    .monthlyFinancials(new ArrayList<>())
+                    .monthlyBookings(new ArrayList<>())
+                    .monthlyGroups(new ArrayList<>())
+                    .monthlyUsers(new ArrayList<>())
+                    .build();
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = months - 1; i >= 0; i--) {
+                LocalDateTime monthStart = now.minusMonths(i).withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
+                LocalDateTime monthEnd = monthStart.plusMonths(1).minusSeconds(1);
+                String monthKey = monthStart.format(DateTimeFormatter.ofPattern("yyyy-MM"));
+                Function<LocalDateTime, Boolean> inMonth = date -> date != null
+                        && date.isAfter(monthStart.minusSeconds(1))
+                        && date.isBefore(monthEnd.plusSeconds(1));
+
+                BigDecimal revenue = sum(payments.stream()
+                        .filter(p -> inMonth.apply(p.getPaymentDate()) && p.getStatus() == PaymentStatus.COMPLETED)
+                        .toList(), Payment::getAmount);
+                BigDecimal expense = sum(expenses.stream()
+                        .filter(e -> inMonth.apply(e.getCreatedAt()))
+                        .toList(), Expense::getAmount);
+                chart.getMonthlyFinancials().add(DashboardChartDataDTO.MonthlyFinancialData.builder()
+                        .month(monthKey)
+                        .revenue(revenue)
+                        .expense(expense)
+                        .netAmount(revenue.subtract(expense))
+                        .build());
+
+                List<UsageBooking> monthBookings = bookings.stream()
+                        .filter(b -> inMonth.apply(b.getStartDateTime()))
+                        .toList();
+                chart.getMonthlyBookings().add(DashboardChartDataDTO.MonthlyBookingData.builder()
+                        .month(monthKey)
+                        .totalBookings((long) monthBookings.size())
+                        .completedBookings(monthBookings.stream().filter(b -> b.getStatus() == BookingStatus.COMPLETED).count())
+                        .cancelledBookings(monthBookings.stream().filter(b -> b.getStatus() == BookingStatus.CANCELLED).count())
+                        .build());
+
+                chart.getMonthlyGroups().add(DashboardChartDataDTO.MonthlyGroupData.builder()
+                        .month(monthKey)
+                        .newGroups(groups.stream().filter(g -> inMonth.apply(g.getCreatedAt())).count())
+                        .activeGroups(groups.stream()
+                                .filter(g -> g.getStatus() == GroupStatus.ACTIVE
+                                        && (g.getCreatedAt() == null || g.getCreatedAt().isBefore(monthEnd.plusSeconds(1))))
+                                .count())
+                        .build());
+
+                chart.getMonthlyUsers().add(DashboardChartDataDTO.MonthlyUserData.builder()
+                        .month(monthKey)
+                        .newUsers(users.stream().filter(u -> inMonth.apply(u.getCreatedAt())).count())
+                        .activeUsers(users.stream()
+                                .filter(u -> u.getStatus() == UserStatus.ACTIVE
+                                        && (u.getCreatedAt() == null || u.getCreatedAt().isBefore(monthEnd.plusSeconds(1))))
+                                .count())
+                        .build());
+            }
+            return chart;
+        });
+    }
+
+    private static <T> List<T> filter(List<T> rows, Function<T, LocalDateTime> date, LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return rows;
+        }
+        return rows.stream()
+                .filter(row -> {
+                    LocalDateTime value = date.apply(row);
+                    if (value == null) return false;
+                    if (from != null && value.isBefore(from)) return false;
+                    return to == null || !value.isAfter(to);
+                })
+                .toList();
+    }
+
+    private static <T> Map<String, Long> countBy(List<T> rows, Function<T, String> key) {
+        return rows.stream().collect(Collectors.groupingBy(key, Collectors.counting()));
+    }
+
+    private static <T> BigDecimal sum(List<T> rows, Function<T, BigDecimal> amount) {
+        return rows.stream()
+                .map(row -> amount.apply(row) != null ? amount.apply(row) : BigDecimal.ZERO)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,168 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.dto.LedgerSummaryDTO;
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.FundType;
+import com.group8.evcoownership.enums.PaymentStatus;
+import com.group8.evcoownership.enums.PaymentType;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.FundService;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Báo cáo tài chính tất cả group (stream theo trang): mỗi dòng khớp getLedgerSummary của group đó
+ * page-size = 2 => 5 group được đọc qua 3 trang
+ * Materializer chỉ chạy lúc khởi động => nhật ký quỹ của test luôn ở trạng thái chưa materialize
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "fund.report.page-size=2",
+        "fund.journal.materialize-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class AllGroupsFinancialReportIntegrationTest {
+
+    @Autowired
+    private FundService fundService;
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SharedFundRepository fundRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private FundJournalRepository journalRepository;
+
+    @Test
+    void writeAllGroupsFinancialReportCSV_PagedAggregates_MatchPerGroupLedgerSummary() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        User payer = userRepository.save(ContractTestDataBuilder.user()
+                .withUserId(null)
+                .withEmail("report@test.com")
+                .build());
+
+        List<Long> groupIds = new ArrayList<>();
+        Long pendingGroupId = null;
+        for (int i = 0; i < 5; i++) {
+            OwnershipGroup group = groupRepository.save(ContractTestDataBuilder.ownershipGroup()
+                    .withGroupId(null)
+                    .withGroupName(i == 0 ? "Report, \"Quoted\"" : "Report Group " + i)
+                    .build());
+            groupIds.add(group.getGroupId());
+            if (i == 4) {
+                continue; // group không có quỹ
+            }
+            SharedFund operating = fundRepository.save(fund(group, FundType.OPERATING, "1000.00"));
+            SharedFund deposit = fundRepository.save(fund(group, FundType.DEPOSIT_RESERVE, "500.00"));
+            for (int j = 0; j <= i; j++) {
+                paymentRepository.save(payment(payer, operating, PaymentStatus.COMPLETED, now.minusDays(j)));
+                paymentRepository.save(payment(payer, deposit, PaymentStatus.COMPLETED, now.minusDays(j + 10)));
+            }
+            paymentRepository.save(payment(payer, operating, PaymentStatus.PENDING, now));
+            expenseRepository.save(expense(operating, "COMPLETED", now.minusDays(1)));
+            expenseRepository.save(expense(operating, "PENDING", now.minusDays(1)));
+            if (i == 1) {
+                // Khoản nạp đã ghi nhật ký nhưng chưa cộng vào SharedFund.Balance
+                journalRepository.save(FundJournal.builder()
+                        .fundId(operating.getFundId())
+                        .delta(new BigDecimal("250.00"))
+                        .sourceType(FundJournal.SOURCE_TOP_UP)
+                        .build());
+                pendingGroupId = group.getGroupId();
+            }
+        }
+
+        LocalDateTime from = now.minusDays(5);
+        LocalDateTime to = now.plusDays(1);
+        for (FundType fundType : new FundType[]{null, FundType.OPERATING}) {
+            Map<Long, String[]> rows = report(fundType, from, to);
+            assertEquals(Set.copyOf(groupIds), rows.keySet());
+            for (Long groupId : groupIds) {
+                LedgerSummaryDTO summary = fundService.getLedgerSummary(groupId, fundType, from, to);
+                String[] row = rows.get(groupId);
+                assertEquals(0, summary.totalIn().compareTo(new BigDecimal(row[3])), "income " + groupId);
+                assertEquals(0, summary.totalOut().compareTo(new BigDecimal(row[4])), "expense " + groupId);
+                assertEquals(0, summary.operatingBalance().compareTo(new BigDecimal(row[5])), "operating " + groupId);
+                assertEquals(0, summary.depositBalance().compareTo(new BigDecimal(row[6])), "deposit " + groupId);
+            }
+            assertEquals(0, new BigDecimal("1250.00").compareTo(new BigDecimal(rows.get(pendingGroupId)[5])));
+        }
+    }
+
+    // Group ID => các cột của dòng group (chỉ các group do test tạo)
+    private Map<Long, String[]> report(FundType fundType, LocalDateTime from, LocalDateTime to) throws Exception {
+        StringWriter out = new StringWriter();
+        fundService.writeAllGroupsFinancialReportCSV(fundType, from, to, out);
+        String csv = out.toString();
+        assertTrue(csv.contains("\"Report, \"\"Quoted\"\"\""));
+        assertTrue(csv.contains("Grand Total,,"));
+        return Arrays.stream(csv.split("\n"))
+                .filter(line -> line.contains("Report") && Character.isDigit(line.charAt(0)))
+                .map(line -> line.replace("\"Report, \"\"Quoted\"\"\"", "Report Quoted").split(","))
+                .collect(Collectors.toMap(cols -> Long.valueOf(cols[0]), Function.identity()));
+    }
+
+    private static SharedFund fund(OwnershipGroup group, FundType type, String balance) {
+        return SharedFund.builder()
+                .group(group)
+                .fundType(type)
+                .isSpendable(type == FundType.OPERATING)
+                .balance(new BigDecimal(balance))
+                .build();
+    }
+
+    private static Payment payment(User payer, SharedFund fund, PaymentStatus status, LocalDateTime paidAt) {
+        return Payment.builder()
+                .payer(payer)
+                .fund(fund)
+                .amount(new BigDecimal("100.00"))
+                .status(status)
+                .paymentType(PaymentType.CONTRIBUTION)
+                .paymentDate(paidAt)
+                .paidAt(paidAt)
+                .build();
+    }
+
+    private static Expense expense(SharedFund fund, String status, LocalDateTime expenseDate) {
+        return Expense.builder()
+                .fund(fund)
+                .sourceType("MAINTENANCE")
+                .sourceId(1L)
+                .amount(new BigDecimal("40.00"))
+                .status(status)
+                .expenseDate(expenseDate)
+                .build();
+    }
+}
@@ -0,0 +1,143 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.BookingStatus;
+import com.group8.evcoownership.exception.BookingValidationException;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.BookingAdmissionService;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test: nhiều thành viên cùng tranh đặt các slot chồng lấn của một xe
+ * Kỳ vọng không có double-booking và in ra throughput đạt được
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class BookingAdmissionConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 40;
+    // 24 slot 3 giờ bắt đầu mỗi giờ => mỗi slot chồng lấn với 2-3 slot lân cận
+    private static final int CANDIDATE_SLOTS = 24;
+
+    @Autowired
+    private BookingAdmissionService bookingAdmissionService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private UsageBookingRepository usageBookingRepository;
+
+    @Test
+    void admit_ConcurrentRequestsSameVehicle_NoDoubleBooking() throws Exception {
+        // Given
+        OwnershipGroup group = ContractTestDataBuilder.TestScenarios.createBasicGroup();
+        group.setGroupId(null);
+        group = groupRepository.save(group);
+
+        List<User> members = new ArrayList<>();
+        for (int i = 1; i <= THREADS; i++) {
+            members.add(userRepository.save(ContractTestDataBuilder.user()
+                    .withUserId(null)
+                    .withEmail("admission" + i + "@test.com")
+                    .build()));
+        }
+
+        Vehicle vehicle = ContractTestDataBuilder.TestScenarios.createBasicVehicle(group);
+        vehicle.setId(null);
+        Vehicle savedVehicle = vehicleRepository.save(vehicle);
+
+        LocalDateTime base = LocalDate.now().plusDays(7).atStartOfDay();
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            User member = members.get(t);
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    LocalDateTime start = base.plusHours(random.nextInt(CANDIDATE_SLOTS));
+                    UsageBooking booking = UsageBooking.builder()
+                            .user(member)
+                            .vehicle(savedVehicle)
+                            .startDateTime(start)
+                            .endDateTime(start.plusHours(3))
+                            .status(BookingStatus.CONFIRMED)
+                            .build();
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> bookingAdmissionService.admit(booking));
+                        accepted.incrementAndGet();
+                    } catch (BookingValidationException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        executor.shutdown();
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        System.out.printf("[admission-load] attempts=%d accepted=%d rejected=%d elapsed=%.2fs throughput=%.0f req/s%n",
+                attempts, accepted.get(), rejected.get(), elapsedSeconds, attempts / elapsedSeconds);
+
+        // Then - không có 2 booking CONFIRMED nào trùng nhau (khoảng đóng)
+        List<UsageBooking> confirmed = usageBookingRepository.findAll().stream()
+                .filter(b -> b.getVehicle().getId().equals(savedVehicle.getId()))
+                .filter(b -> b.getStatus() == BookingStatus.CONFIRMED)
+                .sorted(Comparator.comparing(UsageBooking::getStartDateTime))
+                .toList();
+
+        assertEquals(attempts, accepted.get() + rejected.get());
+        assertEquals(accepted.get(), confirmed.size());
+        assertTrue(accepted.get() > 0);
+        for (int i = 1; i < confirmed.size(); i++) {
+            UsageBooking previous = confirmed.get(i - 1);
+            UsageBooking current = confirmed.get(i);
+            assertTrue(current.getStartDateTime().isAfter(previous.getEndDateTime()),
+                    "Double booking: " + previous.getId() + " and " + current.getId());
+        }
+    }
+}
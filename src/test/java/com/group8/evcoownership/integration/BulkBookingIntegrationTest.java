@@ -0,0 +1,170 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.dto.*;
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.BookingStatus;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.BulkBookingService;
+import com.group8.evcoownership.service.UsageCounterService;
+import com.group8.evcoownership.service.WeeklyCalendarService;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk booking: booking định kỳ được tạo trong 1 lô, khung giờ trùng / vượt quota / sai được trả về trong conflicts
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class BulkBookingIntegrationTest {
+
+    @Autowired
+    private BulkBookingService bulkBookingService;
+
+    @Autowired
+    private WeeklyCalendarService weeklyCalendarService;
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private OwnershipShareRepository shareRepository;
+
+    @Autowired
+    private UsageBookingRepository usageBookingRepository;
+
+    @Autowired
+    private UsageWeeklyCounterRepository counterRepository;
+
+    @Test
+    void createBookings_WeeklyRecurrence_CreatesValidItemsAndReportsConflicts() {
+        // Given - 2 thành viên sở hữu 25% => quota 42 giờ/tuần mỗi người
+        OwnershipGroup group = ContractTestDataBuilder.TestScenarios.createBasicGroup();
+        group.setGroupId(null);
+        group = groupRepository.save(group);
+
+        User member = member(group, "bulk@test.com");
+        member(group, "bulk-other@test.com");
+
+        Vehicle newVehicle = ContractTestDataBuilder.TestScenarios.createBasicVehicle(group);
+        newVehicle.setId(null);
+        Vehicle vehicle = vehicleRepository.save(newVehicle);
+
+        // Thành viên khác đã đặt sáng thứ 2 của tuần thứ 2
+        LocalDate weekStart = LocalDate.now().with(DayOfWeek.MONDAY).plusWeeks(1);
+        weeklyCalendarService.createFlexibleBooking(FlexibleBookingRequestDTO.builder()
+                .vehicleId(vehicle.getId())
+                .startDateTime(weekStart.plusWeeks(1).atTime(9, 0))
+                .endDateTime(weekStart.plusWeeks(1).atTime(10, 0))
+                .build(), "bulk-other@test.com");
+
+        // When - sáng thứ 2 hàng tuần trong 4 tuần + 1 khung 40 giờ (vượt quota tuần 1) + 1 khung sai
+        LocalDateTime invalidStart = weekStart.plusDays(5).atTime(12, 0);
+        BulkBookingResponseDTO response = bulkBookingService.createBookings(BulkBookingRequestDTO.builder()
+                .vehicleId(vehicle.getId())
+                .recurrence(WeeklyRecurrenceDTO.builder()
+                        .startDateTime(weekStart.atTime(8, 0))
+                        .endDateTime(weekStart.atTime(11, 0))
+                        .occurrences(4)
+                        .intervalWeeks(1)
+                        .build())
+                .intervals(List.of(
+                        new BookingIntervalDTO(weekStart.plusDays(2).atTime(0, 0), weekStart.plusDays(3).atTime(16, 0)),
+                        new BookingIntervalDTO(invalidStart, invalidStart.minusHours(1))))
+                .build(), "bulk@test.com");
+
+        // Then
+        assertEquals(6, response.getRequested());
+        assertEquals(3, response.getCreated());
+        // Conflicts được sắp theo thời gian bắt đầu
+        assertEquals(List.of("QUOTA_EXCEEDED", "INVALID", "OVERLAP"),
+                response.getConflicts().stream().map(BookingConflictDTO::getReason).toList());
+        assertEquals(weekStart.plusWeeks(1).atTime(8, 0), conflict(response, "OVERLAP").getStartDateTime());
+
+        for (FlexibleBookingResponseDTO booking : response.getBookings()) {
+            UsageBooking saved = usageBookingRepository.findById(booking.getBookingId()).orElseThrow();
+            assertEquals(BookingStatus.CONFIRMED, saved.getStatus());
+            assertEquals(booking.getStartDateTime(), saved.getStartDateTime());
+            assertNotNull(saved.getQrCodeCheckin());
+            assertTrue(saved.getQrCodeCheckin().contains("\"bookingId\":" + booking.getBookingId()));
+            assertEquals(saved.getQrCodeCheckin(), booking.getQrCodeCheckin());
+        }
+
+        // Counter quota của các tuần được tạo booking đã được cộng
+        for (int week : new int[]{0, 2, 3}) {
+            assertEquals(180L, counterRepository.findById(UsageCounterService.idOf(
+                    member.getUserId(), vehicle.getId(), weekStart.plusWeeks(week))).orElseThrow().getBookedMinutes());
+        }
+        assertTrue(counterRepository.findById(UsageCounterService.idOf(
+                        member.getUserId(), vehicle.getId(), weekStart.plusWeeks(1)))
+                .map(counter -> counter.getBookedMinutes() == 0L)
+                .orElse(true));
+
+        // Gửi lại cùng request => toàn bộ khung định kỳ bị trùng
+        BulkBookingResponseDTO retry = bulkBookingService.createBookings(BulkBookingRequestDTO.builder()
+                .vehicleId(vehicle.getId())
+                .recurrence(WeeklyRecurrenceDTO.builder()
+                        .startDateTime(weekStart.atTime(8, 0))
+                        .endDateTime(weekStart.atTime(11, 0))
+                        .occurrences(4)
+                        .build())
+                .build(), "bulk@test.com");
+        assertEquals(0, retry.getCreated());
+        assertTrue(retry.getConflicts().stream().allMatch(c -> "OVERLAP".equals(c.getReason())));
+    }
+
+    @Test
+    void createBookings_TooManyItems_ShouldReject() {
+        BulkBookingRequestDTO request = BulkBookingRequestDTO.builder()
+                .vehicleId(1L)
+                .recurrence(WeeklyRecurrenceDTO.builder()
+                        .startDateTime(LocalDateTime.now().plusDays(1))
+                        .endDateTime(LocalDateTime.now().plusDays(1).plusHours(1))
+                        .occurrences(BulkBookingService.MAX_ITEMS + 1)
+                        .build())
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> bulkBookingService.createBookings(request, "bulk-limit@test.com"));
+    }
+
+    private User member(OwnershipGroup group, String email) {
+        User user = userRepository.save(ContractTestDataBuilder.user()
+                .withUserId(null)
+                .withEmail(email)
+                .build());
+        shareRepository.save(ContractTestDataBuilder.ownershipShare()
+                .withGroup(group)
+                .withUser(user)
+                .withOwnershipPercentage(new BigDecimal("25.00"))
+                .build());
+        return user;
+    }
+
+    private static BookingConflictDTO conflict(BulkBookingResponseDTO response, String reason) {
+        return response.getConflicts().stream()
+                .filter(c -> reason.equals(c.getReason()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,204 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.entity.FundJournal;
+import com.group8.evcoownership.entity.OwnershipGroup;
+import com.group8.evcoownership.entity.SharedFund;
+import com.group8.evcoownership.entity.SharedFundBalanceSnapshot;
+import com.group8.evcoownership.entity.SharedFundBalanceSnapshotId;
+import com.group8.evcoownership.enums.FundType;
+import com.group8.evcoownership.repository.FundJournalRepository;
+import com.group8.evcoownership.repository.OwnershipGroupRepository;
+import com.group8.evcoownership.repository.SharedFundBalanceSnapshotRepository;
+import com.group8.evcoownership.repository.SharedFundRepository;
+import com.group8.evcoownership.service.FundBalanceSnapshotService;
+import com.group8.evcoownership.service.FundJournalMaterializer;
+import com.group8.evcoownership.service.FundService;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Nạp / chi quỹ qua FundJournal: 150 người nạp đồng thời vào cùng 1 quỹ OPERATING
+ * Sau khi materialize, số dư cuối phải bằng số dư đầu + tổng các khoản nạp, không có lần nào thất bại do tranh chấp
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        // Chỉ materialize khi test gọi materialize()
+        "fund.journal.materialize-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class FundBalanceConcurrencyIntegrationTest {
+
+    private static final int PAYERS = 150;
+
+    @Autowired
+    private FundService fundService;
+
+    @Autowired
+    private FundJournalMaterializer materializer;
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private SharedFundRepository fundRepository;
+
+    @Autowired
+    private SharedFundBalanceSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private FundJournalRepository journalRepository;
+
+    @Autowired
+    private FundBalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void increaseBalance_ParallelPayers_FinalBalanceMatchesSumOfDeltas() throws Exception {
+        OwnershipGroup group = groupRepository.save(ContractTestDataBuilder.ownershipGroup()
+                .withGroupId(null)
+                .withGroupName("Concurrent Fund Group")
+                .build());
+        SharedFund fund = fundRepository.save(SharedFund.builder()
+                .group(group)
+                .fundType(FundType.OPERATING)
+                .isSpendable(true)
+                .balance(new BigDecimal("1000.00"))
+                .build());
+        Long fundId = fund.getFundId();
+        double appliedBefore = appliedCount("increase");
+
+        BigDecimal expected = new BigDecimal("1000.00");
+        List<BigDecimal> amounts = new ArrayList<>();
+        for (int i = 0; i < PAYERS; i++) {
+            BigDecimal amount = new BigDecimal(100 + i).movePointLeft(1);
+            amounts.add(amount);
+            expected = expected.add(amount);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (BigDecimal amount : amounts) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    fundService.increaseBalance(fundId, amount, FundJournal.SOURCE_TOP_UP, null);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(PAYERS, appliedCount("increase") - appliedBefore);
+        // Nhật ký chưa materialize vẫn được tính vào số dư hiện tại, kể cả ở các API đọc danh sách / báo cáo
+        assertEquals(0, expected.compareTo(fundService.currentBalance(fundId)));
+        assertEquals(0, expected.compareTo(fundService.listFundsByGroup(group.getGroupId()).get(0).balance()));
+        assertEquals(0, expected.compareTo(
+                fundService.getLedgerSummary(group.getGroupId(), null, null, null).operatingBalance()));
+        assertEquals(0, new BigDecimal("1000.00").compareTo(fundRepository.findBalanceById(fundId).orElseThrow()));
+
+        materializer.materialize();
+        SharedFund after = fundRepository.findById(fundId).orElseThrow();
+        assertEquals(0, expected.compareTo(after.getBalance()));
+        assertEquals(0, expected.compareTo(fundService.currentBalance(fundId)));
+
+        SharedFundBalanceSnapshot snapshot = snapshotRepository
+                .findById(new SharedFundBalanceSnapshotId(fundId, LocalDate.now().atStartOfDay()))
+                .orElseThrow();
+        assertEquals(PAYERS, snapshot.getTransactionCount());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(snapshot.getOpeningBalance()));
+        assertEquals(0, expected.compareTo(snapshot.getClosingBalance()));
+
+        // Trừ quá số dư => bị từ chối, số dư không đổi
+        BigDecimal tooMuch = expected.add(BigDecimal.ONE);
+        assertThrows(IllegalStateException.class,
+                () -> fundService.decreaseBalance(fundId, tooMuch, FundJournal.SOURCE_EXPENSE, null));
+        assertEquals(0, expected.compareTo(fundService.currentBalance(fundId)));
+
+        // Khoản chi chưa materialize đã chặn khoản chi tiếp theo
+        assertEquals(0, BigDecimal.ZERO.compareTo(
+                fundService.decreaseBalance(fundId, expected, FundJournal.SOURCE_EXPENSE, null)));
+        assertThrows(IllegalStateException.class,
+                () -> fundService.decreaseBalance(fundId, BigDecimal.ONE, FundJournal.SOURCE_EXPENSE, null));
+
+        materializer.materialize();
+        assertEquals(0, BigDecimal.ZERO.compareTo(fundRepository.findById(fundId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void materialize_EntryCommittedAfterLaterDay_DoesNotRewriteClosedDay() {
+        OwnershipGroup group = groupRepository.save(ContractTestDataBuilder.ownershipGroup()
+                .withGroupId(null)
+                .withGroupName("Late Journal Group")
+                .build());
+        Long fundId = fundRepository.save(SharedFund.builder()
+                .group(group)
+                .fundType(FundType.OPERATING)
+                .isSpendable(true)
+                .balance(new BigDecimal("1000.00"))
+                .build()).getFundId();
+        LocalDate today = LocalDate.now();
+
+        // Khoản hôm nay được materialize trước, khoản phát sinh cuối ngày hôm qua commit muộn
+        journalRepository.save(journal(fundId, "50.00", today.atStartOfDay().plusMinutes(1)));
+        materializer.materialize();
+        journalRepository.save(journal(fundId, "100.00", today.minusDays(1).atTime(23, 59)));
+        materializer.materialize();
+
+        // Cả 2 khoản vào snapshot ngày materialize, ngày hôm qua không bị ghi lại
+        assertTrue(snapshotRepository.findById(new SharedFundBalanceSnapshotId(fundId, today.minusDays(1).atStartOfDay()))
+                .isEmpty());
+        SharedFundBalanceSnapshot snapshot = snapshotRepository
+                .findById(new SharedFundBalanceSnapshotId(fundId, today.atStartOfDay()))
+                .orElseThrow();
+        assertEquals(2L, snapshot.getTransactionCount());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(snapshot.getOpeningBalance()));
+        assertEquals(0, new BigDecimal("1150.00").compareTo(snapshot.getClosingBalance()));
+        assertEquals(List.of("1000.00", "1150.00"),
+                balanceSnapshotService.getBalanceHistory(fundId, today.minusDays(1), today).stream()
+                        .map(point -> point.balance().setScale(2).toPlainString())
+                        .toList());
+    }
+
+    private static FundJournal journal(Long fundId, String delta, LocalDateTime createdAt) {
+        return FundJournal.builder()
+                .fundId(fundId)
+                .delta(new BigDecimal(delta))
+                .sourceType(FundJournal.SOURCE_TOP_UP)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    private double appliedCount(String direction) {
+        var counter = meterRegistry.find("fund.balance.updates")
+                .tag("direction", direction)
+                .tag("result", "applied")
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
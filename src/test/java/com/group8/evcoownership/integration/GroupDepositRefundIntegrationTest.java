@@ -0,0 +1,279 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.*;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.DepositPaymentService;
+import com.group8.evcoownership.service.DepositRefundWorker;
+import com.group8.evcoownership.service.FundService;
+import com.group8.evcoownership.service.VnPay_PaymentService;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Hoàn cọc cả group khi reject hợp đồng: số câu lệnh không phụ thuộc số thành viên,
+ * gọi VNPay được đưa vào hàng đợi và DepositRefundWorker thử lại khi lỗi
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Worker chỉ chạy khi test gọi processDue()
+        "deposit.refund.poll-interval-ms=3600000",
+        "deposit.refund.retry-backoff-ms=0",
+        "deposit.refund.max-attempts=2"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class GroupDepositRefundIntegrationTest {
+
+    private static final BigDecimal DEPOSIT = new BigDecimal("3000000.00");
+
+    @Autowired
+    private DepositPaymentService depositPaymentService;
+
+    @Autowired
+    private DepositRefundWorker refundWorker;
+
+    @Autowired
+    private FundService fundService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private OwnershipShareRepository shareRepository;
+
+    @Autowired
+    private SharedFundRepository fundRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private FundJournalRepository journalRepository;
+
+    @MockitoSpyBean
+    private DepositRefundTaskRepository taskRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private VnPay_PaymentService vnPayPaymentService;
+
+    @Test
+    void refundDepositsForGroup_StatementCountIndependentOfMemberCount() {
+        // Given - 2 group: 2 và 8 thành viên đã đóng cọc, mỗi group thêm 1 thành viên chưa đóng
+        Scenario small = scenario("small", 2);
+        Scenario large = scenario("large", 8);
+
+        // When
+        long smallStatements = refundAndCountStatements(small.groupId());
+        long largeStatements = refundAndCountStatements(large.groupId());
+
+        // Then - cùng số câu lệnh
+        assertEquals(smallStatements, largeStatements);
+
+        List<Payment> payments = paymentRepository.findAllById(large.paymentIds());
+        assertTrue(payments.stream().allMatch(p -> p.getStatus() == PaymentStatus.REFUNDED));
+        List<OwnershipShare> shares = shareRepository.findByGroup_GroupId(large.groupId());
+        assertEquals(8, shares.stream().filter(s -> s.getDepositStatus() == DepositStatus.REFUNDED).count());
+        assertEquals(1, shares.stream().filter(s -> s.getDepositStatus() == DepositStatus.PENDING).count());
+
+        // Quỹ cọc bị trừ đúng tổng tiền hoàn bằng 1 dòng nhật ký
+        assertEquals(0, new BigDecimal("1000000.00").compareTo(fundService.currentBalance(large.fundId())));
+        List<FundJournal> journal = journalRepository.findAll().stream()
+                .filter(j -> j.getFundId().equals(large.fundId()))
+                .toList();
+        assertEquals(1, journal.size());
+        assertEquals(FundJournal.SOURCE_GROUP_DEPOSIT_REFUND, journal.get(0).getSourceType());
+        assertEquals(large.groupId(), journal.get(0).getSourceId());
+
+        // Mỗi payment 1 task chờ gọi VNPay
+        List<DepositRefundTask> tasks = taskRepository.findByPaymentIdIn(large.paymentIds());
+        assertEquals(8, tasks.size());
+        assertTrue(tasks.stream().allMatch(t -> t.getStatus() == RefundTaskStatus.PENDING && t.getAttempts() == 0));
+        verifyNoInteractions(vnPayPaymentService);
+    }
+
+    @Test
+    void processDue_ProviderFailures_RetriesThenMarksSentOrFailed() throws Exception {
+        // Given - 5 payment: thành công ngay, lỗi 1 lần rồi thành công, lỗi mãi,
+        // VNPay trả mã thử lại được rồi thành công, VNPay từ chối hẳn
+        Scenario scenario = scenario("retry", 5);
+        refundAndCountStatements(scenario.groupId());
+        Long ok = scenario.paymentIds().get(0);
+        Long flaky = scenario.paymentIds().get(1);
+        Long broken = scenario.paymentIds().get(2);
+        Long busy = scenario.paymentIds().get(3);
+        Long rejected = scenario.paymentIds().get(4);
+        when(vnPayPaymentService.sendRefund(argThat(p -> p != null && p.getId().equals(ok)))).thenReturn("{\"vnp_ResponseCode\":\"00\"}");
+        when(vnPayPaymentService.sendRefund(argThat(p -> p != null && p.getId().equals(flaky))))
+                .thenThrow(new IOException("Read timed out"))
+                .thenReturn("{\"vnp_ResponseCode\":\"00\"}");
+        when(vnPayPaymentService.sendRefund(argThat(p -> p != null && p.getId().equals(broken))))
+                .thenThrow(new IOException("Connection refused"));
+        when(vnPayPaymentService.sendRefund(argThat(p -> p != null && p.getId().equals(busy))))
+                .thenReturn("{\"vnp_ResponseCode\":\"94\",\"vnp_Message\":\"Duplicate request\"}")
+                .thenReturn("{\"vnp_ResponseCode\":\"00\",\"vnp_Message\":\"Success\"}");
+        when(vnPayPaymentService.sendRefund(argThat(p -> p != null && p.getId().equals(rejected))))
+                .thenReturn("{\"vnp_ResponseCode\":\"91\",\"vnp_Message\":\"Transaction not found\"}");
+
+        // When - lần 1: ok SENT, rejected FAILED, 3 lỗi; lần 2 (backoff 0): flaky / busy SENT, broken hết số lần thử;
+        // lần 3: không còn gì
+        refundWorker.processDue();
+        refundWorker.processDue();
+        refundWorker.processDue();
+
+        // Then
+        assertEquals(RefundTaskStatus.SENT, task(ok).getStatus());
+        assertEquals(1, task(ok).getAttempts());
+        assertEquals(RefundTaskStatus.SENT, task(flaky).getStatus());
+        assertEquals(2, task(flaky).getAttempts());
+        assertNotNull(task(flaky).getCompletedAt());
+        assertEquals(RefundTaskStatus.FAILED, task(broken).getStatus());
+        assertEquals(2, task(broken).getAttempts());
+        assertTrue(task(broken).getLastError().contains("Connection refused"));
+        verify(vnPayPaymentService, times(1)).sendRefund(argThat(p -> p != null && p.getId().equals(ok)));
+        verify(vnPayPaymentService, times(2)).sendRefund(argThat(p -> p != null && p.getId().equals(flaky)));
+        verify(vnPayPaymentService, times(2)).sendRefund(argThat(p -> p != null && p.getId().equals(broken)));
+
+        // Mã VNPay: 94 => thử lại, 91 => FAILED ngay với thông báo của VNPay
+        assertEquals(RefundTaskStatus.SENT, task(busy).getStatus());
+        assertEquals(2, task(busy).getAttempts());
+        assertEquals(RefundTaskStatus.FAILED, task(rejected).getStatus());
+        assertEquals(1, task(rejected).getAttempts());
+        assertEquals("vnp_ResponseCode=91: Transaction not found", task(rejected).getLastError());
+        verify(vnPayPaymentService, times(1)).sendRefund(argThat(p -> p != null && p.getId().equals(rejected)));
+    }
+
+    @Test
+    void processDue_SentNotRecorded_NeverResends() throws Exception {
+        // Given - VNPay nhận yêu cầu hoàn tiền nhưng lần ghi SENT đầu tiên lỗi
+        Scenario scenario = scenario("unrecorded", 1);
+        refundAndCountStatements(scenario.groupId());
+        Long paymentId = scenario.paymentIds().get(0);
+        Long taskId = task(paymentId).getTaskId();
+        when(vnPayPaymentService.sendRefund(argThat(p -> p != null && p.getId().equals(paymentId))))
+                .thenReturn("{\"vnp_ResponseCode\":\"00\"}");
+        doThrow(new QueryTimeoutException("Database unavailable")).when(taskRepository).recordAttempt(eq(taskId), eq(RefundTaskStatus.SENT), anyInt(), any(), any(), any());
+
+        // When - lần 1: ghi SENT lỗi, task vẫn giữ lease
+        refundWorker.processDue();
+        DepositRefundTask leased = task(paymentId);
+        reset(taskRepository);
+
+        // lần 2: DB đã ổn, chỉ ghi lại SENT, không gọi VNPay
+        refundWorker.processDue();
+
+        // Then
+        assertEquals(RefundTaskStatus.PENDING, leased.getStatus());
+        assertTrue(leased.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals(RefundTaskStatus.SENT, task(paymentId).getStatus());
+        assertEquals(1, task(paymentId).getAttempts());
+        verify(vnPayPaymentService, times(1)).sendRefund(argThat(p -> p != null && p.getId().equals(paymentId)));
+    }
+
+    private long refundAndCountStatements(Long groupId) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        return tx.execute(status -> {
+            List<OwnershipShare> shares = shareRepository.findByGroup_GroupId(groupId);
+            statistics.clear();
+            depositPaymentService.refundDepositsForGroup(shares, groupId);
+            return statistics.getPrepareStatementCount();
+        });
+    }
+
+    private DepositRefundTask task(Long paymentId) {
+        return taskRepository.findByPaymentIdIn(List.of(paymentId)).get(0);
+    }
+
+    private Scenario scenario(String name, int paidMembers) {
+        Role coOwner = roleRepository.findByRoleName(RoleName.CO_OWNER)
+                .orElseGet(() -> roleRepository.save(Role.builder().roleName(RoleName.CO_OWNER).build()));
+        OwnershipGroup group = groupRepository.save(ContractTestDataBuilder.ownershipGroup()
+                .withGroupId(null)
+                .withGroupName("Refund Group " + name)
+                .build());
+        SharedFund fund = fundRepository.save(SharedFund.builder()
+                .group(group)
+                .fundType(FundType.DEPOSIT_RESERVE)
+                .isSpendable(false)
+                .balance(DEPOSIT.multiply(BigDecimal.valueOf(paidMembers)).add(new BigDecimal("1000000.00")))
+                .build());
+
+        List<Long> paymentIds = new ArrayList<>();
+        for (int i = 0; i <= paidMembers; i++) {
+            boolean paid = i < paidMembers;
+            User member = ContractTestDataBuilder.user()
+                    .withUserId(null)
+                    .withEmail("refund-" + name + "-" + i + "@test.com")
+                    .withPhoneNumber(String.format("09%02d%06d", name.length(), i))
+                    .build();
+            member.setRole(coOwner);
+            member = userRepository.save(member);
+
+            OwnershipShare share = ContractTestDataBuilder.ownershipShare()
+                    .withGroup(group)
+                    .withUser(member)
+                    .withOwnershipPercentage(new BigDecimal("10.00"))
+                    .build();
+            share.setDepositStatus(paid ? DepositStatus.PAID : DepositStatus.PENDING);
+            shareRepository.save(share);
+
+            if (paid) {
+                String txnRef = "DEP-" + name + "-" + i;
+                paymentIds.add(paymentRepository.save(Payment.builder()
+                        .payer(member)
+                        .fund(fund)
+                        .amount(DEPOSIT)
+                        .status(PaymentStatus.COMPLETED)
+                        .paymentType(PaymentType.DEPOSIT)
+                        .paymentMethod("VNPAY")
+                        .transactionCode(txnRef)
+                        .providerResponse("{\"vnp_TransactionNo\":\"1460" + i + "\",\"vnp_TxnRef\":\"" + txnRef + "\"}")
+                        .paidAt(LocalDateTime.now())
+                        .build()).getId());
+            }
+        }
+        return new Scenario(group.getGroupId(), fund.getFundId(), paymentIds);
+    }
+
+    private record Scenario(Long groupId, Long fundId, List<Long> paymentIds) {
+    }
+}
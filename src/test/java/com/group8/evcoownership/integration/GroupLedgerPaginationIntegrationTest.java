@@ -0,0 +1,194 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.dto.LedgerPageDTO;
+import com.group8.evcoownership.dto.LedgerRowDTO;
+import com.group8.evcoownership.dto.LedgerSummaryDTO;
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.FundType;
+import com.group8.evcoownership.enums.PaymentStatus;
+import com.group8.evcoownership.enums.PaymentType;
+import com.group8.evcoownership.enums.RoleName;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.FundService;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sổ quỹ phân trang theo con trỏ: ghép các trang phải ra đúng dữ liệu của getLedger (không trùng, không sót)
+ * stream-page-size = 2 => CSV được ghi qua nhiều trang
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "fund.ledger.stream-page-size=2"})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class GroupLedgerPaginationIntegrationTest {
+
+    @Autowired
+    private FundService fundService;
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private SharedFundRepository fundRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Test
+    void getLedgerPage_ConcatenatedPages_MatchGetLedger() throws Exception {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Role coOwner = roleRepository.findByRoleName(RoleName.CO_OWNER)
+                .orElseGet(() -> roleRepository.save(Role.builder().roleName(RoleName.CO_OWNER).build()));
+        User payer = ContractTestDataBuilder.user()
+                .withUserId(null)
+                .withEmail("ledger-page@test.com")
+                .build();
+        payer.setRole(coOwner);
+        payer = userRepository.save(payer);
+
+        OwnershipGroup group = groupRepository.save(ContractTestDataBuilder.ownershipGroup()
+                .withGroupId(null)
+                .withGroupName("Ledger Page Group")
+                .build());
+        SharedFund operating = fundRepository.save(fund(group, FundType.OPERATING));
+        SharedFund deposit = fundRepository.save(fund(group, FundType.DEPOSIT_RESERVE));
+
+        // Nhiều dòng cùng thời điểm (IN và OUT) để kiểm tra con trỏ ở giữa các dòng bằng nhau
+        LocalDateTime tie = now.minusDays(2);
+        for (int i = 0; i < 4; i++) {
+            paymentRepository.save(payment(payer, operating, PaymentStatus.COMPLETED, tie));
+            expenseRepository.save(expense(operating, "COMPLETED", tie, "Thay lốp, \"gấp\" " + i));
+        }
+        for (int i = 0; i < 5; i++) {
+            paymentRepository.save(payment(payer, deposit, PaymentStatus.COMPLETED, now.minusDays(i).minusHours(1)));
+            expenseRepository.save(expense(operating, "PENDING", now.minusDays(i + 1), null));
+        }
+        paymentRepository.save(payment(payer, operating, PaymentStatus.PENDING, now));
+        paymentRepository.save(payment(payer, operating, PaymentStatus.COMPLETED, now.minusDays(40)));
+
+        LocalDate fromDate = now.toLocalDate().minusDays(10);
+        LocalDate toDate = now.toLocalDate();
+        for (FundType fundType : new FundType[]{null, FundType.OPERATING}) {
+            List<LedgerRowDTO> expected = fundService.getLedger(group.getGroupId(), fundType, fromDate, toDate);
+            List<LedgerRowDTO> paged = allPages(group.getGroupId(), fundType, fromDate, toDate, 3);
+
+            assertEquals(expected.size(), paged.size());
+            assertEquals(multiset(expected), multiset(paged));
+            for (int i = 1; i < paged.size(); i++) {
+                LedgerRowDTO previous = paged.get(i - 1);
+                LedgerRowDTO current = paged.get(i);
+                assertFalse(current.occurredAt().isAfter(previous.occurredAt()), "order at " + i);
+                if (current.occurredAt().equals(previous.occurredAt())) {
+                    assertTrue(previous.direction().compareTo(current.direction()) <= 0, "IN before OUT at " + i);
+                }
+            }
+        }
+
+        LedgerRowDTO in = fundService.getLedgerPage(group.getGroupId(), FundType.DEPOSIT_RESERVE, fromDate, toDate, null, 1)
+                .rows().get(0);
+        assertEquals(payer.getFullName(), in.title());
+        assertEquals("Co-owner", in.subtitle());
+        assertEquals(payer.getUserId(), in.userId());
+
+        assertThrows(IllegalArgumentException.class, () ->
+                fundService.getLedgerPage(group.getGroupId(), null, fromDate, toDate, "not-a-cursor", 3));
+
+        // CSV stream: tổng giống getLedgerSummary, đủ các dòng sổ quỹ
+        LocalDateTime from = fromDate.atStartOfDay();
+        LocalDateTime to = toDate.atStartOfDay();
+        LedgerSummaryDTO summary = fundService.getLedgerSummary(group.getGroupId(), null, from, to);
+        StringWriter out = new StringWriter();
+        fundService.writeGroupLedgerCSV(group.getGroupId(), null, from, to, out);
+        String csv = out.toString();
+        assertTrue(csv.contains("Total Income," + summary.totalIn() + "\n"));
+        assertTrue(csv.contains("Total Expense," + summary.totalOut() + "\n"));
+        String details = csv.substring(csv.indexOf("Direction,Fund Type"));
+        long rows = details.lines().skip(1).filter(line -> !line.isBlank()).count();
+        assertEquals(summary.rows().size(), rows);
+        assertTrue(csv.contains("\"Thay lốp, \"\"gấp\"\" 0\""));
+    }
+
+    private List<LedgerRowDTO> allPages(Long groupId, FundType fundType, LocalDate from, LocalDate to, int size) {
+        List<LedgerRowDTO> rows = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            LedgerPageDTO page = fundService.getLedgerPage(groupId, fundType, from, to, cursor, size);
+            assertTrue(page.rows().size() <= size);
+            rows.addAll(page.rows());
+            cursor = page.nextCursor();
+            assertTrue(++pages < 100, "cursor does not advance");
+        } while (cursor != null);
+        return rows;
+    }
+
+    // So sánh không phụ thuộc thứ tự của các dòng cùng thời điểm
+    private static Map<String, Integer> multiset(List<LedgerRowDTO> rows) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (LedgerRowDTO row : rows) {
+            String key = String.join("|", row.direction(), String.valueOf(row.fundId()), String.valueOf(row.fundType()),
+                    row.title(), row.subtitle(), String.valueOf(row.userId()),
+                    row.amount().stripTrailingZeros().toPlainString(), String.valueOf(row.occurredAt()));
+            counts.merge(key, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static SharedFund fund(OwnershipGroup group, FundType type) {
+        return SharedFund.builder()
+                .group(group)
+                .fundType(type)
+                .isSpendable(type == FundType.OPERATING)
+                .balance(new BigDecimal("1000.00"))
+                .build();
+    }
+
+    private static Payment payment(User payer, SharedFund fund, PaymentStatus status, LocalDateTime paidAt) {
+        return Payment.builder()
+                .payer(payer)
+                .fund(fund)
+                .amount(new BigDecimal("100.00"))
+                .status(status)
+                .paymentType(PaymentType.CONTRIBUTION)
+                .paymentDate(paidAt)
+                .paidAt(paidAt)
+                .build();
+    }
+
+    private static Expense expense(SharedFund fund, String status, LocalDateTime expenseDate, String description) {
+        return Expense.builder()
+                .fund(fund)
+                .sourceType("MAINTENANCE")
+                .sourceId(1L)
+                .description(description)
+                .amount(new BigDecimal("40.00"))
+                .status(status)
+                .expenseDate(expenseDate)
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.BookingStatus;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.*;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * So sánh getBookedMinutesInWeek với cách tính thuần Java (tuần ISO) trên dữ liệu ngẫu nhiên
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class UsageBookingQuotaQueryTest {
+
+    private static final int BOOKING_COUNT = 400;
+    private static final BookingStatus[] STATUSES = BookingStatus.values();
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private UsageBookingRepository usageBookingRepository;
+
+    @Test
+    void getBookedMinutesInWeek_RandomBookings_MatchesNaiveComputation() {
+        // Given - 3 user, 2 xe, booking ngẫu nhiên quanh ranh giới năm (tuần ISO 52/53/1)
+        Random random = new Random(42);
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            users.add(userRepository.save(ContractTestDataBuilder.user()
+                    .withUserId(null)
+                    .withEmail("quota" + i + "@test.com")
+                    .build()));
+        }
+
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            OwnershipGroup group = ContractTestDataBuilder.ownershipGroup().withGroupName("Quota Group " + i).build();
+            group.setGroupId(null);
+            group = groupRepository.save(group);
+            vehicles.add(vehicleRepository.save(ContractTestDataBuilder.vehicle()
+                    .withVehicleId(null)
+                    .withLicensePlate("30A-000.0" + i)
+                    .withChassisNumber("RLVZZZ1EZBW00000" + i)
+                    .withOwnershipGroup(group)
+                    .build()));
+        }
+
+        LocalDateTime rangeStart = LocalDate.of(2025, 12, 1).atStartOfDay();
+        List<UsageBooking> bookings = new ArrayList<>();
+        for (int i = 0; i < BOOKING_COUNT; i++) {
+            LocalDateTime start = rangeStart
+                    .plusMinutes(random.nextInt(60 * 24 * 70))
+                    .plusSeconds(random.nextInt(60));
+            LocalDateTime end = start.plusMinutes(30 + random.nextInt(60 * 30));
+            bookings.add(UsageBooking.builder()
+                    .user(users.get(random.nextInt(users.size())))
+                    .vehicle(vehicles.get(random.nextInt(vehicles.size())))
+                    .startDateTime(start)
+                    .endDateTime(end)
+                    .status(STATUSES[random.nextInt(STATUSES.length)])
+                    .build());
+        }
+        usageBookingRepository.saveAll(bookings);
+
+        // When / Then - mọi tổ hợp user × xe × tuần
+        LocalDate firstMonday = rangeStart.toLocalDate().with(DayOfWeek.MONDAY);
+        for (int week = 0; week < 11; week++) {
+            LocalDate monday = firstMonday.plusWeeks(week);
+            for (User user : users) {
+                for (Vehicle vehicle : vehicles) {
+                    long expected = naiveBookedMinutes(bookings, user, vehicle, monday);
+                    long actual = usageBookingRepository.getBookedMinutesInWeek(
+                            user.getUserId(), vehicle.getId(), monday);
+                    assertEquals(expected, actual,
+                            "user=" + user.getUserId() + " vehicle=" + vehicle.getId() + " week=" + monday);
+                }
+            }
+        }
+    }
+
+    // Cách tính thuần Java: booking chưa hủy có StartDateTime thuộc cùng tuần ISO (năm ISO + số tuần)
+    private long naiveBookedMinutes(List<UsageBooking> bookings, User user, Vehicle vehicle, LocalDate weekStart) {
+        int week = weekStart.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+        int weekYear = weekStart.get(IsoFields.WEEK_BASED_YEAR);
+        long minutes = 0;
+        for (UsageBooking booking : bookings) {
+            LocalDate startDate = booking.getStartDateTime().toLocalDate();
+            if (booking.getStatus() != BookingStatus.CANCELLED
+                    && booking.getUser().getUserId().equals(user.getUserId())
+                    && booking.getVehicle().getId().equals(vehicle.getId())
+                    && startDate.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR) == week
+                    && startDate.get(IsoFields.WEEK_BASED_YEAR) == weekYear) {
+                minutes += Duration.between(booking.getStartDateTime(), booking.getEndDateTime()).toMinutes();
+            }
+        }
+        return minutes;
+    }
+}
@@ -0,0 +1,123 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.dto.FlexibleBookingRequestDTO;
+import com.group8.evcoownership.dto.FlexibleBookingResponseDTO;
+import com.group8.evcoownership.dto.WeeklyCalendarResponseDTO;
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.UsageBookingService;
+import com.group8.evcoownership.service.UsageCounterReconciler;
+import com.group8.evcoownership.service.UsageCounterService;
+import com.group8.evcoownership.service.WeeklyCalendarService;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UsageWeeklyCounter được cập nhật khi tạo/hủy booking và được job đối soát sửa khi bị lệch
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class UsageWeeklyCounterIntegrationTest {
+
+    @Autowired
+    private WeeklyCalendarService weeklyCalendarService;
+
+    @Autowired
+    private UsageBookingService usageBookingService;
+
+    @Autowired
+    private UsageCounterReconciler usageCounterReconciler;
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private OwnershipShareRepository shareRepository;
+
+    @Autowired
+    private UsageWeeklyCounterRepository counterRepository;
+
+    @Test
+    void bookingLifecycle_UpdatesCounterAndReconcilesDrift() {
+        // Given - 1 thành viên sở hữu 25% => quota 42 giờ/tuần
+        OwnershipGroup group = ContractTestDataBuilder.TestScenarios.createBasicGroup();
+        group.setGroupId(null);
+        group = groupRepository.save(group);
+
+        User member = userRepository.save(ContractTestDataBuilder.user()
+                .withUserId(null)
+                .withEmail("counter@test.com")
+                .build());
+        shareRepository.save(ContractTestDataBuilder.ownershipShare()
+                .withGroup(group)
+                .withUser(member)
+                .withOwnershipPercentage(new BigDecimal("25.00"))
+                .build());
+
+        Vehicle newVehicle = ContractTestDataBuilder.TestScenarios.createBasicVehicle(group);
+        newVehicle.setId(null);
+        Vehicle vehicle = vehicleRepository.save(newVehicle);
+
+        LocalDate weekStart = LocalDate.now().with(DayOfWeek.MONDAY).plusWeeks(1);
+        UsageWeeklyCounterId counterId = UsageCounterService.idOf(member.getUserId(), vehicle.getId(), weekStart);
+
+        // When - đặt 2 booking 3 giờ rồi hủy 1 booking
+        FlexibleBookingResponseDTO first = book(vehicle, weekStart.atTime(8, 0), 3);
+        book(vehicle, weekStart.plusDays(2).atTime(14, 0), 3);
+        assertEquals(360L, counterRepository.findById(counterId).orElseThrow().getBookedMinutes());
+
+        usageBookingService.cancelBooking(first.getBookingId(), member.getUserId());
+
+        // Then - counter chỉ còn booking chưa hủy và lịch tuần đọc quota từ counter
+        assertEquals(180L, counterRepository.findById(counterId).orElseThrow().getBookedMinutes());
+        WeeklyCalendarResponseDTO calendar = weeklyCalendarService.getWeeklyCalendar(
+                group.getGroupId(), member.getUserId(), weekStart);
+        assertEquals(14, calendar.getUserQuota().getTotalSlots());
+        assertEquals(1, calendar.getUserQuota().getUsedSlots());
+        assertEquals(13, calendar.getUserQuota().getRemainingSlots());
+
+        // Vượt quota: 3 giờ đã đặt + 40 giờ > 42 giờ
+        assertThrows(IllegalStateException.class,
+                () -> book(vehicle, weekStart.plusDays(3).atTime(0, 0), 40));
+
+        // Counter bị lệch => job đối soát ghi lại giá trị đúng
+        UsageWeeklyCounter drifted = counterRepository.findById(counterId).orElseThrow();
+        drifted.setBookedMinutes(999L);
+        counterRepository.save(drifted);
+
+        int corrected = usageCounterReconciler.reconcile(weekStart.minusWeeks(1), weekStart.plusWeeks(1));
+
+        assertEquals(1, corrected);
+        assertEquals(180L, counterRepository.findById(counterId).orElseThrow().getBookedMinutes());
+        assertEquals(0, usageCounterReconciler.reconcile(weekStart.minusWeeks(1), weekStart.plusWeeks(1)));
+    }
+
+    private FlexibleBookingResponseDTO book(Vehicle vehicle, LocalDateTime start, int hours) {
+        return weeklyCalendarService.createFlexibleBooking(FlexibleBookingRequestDTO.builder()
+                .vehicleId(vehicle.getId())
+                .startDateTime(start)
+                .endDateTime(start.plusHours(hours))
+                .build(), "counter@test.com");
+    }
+}
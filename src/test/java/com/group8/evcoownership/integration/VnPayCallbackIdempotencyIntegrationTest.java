@@ -0,0 +1,198 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.dto.FundTopupResponseDTO;
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.FundType;
+import com.group8.evcoownership.enums.PaymentStatus;
+import com.group8.evcoownership.enums.PaymentType;
+import com.group8.evcoownership.enums.RoleName;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.FundJournalMaterializer;
+import com.group8.evcoownership.service.FundPaymentService;
+import com.group8.evcoownership.service.VnPayCallbackService;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Callback VNPay idempotent theo txnRef: cùng 1 callback được gửi đồng thời 50 lần
+ * Payment chỉ được chốt 1 lần, quỹ chỉ được cộng 1 lần, các lần còn lại chỉ đọc kết quả
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class VnPayCallbackIdempotencyIntegrationTest {
+
+    private static final int CALLBACKS = 50;
+    private static final String TXN_REF = "CB-IDEMPOTENT-001";
+
+    @Autowired
+    private FundPaymentService fundPaymentService;
+
+    @Autowired
+    private FundJournalMaterializer materializer;
+
+    @Autowired
+    private VnPayCallbackService callbackService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private SharedFundRepository fundRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentCallbackRepository callbackRepository;
+
+    @Autowired
+    private FundJournalRepository journalRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void confirmFundTopup_SameCallbackFiftyTimesConcurrently_CreditsFundOnce() throws Exception {
+        Role coOwner = roleRepository.findByRoleName(RoleName.CO_OWNER)
+                .orElseGet(() -> roleRepository.save(Role.builder().roleName(RoleName.CO_OWNER).build()));
+        User payer = ContractTestDataBuilder.user()
+                .withUserId(null)
+                .withEmail("vnpay-callback@test.com")
+                .build();
+        payer.setRole(coOwner);
+        payer = userRepository.save(payer);
+
+        OwnershipGroup group = groupRepository.save(ContractTestDataBuilder.ownershipGroup()
+                .withGroupId(null)
+                .withGroupName("Callback Group")
+                .build());
+        SharedFund fund = fundRepository.save(SharedFund.builder()
+                .group(group)
+                .fundType(FundType.OPERATING)
+                .isSpendable(true)
+                .balance(new BigDecimal("500000.00"))
+                .build());
+        Payment payment = paymentRepository.save(Payment.builder()
+                .payer(payer)
+                .fund(fund)
+                .amount(new BigDecimal("200000.00"))
+                .status(PaymentStatus.PENDING)
+                .paymentType(PaymentType.CONTRIBUTION)
+                .paymentMethod("VNPAY")
+                .transactionCode(TXN_REF)
+                .build());
+        double appliedBefore = callbackCount("applied");
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<FundTopupResponseDTO> responses = new ArrayList<>();
+        try {
+            List<Future<FundTopupResponseDTO>> results = new ArrayList<>();
+            for (int i = 0; i < CALLBACKS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return fundPaymentService.confirmFundTopup(TXN_REF, "14000001");
+                }));
+            }
+            start.countDown();
+            for (Future<FundTopupResponseDTO> result : results) {
+                responses.add(result.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Đúng 1 callback chốt payment, các callback khác trả "Already completed"
+        assertEquals(1, responses.stream().filter(r -> "Fund top-up completed".equals(r.message())).count());
+        assertEquals(1, callbackCount("applied") - appliedBefore);
+        assertTrue(callbackRepository.existsById(TXN_REF));
+
+        Payment completed = paymentRepository.findById(payment.getId()).orElseThrow();
+        assertEquals(PaymentStatus.COMPLETED, completed.getStatus());
+        assertNotNull(completed.getPaidAt());
+        assertTrue(completed.getProviderResponse().contains("14000001"));
+
+        List<FundJournal> journal = journalRepository.findAll().stream()
+                .filter(j -> j.getFundId().equals(fund.getFundId()))
+                .toList();
+        assertEquals(1, journal.size());
+        assertEquals(FundJournal.SOURCE_TOP_UP, journal.get(0).getSourceType());
+        assertEquals(payment.getId(), journal.get(0).getSourceId());
+
+        materializer.materialize();
+        assertEquals(0, new BigDecimal("700000.00")
+                .compareTo(fundRepository.findById(fund.getFundId()).orElseThrow().getBalance()));
+
+        // Callback đến sau khi đã xử lý: chỉ đọc, không cộng quỹ lần nữa
+        FundTopupResponseDTO replay = fundPaymentService.confirmFundTopup(TXN_REF, "14000001");
+        assertEquals("Already completed", replay.message());
+        assertEquals(PaymentStatus.COMPLETED, replay.status());
+        assertEquals(0, materializer.materialize());
+    }
+
+    @Test
+    void completeOnce_OnCompletedFails_ErrorPropagatesAndCallbackNotClaimed() {
+        String txnRef = "CB-FAILURE-001";
+        User payer = userRepository.save(ContractTestDataBuilder.user()
+                .withUserId(null)
+                .withEmail("vnpay-callback-failure@test.com")
+                .withPhoneNumber("0987000001")
+                .build());
+        Payment payment = paymentRepository.save(Payment.builder()
+                .payer(payer)
+                .amount(new BigDecimal("50000.00"))
+                .status(PaymentStatus.PENDING)
+                .paymentType(PaymentType.CONTRIBUTION)
+                .paymentMethod("VNPAY")
+                .transactionCode(txnRef)
+                .build());
+        double replayBefore = callbackCount("replay");
+
+        // Lỗi nghiệp vụ sau khi giữ txnRef: không bị coi là callback lặp lại, transaction rollback
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> callbackService.completeOnce(
+                txnRef, "15000001", null, p -> {
+                    throw new IllegalStateException("fund unavailable");
+                }, (p, applied) -> applied));
+        assertEquals("fund unavailable", error.getMessage());
+        assertEquals(replayBefore, callbackCount("replay"));
+        assertFalse(callbackRepository.existsById(txnRef));
+        assertEquals(PaymentStatus.PENDING, paymentRepository.findById(payment.getId()).orElseThrow().getStatus());
+
+        // VNPay gửi lại => được xử lý bình thường, lần sau nữa là callback lặp lại
+        Boolean retried = callbackService.completeOnce(txnRef, "15000001", null, p -> {
+        }, (p, applied) -> applied);
+        Boolean replayed = callbackService.completeOnce(txnRef, "15000001", null, p -> {
+        }, (p, applied) -> applied);
+        assertTrue(retried);
+        assertFalse(replayed);
+        assertEquals(replayBefore + 1, callbackCount("replay"));
+        assertEquals(PaymentStatus.COMPLETED, paymentRepository.findById(payment.getId()).orElseThrow().getStatus());
+    }
+
+    private double callbackCount(String result) {
+        var counter = meterRegistry.find("payment.vnpay.callbacks").tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
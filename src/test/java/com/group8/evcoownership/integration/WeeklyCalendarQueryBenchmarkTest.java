@@ -0,0 +1,151 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.dto.WeeklyCalendarResponseDTO;
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.BookingStatus;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.WeeklyCalendarService;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark số query và độ trễ p99 của lịch tuần với một tuần được đặt kín slot.
+ * Kết quả được in ra console để so sánh giữa các lần chạy.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class WeeklyCalendarQueryBenchmarkTest {
+
+    private static final int[][] BOOKABLE_RANGES = {{0, 3}, {4, 7}, {8, 11}, {12, 15}, {16, 19}, {20, 23}};
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 200;
+    // 5 query của lịch + 1 lần đọc UsageWeeklyCounter (khóa chính) cho quota
+    // Trạng thái xe của dashboard đã nằm trong VehicleStatusCache sau warm-up
+    private static final long MAX_QUERIES_PER_VIEW = 6;
+
+    @Autowired
+    private WeeklyCalendarService weeklyCalendarService;
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private OwnershipShareRepository shareRepository;
+
+    @Autowired
+    private UsageBookingRepository usageBookingRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void getWeeklyCalendar_DenseWeek_FixedQueryCount() {
+        // Given - nhóm 4 thành viên, tuần sau được đặt kín toàn bộ 42 slot
+        OwnershipGroup group = ContractTestDataBuilder.TestScenarios.createBasicGroup();
+        group.setGroupId(null);
+        group = groupRepository.save(group);
+
+        List<User> members = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            User user = ContractTestDataBuilder.user()
+                    .withUserId(null)
+                    .withEmail("calendar" + i + "@test.com")
+                    .withFullName("Calendar Member " + i)
+                    .build();
+            user = userRepository.save(user);
+            shareRepository.save(ContractTestDataBuilder.ownershipShare()
+                    .withGroup(group)
+                    .withUser(user)
+                    .withOwnershipPercentage(new BigDecimal("25.00"))
+                    .build());
+            members.add(user);
+        }
+
+        Vehicle vehicle = ContractTestDataBuilder.TestScenarios.createBasicVehicle(group);
+        vehicle.setId(null);
+        vehicle = vehicleRepository.save(vehicle);
+
+        LocalDate weekStart = LocalDate.now().with(DayOfWeek.MONDAY).plusWeeks(1);
+        List<UsageBooking> bookings = new ArrayList<>();
+        int index = 0;
+        for (int day = 0; day < 7; day++) {
+            LocalDate date = weekStart.plusDays(day);
+            for (int[] range : BOOKABLE_RANGES) {
+                bookings.add(UsageBooking.builder()
+                        .user(members.get(index++ % members.size()))
+                        .vehicle(vehicle)
+                        .startDateTime(date.atTime(range[0], 0))
+                        .endDateTime(date.atTime(range[1], 0))
+                        .status(index % 5 == 0 ? BookingStatus.COMPLETED : BookingStatus.CONFIRMED)
+                        .build());
+            }
+        }
+        usageBookingRepository.saveAll(bookings);
+
+        Long groupId = group.getGroupId();
+        Long userId = members.get(0).getUserId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Warm up
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            weeklyCalendarService.getWeeklyCalendar(groupId, userId, weekStart);
+        }
+
+        // When
+        statistics.clear();
+        WeeklyCalendarResponseDTO calendar = weeklyCalendarService.getWeeklyCalendar(groupId, userId, weekStart);
+        long queriesPerView = statistics.getPrepareStatementCount();
+
+        long[] latencies = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long started = System.nanoTime();
+            weeklyCalendarService.getWeeklyCalendar(groupId, userId, weekStart);
+            latencies[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(latencies);
+        double p50Millis = latencies[MEASURED_ITERATIONS / 2] / 1_000_000.0;
+        double p99Millis = latencies[(int) Math.ceil(MEASURED_ITERATIONS * 0.99) - 1] / 1_000_000.0;
+
+        System.out.printf("[calendar-benchmark] bookings=%d queries/view=%d p50=%.2fms p99=%.2fms%n",
+                bookings.size(), queriesPerView, p50Millis, p99Millis);
+
+        // Then
+        long bookedSlots = calendar.getDailySlots().stream()
+                .flatMap(day -> day.getSlots().stream())
+                .filter(slot -> slot.getBookingId() != null)
+                .count();
+        assertEquals(bookings.size(), bookedSlots);
+        assertEquals(bookings.size(), calendar.getDashboardSummary().getTotalBookings());
+        assertTrue(queriesPerView <= MAX_QUERIES_PER_VIEW,
+                "Weekly calendar issued " + queriesPerView + " queries");
+    }
+}
@@ -0,0 +1,168 @@
+package com.group8.evcoownership.integration;
+
+import com.group8.evcoownership.dto.WeeklyCalendarResponseDTO;
+import com.group8.evcoownership.entity.*;
+import com.group8.evcoownership.enums.BookingStatus;
+import com.group8.evcoownership.repository.*;
+import com.group8.evcoownership.service.WeeklyCalendarService;
+import com.group8.evcoownership.testconfig.TestConfig;
+import com.group8.evcoownership.testdata.ContractTestDataBuilder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lịch nhiều tuần / nhiều xe: kết quả phải giống gọi lịch từng tuần, số query không tăng theo số tuần
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class WeeklyCalendarRangeIntegrationTest {
+
+    private static final int WEEKS = 4;
+
+    @Autowired
+    private WeeklyCalendarService weeklyCalendarService;
+
+    @Autowired
+    private OwnershipGroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private OwnershipShareRepository shareRepository;
+
+    @Autowired
+    private UsageBookingRepository usageBookingRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void calendarRange_MatchesWeeklyCalendarAndUsesFixedQueries() {
+        // Given - user thuộc 2 nhóm, mỗi nhóm 1 xe; có booking qua đêm vắt qua ranh giới tuần
+        User member = userRepository.save(ContractTestDataBuilder.user()
+                .withUserId(null)
+                .withEmail("range@test.com")
+                .withFullName("Range Member")
+                .build());
+        User other = userRepository.save(ContractTestDataBuilder.user()
+                .withUserId(null)
+                .withEmail("range-other@test.com")
+                .withFullName("Range Other")
+                .build());
+
+        LocalDate firstWeek = LocalDate.now().with(DayOfWeek.MONDAY).plusWeeks(1);
+        List<OwnershipGroup> groups = new ArrayList<>();
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int g = 1; g <= 2; g++) {
+            OwnershipGroup group = ContractTestDataBuilder.ownershipGroup().withGroupName("Range Group " + g).build();
+            group.setGroupId(null);
+            group = groupRepository.save(group);
+            for (User user : List.of(member, other)) {
+                shareRepository.save(ContractTestDataBuilder.ownershipShare()
+                        .withGroup(group)
+                        .withUser(user)
+                        .withOwnershipPercentage(new BigDecimal("50.00"))
+                        .build());
+            }
+            Vehicle vehicle = vehicleRepository.save(ContractTestDataBuilder.vehicle()
+                    .withVehicleId(null)
+                    .withLicensePlate("51R-000.0" + g)
+                    .withChassisNumber("RLVZZZ1EZBW10000" + g)
+                    .withOwnershipGroup(group)
+                    .build());
+            groups.add(group);
+            vehicles.add(vehicle);
+
+            List<UsageBooking> bookings = new ArrayList<>();
+            for (int week = 0; week < WEEKS; week++) {
+                LocalDate monday = firstWeek.plusWeeks(week);
+                bookings.add(booking(member, vehicle, monday.atTime(8, 0), monday.atTime(11, 0), BookingStatus.CONFIRMED));
+                bookings.add(booking(other, vehicle, monday.plusDays(2).atTime(12, 0), monday.plusDays(2).atTime(15, 0),
+                        week % 2 == 0 ? BookingStatus.CONFIRMED : BookingStatus.COMPLETED));
+                // Chủ nhật 22:00 -> thứ 2 tuần sau 02:00
+                bookings.add(booking(other, vehicle, monday.plusDays(6).atTime(22, 0), monday.plusDays(7).atTime(2, 0),
+                        BookingStatus.CONFIRMED));
+            }
+            usageBookingRepository.saveAll(bookings);
+        }
+
+        Long groupId = groups.get(0).getGroupId();
+        Long userId = member.getUserId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // When - gọi trước 1 lần để cache trạng thái xe của dashboard giống nhau ở cả 2 lần đo
+        weeklyCalendarService.getWeeklyCalendar(groupId, userId, firstWeek);
+        statistics.clear();
+        weeklyCalendarService.getWeeklyCalendar(groupId, userId, firstWeek);
+        long singleWeekQueries = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        List<WeeklyCalendarResponseDTO> range = new ArrayList<>();
+        weeklyCalendarService.streamCalendarRanges(
+                List.of(weeklyCalendarService.loadCalendarRange(groupId, userId, firstWeek, WEEKS)), range::add);
+        long rangeQueries = statistics.getPrepareStatementCount();
+
+        // Then - từng tuần giống hệt lịch tuần đơn lẻ
+        assertEquals(WEEKS, range.size());
+        for (int week = 0; week < WEEKS; week++) {
+            assertEquals(weeklyCalendarService.getWeeklyCalendar(groupId, userId, firstWeek.plusWeeks(week)),
+                    range.get(week), "week " + week);
+        }
+        assertEquals(singleWeekQueries, rangeQueries);
+
+        // Lịch của mọi xe của user: mỗi xe đủ số tuần, theo thứ tự xe
+        List<WeeklyCalendarResponseDTO> allVehicles = new ArrayList<>();
+        weeklyCalendarService.streamCalendarRanges(
+                weeklyCalendarService.loadUserVehicleCalendarRanges(userId, firstWeek, 2), allVehicles::add);
+
+        assertEquals(4, allVehicles.size());
+        for (int v = 0; v < vehicles.size(); v++) {
+            for (int week = 0; week < 2; week++) {
+                WeeklyCalendarResponseDTO calendar = allVehicles.get(v * 2 + week);
+                assertEquals(vehicles.get(v).getId(), calendar.getDashboardSummary().getVehicleId());
+                assertEquals(weeklyCalendarService.getWeeklyCalendar(
+                        groups.get(v).getGroupId(), userId, firstWeek.plusWeeks(week)), calendar);
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> weeklyCalendarService.loadCalendarRange(groupId, userId, firstWeek,
+                        WeeklyCalendarService.MAX_RANGE_WEEKS + 1));
+    }
+
+    private UsageBooking booking(User user, Vehicle vehicle, LocalDateTime start,
+                                 LocalDateTime end, BookingStatus status) {
+        return UsageBooking.builder()
+                .user(user)
+                .vehicle(vehicle)
+                .startDateTime(start)
+                .endDateTime(end)
+                .status(status)
+                .build();
+    }
+}
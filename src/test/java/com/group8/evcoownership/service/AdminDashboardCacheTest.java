@@ -0,0 +1,152 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.dto.DashboardStatisticsDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminDashboardCacheTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 2, 1, 0, 0);
+
+    @Mock
+    private AdminDashboardService dashboardService;
+
+    private AdminDashboardCache cache;
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    void getStatistics_ConcurrentMisses_ComputeOnce() throws Exception {
+        cache = new AdminDashboardCache(dashboardService, new SimpleMeterRegistry(), 60, 900, 10);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(dashboardService.getDashboardStatistics(FROM, TO, "DAY")).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return DashboardStatisticsDTO.builder().totalGroups(7L).build();
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<DashboardStatisticsDTO>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.getStatistics(FROM, TO, "DAY")));
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<DashboardStatisticsDTO> result : results) {
+                DashboardStatisticsDTO stats = result.get(5, TimeUnit.SECONDS);
+                assertEquals(7L, stats.getTotalGroups());
+                assertNotNull(stats.getGeneratedAt());
+                assertEquals(0L, stats.getCacheAgeSeconds());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(dashboardService, times(1)).getDashboardStatistics(FROM, TO, "DAY");
+    }
+
+    @Test
+    void getStatistics_StaleEntry_ServedImmediatelyAndRefreshedInBackground() throws Exception {
+        // soft-ttl 0 => mọi lần đọc sau lần đầu đều là bản cũ
+        cache = new AdminDashboardCache(dashboardService, new SimpleMeterRegistry(), 0, 900, 10);
+        AtomicLong version = new AtomicLong();
+        CountDownLatch refreshed = new CountDownLatch(1);
+        when(dashboardService.getDashboardStatistics()).thenAnswer(invocation -> {
+            long current = version.incrementAndGet();
+            if (current == 2) {
+                refreshed.countDown();
+            }
+            return DashboardStatisticsDTO.builder().totalGroups(current).build();
+        });
+
+        assertEquals(1L, cache.getStatistics(null, null, "DAY").getTotalGroups());
+        // Bản cũ được trả ngay, tính lại chạy ở nền
+        assertEquals(1L, cache.getStatistics(null, null, "WEEK").getTotalGroups());
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        long seen = 1L;
+        while (seen == 1L && System.nanoTime() < deadline) {
+            seen = cache.getStatistics(null, null, null).getTotalGroups();
+        }
+        assertTrue(seen >= 2L);
+        verify(dashboardService, never()).getDashboardStatistics(any(), any(), eq("DAY"));
+    }
+
+    @Test
+    void getStatistics_LoadFails_ErrorIsNotCached() {
+        cache = new AdminDashboardCache(dashboardService, new SimpleMeterRegistry(), 60, 900, 10);
+        when(dashboardService.getDashboardStatistics())
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(DashboardStatisticsDTO.builder().totalGroups(3L).build());
+
+        assertThrows(IllegalStateException.class, () -> cache.getStatistics(null, null, "DAY"));
+        assertEquals(3L, cache.getStatistics(null, null, "DAY").getTotalGroups());
+    }
+
+    @Test
+    void getStatistics_LoadThrowsError_WaitersReleasedAndNotCached() {
+        cache = new AdminDashboardCache(dashboardService, new SimpleMeterRegistry(), 60, 900, 10);
+        when(dashboardService.getDashboardStatistics())
+                .thenThrow(new AssertionError("boom"))
+                .thenReturn(DashboardStatisticsDTO.builder().totalGroups(4L).build());
+
+        assertThrows(AssertionError.class, () -> cache.getStatistics(null, null, "DAY"));
+        assertEquals(4L, cache.getStatistics(null, null, "DAY").getTotalGroups());
+    }
+
+    @Test
+    void getStatistics_UnavailableSections_NotCachedAndRefreshKeepsPreviousValue() throws Exception {
+        // soft-ttl 0 => lần đọc thứ 2 trở đi tính lại ở nền
+        cache = new AdminDashboardCache(dashboardService, new SimpleMeterRegistry(), 0, 900, 10);
+        DashboardStatisticsDTO degraded = DashboardStatisticsDTO.builder()
+                .totalGroups(0L)
+                .unavailableSections(List.of("payments"))
+                .build();
+        CountDownLatch refreshed = new CountDownLatch(1);
+        when(dashboardService.getDashboardStatistics())
+                .thenReturn(degraded)
+                .thenReturn(DashboardStatisticsDTO.builder().totalGroups(5L).build())
+                .thenAnswer(invocation -> {
+                    refreshed.countDown();
+                    return degraded;
+                });
+
+        // Bản thiếu số liệu được trả nhưng không cache => lần sau tính lại
+        assertEquals(List.of("payments"), cache.getStatistics(null, null, "DAY").getUnavailableSections());
+        assertEquals(5L, cache.getStatistics(null, null, "DAY").getTotalGroups());
+
+        // Tính lại ở nền thiếu số liệu => vẫn giữ bản đủ số liệu
+        assertEquals(5L, cache.getStatistics(null, null, "DAY").getTotalGroups());
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        DashboardStatisticsDTO stats = cache.getStatistics(null, null, "DAY");
+        assertEquals(5L, stats.getTotalGroups());
+        assertNull(stats.getUnavailableSections());
+    }
+}
@@ -0,0 +1,107 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.UsageBooking;
+import com.group8.evcoownership.entity.User;
+import com.group8.evcoownership.enums.BookingStatus;
+import com.group8.evcoownership.repository.UsageBookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+
+    private static final Long VEHICLE_ID = 1L;
+
+    @Mock
+    private UsageBookingRepository usageBookingRepository;
+
+    @InjectMocks
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    private LocalDate tomorrow;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bookingIntervalIndex, "maxAgeSeconds", 600L);
+        tomorrow = LocalDate.now().plusDays(1);
+    }
+
+    @Test
+    void hasBlockingOverlap_ShouldIgnoreCompletedAndDetectConfirmed() {
+        // Given
+        when(usageBookingRepository.findIndexableBookingsByVehicle(eq(VEHICLE_ID), any(LocalDateTime.class)))
+                .thenReturn(List.of(
+                        booking(1L, tomorrow.atTime(8, 0), tomorrow.atTime(11, 0), BookingStatus.CONFIRMED),
+                        booking(2L, tomorrow.atTime(12, 0), tomorrow.atTime(15, 0), BookingStatus.COMPLETED)));
+
+        // When / Then
+        assertTrue(bookingIntervalIndex.hasBlockingOverlap(VEHICLE_ID, tomorrow.atTime(10, 0), tomorrow.atTime(12, 0)));
+        assertTrue(bookingIntervalIndex.hasBlockingOverlap(VEHICLE_ID, tomorrow.atTime(11, 0), tomorrow.atTime(12, 0)));
+        assertFalse(bookingIntervalIndex.hasBlockingOverlap(VEHICLE_ID, tomorrow.atTime(12, 0), tomorrow.atTime(15, 0)));
+        assertFalse(bookingIntervalIndex.isSlotAvailable(VEHICLE_ID, tomorrow.atTime(12, 0), tomorrow.atTime(15, 0)));
+        assertTrue(bookingIntervalIndex.isSlotAvailable(VEHICLE_ID, tomorrow.atTime(16, 0), tomorrow.atTime(19, 0)));
+
+        // Index chỉ được dựng một lần
+        verify(usageBookingRepository, times(1)).findIndexableBookingsByVehicle(eq(VEHICLE_ID), any(LocalDateTime.class));
+    }
+
+    @Test
+    void invalidate_ShouldRebuildFromRepository() {
+        // Given
+        when(usageBookingRepository.findIndexableBookingsByVehicle(eq(VEHICLE_ID), any(LocalDateTime.class)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(booking(1L, tomorrow.atTime(8, 0), tomorrow.atTime(11, 0), BookingStatus.CONFIRMED)));
+
+        // When
+        boolean before = bookingIntervalIndex.hasBlockingOverlap(VEHICLE_ID, tomorrow.atTime(8, 0), tomorrow.atTime(11, 0));
+        bookingIntervalIndex.invalidate(VEHICLE_ID);
+        boolean after = bookingIntervalIndex.hasBlockingOverlap(VEHICLE_ID, tomorrow.atTime(8, 0), tomorrow.atTime(11, 0));
+
+        // Then
+        assertFalse(before);
+        assertTrue(after);
+        verify(usageBookingRepository, times(2)).findIndexableBookingsByVehicle(eq(VEHICLE_ID), any(LocalDateTime.class));
+    }
+
+    @Test
+    void overlapping_BeforeHorizon_ShouldQueryDatabase() {
+        // Given
+        LocalDateTime lastWeek = LocalDateTime.now().minusWeeks(1);
+        when(usageBookingRepository.findIndexableBookingsByVehicle(eq(VEHICLE_ID), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        when(usageBookingRepository.findAffectedBookings(VEHICLE_ID, lastWeek, lastWeek.plusHours(3)))
+                .thenReturn(List.of(booking(9L, lastWeek, lastWeek.plusHours(3), BookingStatus.COMPLETED)));
+
+        // When
+        List<BookingIntervalIndex.BookingInterval> result =
+                bookingIntervalIndex.overlapping(VEHICLE_ID, lastWeek, lastWeek.plusHours(3));
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals(9L, result.get(0).bookingId());
+    }
+
+    private UsageBooking booking(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return UsageBooking.builder()
+                .id(id)
+                .user(User.builder().userId(id).build())
+                .startDateTime(start)
+                .endDateTime(end)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.dto.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingSuggestionEngineTest {
+
+    private final BookingSuggestionEngine engine = new BookingSuggestionEngine();
+
+    private final LocalDate monday = LocalDate.of(2026, 1, 5);
+
+    @Test
+    void suggest_BusyWeek_ShouldRankWindowsQuietDaysAndNudgeFairShare() {
+        // Given - user sở hữu 25% nhưng giữ 5/6 slot đã đặt; thứ 2, thứ 3 kín buổi sáng
+        List<DailySlotResponseDTO> days = new ArrayList<>();
+        days.add(day(0, booked(0, "BOOKED_SELF"), booked(2, "BOOKED_SELF"), booked(4, "BOOKED_SELF")));
+        days.add(day(1, booked(0, "BOOKED_SELF"), booked(2, "BOOKED_SELF"), booked(4, "BOOKED_OTHER")));
+        for (int i = 2; i < 7; i++) {
+            days.add(day(i));
+        }
+
+        // When
+        List<String> suggestions = engine.suggest(calendar(days, 3, 25.0));
+
+        // Then
+        assertTrue(suggestions.contains("You only have 3 slots left. Please book carefully!"));
+        assertTrue(suggestions.contains("Free window on Wednesday 2026-01-07: 00:00-23:00 (6 free slots)."));
+        assertTrue(suggestions.contains("Least contested days: Wednesday 2026-01-07 (0 booked), Thursday 2026-01-08 (0 booked)."));
+        assertTrue(suggestions.stream().anyMatch(s -> s.startsWith("You hold 83.3% of this week's booked slots but own 25.0%")));
+        // Khung trống bị cắt theo quota còn lại => các khung 6 slot và 3 slot ngang nhau, ưu tiên ngày sớm hơn
+        assertTrue(suggestions.contains("Free window on Monday 2026-01-05: 12:00-23:00 (3 free slots)."));
+    }
+
+    @Test
+    void suggest_QuietWeek_ShouldKeepQuotaMessageAndSkipFairShare() {
+        // Given
+        List<DailySlotResponseDTO> days = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            days.add(day(i));
+        }
+
+        // When
+        List<String> suggestions = engine.suggest(calendar(days, 42, 50.0));
+
+        // Then
+        assertEquals("You have 42 unused slots left. Consider booking more to use your quota!", suggestions.get(0));
+        assertEquals(3, suggestions.stream().filter(s -> s.startsWith("Free window")).count());
+        assertTrue(suggestions.stream().noneMatch(s -> s.contains("fair share") || s.contains("co-owners")));
+    }
+
+    private WeeklyCalendarResponseDTO calendar(List<DailySlotResponseDTO> days, int remainingSlots, double ownershipPercent) {
+        return WeeklyCalendarResponseDTO.builder()
+                .weekStart(monday)
+                .weekEnd(monday.plusDays(6))
+                .userQuota(UserQuotaResponseDTO.builder().remainingSlots(remainingSlots).build())
+                .dailySlots(days)
+                .dashboardSummary(WeeklyCalendarDashboardDTO.builder().ownershipPercent(ownershipPercent).build())
+                .build();
+    }
+
+    // Ngày tương lai; các slot được truyền vào thay thế slot AVAILABLE cùng vị trí
+    private DailySlotResponseDTO day(int offset, Slot... bookedSlots) {
+        List<TimeSlotResponseDTO> slots = new ArrayList<>(CalendarSlotLayout.AVAILABLE_DAY);
+        for (Slot slot : bookedSlots) {
+            slots.set(slot.index(), slot.dto());
+        }
+        LocalDate date = monday.plusDays(offset);
+        return DailySlotResponseDTO.builder()
+                .date(date)
+                .dayOfWeek(date.getDayOfWeek().name())
+                .slots(slots)
+                .build();
+    }
+
+    private record Slot(int index, TimeSlotResponseDTO dto) {
+    }
+
+    private Slot booked(int index, String type) {
+        return new Slot(index, TimeSlotResponseDTO.builder()
+                .time(CalendarSlotLayout.SLOTS.get(index).label())
+                .status("CONFIRMED")
+                .type(type)
+                .bookable(false)
+                .bookingId((long) index + 1)
+                .build());
+    }
+}
@@ -0,0 +1,97 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.dto.DailySlotResponseDTO;
+import com.group8.evcoownership.entity.UsageBooking;
+import com.group8.evcoownership.entity.User;
+import com.group8.evcoownership.enums.BookingStatus;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: throughput dựng slot ngày (createDailySlot) cho 1 tuần lịch
+ * - emptyWeek: tuần tương lai không có booking (dùng chung danh sách slot)
+ * - bookedWeek: tuần có booking ở mọi slot thường
+ * - currentWeek: tuần hiện tại (ngày đã qua bị khóa, hôm nay tính khóa theo giờ)
+ * Chạy: mvn test-compile rồi chạy main của class này (hoặc org.openjdk.jmh.Main CalendarSlotBenchmark) với test classpath
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalendarSlotBenchmark {
+
+    private static final Long USER_ID = 1L;
+
+    private LocalDateTime now;
+    private LocalDate futureWeek;
+    private LocalDate currentWeek;
+    private BookingTimeline emptyTimeline;
+    private BookingTimeline bookedTimeline;
+
+    @Setup
+    public void setUp() {
+        now = LocalDateTime.now();
+        currentWeek = now.toLocalDate().with(DayOfWeek.MONDAY);
+        futureWeek = currentWeek.plusWeeks(1);
+        emptyTimeline = BookingTimeline.of(List.of());
+
+        User self = User.builder().userId(USER_ID).fullName("Self").build();
+        User other = User.builder().userId(2L).fullName("Other").build();
+        List<UsageBooking> bookings = new ArrayList<>();
+        long id = 1;
+        for (int day = 0; day < 7; day++) {
+            LocalDate date = futureWeek.plusDays(day);
+            for (int hour = 0; hour < 24; hour += 4) {
+                bookings.add(UsageBooking.builder()
+                        .id(id++)
+                        .user(hour % 8 == 0 ? self : other)
+                        .startDateTime(date.atTime(hour, 0))
+                        .endDateTime(date.atTime(hour + 3, 0))
+                        .status(BookingStatus.CONFIRMED)
+                        .build());
+            }
+        }
+        bookedTimeline = BookingTimeline.of(bookings);
+    }
+
+    @Benchmark
+    public void emptyWeek(Blackhole blackhole) {
+        renderWeek(emptyTimeline, futureWeek, blackhole);
+    }
+
+    @Benchmark
+    public void bookedWeek(Blackhole blackhole) {
+        renderWeek(bookedTimeline, futureWeek, blackhole);
+    }
+
+    @Benchmark
+    public void currentWeek(Blackhole blackhole) {
+        renderWeek(emptyTimeline, currentWeek, blackhole);
+    }
+
+    private void renderWeek(BookingTimeline timeline, LocalDate weekStart, Blackhole blackhole) {
+        WeeklyCalendarService.SlotSweep sweep = new WeeklyCalendarService.SlotSweep(timeline);
+        for (int day = 0; day < 7; day++) {
+            DailySlotResponseDTO daily = WeeklyCalendarService.createDailySlot(sweep, weekStart.plusDays(day), USER_ID, now);
+            blackhole.consume(daily);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CalendarSlotBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.dto.DailySlotResponseDTO;
+import com.group8.evcoownership.dto.TimeSlotResponseDTO;
+import com.group8.evcoownership.entity.UsageBooking;
+import com.group8.evcoownership.entity.User;
+import com.group8.evcoownership.enums.BookingStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalendarSlotLayoutTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Test
+    void slots_ShouldKeepUiLayoutAndLabels() {
+        List<CalendarSlotLayout.Slot> slots = CalendarSlotLayout.SLOTS;
+
+        assertEquals(12, slots.size());
+        assertEquals("00:00-03:00", slots.get(0).label());
+        assertEquals("03:00-04:00", slots.get(1).label());
+        assertEquals("23:00-00:00+1", slots.get(11).label());
+        assertTrue(slots.get(11).maintenance());
+        assertFalse(slots.get(10).maintenance());
+
+        LocalDate date = LocalDate.of(2026, 1, 5);
+        assertEquals(date.plusDays(1).atStartOfDay(), slots.get(11).endOn(date));
+    }
+
+    @Test
+    void createDailySlot_DaysWithoutBookings_ShouldShareStaticLists() {
+        // Given
+        LocalDateTime now = LocalDate.of(2026, 1, 7).atTime(10, 0);
+        WeeklyCalendarService.SlotSweep sweep = new WeeklyCalendarService.SlotSweep(BookingTimeline.of(List.of()));
+
+        // When
+        DailySlotResponseDTO past = WeeklyCalendarService.createDailySlot(sweep, now.toLocalDate().minusDays(1), USER_ID, now);
+        DailySlotResponseDTO today = WeeklyCalendarService.createDailySlot(sweep, now.toLocalDate(), USER_ID, now);
+        DailySlotResponseDTO future = WeeklyCalendarService.createDailySlot(sweep, now.toLocalDate().plusDays(1), USER_ID, now);
+
+        // Then
+        assertSame(CalendarSlotLayout.LOCKED_DAY, past.getSlots());
+        assertSame(CalendarSlotLayout.AVAILABLE_DAY, future.getSlots());
+
+        // Hôm nay 10:00: 08-11 đã quá 20 phút => LOCKED, 12-15 còn trống
+        assertEquals("LOCKED", today.getSlots().get(4).getStatus());
+        assertEquals("AVAILABLE", today.getSlots().get(6).getStatus());
+        assertSame(CalendarSlotLayout.SLOTS.get(6).availableSlot(), today.getSlots().get(6));
+        assertEquals("MAINTENANCE", today.getSlots().get(5).getType());
+    }
+
+    @Test
+    void createDailySlot_BookedSlots_ShouldPreferConfirmedAndIncludeOvernight() {
+        // Given - booking qua đêm từ 22:00 hôm trước tới 02:00, booking COMPLETED và CONFIRMED cùng trùng slot 08-11
+        LocalDate date = LocalDate.of(2026, 1, 8);
+        LocalDateTime now = date.minusDays(3).atStartOfDay();
+        User self = User.builder().userId(USER_ID).fullName("Self").build();
+        User other = User.builder().userId(2L).fullName("Other").build();
+        WeeklyCalendarService.SlotSweep sweep = new WeeklyCalendarService.SlotSweep(BookingTimeline.of(List.of(
+                booking(1L, other, date.minusDays(1).atTime(22, 0), date.atTime(2, 0), BookingStatus.CONFIRMED),
+                booking(2L, other, date.atTime(7, 30), date.atTime(8, 30), BookingStatus.COMPLETED),
+                booking(3L, self, date.atTime(9, 0), date.atTime(10, 0), BookingStatus.CONFIRMED))));
+
+        // When
+        List<TimeSlotResponseDTO> slots = WeeklyCalendarService.createDailySlot(sweep, date, USER_ID, now).getSlots();
+
+        // Then
+        assertEquals(1L, slots.get(0).getBookingId());
+        assertEquals("BOOKED_OTHER", slots.get(0).getType());
+        assertEquals(3L, slots.get(4).getBookingId());
+        assertEquals("BOOKED_SELF", slots.get(4).getType());
+        assertEquals("08:00-11:00", slots.get(4).getTime());
+        assertTrue(slots.get(6).isBookable());
+    }
+
+    private UsageBooking booking(Long id, User user, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return UsageBooking.builder()
+                .id(id)
+                .user(user)
+                .startDateTime(start)
+                .endDateTime(end)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.group8.evcoownership.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DashboardSectionExecutorTest {
+
+    private final DashboardSectionExecutor executor = new DashboardSectionExecutor(2, 200);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void join_AllSectionsSucceed_ReturnsResultsWithoutUnavailableSections() {
+        DashboardSectionExecutor.Fanout fanout = executor.start();
+        DashboardSectionExecutor.Section<Long> first = fanout.submit("first", () -> 1L);
+        DashboardSectionExecutor.Section<Long> second = fanout.submit("second", () -> 2L);
+
+        assertEquals(1L, fanout.join(first, 0L));
+        assertEquals(2L, fanout.join(second, 0L));
+        assertNull(fanout.unavailableSections());
+    }
+
+    @Test
+    void join_SlowAndFailingSections_ReturnFallbackAndAreListed() {
+        DashboardSectionExecutor.Fanout fanout = executor.start();
+        DashboardSectionExecutor.Section<Long> slow = fanout.submit("slow", () -> {
+            awaitRelease();
+            return 1L;
+        });
+        DashboardSectionExecutor.Section<Long> failing = fanout.submit("failing", () -> {
+            throw new IllegalStateException("boom");
+        });
+        DashboardSectionExecutor.Section<Long> fast = fanout.submit("fast", () -> 3L);
+
+        long started = System.nanoTime();
+        assertEquals(-1L, fanout.join(slow, -1L));
+        assertEquals(-1L, fanout.join(failing, -1L));
+        assertEquals(3L, fanout.join(fast, -1L));
+
+        // Hạn chờ chung: phần chậm không làm các phần sau chờ thêm
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 2_000);
+        assertEquals(List.of("slow", "failing"), fanout.unavailableSections());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
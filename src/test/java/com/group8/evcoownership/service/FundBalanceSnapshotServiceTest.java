@@ -0,0 +1,157 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.dto.FundBalancePointDTO;
+import com.group8.evcoownership.entity.SharedFund;
+import com.group8.evcoownership.entity.SharedFundBalanceSnapshot;
+import com.group8.evcoownership.entity.SharedFundBalanceSnapshotId;
+import com.group8.evcoownership.repository.FundJournalRepository;
+import com.group8.evcoownership.repository.SharedFundBalanceSnapshotRepository;
+import com.group8.evcoownership.repository.SharedFundRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FundBalanceSnapshotServiceTest {
+
+    private static final Long FUND_ID = 1L;
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    @Mock
+    private SharedFundBalanceSnapshotRepository snapshotRepository;
+
+    @Mock
+    private SharedFundRepository fundRepo;
+
+    @Mock
+    private FundJournalRepository journalRepository;
+
+    @InjectMocks
+    private FundBalanceSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(snapshotService, "maxHistoryDays", 366);
+    }
+
+    @Test
+    void record_FirstChangeOfDay_KeepsOpeningBalance() {
+        when(snapshotRepository.findById(any())).thenReturn(Optional.empty());
+
+        snapshotService.record(FUND_ID, LocalDate.now(), new BigDecimal("100"), new BigDecimal("150"), 1);
+
+        ArgumentCaptor<SharedFundBalanceSnapshot> saved = ArgumentCaptor.forClass(SharedFundBalanceSnapshot.class);
+        verify(snapshotRepository).save(saved.capture());
+        assertEquals(LocalDate.now().atStartOfDay(), saved.getValue().getId().getDay());
+        assertEquals(new BigDecimal("100"), saved.getValue().getOpeningBalance());
+        assertEquals(new BigDecimal("150"), saved.getValue().getClosingBalance());
+        assertEquals(1L, saved.getValue().getTransactionCount());
+    }
+
+    @Test
+    void record_LaterChangeOfDay_UpdatesClosingBalanceOnly() {
+        SharedFundBalanceSnapshot existing = snapshot(LocalDate.now(), "100", "150");
+        existing.setTransactionCount(1L);
+        when(snapshotRepository.findById(any())).thenReturn(Optional.of(existing));
+
+        snapshotService.record(FUND_ID, LocalDate.now(), new BigDecimal("150"), new BigDecimal("120"), 2);
+
+        assertEquals(new BigDecimal("100"), existing.getOpeningBalance());
+        assertEquals(new BigDecimal("120"), existing.getClosingBalance());
+        assertEquals(3L, existing.getTransactionCount());
+    }
+
+    @Test
+    void getBalanceHistory_CarriesBalanceForwardBetweenSnapshots() {
+        when(fundRepo.findById(FUND_ID)).thenReturn(Optional.of(fund("500")));
+        // Không có snapshot trước khoảng => số dư đầu kỳ = OpeningBalance của snapshot đầu tiên
+        when(snapshotRepository.findFirstByIdFundIdAndIdDayLessThanEqualOrderByIdDayDesc(FUND_ID, DAY.minusDays(1).atStartOfDay()))
+                .thenReturn(Optional.empty());
+        when(snapshotRepository.findFirstByIdFundIdAndIdDayGreaterThanOrderByIdDayAsc(FUND_ID, DAY.minusDays(1).atStartOfDay()))
+                .thenReturn(Optional.of(snapshot(DAY.plusDays(1), "200", "300")));
+        when(snapshotRepository.findByFundAndDayRange(FUND_ID, DAY.atStartOfDay(), DAY.plusDays(4).atStartOfDay()))
+                .thenReturn(List.of(snapshot(DAY.plusDays(1), "200", "300"), snapshot(DAY.plusDays(3), "300", "250")));
+
+        List<FundBalancePointDTO> history = snapshotService.getBalanceHistory(FUND_ID, DAY, DAY.plusDays(4));
+
+        assertEquals(List.of("200", "300", "300", "250", "250"),
+                history.stream().map(point -> point.balance().toPlainString()).toList());
+        assertEquals(DAY.plusDays(4), history.get(4).date());
+    }
+
+    @Test
+    void getBalanceAt_NoSnapshots_ReturnsCurrentBalance() {
+        when(fundRepo.findById(FUND_ID)).thenReturn(Optional.of(fund("500")));
+        when(snapshotRepository.findFirstByIdFundIdAndIdDayLessThanEqualOrderByIdDayDesc(any(), any()))
+                .thenReturn(Optional.empty());
+        when(snapshotRepository.findFirstByIdFundIdAndIdDayGreaterThanOrderByIdDayAsc(any(), any()))
+                .thenReturn(Optional.empty());
+
+        assertEquals(new BigDecimal("500"), snapshotService.getBalanceAt(FUND_ID, DAY).balance());
+    }
+
+    @Test
+    void getBalanceHistory_PendingJournal_AddedFromTodayOnward() {
+        // Nhật ký chưa materialize sẽ vào snapshot của ngày materialize => không cộng vào các ngày đã qua
+        LocalDate today = LocalDate.now();
+        when(fundRepo.findById(FUND_ID)).thenReturn(Optional.of(fund("500")));
+        when(snapshotRepository.findFirstByIdFundIdAndIdDayLessThanEqualOrderByIdDayDesc(FUND_ID, today.minusDays(2).atStartOfDay()))
+                .thenReturn(Optional.of(snapshot(today.minusDays(2), "400", "500")));
+        when(snapshotRepository.findByFundAndDayRange(FUND_ID, today.minusDays(1).atStartOfDay(), today.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of());
+        when(journalRepository.sumPendingByFund(FUND_ID)).thenReturn(new BigDecimal("40"));
+
+        List<FundBalancePointDTO> history = snapshotService.getBalanceHistory(FUND_ID, today.minusDays(1), today.plusDays(1));
+
+        assertEquals(List.of("500", "540", "540"),
+                history.stream().map(point -> point.balance().toPlainString()).toList());
+    }
+
+    @Test
+    void getBalanceAt_PendingJournal_OnlyAddedFromToday() {
+        when(fundRepo.findById(FUND_ID)).thenReturn(Optional.of(fund("500")));
+        when(snapshotRepository.findFirstByIdFundIdAndIdDayLessThanEqualOrderByIdDayDesc(any(), any()))
+                .thenReturn(Optional.empty());
+        when(snapshotRepository.findFirstByIdFundIdAndIdDayGreaterThanOrderByIdDayAsc(any(), any()))
+                .thenReturn(Optional.empty());
+        when(journalRepository.sumPendingByFund(FUND_ID)).thenReturn(new BigDecimal("70"));
+
+        assertEquals(new BigDecimal("500"), snapshotService.getBalanceAt(FUND_ID, DAY).balance());
+        assertEquals(new BigDecimal("570"), snapshotService.getBalanceAt(FUND_ID, LocalDate.now()).balance());
+        verify(journalRepository, times(1)).sumPendingByFund(FUND_ID);
+    }
+
+    @Test
+    void getBalanceHistory_InvalidRange_Throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> snapshotService.getBalanceHistory(FUND_ID, DAY, DAY.minusDays(1)));
+        verifyNoInteractions(snapshotRepository, fundRepo);
+    }
+
+    private static SharedFund fund(String balance) {
+        return SharedFund.builder().fundId(FUND_ID).balance(new BigDecimal(balance)).build();
+    }
+
+    private static SharedFundBalanceSnapshot snapshot(LocalDate day, String opening, String closing) {
+        return SharedFundBalanceSnapshot.builder()
+                .id(new SharedFundBalanceSnapshotId(FUND_ID, day.atStartOfDay()))
+                .openingBalance(new BigDecimal(opening))
+                .closingBalance(new BigDecimal(closing))
+                .transactionCount(1L)
+                .build();
+    }
+}
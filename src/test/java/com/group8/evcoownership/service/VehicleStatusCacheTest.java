@@ -0,0 +1,131 @@
+package com.group8.evcoownership.service;
+
+import com.group8.evcoownership.entity.VehicleCheck;
+import com.group8.evcoownership.repository.IncidentRepository;
+import com.group8.evcoownership.repository.MaintenanceRepository;
+import com.group8.evcoownership.repository.UsageBookingRepository;
+import com.group8.evcoownership.repository.VehicleCheckRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VehicleStatusCacheTest {
+
+    private static final Long VEHICLE_ID = 1L;
+    private static final Long GROUP_ID = 10L;
+
+    @Mock
+    private UsageBookingRepository usageBookingRepository;
+
+    @Mock
+    private VehicleCheckRepository vehicleCheckRepository;
+
+    @Mock
+    private MaintenanceRepository maintenanceRepository;
+
+    @Mock
+    private IncidentRepository incidentRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private VehicleStatusCache vehicleStatusCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        vehicleStatusCache = new VehicleStatusCache(usageBookingRepository, vehicleCheckRepository,
+                maintenanceRepository, incidentRepository, meterRegistry);
+        ReflectionTestUtils.setField(vehicleStatusCache, "maxAgeSeconds", 300L);
+    }
+
+    @Test
+    void get_SecondCallShouldHitCacheAndRecordSavedQueries() {
+        // Given
+        when(vehicleCheckRepository.findLatestPostUseCheckByVehicleAndGroup(eq(VEHICLE_ID), eq(GROUP_ID), any(Pageable.class)))
+                .thenReturn(List.of(postUseCheck(82, 12000)));
+
+        // When
+        VehicleStatusCache.VehicleStatus first = vehicleStatusCache.get(VEHICLE_ID, GROUP_ID);
+        VehicleStatusCache.VehicleStatus second = vehicleStatusCache.get(VEHICLE_ID, GROUP_ID);
+
+        // Then - không có booking hoàn thành: 1 + 1 (dự phòng) + 1 + 1 + 3 = 7 query
+        assertSame(first, second);
+        assertEquals(82, second.batteryPercent());
+        assertEquals(12000, second.odometer());
+        assertEquals("Good", second.vehicleStatus());
+        assertEquals("NO_ISSUE", second.maintenanceStatus());
+        assertEquals(7, second.queryCount());
+        verify(vehicleCheckRepository, times(1))
+                .findLatestPostUseCheckByVehicleAndGroup(eq(VEHICLE_ID), eq(GROUP_ID), any(Pageable.class));
+
+        assertEquals(1.0, meterRegistry.get("calendar.vehicle_status.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("calendar.vehicle_status.cache.requests").tag("result", "miss").counter().count());
+        assertEquals(0.5, meterRegistry.get("calendar.vehicle_status.cache.hit_ratio").gauge().value());
+        assertEquals(7.0, meterRegistry.get("calendar.vehicle_status.cache.queries_saved").summary().totalAmount());
+    }
+
+    @Test
+    void onVehicleStatusChanged_ShouldReloadFromRepositories() {
+        // Given
+        when(incidentRepository.existsUnresolvedIncidentsByVehicleIdAndGroupId(VEHICLE_ID, GROUP_ID))
+                .thenReturn(false)
+                .thenReturn(true);
+
+        // When
+        String before = vehicleStatusCache.get(VEHICLE_ID, GROUP_ID).vehicleStatus();
+        vehicleStatusCache.onVehicleStatusChanged(new VehicleStatusCache.VehicleStatusChangedEvent(VEHICLE_ID));
+        String after = vehicleStatusCache.get(VEHICLE_ID, GROUP_ID).vehicleStatus();
+
+        // Then
+        assertEquals("Good", before);
+        assertEquals("Has Issues", after);
+        verify(incidentRepository, times(2)).existsUnresolvedIncidentsByVehicleIdAndGroupId(VEHICLE_ID, GROUP_ID);
+    }
+
+    @Test
+    void invalidate_OtherVehicleShouldKeepEntry() {
+        // When
+        vehicleStatusCache.get(VEHICLE_ID, GROUP_ID);
+        vehicleStatusCache.invalidate(2L);
+        vehicleStatusCache.get(VEHICLE_ID, GROUP_ID);
+
+        // Then
+        verify(maintenanceRepository, times(1)).existsActiveMaintenance(VEHICLE_ID, GROUP_ID);
+    }
+
+    @Test
+    void get_ExpiredEntryShouldReload() {
+        // Given
+        ReflectionTestUtils.setField(vehicleStatusCache, "maxAgeSeconds", 0L);
+
+        // When
+        vehicleStatusCache.get(VEHICLE_ID, GROUP_ID);
+        vehicleStatusCache.get(VEHICLE_ID, GROUP_ID);
+
+        // Then
+        verify(maintenanceRepository, times(2)).existsActiveMaintenance(VEHICLE_ID, GROUP_ID);
+        assertEquals(0.0, meterRegistry.get("calendar.vehicle_status.cache.hit_ratio").gauge().value());
+    }
+
+    private VehicleCheck postUseCheck(int battery, int odometer) {
+        return VehicleCheck.builder()
+                .checkType("POST_USE")
+                .batteryLevel(BigDecimal.valueOf(battery))
+                .odometer(odometer)
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.group8.evcoownership.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VnPaySigner phải cho đúng chuỗi mà cách cũ (stream sort + URLEncoder + Mac mới mỗi lần) tạo ra
+ */
+class VnPaySignerTest {
+
+    private static final String SECRET = "TESTSECRETKEY0123456789";
+
+    private final VnPaySigner signer = new VnPaySigner(SECRET);
+
+    @Test
+    void signedQuery_PaymentParams_MatchesLegacyHashAndQuery() {
+        Map<String, String> params = paymentParams();
+
+        assertEquals(legacySignedQuery(params), signer.signedQuery(params));
+    }
+
+    @Test
+    void signedQuery_WithSecureHashType_InsertsBothAtSortedPosition() {
+        Map<String, String> params = paymentParams();
+        params.put("vnp_SecureHashType", "HmacSHA512");
+
+        String query = signer.signedQuery(params);
+
+        assertEquals(legacySignedQuery(params), query);
+        assertTrue(query.contains("&vnp_SecureHash=" + legacySign(legacyHashData(params))
+                + "&vnp_SecureHashType=HmacSHA512&vnp_TmnCode="));
+    }
+
+    @Test
+    void signedQuery_NoKeyAfterSecureHash_AppendsSignature() {
+        Map<String, String> params = new HashMap<>();
+        params.put("vnp_Amount", "100000");
+        params.put("vnp_Command", "pay");
+
+        assertEquals(legacySignedQuery(params), signer.signedQuery(params));
+    }
+
+    @Test
+    void signedQuery_NonVnpParameters_InQueryButNotHashed() {
+        Map<String, String> params = paymentParams();
+        String expectedHash = legacySign(legacyHashData(params));
+        params.put("Source", "web");
+        params.put("groupId", "1");
+        params.put("zeta", "a b");
+
+        String query = signer.signedQuery(params);
+
+        assertEquals(legacySignedQuery(params), query);
+        assertTrue(query.contains("groupId=1&vnp_Amount="));
+        assertTrue(query.endsWith("&zeta=a+b"));
+        assertTrue(query.contains("&vnp_SecureHash=" + expectedHash + "&"));
+    }
+
+    @Test
+    void appendEncoded_SpecialAndUnicodeCharacters_MatchesUrlEncoder() {
+        String value = "Thanh toán đơn hàng: 50% & ~*._- 😀 \uD800 /?=";
+        StringBuilder sb = new StringBuilder();
+
+        VnPaySigner.appendEncoded(sb, value);
+
+        assertEquals(URLEncoder.encode(value, StandardCharsets.UTF_8), sb.toString());
+    }
+
+    @Test
+    void sign_MatchesFreshMac() {
+        assertEquals(legacySign("vnp_Amount=100&vnp_OrderInfo=Thanh+toan"), signer.sign("vnp_Amount=100&vnp_OrderInfo=Thanh+toan"));
+        assertEquals(legacySign("không phải ASCII"), signer.sign("không phải ASCII"));
+    }
+
+    @Test
+    void verify_CallbackParams_AcceptsValidAndRejectsTampered() {
+        Map<String, String> callback = paymentParams();
+        callback.put("vnp_ResponseCode", "00");
+        callback.put("vnp_SecureHash", legacySign(legacyHashData(callback)).toUpperCase());
+        callback.put("vnp_SecureHashType", "HmacSHA512");
+        callback.put("groupId", "12");
+        callback.put("type", "fund");
+
+        assertTrue(signer.verify(callback));
+
+        callback.put("vnp_Amount", "1");
+        assertFalse(signer.verify(callback));
+
+        callback.remove("vnp_SecureHash");
+        assertFalse(signer.verify(callback));
+    }
+
+    private static Map<String, String> paymentParams() {
+        Map<String, String> params = new HashMap<>();
+        params.put("vnp_Version", "2.1.0");
+        params.put("vnp_Command", "pay");
+        params.put("vnp_TmnCode", "TMN01");
+        params.put("vnp_CurrCode", "VND");
+        params.put("vnp_OrderInfo", "Thanh toan don hang:12345678");
+        params.put("vnp_OrderType", "other");
+        params.put("vnp_Locale", "vn");
+        params.put("vnp_CreateDate", "20251017103000");
+        params.put("vnp_ExpireDate", "20251017104500");
+        params.put("vnp_ReturnUrl", "http://localhost:8080/api/funds/payments/callback?groupId=12&type=fund");
+        params.put("vnp_Amount", "50000000");
+        params.put("vnp_IpAddr", "127.0.0.1");
+        params.put("vnp_TxnRef", "FUND-12-1729130000");
+        params.put("vnp_BankCode", "");
+        return params;
+    }
+
+    // Cách cũ của VnPay_PaymentService
+    private static String legacySignedQuery(Map<String, String> params) {
+        Map<String, String> copy = new HashMap<>(params);
+        copy.put("vnp_SecureHash", legacySign(legacyHashData(copy)));
+        return copy.entrySet().stream()
+                .filter(e -> e.getValue() != null && !e.getValue().isEmpty())
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> enc(e.getKey()) + "=" + enc(e.getValue()))
+                .collect(Collectors.joining("&"));
+    }
+
+    private static String legacyHashData(Map<String, String> params) {
+        return params.entrySet().stream()
+                .filter(e -> e.getKey().startsWith("vnp_"))
+                .filter(e -> e.getValue() != null && !e.getValue().isEmpty())
+                .filter(e -> !"vnp_SecureHash".equals(e.getKey()))
+                .filter(e -> !"vnp_SecureHashType".equals(e.getKey()))
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> enc(e.getKey()) + "=" + enc(e.getValue()))
+                .collect(Collectors.joining("&"));
+    }
+
+    private static String legacySign(String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA512");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+            return HexFormat.of().formatHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String enc(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+}